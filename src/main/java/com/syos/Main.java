@@ -1,70 +1,217 @@
 package com.syos;
 
 import com.syos.entities.*;
-import com.syos.frameworks.database.*;
+import com.syos.frameworks.exports.CsvBillExportSink;
+import com.syos.frameworks.exports.NdjsonBillExportSink;
+import com.syos.frameworks.imports.DelimitedFileRecordSource;
+import com.syos.frameworks.persistence.*;
+import com.syos.frameworks.server.RequestServer;
 import com.syos.usecases.*;
-import com.syos.usecases.observers.InventorySubject;
-import com.syos.usecases.observers.StockAlertObserver;
+import com.syos.usecases.exports.BillExportSink;
+import com.syos.usecases.exports.ExportBillsUseCase;
+import com.syos.usecases.catalog.CatalogView;
+import com.syos.usecases.imports.BulkImportUseCase;
+import com.syos.usecases.imports.ImportResult;
+import com.syos.usecases.imports.ImportType;
+import com.syos.usecases.imports.RecordSource;
+import com.syos.usecases.ledger.InventoryLedger;
+import com.syos.usecases.offline.OfflineSaleProcessor;
 import com.syos.usecases.reports.*;
+import com.syos.usecases.search.BarcodeIndex;
+import com.syos.usecases.search.ProductSearchIndex;
 import com.syos.usecases.repositories.*;
-import com.syos.usecases.strategies.ExpiryPriorityStockSelectionStrategy;
-import com.syos.usecases.strategies.StockSelectionStrategy;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
 
 public class Main {
     private static ProductRepository productRepository;
     private static BillRepository billRepository;
     private static InventoryRepository inventoryRepository;
     private static StockBatchRepository stockBatchRepository;
-    private static UserRepository userRepository;
+    private static TransactionManager transactionManager;
 
-    private static ProcessSaleUseCase processSaleUseCase;
+    private static SaleProcessor saleProcessor;
     private static AddStockBatchUseCase addStockBatchUseCase;
+    private static ReceiveStockDeliveryUseCase receiveStockDeliveryUseCase;
+    private static BulkImportUseCase bulkImportUseCase;
+    private static ExportBillsUseCase exportBillsUseCase;
     private static TransferStockUseCase transferStockUseCase;
+    private static ArchiveStockBatchesUseCase archiveStockBatchesUseCase;
     private static RegisterUserUseCase registerUserUseCase;
     private static AuthenticateUserUseCase authenticateUserUseCase;
 
-    private static InventorySubject inventorySubject;
-    private static StockSelectionStrategy stockSelectionStrategy;
+    private static InventoryLedger inventoryLedger;
+    private static CatalogView catalogView;
+    private static ProductSearchIndex productSearchIndex;
+    private static BarcodeIndex barcodeIndex;
+    private static ManageBarcodesUseCase manageBarcodesUseCase;
+    private static final List<StoreContext> stores = new ArrayList<>();
+    private static String storeId;
     private static Scanner scanner;
+    private static final int DEFAULT_SERVER_PORT = 8080;
+    private static final String USAGE =
+            "Usage: java -cp ... com.syos.Main [--serve[=<port 1-65535>]] [--convert-data=binary|json]";
+    private static final int SEARCH_RESULT_LIMIT = 20;
+    private static final int SUGGESTION_LIMIT = 5;
     private static User currentUser = null;
 
     public static void main(String[] args) {
         System.out.println("\n=== SYOS - Synex Outlet Store Management System ===\n");
-        initializeSystem();
+        // Stores served by this process: -Dsyos.stores=<id>[,<id>...] (default "main")
+        List<String> storeIds;
+        try {
+            storeIds = configuredStoreIds();
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage());
+            return;
+        }
+        if (storeIds.size() > 1 || !Store.isDefault(storeIds.get(0))) {
+            System.out.println("✓ Serving store(s): " + String.join(", ", storeIds));
+        }
+        for (String arg : args) {
+            if (arg.startsWith("--convert-data=")) {
+                convertDataFiles(storeIds, arg.substring("--convert-data=".length()));
+                return;
+            }
+        }
+        // Checked before anything generates an ID, so a bad setting is reported here rather than
+        // as a class initialization error. A JSON data directory belongs to one process, so it
+        // needs no distinct node ID.
+        if ("json".equalsIgnoreCase(System.getProperty("syos.backend", "mysql"))
+                && System.getProperty("syos.node-id") == null) {
+            System.setProperty("syos.node-id", "0");
+        }
+        try {
+            SnowflakeIdGenerator.configuredNodeId();
+        } catch (IllegalStateException e) {
+            System.out.println("❌ " + e.getMessage());
+            return;
+        }
+        int serverPort = 0;
+        for (String arg : args) {
+            if (arg.equals("--serve")) {
+                serverPort = DEFAULT_SERVER_PORT;
+            } else if (arg.startsWith("--serve=")) {
+                serverPort = parsePort(arg.substring("--serve=".length()));
+                if (serverPort == 0) {
+                    System.out.println("❌ Invalid port: " + arg.substring("--serve=".length()));
+                    System.out.println(USAGE);
+                    return;
+                }
+            }
+        }
+        initializeSystem(storeIds, serverPort > 0);
+        if (serverPort > 0) {
+            serveRequests(serverPort);
+            return;
+        }
         runMainMenu();
     }
 
-    private static void initializeSystem() {
-        productRepository = new MySQLProductRepository();
-        billRepository = new MySQLBillRepository();
-        inventoryRepository = new MySQLInventoryRepository();
-        stockBatchRepository = new MySQLStockBatchRepository();
-        userRepository = new MySQLUserRepository();
+    /**
+     * The first store is the one the console works on, and the one requests
+     * without an X-Store-Id header are served from.
+     */
+    private static List<String> configuredStoreIds() {
+        Set<String> storeIds = new LinkedHashSet<>();
+        for (String id : System.getProperty("syos.stores", Store.DEFAULT_ID).split(",")) {
+            storeIds.add(Store.validateId(id.trim()));
+        }
+        return new ArrayList<>(storeIds);
+    }
 
-        inventorySubject = new InventorySubject();
-        inventorySubject.attach(new StockAlertObserver());
+    /**
+     * @return the port, or 0 if the value is not a port number
+     */
+    private static int parsePort(String value) {
+        try {
+            int port = Integer.parseInt(value);
+            return port >= 1 && port <= 65535 ? port : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
 
-        stockSelectionStrategy = new ExpiryPriorityStockSelectionStrategy();
+    private static void initializeSystem(List<String> storeIds, boolean serving) {
+        // Storage backend: -Dsyos.backend=mysql (default) or -Dsyos.backend=json
+        boolean json = "json".equalsIgnoreCase(System.getProperty("syos.backend", "mysql"));
+        for (String id : storeIds) {
+            StoreContext store = new StoreContext(id, json, serving);
+            store.startBatchArchiving();
+            store.expiryScheduler.start();
+            stores.add(store);
+        }
 
-        processSaleUseCase = new ProcessSaleUseCase(productRepository, billRepository,
-                inventoryRepository, stockBatchRepository, stockSelectionStrategy, inventorySubject);
-        addStockBatchUseCase = new AddStockBatchUseCase(productRepository, stockBatchRepository,
-                inventoryRepository, inventorySubject);
-        transferStockUseCase = new TransferStockUseCase(inventoryRepository, stockBatchRepository,
-                stockSelectionStrategy, inventorySubject);
-        registerUserUseCase = new RegisterUserUseCase(userRepository);
-        authenticateUserUseCase = new AuthenticateUserUseCase(userRepository);
+        StoreContext store = stores.get(0);
+        storeId = store.storeId;
+        productRepository = store.productRepository;
+        billRepository = store.billRepository;
+        inventoryRepository = store.inventoryRepository;
+        stockBatchRepository = store.stockBatchRepository;
+        transactionManager = store.transactionManager;
+        saleProcessor = store.saleProcessor;
+        addStockBatchUseCase = store.addStockBatchUseCase;
+        receiveStockDeliveryUseCase = store.receiveStockDeliveryUseCase;
+        bulkImportUseCase = store.bulkImportUseCase;
+        exportBillsUseCase = store.exportBillsUseCase;
+        transferStockUseCase = store.transferStockUseCase;
+        archiveStockBatchesUseCase = store.archiveStockBatchesUseCase;
+        registerUserUseCase = store.registerUserUseCase;
+        authenticateUserUseCase = store.authenticateUserUseCase;
+        inventoryLedger = store.inventoryLedger;
+        catalogView = store.catalogView;
+        productSearchIndex = store.productSearchIndex;
+        barcodeIndex = store.barcodeIndex;
+        manageBarcodesUseCase = store.manageBarcodesUseCase;
 
         scanner = new Scanner(System.in);
     }
 
+    private static void convertDataFiles(List<String> storeIds, String format) {
+        try {
+            int converted = 0;
+            for (String id : storeIds) {
+                converted += JsonDataStore.forStore(id).convertAll(format);
+            }
+            System.out.println("✓ Converted " + converted + " data file(s) to " + format + " format");
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("❌ Conversion failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serves every till and the online store of every configured store from
+     * this process until the JVM is stopped.
+     */
+    private static void serveRequests(int port) {
+        RequestServer server = stores.get(0).createRequestServer();
+        for (StoreContext store : stores.subList(1, stores.size())) {
+            server.addStore(store.createRequestServer());
+        }
+        try {
+            server.start(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            System.out.println("✓ Serving requests on http://localhost:" + server.getPort() + "/api");
+            Thread.currentThread().join();
+        } catch (IOException e) {
+            System.out.println("❌ Could not start server: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.stop();
+        }
+    }
+
     private static void runMainMenu() {
         while (true) {
             System.out.println("\n=== MAIN MENU ===");
@@ -81,10 +228,17 @@ public class Main {
                     pointOfSaleMenu();
                     break;
                 case 2:
-                    inventoryMenu();
+                    // Back-office work uses its own connections so it never holds up the tills
+                    transactionManager.inWorkload(Workload.INVENTORY, () -> {
+                        inventoryMenu();
+                        return null;
+                    });
                     break;
                 case 3:
-                    stockManagementMenu();
+                    transactionManager.inWorkload(Workload.INVENTORY, () -> {
+                        stockManagementMenu();
+                        return null;
+                    });
                     break;
                 case 4:
                     onlineStoreMenu();
@@ -106,13 +260,20 @@ public class Main {
         List<ProcessSaleUseCase.SaleRequest.SaleItem> items = new ArrayList<>();
 
         while (true) {
-            System.out.print("\nEnter product code (or 'done' to checkout): ");
+            System.out.print("\nScan barcode or enter product code (or 'done' to checkout): ");
             String code = scanner.nextLine().trim();
             if (code.equalsIgnoreCase("done"))
                 break;
 
+            Product scanned = barcodeIndex.find(code);
+            if (scanned != null) {
+                code = scanned.getCode();
+                System.out.println(scanned.getName());
+            }
+
             if (!productRepository.exists(code)) {
                 System.out.println("Product not found!");
+                printSearchResults(productSearchIndex.search(code, SUGGESTION_LIMIT), "Did you mean:");
                 continue;
             }
 
@@ -152,7 +313,7 @@ public class Main {
         }
 
         try {
-            Bill bill = processSaleUseCase.execute(new ProcessSaleUseCase.SaleRequest(
+            Bill bill = processSale(new ProcessSaleUseCase.SaleRequest(
                     items, cash, Bill.TransactionType.COUNTER, null));
             System.out.println("\nSale completed successfully!");
             printBill(bill);
@@ -161,6 +322,17 @@ public class Main {
         }
     }
 
+    private static Bill processSale(ProcessSaleUseCase.SaleRequest request) throws ProcessSaleUseCase.SaleException {
+        Bill bill = saleProcessor.process(request);
+        if (saleProcessor instanceof OfflineSaleProcessor) {
+            int pending = ((OfflineSaleProcessor) saleProcessor).getPendingCount();
+            if (pending > 0) {
+                System.out.println("✓ " + pending + " offline sale(s) waiting to be synchronized");
+            }
+        }
+        return bill;
+    }
+
     private static void printBill(Bill bill) {
         DateTimeFormatter dateFmt = DateTimeFormatter.ofPattern("dd/MM/yyyy");
         DateTimeFormatter timeFmt = DateTimeFormatter.ofPattern("HH:mm:ss");
@@ -170,10 +342,15 @@ public class Main {
         System.out.println("        ║          S Y O S   S T O R E            ║");
         System.out.println("        ║     Synex Outlet Store (Pvt) Ltd        ║");
         System.out.println("        ╠═════════════════════════════════════════╣");
-        System.out.printf("        ║ BILL NO: %-8d      DATE: %-10s ║%n",
-                bill.getSerialNumber(), bill.getBillDate().format(dateFmt));
+        // Sales taken offline get their serial number when they are synchronized
+        System.out.printf("        ║ BILL NO: %-8s      DATE: %-10s ║%n",
+                bill.getSerialNumber() == 0 ? "PENDING" : String.valueOf(bill.getSerialNumber()),
+                bill.getBillDate().format(dateFmt));
         System.out.printf("        ║ TYPE: %-12s     TIME: %-10s ║%n",
                 bill.getTransactionType(), bill.getBillDate().format(timeFmt));
+        if (!Store.isDefault(bill.getStoreId())) {
+            System.out.printf("        ║ STORE: %-32s ║%n", bill.getStoreId());
+        }
         if (bill.getCustomerId() != null) {
             System.out.printf("        ║ CUSTOMER: %-29s ║%n", bill.getCustomerId());
         }
@@ -215,7 +392,10 @@ public class Main {
             System.out.println("1. View All Products");
             System.out.println("2. Add New Product");
             System.out.println("3. View Inventory Levels");
-            System.out.println("4. Back");
+            System.out.println("4. Import from CSV/TSV");
+            System.out.println("5. Search Products");
+            System.out.println("6. Manage Barcodes");
+            System.out.println("7. Back");
             System.out.print("Select option: ");
 
             switch (getIntInput()) {
@@ -229,6 +409,15 @@ public class Main {
                     viewInventoryLevels();
                     break;
                 case 4:
+                    importFromFile();
+                    break;
+                case 5:
+                    searchProducts();
+                    break;
+                case 6:
+                    manageBarcodes();
+                    break;
+                case 7:
                     return;
                 default:
                     System.out.println("Invalid option.");
@@ -249,6 +438,61 @@ public class Main {
         }
     }
 
+    private static void searchProducts() {
+        System.out.print("Search (code or name): ");
+        List<Product> results = productSearchIndex.search(scanner.nextLine(), SEARCH_RESULT_LIMIT);
+        if (results.isEmpty()) {
+            System.out.println("No matching products.");
+            return;
+        }
+        printSearchResults(results, "");
+    }
+
+    private static void manageBarcodes() {
+        System.out.print("Product Code: ");
+        String code = scanner.nextLine().trim();
+        if (!productRepository.exists(code)) {
+            System.out.println("Product not found!");
+            return;
+        }
+        List<Long> barcodes = barcodeIndex.barcodesOf(code);
+        System.out.println("Barcodes: " + (barcodes.isEmpty() ? "none" : barcodes));
+
+        System.out.println("1. Add Barcode");
+        System.out.println("2. Remove Barcode");
+        System.out.println("3. Back");
+        System.out.print("Select option: ");
+        int option = getIntInput();
+        if (option != 1 && option != 2)
+            return;
+
+        System.out.print("Barcode: ");
+        String barcode = scanner.nextLine().trim();
+        try {
+            if (option == 1) {
+                manageBarcodesUseCase.assign(code, barcode);
+                System.out.println("✓ Barcode assigned");
+            } else {
+                manageBarcodesUseCase.remove(barcode);
+                System.out.println("✓ Barcode removed");
+            }
+        } catch (ManageBarcodesUseCase.BarcodeException e) {
+            System.out.println("❌ " + e.getMessage());
+        }
+    }
+
+    private static void printSearchResults(List<Product> results, String heading) {
+        if (results.isEmpty()) {
+            return;
+        }
+        if (!heading.isEmpty()) {
+            System.out.println(heading);
+        }
+        for (Product p : results) {
+            System.out.printf("  %-10s %-20s Rs.%-7.2f%n", p.getCode(), p.getName(), p.getDiscountedPrice());
+        }
+    }
+
     private static void addNewProduct() {
         System.out.print("Product Code: ");
         String code = scanner.nextLine().trim();
@@ -285,15 +529,59 @@ public class Main {
         try {
             productRepository.save(new Product.Builder().code(code).name(name).unit(unit)
                     .price(price).discountPercentage(discount).build());
-            inventoryRepository.save(new Inventory(code));
             if (qty > 0)
                 addStockBatchUseCase.execute(code, qty, expiryDate);
+            catalogView.invalidate();
             System.out.println("Product added successfully!");
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
         }
     }
 
+    private static void importFromFile() {
+        System.out.println("1. Products (code,name,price[,unit,discount_percentage])");
+        System.out.println("2. Stock Batches (product_code,quantity,expiry_date[,purchase_date])");
+        System.out.println("3. Opening Inventory (product_code[,shelf_quantity,store_quantity,online_quantity])");
+        System.out.print("Select type: ");
+        ImportType type;
+        switch (getIntInput()) {
+            case 1:
+                type = ImportType.PRODUCTS;
+                break;
+            case 2:
+                type = ImportType.STOCK_BATCHES;
+                break;
+            case 3:
+                type = ImportType.OPENING_INVENTORY;
+                break;
+            default:
+                System.out.println("Invalid option.");
+                return;
+        }
+
+        System.out.print("File path (.csv or .tsv, first line is the header): ");
+        String path = scanner.nextLine().trim();
+        System.out.print("Chunk size (Enter for " + BulkImportUseCase.DEFAULT_CHUNK_SIZE + "): ");
+        int chunkSize = getIntInput();
+        if (chunkSize <= 0)
+            chunkSize = BulkImportUseCase.DEFAULT_CHUNK_SIZE;
+
+        try (RecordSource source = new DelimitedFileRecordSource(Paths.get(path))) {
+            ImportResult result = bulkImportUseCase.execute(source, type, chunkSize,
+                    progress -> System.out.printf("  ... %d rows (%.0f rows/sec)%n",
+                            progress.getRowsRead(), progress.getRowsPerSecond()));
+            catalogView.invalidate();
+            System.out.println(result);
+            for (String error : result.getErrors()) {
+                System.out.println("  " + error);
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot read file: " + e.getMessage());
+        } catch (BulkImportUseCase.ImportException e) {
+            System.out.println("Import failed: " + e.getMessage());
+        }
+    }
+
     private static void viewInventoryLevels() {
         List<Inventory> inventories = inventoryRepository.findAll();
         if (inventories.isEmpty()) {
@@ -317,7 +605,10 @@ public class Main {
             System.out.println("2. View Stock Batches");
             System.out.println("3. Transfer to Shelf");
             System.out.println("4. Transfer to Online");
-            System.out.println("5. Back");
+            System.out.println("5. Receive Delivery (bulk)");
+            System.out.println("6. Archive Depleted Batches");
+            System.out.println("7. Archived Batch History");
+            System.out.println("8. Back");
             System.out.print("Select option: ");
 
             switch (getIntInput()) {
@@ -334,6 +625,15 @@ public class Main {
                     transferStock(TransferStockUseCase.TransferType.STORE_TO_ONLINE);
                     break;
                 case 5:
+                    receiveDelivery();
+                    break;
+                case 6:
+                    stores.get(0).archiveStockBatches();
+                    break;
+                case 7:
+                    viewArchivedBatches();
+                    break;
+                case 8:
                     return;
                 default:
                     System.out.println("Invalid option.");
@@ -358,13 +658,7 @@ public class Main {
             if (batchCode.isEmpty()) {
                 addStockBatchUseCase.execute(code, qty, expiryDate);
             } else {
-                StockBatch batch = new StockBatch(batchCode, code, LocalDate.now(), qty, expiryDate);
-                stockBatchRepository.save(batch);
-                inventoryRepository.findByProductCode(code).ifPresent(inv -> {
-                    inv.addToStore(qty);
-                    inventoryRepository.update(inv);
-                    inventorySubject.notifyObservers(inv);
-                });
+                addStockBatchUseCase.addBatch(new StockBatch(storeId, batchCode, code, LocalDate.now(), qty, expiryDate));
             }
             System.out
                     .println("Stock batch added! Batch Code: " + (batchCode.isEmpty() ? "Auto-generated" : batchCode));
@@ -375,6 +669,42 @@ public class Main {
         }
     }
 
+    private static void receiveDelivery() {
+        System.out.println("Enter one line per item as code,quantity,expiry (yyyy-MM-dd). Blank line to finish.");
+        List<ReceiveStockDeliveryUseCase.DeliveryLine> lines = new ArrayList<>();
+
+        while (true) {
+            System.out.print("> ");
+            String line = scanner.nextLine().trim();
+            if (line.isEmpty())
+                break;
+
+            String[] parts = line.split(",");
+            if (parts.length != 3) {
+                System.out.println("Expected code,quantity,expiry");
+                continue;
+            }
+            try {
+                lines.add(new ReceiveStockDeliveryUseCase.DeliveryLine(parts[0].trim(),
+                        Integer.parseInt(parts[1].trim()), LocalDate.parse(parts[2].trim())));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                System.out.println("Invalid line: " + e.getMessage());
+            }
+        }
+
+        if (lines.isEmpty()) {
+            System.out.println("No delivery lines entered.");
+            return;
+        }
+
+        try {
+            List<StockBatch> batches = receiveStockDeliveryUseCase.execute(lines);
+            System.out.println("Delivery received! " + batches.size() + " batch(es) added.");
+        } catch (ReceiveStockDeliveryUseCase.DeliveryException e) {
+            System.out.println("Delivery rejected: " + e.getMessage());
+        }
+    }
+
     private static void viewStockBatches() {
         List<StockBatch> batches = stockBatchRepository.findAll();
         if (batches.isEmpty()) {
@@ -392,6 +722,24 @@ public class Main {
         }
     }
 
+    private static void viewArchivedBatches() {
+        System.out.print("Product Code: ");
+        String code = scanner.nextLine().trim();
+
+        List<StockBatch> batches = archiveStockBatchesUseCase.getArchivedBatches(code);
+        if (batches.isEmpty()) {
+            System.out.println("No archived batches for " + code);
+            return;
+        }
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        System.out.printf("%n%-30s %-12s %-6s %-12s%n", "Batch Code", "Purchased", "Qty", "Expiry");
+        System.out.println("─".repeat(64));
+        for (StockBatch b : batches) {
+            System.out.printf("%-30s %-12s %-6d %-12s%n", b.getBatchId(), b.getPurchaseDate().format(fmt),
+                    b.getQuantity(), b.getExpiryDate().format(fmt));
+        }
+    }
+
     private static void transferStock(TransferStockUseCase.TransferType type) {
         System.out.print("Product Code: ");
         String code = scanner.nextLine().trim();
@@ -503,13 +851,26 @@ public class Main {
     }
 
     private static void browseOnlineProducts(List<ProcessSaleUseCase.SaleRequest.SaleItem> cart) {
-        System.out.printf("%n%-10s %-20s %-12s %-10s%n", "Code", "Name", "Price", "Available");
-        for (Product p : productRepository.findAll()) {
-            int avail = inventoryRepository.findByProductCode(p.getCode()).map(Inventory::getOnlineQuantity).orElse(0);
-            System.out.printf("%-10s %-20s Rs.%-8.2f %-10d%n", p.getCode(), p.getName(), p.getDiscountedPrice(), avail);
+        String afterCode = null;
+        String code;
+        while (true) {
+            List<CatalogEntry> page = catalogView.getPage(afterCode, CatalogView.DEFAULT_PAGE_SIZE);
+            System.out.printf("%n%-10s %-20s %-12s %-10s%n", "Code", "Name", "Price", "Available");
+            for (CatalogEntry entry : page) {
+                Product p = entry.getProduct();
+                System.out.printf("%-10s %-20s Rs.%-8.2f %-10d%n", p.getCode(), p.getName(), p.getDiscountedPrice(),
+                        entry.getOnlineQuantity());
+            }
+            boolean hasMore = page.size() == CatalogView.DEFAULT_PAGE_SIZE;
+            System.out.print(hasMore ? "\nEnter product code, 'n' for next page (or 'back'): "
+                    : "\nEnter product code (or 'back'): ");
+            code = scanner.nextLine().trim();
+            if (hasMore && code.equalsIgnoreCase("n")) {
+                afterCode = page.get(page.size() - 1).getProductCode();
+                continue;
+            }
+            break;
         }
-        System.out.print("\nEnter product code (or 'back'): ");
-        String code = scanner.nextLine().trim();
         if (code.equalsIgnoreCase("back") || !productRepository.exists(code))
             return;
         System.out.print("Quantity: ");
@@ -547,7 +908,7 @@ public class Main {
                     .mapToDouble(item -> productRepository.findByCode(item.getProductCode()).get().getDiscountedPrice()
                             * item.getQuantity())
                     .sum();
-            Bill bill = processSaleUseCase.execute(new ProcessSaleUseCase.SaleRequest(
+            Bill bill = processSale(new ProcessSaleUseCase.SaleRequest(
                     cart, total, Bill.TransactionType.ONLINE, currentUser.getUserId()));
             System.out.println("\nOrder placed successfully!");
             printBill(bill);
@@ -567,7 +928,9 @@ public class Main {
             System.out.println("3. Reorder Levels Report");
             System.out.println("4. Stock Report");
             System.out.println("5. Bill Report");
-            System.out.println("6. Back");
+            System.out.println("6. Export Bills (CSV/NDJSON)");
+            System.out.println("7. Inventory Movement History");
+            System.out.println("8. Back");
             System.out.print("Select option: ");
 
             switch (getIntInput()) {
@@ -575,21 +938,24 @@ public class Main {
                     generateDailySalesReport();
                     break;
                 case 2:
-                    System.out.println(
-                            "\n" + new ReshelveReport(inventoryRepository, productRepository).generateReport());
+                    printReport(new ReshelveReport(inventoryRepository, productRepository));
                     break;
                 case 3:
-                    System.out.println(
-                            "\n" + new ReorderLevelsReport(inventoryRepository, productRepository).generateReport());
+                    printReport(new ReorderLevelsReport(inventoryRepository, productRepository));
                     break;
                 case 4:
-                    System.out
-                            .println("\n" + new StockReport(stockBatchRepository, productRepository).generateReport());
+                    printReport(new StockReport(stockBatchRepository, productRepository));
                     break;
                 case 5:
                     generateBillReport();
                     break;
                 case 6:
+                    exportBills();
+                    break;
+                case 7:
+                    showInventoryHistory();
+                    break;
+                case 8:
                     return;
                 default:
                     System.out.println("Invalid option.");
@@ -597,17 +963,101 @@ public class Main {
         }
     }
 
+    private static void showInventoryHistory() {
+        System.out.print("Enter product code: ");
+        String code = scanner.nextLine().trim();
+
+        List<InventoryMovement> history = inventoryLedger.getHistory(code);
+        if (history.isEmpty()) {
+            System.out.println("No movements recorded for " + code);
+            return;
+        }
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        System.out.println("\n=== MOVEMENTS: " + code + " ===");
+        System.out.printf("%-19s %-10s %-7s %8s  %s%n", "Time", "Type", "Where", "Change", "Reference");
+        for (InventoryMovement movement : history) {
+            System.out.printf("%-19s %-10s %-7s %+8d  %s%n",
+                    movement.getOccurredAt().format(formatter),
+                    movement.getType(),
+                    movement.getLocation(),
+                    movement.getQuantityDelta(),
+                    movement.getReference() != null ? movement.getReference() : "");
+        }
+
+        inventoryLedger.getCurrentLevels(code).ifPresent(levels -> System.out.println(
+                "Current: Shelf " + levels.getShelfQuantity() + " | Store " + levels.getStoreQuantity()
+                        + " | Online " + levels.getOnlineQuantity()));
+    }
+
     private static void generateDailySalesReport() {
         System.out.print("Enter date (yyyy-MM-dd) or Enter for today: ");
         String dateStr = scanner.nextLine().trim();
         LocalDate date = dateStr.isEmpty() ? LocalDate.now() : LocalDate.parse(dateStr);
         Bill.TransactionType type = getTransactionTypeChoice();
-        System.out.println("\n" + new DailySalesReport(billRepository, date, type).generateReport());
+        printReport(new DailySalesReport(billRepository, date, type));
     }
 
     private static void generateBillReport() {
         Bill.TransactionType type = getTransactionTypeChoice();
-        System.out.println("\n" + new BillReport(billRepository, type).generateReport());
+        int afterSerial = 0;
+        while (true) {
+            BillReport report = new BillReport(billRepository, type, afterSerial, BillReport.DEFAULT_PAGE_SIZE);
+            if (!printReport(report) || report.getNextAfterSerial() == 0) {
+                return;
+            }
+            System.out.print("Enter for the next page, Q to stop: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                return;
+            }
+            afterSerial = report.getNextAfterSerial();
+        }
+    }
+
+    /**
+     * Reports are read-only, so they may be served by the read replica.
+     *
+     * @return false if the report was refused
+     */
+    private static boolean printReport(ReportTemplate report) {
+        try {
+            System.out.println("\n" + transactionManager.readOnly(report::generateReport));
+            return true;
+        } catch (TransactionManager.WorkloadRejectedException e) {
+            System.out.println("❌ " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void exportBills() {
+        try {
+            System.out.print("From date (yyyy-MM-dd) or Enter for today: ");
+            String fromStr = scanner.nextLine().trim();
+            LocalDate from = fromStr.isEmpty() ? LocalDate.now() : LocalDate.parse(fromStr);
+            System.out.print("To date (yyyy-MM-dd) or Enter for same day: ");
+            String toStr = scanner.nextLine().trim();
+            LocalDate to = toStr.isEmpty() ? from : LocalDate.parse(toStr);
+
+            System.out.println("1. CSV  2. NDJSON");
+            System.out.print("Select format: ");
+            boolean ndjson = getIntInput() == 2;
+            System.out.print("Compress with gzip? (yes/no): ");
+            boolean gzip = scanner.nextLine().trim().equalsIgnoreCase("yes");
+            System.out.print("Output directory (Enter for 'exports'): ");
+            String dirStr = scanner.nextLine().trim();
+            Path directory = Files.createDirectories(Paths.get(dirStr.isEmpty() ? "exports" : dirStr));
+
+            String baseName = "sales_" + from + "_" + to;
+            BillExportSink sink = ndjson
+                    ? new NdjsonBillExportSink(directory, baseName, gzip)
+                    : new CsvBillExportSink(directory, baseName, gzip);
+            ExportBillsUseCase.ExportResult result = exportBillsUseCase.execute(from, to, sink);
+            System.out.println(result + " -> " + directory.toAbsolutePath());
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format!");
+        } catch (IOException | ExportBillsUseCase.ExportException e) {
+            System.out.println("Export failed: " + e.getMessage());
+        }
     }
 
     private static Bill.TransactionType getTransactionTypeChoice() {
@@ -0,0 +1,233 @@
+package com.syos;
+
+import com.syos.entities.SnowflakeIdGenerator;
+import com.syos.frameworks.database.*;
+import com.syos.frameworks.persistence.*;
+import com.syos.frameworks.server.RequestServer;
+import com.syos.usecases.*;
+import com.syos.usecases.catalog.CatalogView;
+import com.syos.usecases.credentials.CredentialService;
+import com.syos.usecases.expiry.ExpiryScheduler;
+import com.syos.usecases.exports.ExportBillsUseCase;
+import com.syos.usecases.imports.BulkImportUseCase;
+import com.syos.usecases.ledger.InventoryLedger;
+import com.syos.usecases.ledger.LedgerInventoryRepository;
+import com.syos.usecases.observers.InventorySubject;
+import com.syos.usecases.observers.StockAlertObserver;
+import com.syos.usecases.offline.OfflineSaleProcessor;
+import com.syos.usecases.repositories.*;
+import com.syos.usecases.search.BarcodeIndex;
+import com.syos.usecases.search.IndexedProductRepository;
+import com.syos.usecases.search.ProductSearchIndex;
+import com.syos.usecases.sessions.SessionManager;
+import com.syos.usecases.strategies.ExpiryPriorityStockSelectionStrategy;
+import com.syos.usecases.strategies.StockSelectionStrategy;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repositories, use cases and background services of one store. Every
+ * repository reads and writes only that store's shard, and the ledger
+ * projection, indexes, group committer and expiry scheduler hold only that
+ * store's data, so one process can open a context for each store it serves.
+ */
+final class StoreContext {
+    private static final long DEFAULT_ARCHIVE_INTERVAL_MINUTES = 24 * 60;
+
+    final String storeId;
+    final ProductRepository productRepository;
+    final BillRepository billRepository;
+    final InventoryRepository inventoryRepository;
+    final StockBatchRepository stockBatchRepository;
+    final TransactionManager transactionManager;
+
+    final InventoryLedger inventoryLedger;
+    final CatalogView catalogView;
+    final ExpiryScheduler expiryScheduler;
+    final ProductSearchIndex productSearchIndex;
+    final BarcodeIndex barcodeIndex;
+
+    final GroupCommitSaleProcessor groupCommitSaleProcessor;
+    final SaleProcessor saleProcessor;
+    final AddStockBatchUseCase addStockBatchUseCase;
+    final ReceiveStockDeliveryUseCase receiveStockDeliveryUseCase;
+    final BulkImportUseCase bulkImportUseCase;
+    final ExportBillsUseCase exportBillsUseCase;
+    final TransferStockUseCase transferStockUseCase;
+    final ArchiveStockBatchesUseCase archiveStockBatchesUseCase;
+    final ManageBarcodesUseCase manageBarcodesUseCase;
+    final CredentialService credentialService;
+    final RegisterUserUseCase registerUserUseCase;
+    final AuthenticateUserUseCase authenticateUserUseCase;
+
+    private ScheduledExecutorService batchArchiver;
+
+    /**
+     * @param json    whether the store uses the JSON backend rather than MySQL
+     * @param serving whether requests are served; sales then always go
+     *                through group commit, so concurrent tills share one
+     *                committer
+     */
+    StoreContext(String storeId, boolean json, boolean serving) {
+        this.storeId = storeId;
+        ProductRepository products;
+        InventoryRepository inventoryRows;
+        UserRepository userRepository;
+        InventoryLedgerRepository inventoryLedgerRepository;
+        ProductBarcodeRepository productBarcodeRepository;
+        if (json) {
+            products = new JsonProductRepository(storeId);
+            billRepository = new JsonBillRepository(storeId);
+            inventoryRows = "json".equalsIgnoreCase(System.getProperty("syos.inventory.storage", "mapped"))
+                    ? new JsonInventoryRepository(storeId)
+                    : new MappedInventoryRepository(storeId);
+            stockBatchRepository = new JsonStockBatchRepository(storeId);
+            userRepository = new JsonUserRepository(storeId);
+            inventoryLedgerRepository = new JsonInventoryLedgerRepository(storeId);
+            productBarcodeRepository = new JsonProductBarcodeRepository(storeId);
+            transactionManager = new JsonTransactionManager();
+        } else {
+            products = new MySQLProductRepository(storeId);
+            billRepository = new MySQLBillRepository(storeId);
+            inventoryRows = new MySQLInventoryRepository(storeId);
+            stockBatchRepository = new MySQLStockBatchRepository(storeId);
+            userRepository = new MySQLUserRepository(storeId);
+            inventoryLedgerRepository = new MySQLInventoryLedgerRepository(storeId);
+            productBarcodeRepository = new MySQLProductBarcodeRepository(storeId);
+            transactionManager = new MySQLTransactionManager(storeId);
+        }
+
+        IndexedProductRepository indexedProductRepository = new IndexedProductRepository(products,
+                productBarcodeRepository, transactionManager);
+        productRepository = indexedProductRepository;
+        productSearchIndex = indexedProductRepository.getSearchIndex();
+        barcodeIndex = indexedProductRepository.getBarcodeIndex();
+
+        InventorySubject inventorySubject = new InventorySubject();
+        inventorySubject.attach(new StockAlertObserver());
+
+        // Inventory levels come from the movement ledger; the old inventory rows only seed an empty ledger
+        inventoryLedger = new InventoryLedger(storeId, inventoryLedgerRepository, inventoryRows, transactionManager);
+        inventoryLedger.initialize();
+        inventoryRepository = new LedgerInventoryRepository(inventoryLedger);
+        CatalogRepository catalogRepository = json
+                ? new JsonCatalogRepository(productRepository, inventoryRepository)
+                : new MySQLCatalogRepository(storeId, inventoryRepository);
+
+        catalogView = new CatalogView(catalogRepository);
+        inventorySubject.attach(catalogView);
+
+        archiveStockBatchesUseCase = new ArchiveStockBatchesUseCase(stockBatchRepository);
+
+        expiryScheduler = new ExpiryScheduler(stockBatchRepository, inventorySubject,
+                new FileExpiryCheckLog(storeId));
+        inventorySubject.attach(expiryScheduler);
+
+        StockSelectionStrategy stockSelectionStrategy = new ExpiryPriorityStockSelectionStrategy();
+
+        ProcessSaleUseCase processSaleUseCase = new ProcessSaleUseCase(storeId, productRepository,
+                billRepository, inventoryLedger, stockBatchRepository, stockSelectionStrategy, inventorySubject,
+                transactionManager);
+        // Optional group commit: -Dsyos.sales.group-commit=true
+        SaleProcessor sales;
+        if (serving || Boolean.getBoolean("syos.sales.group-commit")) {
+            groupCommitSaleProcessor = new GroupCommitSaleProcessor(processSaleUseCase, productRepository,
+                    inventoryRepository, stockBatchRepository, transactionManager);
+            sales = groupCommitSaleProcessor;
+        } else {
+            groupCommitSaleProcessor = null;
+            sales = processSaleUseCase::execute;
+        }
+        // Optional offline till: -Dsyos.sales.offline=true. It rides out outages once running, but
+        // opening the context (ledger, indexes, catalog) still needs the central store
+        if (Boolean.getBoolean("syos.sales.offline")) {
+            sales = new OfflineSaleProcessor(storeId, sales, new FileSaleJournal(storeId), productRepository,
+                    SnowflakeIdGenerator.getInstance());
+        }
+        saleProcessor = sales;
+        addStockBatchUseCase = new AddStockBatchUseCase(storeId, productRepository, stockBatchRepository,
+                inventoryLedger, inventorySubject, transactionManager);
+        receiveStockDeliveryUseCase = new ReceiveStockDeliveryUseCase(storeId, productRepository,
+                stockBatchRepository, inventoryLedger, transactionManager, inventorySubject);
+        bulkImportUseCase = new BulkImportUseCase(storeId, productRepository, inventoryLedger,
+                receiveStockDeliveryUseCase, inventorySubject);
+        exportBillsUseCase = new ExportBillsUseCase(billRepository);
+        transferStockUseCase = new TransferStockUseCase(inventoryLedger, stockBatchRepository,
+                stockSelectionStrategy, inventorySubject, transactionManager);
+        manageBarcodesUseCase = new ManageBarcodesUseCase(productRepository, productBarcodeRepository,
+                barcodeIndex);
+        credentialService = new CredentialService();
+        registerUserUseCase = new RegisterUserUseCase(userRepository, credentialService);
+        authenticateUserUseCase = new AuthenticateUserUseCase(userRepository, credentialService);
+    }
+
+    /**
+     * Archives due stock batches now, then every
+     * -Dsyos.batches.archive-interval-minutes (default daily; 0 archives only
+     * now), so a process serving for days keeps only live batches in the
+     * batch table.
+     */
+    void startBatchArchiving() {
+        archiveStockBatches();
+        long interval = Long.getLong("syos.batches.archive-interval-minutes", DEFAULT_ARCHIVE_INTERVAL_MINUTES);
+        if (interval <= 0 || batchArchiver != null) {
+            return;
+        }
+        batchArchiver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-batch-archiver-" + storeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        batchArchiver.scheduleWithFixedDelay(this::archiveStockBatches, interval, interval, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Archives what is due now. With group commit, the commit lock is held
+     * so batches are not moved while a sale batch is drawing them down.
+     */
+    void archiveStockBatches() {
+        try {
+            int archived;
+            if (groupCommitSaleProcessor != null) {
+                groupCommitSaleProcessor.getCommitLock().lock();
+                try {
+                    archived = archiveStockBatchesUseCase.execute();
+                } finally {
+                    groupCommitSaleProcessor.getCommitLock().unlock();
+                }
+            } else {
+                archived = archiveStockBatchesUseCase.execute();
+            }
+            if (archived > 0) {
+                System.out.println("✓ Archived " + archived + " depleted or expired stock batch(es) in store "
+                        + storeId);
+            }
+        } catch (RuntimeException e) {
+            System.out.println("❌ Batch archival failed in store " + storeId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Request handlers for this store; the server only runs them through
+     * group commit, so the context must have been opened for serving.
+     */
+    RequestServer createRequestServer() {
+        RequestServer server = new RequestServer(storeId, saleProcessor, groupCommitSaleProcessor.getCommitLock(),
+                transferStockUseCase, addStockBatchUseCase, new SessionManager(authenticateUserUseCase),
+                credentialService, catalogView, productSearchIndex, barcodeIndex, productRepository,
+                billRepository, inventoryRepository, stockBatchRepository, transactionManager);
+        server.addMetric("expiryEventsScheduled", expiryScheduler::getScheduledCount);
+        if (transactionManager instanceof MySQLTransactionManager) {
+            DatabaseManager database = DatabaseManager.forStore(storeId);
+            server.addMetric("reportsDelayed", database::getDelayedReportCount);
+            server.addMetric("reportsRejected", database::getRejectedReportCount);
+            server.addMetric("replicaInUse", database::isReplicaInUse);
+        }
+        if (saleProcessor instanceof OfflineSaleProcessor) {
+            server.addMetric("offlineSalesPending", ((OfflineSaleProcessor) saleProcessor)::getPendingCount);
+        }
+        return server;
+    }
+}
@@ -11,6 +11,8 @@ import java.util.List;
  */
 public class Bill {
     private final int serialNumber;
+    private final long billId; // creation-ordered ID, unique across processes; 0 for older bills
+    private final String storeId; // the store the sale was made in
     private final LocalDateTime billDate;
     private final List<BillItem> items;
     private final double subtotal;
@@ -23,6 +25,8 @@ public class Bill {
 
     private Bill(Builder builder) {
         this.serialNumber = builder.serialNumber;
+        this.billId = builder.billId;
+        this.storeId = builder.storeId;
         this.billDate = builder.billDate;
         this.items = new ArrayList<>(builder.items);
         this.subtotal = builder.subtotal;
@@ -38,6 +42,14 @@ public class Bill {
         return serialNumber;
     }
 
+    public long getBillId() {
+        return billId;
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
     public LocalDateTime getBillDate() {
         return billDate;
     }
@@ -74,10 +86,27 @@ public class Bill {
         return customerId;
     }
 
+    /**
+     * Copy of this bill under the serial number storage assigned it.
+     */
+    public Bill withSerialNumber(int serialNumber) {
+        return new Builder()
+                .serialNumber(serialNumber)
+                .billId(billId)
+                .storeId(storeId)
+                .billDate(billDate)
+                .items(items)
+                .cashTendered(cashTendered)
+                .transactionType(transactionType)
+                .customerId(customerId)
+                .buildStored();
+    }
+
     @Override
     public String toString() {
         return "Bill{" +
                 "serialNumber=" + serialNumber +
+                ", storeId='" + storeId + '\'' +
                 ", billDate=" + billDate +
                 ", total=" + total +
                 ", transactionType=" + transactionType +
@@ -89,6 +118,8 @@ public class Bill {
      */
     public static class Builder {
         private int serialNumber;
+        private long billId;
+        private String storeId;
         private LocalDateTime billDate = LocalDateTime.now();
         private List<BillItem> items = new ArrayList<>();
         private double subtotal;
@@ -104,6 +135,16 @@ public class Bill {
             return this;
         }
 
+        public Builder billId(long billId) {
+            this.billId = billId;
+            return this;
+        }
+
+        public Builder storeId(String storeId) {
+            this.storeId = storeId;
+            return this;
+        }
+
         public Builder billDate(LocalDateTime billDate) {
             this.billDate = billDate;
             return this;
@@ -155,11 +196,23 @@ public class Bill {
         }
 
         public Bill build() {
+            Store.validateId(storeId);
             calculateTotals();
             validate();
             return new Bill(this);
         }
 
+        /**
+         * Builds a bill read back from storage. Totals are recomputed from
+         * the items, but the checks for new sales are skipped, so a stored
+         * bill without items is still returned.
+         */
+        public Bill buildStored() {
+            Store.validateId(storeId);
+            calculateTotals();
+            return new Bill(this);
+        }
+
         private void calculateTotals() {
             subtotal = items.stream()
                     .mapToDouble(item -> item.getPrice() * item.getQuantity())
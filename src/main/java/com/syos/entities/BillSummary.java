@@ -0,0 +1,63 @@
+package com.syos.entities;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only header of a stored bill: what listings and header-level reports
+ * show, without the line items. Totals are the stored ones rather than
+ * recomputed from the items.
+ */
+public class BillSummary {
+    private final int serialNumber;
+    private final long billId;
+    private final LocalDateTime billDate;
+    private final Bill.TransactionType transactionType;
+    private final double subtotal;
+    private final double discount;
+    private final double total;
+    private final String customerId;
+
+    public BillSummary(int serialNumber, long billId, LocalDateTime billDate, Bill.TransactionType transactionType,
+            double subtotal, double discount, double total, String customerId) {
+        this.serialNumber = serialNumber;
+        this.billId = billId;
+        this.billDate = billDate;
+        this.transactionType = transactionType;
+        this.subtotal = subtotal;
+        this.discount = discount;
+        this.total = total;
+        this.customerId = customerId;
+    }
+
+    public int getSerialNumber() {
+        return serialNumber;
+    }
+
+    public long getBillId() {
+        return billId;
+    }
+
+    public LocalDateTime getBillDate() {
+        return billDate;
+    }
+
+    public Bill.TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public double getSubtotal() {
+        return subtotal;
+    }
+
+    public double getDiscount() {
+        return discount;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+}
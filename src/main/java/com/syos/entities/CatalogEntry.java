@@ -0,0 +1,37 @@
+package com.syos.entities;
+
+/**
+ * A product as listed in the online store, with its online availability.
+ */
+public class CatalogEntry {
+    private final Product product;
+    private final int onlineQuantity;
+
+    public CatalogEntry(Product product, int onlineQuantity) {
+        if (product == null) {
+            throw new IllegalArgumentException("Catalog product cannot be null");
+        }
+        this.product = product;
+        this.onlineQuantity = onlineQuantity;
+    }
+
+    public CatalogEntry withOnlineQuantity(int quantity) {
+        return quantity == onlineQuantity ? this : new CatalogEntry(product, quantity);
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public String getProductCode() {
+        return product.getCode();
+    }
+
+    public int getOnlineQuantity() {
+        return onlineQuantity;
+    }
+
+    public boolean isAvailable() {
+        return onlineQuantity > 0;
+    }
+}
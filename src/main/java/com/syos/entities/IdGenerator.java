@@ -0,0 +1,8 @@
+package com.syos.entities;
+
+/**
+ * Source of unique, creation-ordered 64-bit IDs.
+ */
+public interface IdGenerator {
+    long nextId();
+}
@@ -5,21 +5,40 @@ package com.syos.entities;
  * Follows Single Responsibility Principle.
  */
 public class Inventory {
+    private final String storeId;
     private final String productCode;
     private int shelfQuantity;
     private int storeQuantity;
     private int onlineQuantity;
 
-    public Inventory(String productCode) {
+    public Inventory(String storeId, String productCode) {
         if (productCode == null || productCode.trim().isEmpty()) {
             throw new IllegalArgumentException("Product code cannot be empty");
         }
+        this.storeId = Store.validateId(storeId);
         this.productCode = productCode;
         this.shelfQuantity = 0;
         this.storeQuantity = 0;
         this.onlineQuantity = 0;
     }
 
+    /**
+     * Restores levels as recorded. Levels are not checked, so a negative
+     * level left by the movement ledger stays visible instead of reading as
+     * zero.
+     */
+    public Inventory(String storeId, String productCode, int shelfQuantity, int storeQuantity,
+            int onlineQuantity) {
+        this(storeId, productCode);
+        this.shelfQuantity = shelfQuantity;
+        this.storeQuantity = storeQuantity;
+        this.onlineQuantity = onlineQuantity;
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
     public String getProductCode() {
         return productCode;
     }
@@ -108,7 +127,8 @@ public class Inventory {
     @Override
     public String toString() {
         return "Inventory{" +
-                "productCode='" + productCode + '\'' +
+                "storeId='" + storeId + '\'' +
+                ", productCode='" + productCode + '\'' +
                 ", shelfQuantity=" + shelfQuantity +
                 ", storeQuantity=" + storeQuantity +
                 ", onlineQuantity=" + onlineQuantity +
@@ -0,0 +1,113 @@
+package com.syos.entities;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable inventory ledger entry: a signed quantity change at one
+ * location for one product.
+ * Current levels are the sum of all movements, so entries are only ever
+ * appended, never updated.
+ */
+public class InventoryMovement {
+    private final long movementId;
+    private final String productCode;
+    private final Location location;
+    private final MovementType type;
+    private final int quantityDelta;
+    private final String reference;
+    private final LocalDateTime occurredAt;
+
+    // Constructor for new movements (ID is assigned when appended to the ledger)
+    public InventoryMovement(String productCode, Location location, MovementType type, int quantityDelta,
+            String reference) {
+        this(0, productCode, location, type, quantityDelta, reference, LocalDateTime.now());
+    }
+
+    // Constructor for loading stored movements
+    public InventoryMovement(long movementId, String productCode, Location location, MovementType type,
+            int quantityDelta, String reference, LocalDateTime occurredAt) {
+        if (productCode == null || productCode.trim().isEmpty()) {
+            throw new IllegalArgumentException("Product code cannot be empty");
+        }
+        if (location == null) {
+            throw new IllegalArgumentException("Location cannot be null");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Movement type cannot be null");
+        }
+        if (quantityDelta == 0) {
+            throw new IllegalArgumentException("Quantity delta cannot be zero");
+        }
+        if (occurredAt == null) {
+            throw new IllegalArgumentException("Movement time cannot be null");
+        }
+        this.movementId = movementId;
+        this.productCode = productCode;
+        this.location = location;
+        this.type = type;
+        this.quantityDelta = quantityDelta;
+        this.reference = reference;
+        this.occurredAt = occurredAt;
+    }
+
+    /**
+     * Copy of this movement carrying the ID assigned by the ledger.
+     */
+    public InventoryMovement withId(long movementId) {
+        return new InventoryMovement(movementId, productCode, location, type, quantityDelta, reference, occurredAt);
+    }
+
+    public long getMovementId() {
+        return movementId;
+    }
+
+    public String getProductCode() {
+        return productCode;
+    }
+
+    public Location getLocation() {
+        return location;
+    }
+
+    public MovementType getType() {
+        return type;
+    }
+
+    public int getQuantityDelta() {
+        return quantityDelta;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public enum Location {
+        SHELF,
+        STORE,
+        ONLINE
+    }
+
+    public enum MovementType {
+        RECEIPT,
+        SALE,
+        TRANSFER,
+        ADJUSTMENT
+    }
+
+    @Override
+    public String toString() {
+        return "InventoryMovement{" +
+                "movementId=" + movementId +
+                ", productCode='" + productCode + '\'' +
+                ", location=" + location +
+                ", type=" + type +
+                ", quantityDelta=" + quantityDelta +
+                ", reference='" + reference + '\'' +
+                ", occurredAt=" + occurredAt +
+                '}';
+    }
+}
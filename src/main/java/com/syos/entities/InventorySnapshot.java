@@ -0,0 +1,38 @@
+package com.syos.entities;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Inventory levels at the end of a day, derived from the movement ledger.
+ * Replay starts from the latest snapshot instead of the first movement.
+ */
+public class InventorySnapshot {
+    private final LocalDate date;
+    private final long lastMovementId;
+    private final List<Inventory> levels;
+
+    public InventorySnapshot(LocalDate date, long lastMovementId, List<Inventory> levels) {
+        if (date == null) {
+            throw new IllegalArgumentException("Snapshot date cannot be null");
+        }
+        this.date = date;
+        this.lastMovementId = lastMovementId;
+        this.levels = List.copyOf(levels);
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * ID of the last movement included in these levels.
+     */
+    public long getLastMovementId() {
+        return lastMovementId;
+    }
+
+    public List<Inventory> getLevels() {
+        return levels;
+    }
+}
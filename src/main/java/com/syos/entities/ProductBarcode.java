@@ -0,0 +1,61 @@
+package com.syos.entities;
+
+/**
+ * A GTIN barcode (EAN-8, UPC-A, EAN-13 or GTIN-14) assigned to a product.
+ * Barcodes are held as numbers, so a UPC-A and its zero-padded EAN-13 form
+ * are the same barcode. A product may carry several barcodes.
+ */
+public class ProductBarcode {
+    private final long barcode;
+    private final String productCode;
+
+    public ProductBarcode(long barcode, String productCode) {
+        if (barcode <= 0) {
+            throw new IllegalArgumentException("Barcode must be positive");
+        }
+        if (productCode == null || productCode.trim().isEmpty()) {
+            throw new IllegalArgumentException("Product code cannot be empty");
+        }
+        this.barcode = barcode;
+        this.productCode = productCode;
+    }
+
+    /**
+     * Parses and validates a scanned barcode, including its check digit.
+     */
+    public static long parse(String text) {
+        String digits = text == null ? "" : text.trim();
+        int length = digits.length();
+        if (length != 8 && length != 12 && length != 13 && length != 14) {
+            throw new IllegalArgumentException("Barcode must have 8, 12, 13 or 14 digits: " + text);
+        }
+
+        int sum = 0;
+        for (int i = length - 2; i >= 0; i--) {
+            char c = digits.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Barcode must contain only digits: " + text);
+            }
+            // Weights 3, 1, 3, ... from the digit left of the check digit
+            sum += (c - '0') * ((length - 2 - i) % 2 == 0 ? 3 : 1);
+        }
+        char check = digits.charAt(length - 1);
+        if (check - '0' != (10 - sum % 10) % 10) {
+            throw new IllegalArgumentException("Invalid barcode check digit: " + text);
+        }
+
+        long barcode = Long.parseLong(digits);
+        if (barcode == 0) {
+            throw new IllegalArgumentException("Barcode must be positive");
+        }
+        return barcode;
+    }
+
+    public long getBarcode() {
+        return barcode;
+    }
+
+    public String getProductCode() {
+        return productCode;
+    }
+}
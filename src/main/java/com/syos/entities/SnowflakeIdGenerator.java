@@ -0,0 +1,109 @@
+package com.syos.entities;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style ID generator.
+ * An ID is 41 bits of milliseconds since 2024-01-01, 10 bits of node ID and
+ * a 12-bit sequence, so processes with different node IDs never collide and
+ * IDs sort by creation time. Lock-free: the last timestamp and sequence are
+ * advanced together with a single compare-and-set. When the sequence runs out
+ * within a millisecond, or the clock steps back, the next millisecond is
+ * borrowed instead of waiting.
+ * Implements Singleton Pattern for the process-wide instance.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+    public static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    public static final int MAX_NODE_ID = (1 << 10) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static volatile SnowflakeIdGenerator instance;
+
+    private final long nodeId;
+    // Last issued (timestamp << SEQUENCE_BITS | sequence)
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Process-wide generator, with the node ID from -Dsyos.node-id.
+     *
+     * @throws IllegalStateException if the node ID is missing or invalid
+     */
+    public static SnowflakeIdGenerator getInstance() {
+        if (instance == null) {
+            synchronized (SnowflakeIdGenerator.class) {
+                if (instance == null) {
+                    instance = new SnowflakeIdGenerator(configuredNodeId());
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long previous = state.get();
+            long lastTimestamp = previous >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = previous + 1;
+            } else {
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public int getNodeId() {
+        return (int) nodeId;
+    }
+
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+
+    /**
+     * The node ID set with -Dsyos.node-id. There is no derived fallback:
+     * two processes sharing a database with the same node ID would issue
+     * the same IDs, so each must be given its own.
+     *
+     * @throws IllegalStateException if it is missing or not 0..MAX_NODE_ID
+     */
+    public static int configuredNodeId() {
+        String configured = System.getProperty("syos.node-id");
+        if (configured == null || configured.isBlank()) {
+            throw new IllegalStateException("Node ID not set: start with -Dsyos.node-id=0.." + MAX_NODE_ID
+                    + ", unique among the processes sharing a database");
+        }
+        int nodeId;
+        try {
+            nodeId = Integer.parseInt(configured.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid node ID: " + configured);
+        }
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("Node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        return nodeId;
+    }
+}
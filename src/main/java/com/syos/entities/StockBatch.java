@@ -8,7 +8,10 @@ import java.util.Objects;
  * Follows Single Responsibility Principle.
  */
 public class StockBatch {
-    private static int batchCounter = 0;
+    private static final int BATCH_ID_DIGITS = 19; // fits any positive long
+    // Resolved on first use, so loading stored batches needs no node ID
+    private static volatile IdGenerator idGenerator;
+    private final String storeId;
     private final String productCode;
     private final LocalDate purchaseDate;
     private int quantity;
@@ -16,8 +19,13 @@ public class StockBatch {
     private final String batchId;
 
     // Constructor for creating new batches (generates new batch ID)
-    public StockBatch(String productCode, LocalDate purchaseDate, int quantity, LocalDate expiryDate) {
+    public StockBatch(String storeId, String productCode, LocalDate purchaseDate, int quantity,
+            LocalDate expiryDate) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
         validateStockBatch(productCode, quantity, purchaseDate, expiryDate);
+        this.storeId = Store.validateId(storeId);
         this.productCode = productCode;
         this.purchaseDate = purchaseDate;
         this.quantity = quantity;
@@ -26,12 +34,14 @@ public class StockBatch {
     }
 
     // Constructor for loading existing batches from database (uses existing batch
-    // ID)
-    public StockBatch(String batchId, String productCode, LocalDate purchaseDate, int quantity, LocalDate expiryDate) {
+    // ID). Depleted batches are stored with a zero quantity.
+    public StockBatch(String storeId, String batchId, String productCode, LocalDate purchaseDate, int quantity,
+            LocalDate expiryDate) {
         validateStockBatch(productCode, quantity, purchaseDate, expiryDate);
         if (batchId == null || batchId.trim().isEmpty()) {
             throw new IllegalArgumentException("Batch ID cannot be empty");
         }
+        this.storeId = Store.validateId(storeId);
         this.batchId = batchId;
         this.productCode = productCode;
         this.purchaseDate = purchaseDate;
@@ -39,16 +49,36 @@ public class StockBatch {
         this.expiryDate = expiryDate;
     }
 
+    /**
+     * Replaces the generator used for new batch IDs.
+     */
+    public static void setIdGenerator(IdGenerator generator) {
+        idGenerator = Objects.requireNonNull(generator);
+    }
+
+    /**
+     * Zero-padded so batch IDs also sort by creation time as text.
+     */
     private String generateBatchId() {
-        return "B" + (++batchCounter);
+        IdGenerator generator = idGenerator;
+        if (generator == null) {
+            generator = SnowflakeIdGenerator.getInstance();
+            idGenerator = generator;
+        }
+        String digits = Long.toString(generator.nextId());
+        StringBuilder id = new StringBuilder(BATCH_ID_DIGITS + 1).append('B');
+        for (int i = digits.length(); i < BATCH_ID_DIGITS; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
     }
 
     private void validateStockBatch(String productCode, int quantity, LocalDate purchaseDate, LocalDate expiryDate) {
         if (productCode == null || productCode.trim().isEmpty()) {
             throw new IllegalArgumentException("Product code cannot be empty");
         }
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("Quantity must be positive");
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
         }
         if (purchaseDate == null) {
             throw new IllegalArgumentException("Purchase date cannot be null");
@@ -61,6 +91,10 @@ public class StockBatch {
         }
     }
 
+    public String getStoreId() {
+        return storeId;
+    }
+
     public String getProductCode() {
         return productCode;
     }
@@ -82,7 +116,11 @@ public class StockBatch {
     }
 
     public boolean isExpired() {
-        return LocalDate.now().isAfter(expiryDate);
+        return isExpiredOn(LocalDate.now());
+    }
+
+    public boolean isExpiredOn(LocalDate date) {
+        return date.isAfter(expiryDate);
     }
 
     public void reduceQuantity(int amount) {
@@ -96,7 +134,11 @@ public class StockBatch {
     }
 
     public int getDaysUntilExpiry() {
-        return (int) java.time.temporal.ChronoUnit.DAYS.between(LocalDate.now(), expiryDate);
+        return getDaysUntilExpiry(LocalDate.now());
+    }
+
+    public int getDaysUntilExpiry(LocalDate date) {
+        return (int) java.time.temporal.ChronoUnit.DAYS.between(date, expiryDate);
     }
 
     @Override
@@ -117,7 +159,8 @@ public class StockBatch {
     @Override
     public String toString() {
         return "StockBatch{" +
-                "productCode='" + productCode + '\'' +
+                "storeId='" + storeId + '\'' +
+                ", productCode='" + productCode + '\'' +
                 ", purchaseDate=" + purchaseDate +
                 ", quantity=" + quantity +
                 ", expiryDate=" + expiryDate +
@@ -0,0 +1,45 @@
+package com.syos.entities;
+
+import java.util.regex.Pattern;
+
+/**
+ * Identifies the outlet (branch) that inventory, stock batches and bills
+ * belong to.
+ * Every store keeps its data in its own shard, so branches do not contend
+ * for the same tables. One process can serve several stores: each gets its
+ * own repositories, which read and write only that store's shard
+ * (JsonDataStore.forStore, DatabaseManager.forStore), and its own ledger
+ * projection, indexes, group committer and expiry scheduler. Requests are
+ * routed to a store by its ID.
+ */
+public final class Store {
+    public static final String DEFAULT_ID = "main";
+
+    // Store IDs become directory and schema names
+    private static final Pattern VALID_ID = Pattern.compile("[a-z0-9][a-z0-9_]{0,31}");
+
+    private Store() {
+    }
+
+    public static boolean isDefault(String storeId) {
+        return DEFAULT_ID.equals(storeId);
+    }
+
+    public static String validateId(String storeId) {
+        if (storeId == null || !VALID_ID.matcher(storeId).matches()) {
+            throw new IllegalArgumentException("Invalid store ID '" + storeId
+                    + "': use up to 32 lowercase letters, digits or underscores");
+        }
+        return storeId;
+    }
+
+    /**
+     * Rejects an entity of another store, so a write cannot land in the
+     * wrong store's shard.
+     */
+    public static void requireSameStore(String shardStoreId, String storeId) {
+        if (!shardStoreId.equals(storeId)) {
+            throw new IllegalArgumentException("Belongs to store " + storeId + ", not " + shardStoreId);
+        }
+    }
+}
@@ -57,6 +57,10 @@ public class User {
         return passwordHash;
     }
 
+    public User withPasswordHash(String newPasswordHash) {
+        return new User(userId, name, email, newPasswordHash, address, registrationDate);
+    }
+
     public String getAddress() {
         return address;
     }
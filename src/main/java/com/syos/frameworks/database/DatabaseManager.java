@@ -1,172 +1,472 @@
 package com.syos.frameworks.database;
 
+import com.syos.entities.Store;
+import com.syos.usecases.repositories.TransactionManager;
+import com.syos.usecases.repositories.Workload;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Database connection manager using Singleton pattern.
  * Uses HikariCP for connection pooling (best practice for production).
+ * Each store has its own instance, schema and pools: the default store uses
+ * syos_db, other stores syos_db_<id> (created on first use).
+ *
+ * Each Workload has a pool of its own (-Dsyos.db.pool.sales=10,
+ * .inventory=4, .reporting=3), so back-office work never holds the
+ * connections tills are waiting for. Work is assigned to a workload with
+ * inWorkload()/readOnly(); everything else, sales included, uses the sales
+ * pool. Reports on the primary also pass a ReportAdmissionController that
+ * holds them back while sales wait for connections.
+ *
+ * An optional read replica (-Dsyos.db.replica=host:port[/schema]) gets a
+ * pool of its own. Work run through readOnly() reads from it while its
+ * replication lag, checked at most once a second, is within
+ * syos.db.replica-max-lag-seconds; otherwise, inside a transaction, or when
+ * the replica cannot be reached, it reads from the primary.
  */
 public class DatabaseManager {
-    private static DatabaseManager instance;
-    private HikariDataSource dataSource;
+    private static final Map<String, DatabaseManager> instances = new HashMap<>();
+    private final String storeId;
+    private final String schema;
+    private final Map<Workload, HikariDataSource> pools = new EnumMap<>(Workload.class);
+    private final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
+    private final ThreadLocal<List<TransactionManager.CompletionAction>> transactionEndActions =
+            new ThreadLocal<>();
+    private final ThreadLocal<Workload> workloadScope = new ThreadLocal<>();
+    // Set while the calling thread's readOnly() work holds a report admission
+    private final ThreadLocal<Boolean> reportAdmitted = new ThreadLocal<>();
+    private final ReportAdmissionController reportAdmission;
+
+    private HikariDataSource replicaDataSource;
+    private final long replicaMaxLagSeconds = Long.getLong("syos.db.replica-max-lag-seconds", 5);
+    private volatile boolean replicaUsable;
+    private volatile long nextReplicaCheckMillis;
+    private final AtomicBoolean replicaCheckRunning = new AtomicBoolean();
 
     // Database configuration
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/syos_db?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
+    private static final String DB_SCHEMA = "syos_db";
+    private static final String DB_HOST = "localhost:3306";
+    private static final String DB_URL = "jdbc:mysql://%s/%s?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
     private static final String DB_USER = "root";
     private static final String DB_PASSWORD = ""; // Change this to your MySQL password
+    private static final int REPLICA_POOL_SIZE = 5;
+    private static final long REPLICA_CHECK_INTERVAL_MILLIS = 1000;
+    private static final int DEFAULT_SALES_POOL_SIZE = 10;
+    private static final int DEFAULT_INVENTORY_POOL_SIZE = 4;
+    private static final int DEFAULT_REPORTING_POOL_SIZE = 3;
+
+    private DatabaseManager(String storeId) {
+        this.storeId = storeId;
+        this.schema = Store.isDefault(storeId) ? DB_SCHEMA : DB_SCHEMA + "_" + storeId;
+        int reportingPoolSize = poolSize(Workload.REPORTING, DEFAULT_REPORTING_POOL_SIZE);
+        pools.put(Workload.SALES, createPool(Workload.SALES, poolSize(Workload.SALES, DEFAULT_SALES_POOL_SIZE),
+                !Store.isDefault(storeId)));
+        pools.put(Workload.INVENTORY, createPool(Workload.INVENTORY,
+                poolSize(Workload.INVENTORY, DEFAULT_INVENTORY_POOL_SIZE), false));
+        pools.put(Workload.REPORTING, createPool(Workload.REPORTING, reportingPoolSize, false));
+        System.out.println("✓ Database connection pools initialized (" + schema + ": sales "
+                + pools.get(Workload.SALES).getMaximumPoolSize() + ", inventory "
+                + pools.get(Workload.INVENTORY).getMaximumPoolSize() + ", reporting " + reportingPoolSize + ")");
 
-    private DatabaseManager() {
-        initializeDataSource();
-        createTablesIfNotExist();
+        this.reportAdmission = new ReportAdmissionController(reportingPoolSize, this::getSalesWaiting,
+                Long.getLong("syos.db.reports.sale-wait-threshold-ms", 20),
+                Long.getLong("syos.db.reports.admission-timeout-ms", 10000));
+        migrateSchema(!Store.isDefault(storeId));
+
+        String replica = System.getProperty("syos.db.replica");
+        if (replica != null && !replica.isBlank()) {
+            initializeReplica(replica.trim(), storeId);
+        }
     }
 
     /**
-     * Gets the singleton instance (thread-safe).
+     * Gets the instance for a store, creating its pools on first use (thread-safe).
      */
-    public static synchronized DatabaseManager getInstance() {
-        if (instance == null) {
-            instance = new DatabaseManager();
-        }
-        return instance;
+    public static synchronized DatabaseManager forStore(String storeId) {
+        return instances.computeIfAbsent(Store.validateId(storeId), DatabaseManager::new);
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    private static int poolSize(Workload workload, int defaultSize) {
+        return Math.max(1, Integer.getInteger("syos.db.pool." + workload.name().toLowerCase(Locale.ROOT),
+                defaultSize));
     }
 
     /**
-     * Initializes HikariCP connection pool.
+     * Initializes the HikariCP connection pool of one workload.
      */
-    private void initializeDataSource() {
+    private HikariDataSource createPool(Workload workload, int size, boolean createSchema) {
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(DB_URL);
+        config.setJdbcUrl(String.format(DB_URL, DB_HOST, schema) + (createSchema ? "&createDatabaseIfNotExist=true" : ""));
         config.setUsername(DB_USER);
         config.setPassword(DB_PASSWORD);
+        config.setPoolName(workload.name().toLowerCase(Locale.ROOT) + "-" + schema);
 
         // Connection pool settings
-        config.setMaximumPoolSize(10);
-        config.setMinimumIdle(2);
-        config.setConnectionTimeout(30000);
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(Math.min(2, size));
+        config.setConnectionTimeout(Long.getLong("syos.db.connection-timeout-ms", 30000));
         config.setIdleTimeout(600000);
         config.setMaxLifetime(1800000);
+        // Each statement reads the latest committed rows, so the inventory ledger
+        // catches up inside a transaction without locking reads
+        config.setTransactionIsolation("TRANSACTION_READ_COMMITTED");
+
+        // Don't block startup filling the pool; idle connections are opened in the
+        // background while the first request uses the connection opened on demand
+        config.setInitializationFailTimeout(-1);
 
         // Performance settings
         config.addDataSourceProperty("cachePrepStmts", "true");
         config.addDataSourceProperty("prepStmtCacheSize", "250");
         config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        // Collapse addBatch()/executeBatch() inserts into multi-row INSERT statements
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
 
-        this.dataSource = new HikariDataSource(config);
+        return new HikariDataSource(config);
+    }
 
-        System.out.println("✓ Database connection pool initialized");
+    /**
+     * Initializes the read replica pool. The replica schema follows the same
+     * per-store naming as the primary; it is never migrated from here.
+     */
+    private void initializeReplica(String replica, String storeId) {
+        int slash = replica.indexOf('/');
+        String host = slash >= 0 ? replica.substring(0, slash) : replica;
+        String baseSchema = slash >= 0 ? replica.substring(slash + 1) : DB_SCHEMA;
+        String replicaSchema = Store.isDefault(storeId) ? baseSchema : baseSchema + "_" + storeId;
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(String.format(DB_URL, host, replicaSchema));
+        config.setUsername(DB_USER);
+        config.setPassword(DB_PASSWORD);
+        config.setPoolName("replica-" + replicaSchema);
+        config.setReadOnly(true);
+        config.setMaximumPoolSize(REPLICA_POOL_SIZE);
+        config.setMinimumIdle(1);
+        // A report waits briefly for the replica, then falls back to the primary
+        config.setConnectionTimeout(Math.min(5000, Long.getLong("syos.db.connection-timeout-ms", 30000)));
+        config.setInitializationFailTimeout(-1);
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+
+        this.replicaDataSource = new HikariDataSource(config);
+        System.out.println("✓ Read replica pool initialized (" + host + "/" + replicaSchema + ")");
     }
 
     /**
-     * Gets a connection from the pool.
+     * Gets a connection from the pool of the calling thread's workload.
+     * Inside a transaction this returns the thread's transactional connection;
+     * inside readOnly() it returns a replica connection when the replica is
+     * usable, and otherwise admits the report before it falls back to the
+     * primary.
      */
     public Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
-    }
-
-    /**
-     * Creates database tables if they don't exist.
-     */
-    private void createTablesIfNotExist() {
-        try (Connection conn = getConnection();
-                Statement stmt = conn.createStatement()) {
-
-            // Create products table
-            stmt.execute("CREATE TABLE IF NOT EXISTS products (" +
-                    "code VARCHAR(50) PRIMARY KEY," +
-                    "name VARCHAR(255) NOT NULL," +
-                    "unit VARCHAR(20) NOT NULL DEFAULT 'pcs'," +
-                    "price DECIMAL(10, 2) NOT NULL," +
-                    "discount_percentage DECIMAL(5, 2) DEFAULT 0.0," +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-                    ")");
-
-            // Create inventory table
-            stmt.execute("CREATE TABLE IF NOT EXISTS inventory (" +
-                    "product_code VARCHAR(50) PRIMARY KEY," +
-                    "shelf_quantity INT DEFAULT 0," +
-                    "store_quantity INT DEFAULT 0," +
-                    "online_quantity INT DEFAULT 0," +
-                    "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
-                    "FOREIGN KEY (product_code) REFERENCES products(code) ON DELETE CASCADE" +
-                    ")");
-
-            // Create stock_batches table
-            stmt.execute("CREATE TABLE IF NOT EXISTS stock_batches (" +
-                    "batch_id VARCHAR(255) PRIMARY KEY," +
-                    "product_code VARCHAR(50) NOT NULL," +
-                    "purchase_date DATE NOT NULL," +
-                    "quantity INT NOT NULL," +
-                    "expiry_date DATE NOT NULL," +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                    "FOREIGN KEY (product_code) REFERENCES products(code) ON DELETE CASCADE" +
-                    ")");
-
-            // Create users table
-            stmt.execute("CREATE TABLE IF NOT EXISTS users (" +
-                    "user_id VARCHAR(255) PRIMARY KEY," +
-                    "name VARCHAR(255) NOT NULL," +
-                    "email VARCHAR(255) UNIQUE NOT NULL," +
-                    "password_hash VARCHAR(255) NOT NULL," +
-                    "address TEXT," +
-                    "registration_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-                    ")");
-
-            // Create bills table
-            stmt.execute("CREATE TABLE IF NOT EXISTS bills (" +
-                    "serial_number INT PRIMARY KEY AUTO_INCREMENT," +
-                    "bill_date TIMESTAMP NOT NULL," +
-                    "subtotal DECIMAL(10, 2) NOT NULL," +
-                    "discount DECIMAL(10, 2) NOT NULL," +
-                    "total DECIMAL(10, 2) NOT NULL," +
-                    "cash_tendered DECIMAL(10, 2) NOT NULL," +
-                    "change_amount DECIMAL(10, 2) NOT NULL," +
-                    "transaction_type VARCHAR(20) NOT NULL," +
-                    "customer_id VARCHAR(255)," +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                    "FOREIGN KEY (customer_id) REFERENCES users(user_id) ON DELETE SET NULL" +
-                    ")");
-
-            // Create bill_items table
-            stmt.execute("CREATE TABLE IF NOT EXISTS bill_items (" +
-                    "id INT PRIMARY KEY AUTO_INCREMENT," +
-                    "bill_serial_number INT NOT NULL," +
-                    "product_code VARCHAR(50) NOT NULL," +
-                    "product_name VARCHAR(255) NOT NULL," +
-                    "unit VARCHAR(20) NOT NULL DEFAULT 'pcs'," +
-                    "quantity INT NOT NULL," +
-                    "price DECIMAL(10, 2) NOT NULL," +
-                    "discount_percentage DECIMAL(5, 2) NOT NULL," +
-                    "FOREIGN KEY (bill_serial_number) REFERENCES bills(serial_number) ON DELETE CASCADE," +
-                    "FOREIGN KEY (product_code) REFERENCES products(code) ON DELETE RESTRICT" +
-                    ")");
-
-            // Add unit column to existing tables if not present (for backward
-            // compatibility)
+        Connection bound = transactionConnection.get();
+        if (bound != null) {
+            return transactionScoped(bound);
+        }
+        Workload workload = currentWorkload();
+        if (workload == Workload.REPORTING && replicaDataSource != null && isReplicaUsable()) {
             try {
-                stmt.execute("ALTER TABLE products ADD COLUMN unit VARCHAR(20) NOT NULL DEFAULT 'pcs'");
-                System.out.println("✓ Added 'unit' column to products table");
+                return replicaDataSource.getConnection();
             } catch (SQLException e) {
-                // Column already exists, ignore
+                markReplica(false, "unreachable (" + e.getMessage() + ")");
+            }
+        }
+        if (workload == Workload.REPORTING) {
+            admitReport();
+        }
+        if (workload != Workload.SALES) {
+            return pools.get(workload).getConnection();
+        }
+
+        long start = System.nanoTime();
+        Connection conn = pools.get(Workload.SALES).getConnection();
+        reportAdmission.recordSaleWait(System.nanoTime() - start);
+        return conn;
+    }
+
+    /**
+     * Runs work with connections from the given workload's pool. Nested
+     * calls and calls inside a transaction keep the surrounding workload.
+     */
+    <T, E extends Exception> T inWorkload(Workload workload,
+            TransactionManager.TransactionalWork<T, E> work) throws E {
+        if (workload == Workload.REPORTING) {
+            return readOnly(work);
+        }
+        if (workloadScope.get() != null || isInTransaction()) {
+            return work.execute();
+        }
+        workloadScope.set(workload);
+        try {
+            return work.execute();
+        } finally {
+            workloadScope.remove();
+        }
+    }
+
+    /**
+     * Runs read-only work in the reporting workload, reading from the
+     * replica when one is configured and not lagging too far behind. On the
+     * primary the work is first admitted by the ReportAdmissionController,
+     * including when the replica fails part-way and reads fall back to the
+     * primary. Nested calls and calls inside a transaction read where the
+     * surrounding work reads.
+     */
+    <T, E extends Exception> T readOnly(TransactionManager.TransactionalWork<T, E> work) throws E {
+        if (workloadScope.get() != null || isInTransaction()) {
+            return work.execute();
+        }
+        workloadScope.set(Workload.REPORTING);
+        try {
+            if (replicaDataSource == null || !isReplicaUsable()) {
+                admitReport();
             }
+            return work.execute();
+        } finally {
+            workloadScope.remove();
+            if (reportAdmitted.get() != null) {
+                reportAdmitted.remove();
+                reportAdmission.release();
+            }
+        }
+    }
 
+    /**
+     * Admits the calling thread's report once; readOnly() releases it.
+     */
+    private void admitReport() {
+        if (reportAdmitted.get() == null) {
+            reportAdmission.admit();
+            reportAdmitted.set(Boolean.TRUE);
+        }
+    }
+
+    private Workload currentWorkload() {
+        Workload workload = workloadScope.get();
+        return workload != null ? workload : Workload.SALES;
+    }
+
+    private int getSalesWaiting() {
+        HikariPoolMXBean pool = pools.get(Workload.SALES).getHikariPoolMXBean();
+        return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+    }
+
+    /**
+     * Reports held back, and reports turned away, because checkout was busy.
+     */
+    public long getDelayedReportCount() {
+        return reportAdmission.getDelayedCount();
+    }
+
+    public long getRejectedReportCount() {
+        return reportAdmission.getRejectedCount();
+    }
+
+    public boolean isReplicaInUse() {
+        return replicaDataSource != null && isReplicaUsable();
+    }
+
+    /**
+     * Re-checks replication lag at most once per interval. The thread that
+     * claims the due check runs it; other threads never wait for it and use
+     * the last result.
+     */
+    private boolean isReplicaUsable() {
+        if (System.currentTimeMillis() >= nextReplicaCheckMillis && replicaCheckRunning.compareAndSet(false, true)) {
             try {
-                stmt.execute("ALTER TABLE bill_items ADD COLUMN unit VARCHAR(20) NOT NULL DEFAULT 'pcs'");
-                System.out.println("✓ Added 'unit' column to bill_items table");
-            } catch (SQLException e) {
-                // Column already exists, ignore
+                if (System.currentTimeMillis() >= nextReplicaCheckMillis) {
+                    checkReplicaLag();
+                    nextReplicaCheckMillis = System.currentTimeMillis() + REPLICA_CHECK_INTERVAL_MILLIS;
+                }
+            } finally {
+                replicaCheckRunning.set(false);
             }
+        }
+        return replicaUsable;
+    }
 
-            System.out.println("✓ Database tables created/verified successfully");
+    private void checkReplicaLag() {
+        try (Connection conn = replicaDataSource.getConnection()) {
+            Long lag = replicationLagSeconds(conn);
+            if (lag == null) {
+                markReplica(false, "not replicating");
+            } else if (lag > replicaMaxLagSeconds) {
+                markReplica(false, lag + "s behind the primary");
+            } else {
+                markReplica(true, null);
+            }
+        } catch (SQLException e) {
+            markReplica(false, "unreachable (" + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * Seconds the replica is behind its source; 0 for a standalone copy that
+     * is not configured as a replica, null when replication is stopped.
+     * SHOW REPLICA STATUS and Seconds_Behind_Source need MySQL 8.0.22 or
+     * later; on older servers the query fails and the replica is treated as
+     * unreachable.
+     */
+    private Long replicationLagSeconds(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SHOW REPLICA STATUS")) {
+            if (!rs.next()) {
+                return 0L;
+            }
+            long lag = rs.getLong("Seconds_Behind_Source");
+            return rs.wasNull() ? null : lag;
+        }
+    }
+
+    private void markReplica(boolean usable, String reason) {
+        if (usable != replicaUsable || (!usable && nextReplicaCheckMillis == 0)) {
+            System.out.println(usable
+                    ? "✓ Reports are read from the replica"
+                    : "❌ Read replica " + reason + "; reports are read from the primary");
+        }
+        replicaUsable = usable;
+    }
+
+    boolean isInTransaction() {
+        return transactionConnection.get() != null;
+    }
+
+    /**
+     * Binds a new transactional connection to the calling thread.
+     */
+    void beginTransaction() throws SQLException {
+        Connection conn = pools.get(currentWorkload()).getConnection();
+        conn.setAutoCommit(false);
+        transactionConnection.set(conn);
+        transactionEndActions.set(new ArrayList<>());
+    }
+
+    /**
+     * Runs the action once the calling thread's transaction commits or rolls
+     * back.
+     */
+    void onTransactionEnd(TransactionManager.CompletionAction action) {
+        transactionEndActions.get().add(action);
+    }
+
+    /**
+     * Commits and releases the calling thread's transactional connection.
+     */
+    void commitTransaction() throws SQLException {
+        Connection conn = transactionConnection.get();
+        boolean committed = false;
+        try {
+            conn.commit();
+            committed = true;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            releaseTransaction(conn, committed);
+        }
+    }
+
+    /**
+     * Rolls back and releases the calling thread's transactional connection.
+     */
+    void rollbackTransaction() {
+        Connection conn = transactionConnection.get();
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            System.err.println("❌ Error rolling back transaction: " + e.getMessage());
+        } finally {
+            releaseTransaction(conn, false);
+        }
+    }
+
+    private void releaseTransaction(Connection conn, boolean committed) {
+        transactionConnection.remove();
+        try {
+            conn.setAutoCommit(true);
+            conn.close();
+        } catch (SQLException e) {
+            // Connection is discarded by the pool
+        }
+
+        List<TransactionManager.CompletionAction> actions = transactionEndActions.get();
+        transactionEndActions.remove();
+        for (TransactionManager.CompletionAction action : actions) {
+            action.completed(committed);
+        }
+    }
+
+    /**
+     * Wraps the transactional connection so repositories can keep their usual
+     * try-with-resources and commit/rollback handling; the transaction owner
+     * decides when to commit and release it.
+     */
+    private Connection transactionScoped(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                        case "commit":
+                        case "rollback":
+                        case "setAutoCommit":
+                            return null;
+                        case "getAutoCommit":
+                            return false;
+                        default:
+                            try {
+                                return method.invoke(conn, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    /**
+     * Applies pending schema migrations.
+     * When the schema is already current this is a single version lookup.
+     * Runs on a connection of its own rather than a pooled one: the migration
+     * lock belongs to the session, and closing this connection ends it, so
+     * the lock cannot stay held by a connection returned to the pool.
+     */
+    private void migrateSchema(boolean createSchema) {
+        String url = String.format(DB_URL, DB_HOST, schema) + (createSchema ? "&createDatabaseIfNotExist=true" : "");
+        try (Connection conn = DriverManager.getConnection(url, DB_USER, DB_PASSWORD)) {
+            int applied = new SchemaMigrator().migrate(conn);
+            if (applied > 0) {
+                System.out.println("✓ Database schema migrated (" + applied + " migration(s) applied)");
+            }
 
         } catch (SQLException e) {
-            System.err.println("❌ Error creating database tables: " + e.getMessage());
-            System.err.println("Please ensure MySQL is running and the database 'syos_db' exists.");
-            System.err.println("You can create it with: CREATE DATABASE syos_db;");
+            System.err.println("❌ Error migrating database schema: " + e.getMessage());
+            System.err.println("Please ensure MySQL is running and the database '" + schema + "' exists.");
+            System.err.println("You can create it with: CREATE DATABASE " + schema + ";");
             throw new RuntimeException("Database initialization failed", e);
         }
     }
@@ -175,10 +475,15 @@ public class DatabaseManager {
      * Closes the connection pool.
      */
     public void shutdown() {
-        if (dataSource != null && !dataSource.isClosed()) {
-            dataSource.close();
-            System.out.println("✓ Database connection pool closed");
+        if (replicaDataSource != null && !replicaDataSource.isClosed()) {
+            replicaDataSource.close();
+        }
+        for (HikariDataSource pool : pools.values()) {
+            if (!pool.isClosed()) {
+                pool.close();
+            }
         }
+        System.out.println("✓ Database connection pools closed");
     }
 
     /**
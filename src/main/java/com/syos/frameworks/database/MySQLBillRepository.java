@@ -1,6 +1,8 @@
 package com.syos.frameworks.database;
 
 import com.syos.entities.Bill;
+import com.syos.entities.BillSummary;
+import com.syos.entities.Store;
 import com.syos.usecases.repositories.BillRepository;
 
 import java.sql.*;
@@ -9,6 +11,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * MySQL implementation of BillRepository.
@@ -16,15 +19,21 @@ import java.util.Optional;
 public class MySQLBillRepository implements BillRepository {
     private final DatabaseManager dbManager;
 
-    public MySQLBillRepository() {
-        this.dbManager = DatabaseManager.getInstance();
+    public MySQLBillRepository(String storeId) {
+        this.dbManager = DatabaseManager.forStore(storeId);
     }
 
+    /**
+     * The serial number comes from AUTO_INCREMENT, so concurrent sales never
+     * share one whatever getNextSerialNumber() told them.
+     */
     @Override
-    public void save(Bill bill) {
-        String billSql = "INSERT INTO bills (bill_date, subtotal, discount, total, cash_tendered, change_amount, transaction_type, customer_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    public Bill save(Bill bill) {
+        Store.requireSameStore(dbManager.getStoreId(), bill.getStoreId());
+        String billSql = "INSERT INTO bills (bill_date, subtotal, discount, total, cash_tendered, change_amount, transaction_type, customer_id, bill_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
         String itemSql = "INSERT INTO bill_items (bill_serial_number, product_code, product_name, unit, quantity, price, discount_percentage) VALUES (?, ?, ?, ?, ?, ?, ?)";
 
+        Bill stored = bill;
         try (Connection conn = dbManager.getConnection()) {
             conn.setAutoCommit(false);
 
@@ -37,12 +46,20 @@ public class MySQLBillRepository implements BillRepository {
                 billStmt.setDouble(6, bill.getChange());
                 billStmt.setString(7, bill.getTransactionType().name());
                 billStmt.setString(8, bill.getCustomerId());
+                if (bill.getBillId() != 0) {
+                    billStmt.setLong(9, bill.getBillId());
+                } else {
+                    billStmt.setNull(9, Types.BIGINT);
+                }
 
                 billStmt.executeUpdate();
 
                 ResultSet rs = billStmt.getGeneratedKeys();
                 if (rs.next()) {
                     int billSerialNumber = rs.getInt(1);
+                    if (billSerialNumber != bill.getSerialNumber()) {
+                        stored = bill.withSerialNumber(billSerialNumber);
+                    }
 
                     try (PreparedStatement itemStmt = conn.prepareStatement(itemSql)) {
                         for (Bill.BillItem item : bill.getItems()) {
@@ -66,8 +83,32 @@ public class MySQLBillRepository implements BillRepository {
             }
 
         } catch (SQLException e) {
+            if (e.getErrorCode() == 1062) { // Duplicate entry
+                throw new IllegalArgumentException("Bill " + bill.getBillId() + " is already recorded");
+            }
             throw new RuntimeException("Error saving bill: " + e.getMessage(), e);
         }
+        return stored;
+    }
+
+    @Override
+    public Optional<Bill> findByBillId(long billId, LocalDate billDate) {
+        String sql = "SELECT * FROM bills WHERE bill_id = ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, billId);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return Optional.of(mapResultSetToBill(rs, conn));
+            }
+            return Optional.empty();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding bill: " + e.getMessage(), e);
+        }
     }
 
     @Override
@@ -110,6 +151,75 @@ public class MySQLBillRepository implements BillRepository {
         return bills;
     }
 
+    @Override
+    public List<Bill> findPage(int afterSerial, int limit, Bill.TransactionType type) {
+        // The page is picked from the primary key (or the type index) alone, then joined to its items
+        String sql = "SELECT b.serial_number, b.bill_id, b.bill_date, b.cash_tendered, b.transaction_type, b.customer_id, " +
+                "i.product_code, i.product_name, i.unit, i.quantity, i.price, i.discount_percentage " +
+                "FROM (SELECT * FROM bills WHERE serial_number < ?" +
+                (type != null ? " AND transaction_type = ?" : "") +
+                " ORDER BY serial_number DESC LIMIT ?) b " +
+                "LEFT JOIN bill_items i ON i.bill_serial_number = b.serial_number " +
+                "ORDER BY b.serial_number DESC, i.id";
+        List<Bill> bills = new ArrayList<>(limit);
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            stmt.setInt(index++, afterSerial > 0 ? afterSerial : Integer.MAX_VALUE);
+            if (type != null) {
+                stmt.setString(index++, type.name());
+            }
+            stmt.setInt(index, limit);
+            readJoinedBills(stmt.executeQuery(), bills::add);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding bill page: " + e.getMessage(), e);
+        }
+
+        return bills;
+    }
+
+    @Override
+    public List<BillSummary> findSummaryPage(int afterSerial, int limit, Bill.TransactionType type) {
+        // Header columns only: no bill_items join and the stored totals are used as they are
+        String sql = "SELECT serial_number, bill_id, bill_date, transaction_type, subtotal, discount, total, customer_id " +
+                "FROM bills WHERE serial_number < ?" +
+                (type != null ? " AND transaction_type = ?" : "") +
+                " ORDER BY serial_number DESC LIMIT ?";
+        List<BillSummary> summaries = new ArrayList<>(limit);
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            stmt.setInt(index++, afterSerial > 0 ? afterSerial : Integer.MAX_VALUE);
+            if (type != null) {
+                stmt.setString(index++, type.name());
+            }
+            stmt.setInt(index, limit);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                summaries.add(new BillSummary(
+                        rs.getInt("serial_number"),
+                        rs.getLong("bill_id"),
+                        rs.getTimestamp("bill_date").toLocalDateTime(),
+                        Bill.TransactionType.valueOf(rs.getString("transaction_type")),
+                        rs.getDouble("subtotal"),
+                        rs.getDouble("discount"),
+                        rs.getDouble("total"),
+                        rs.getString("customer_id")));
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding bill summary page: " + e.getMessage(), e);
+        }
+
+        return summaries;
+    }
+
     @Override
     public List<Bill> findByDate(LocalDate date) {
         String sql = "SELECT * FROM bills WHERE DATE(bill_date) = ? ORDER BY serial_number DESC";
@@ -195,6 +305,70 @@ public class MySQLBillRepository implements BillRepository {
         }
     }
 
+    @Override
+    public void forEachInDateRange(LocalDate from, LocalDate to, Consumer<Bill> consumer) {
+        // Single joined query so the streamed result set is the only statement on the connection
+        String sql = "SELECT b.serial_number, b.bill_id, b.bill_date, b.cash_tendered, b.transaction_type, b.customer_id, " +
+                "i.product_code, i.product_name, i.unit, i.quantity, i.price, i.discount_percentage " +
+                "FROM bills b LEFT JOIN bill_items i ON i.bill_serial_number = b.serial_number " +
+                "WHERE b.bill_date >= ? AND b.bill_date < ? ORDER BY b.serial_number, i.id";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+            stmt.setFetchSize(Integer.MIN_VALUE); // MySQL driver: stream rows instead of buffering
+            readJoinedBills(stmt.executeQuery(), consumer);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error streaming bills by date range: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads bill rows left-joined to their items (one row per item, grouped
+     * by serial number) and hands each bill over once its last item is read.
+     */
+    private void readJoinedBills(ResultSet rs, Consumer<Bill> consumer) throws SQLException {
+        Bill.Builder builder = null;
+        int currentSerial = 0;
+
+        while (rs.next()) {
+            int serialNumber = rs.getInt("serial_number");
+            if (builder == null || serialNumber != currentSerial) {
+                if (builder != null) {
+                    consumer.accept(builder.buildStored());
+                }
+                currentSerial = serialNumber;
+                builder = new Bill.Builder()
+                        .serialNumber(serialNumber)
+                        .billId(rs.getLong("bill_id"))
+                        .storeId(dbManager.getStoreId())
+                        .billDate(rs.getTimestamp("bill_date").toLocalDateTime())
+                        .cashTendered(rs.getDouble("cash_tendered"))
+                        .transactionType(Bill.TransactionType.valueOf(rs.getString("transaction_type")))
+                        .customerId(rs.getString("customer_id"));
+            }
+
+            // A bill without items comes back as one row with null item columns
+            if (rs.getString("product_code") != null) {
+                builder.addItem(new Bill.BillItem(
+                        rs.getString("product_code"),
+                        rs.getString("product_name"),
+                        rs.getString("unit"),
+                        rs.getInt("quantity"),
+                        rs.getDouble("price"),
+                        rs.getDouble("discount_percentage")));
+            }
+        }
+
+        if (builder != null) {
+            consumer.accept(builder.buildStored());
+        }
+    }
+
     private Bill mapResultSetToBill(ResultSet rs, Connection conn) throws SQLException {
         int serialNumber = rs.getInt("serial_number");
         LocalDateTime billDate = rs.getTimestamp("bill_date").toLocalDateTime();
@@ -204,6 +378,8 @@ public class MySQLBillRepository implements BillRepository {
 
         Bill.Builder builder = new Bill.Builder()
                 .serialNumber(serialNumber)
+                .billId(rs.getLong("bill_id"))
+                .storeId(dbManager.getStoreId())
                 .billDate(billDate)
                 .cashTendered(cashTendered)
                 .transactionType(transactionType)
@@ -214,7 +390,7 @@ public class MySQLBillRepository implements BillRepository {
             builder.addItem(item);
         }
 
-        return builder.build();
+        return builder.buildStored();
     }
 
     private List<Bill.BillItem> getBillItems(int billSerialNumber, Connection conn) throws SQLException {
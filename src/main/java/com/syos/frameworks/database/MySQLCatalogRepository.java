@@ -0,0 +1,64 @@
+package com.syos.frameworks.database;
+
+import com.syos.entities.CatalogEntry;
+import com.syos.entities.Inventory;
+import com.syos.entities.Product;
+import com.syos.usecases.repositories.CatalogRepository;
+import com.syos.usecases.repositories.InventoryRepository;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * MySQL implementation of CatalogRepository.
+ * One keyset-paginated query per page; the range scan on the products
+ * primary key keeps late pages as cheap as the first. Online availability
+ * comes from the inventory repository in one batched lookup per page.
+ */
+public class MySQLCatalogRepository implements CatalogRepository {
+    private final DatabaseManager dbManager;
+    private final InventoryRepository inventoryRepository;
+
+    public MySQLCatalogRepository(String storeId, InventoryRepository inventoryRepository) {
+        this.dbManager = DatabaseManager.forStore(storeId);
+        this.inventoryRepository = inventoryRepository;
+    }
+
+    @Override
+    public List<CatalogEntry> findPage(String afterCode, int limit) {
+        String sql = "SELECT * FROM products WHERE code > ? ORDER BY code LIMIT ?";
+        List<Product> page = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, afterCode == null ? "" : afterCode);
+            stmt.setInt(2, limit);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                page.add(new Product.Builder()
+                        .code(rs.getString("code"))
+                        .name(rs.getString("name"))
+                        .unit(rs.getString("unit"))
+                        .price(rs.getDouble("price"))
+                        .discountPercentage(rs.getDouble("discount_percentage"))
+                        .build());
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading catalog: " + e.getMessage(), e);
+        }
+
+        Map<String, Integer> available = inventoryRepository
+                .findByProductCodes(page.stream().map(Product::getCode).toList()).stream()
+                .collect(Collectors.toMap(Inventory::getProductCode, Inventory::getOnlineQuantity));
+
+        return page.stream()
+                .map(p -> new CatalogEntry(p, available.getOrDefault(p.getCode(), 0)))
+                .toList();
+    }
+}
@@ -0,0 +1,237 @@
+package com.syos.frameworks.database;
+
+import com.syos.entities.Inventory;
+import com.syos.entities.InventoryMovement;
+import com.syos.entities.InventorySnapshot;
+import com.syos.usecases.repositories.InventoryLedgerRepository;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * MySQL implementation of InventoryLedgerRepository.
+ * Movements are insert-only rows; IDs come from AUTO_INCREMENT and appends
+ * take no lock, so concurrent transactions append, and commit, side by
+ * side. Writers that check stock first lock the products' rows, in code
+ * order so two writers cannot deadlock on them.
+ */
+public class MySQLInventoryLedgerRepository implements InventoryLedgerRepository {
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+    private final DatabaseManager dbManager;
+
+    public MySQLInventoryLedgerRepository(String storeId) {
+        this.dbManager = DatabaseManager.forStore(storeId);
+    }
+
+    @Override
+    public void lockProducts(Collection<String> productCodes) {
+        List<String> sorted = new ArrayList<>(new TreeSet<>(productCodes));
+        try (Connection conn = dbManager.getConnection()) {
+            for (int from = 0; from < sorted.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                List<String> chunk = sorted.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, sorted.size()));
+                String sql = "SELECT code FROM products WHERE code IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY code FOR UPDATE";
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setString(i + 1, chunk.get(i));
+                    }
+                    stmt.executeQuery().close();
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error locking products: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<InventoryMovement> append(List<InventoryMovement> movements) {
+        if (movements.isEmpty()) {
+            return movements;
+        }
+
+        String sql = "INSERT INTO inventory_movements (product_code, location, movement_type, quantity_delta, " +
+                "reference, occurred_at) VALUES (?, ?, ?, ?, ?, ?)";
+        List<InventoryMovement> stored = new ArrayList<>(movements.size());
+
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (InventoryMovement movement : movements) {
+                    stmt.setString(1, movement.getProductCode());
+                    stmt.setString(2, movement.getLocation().name());
+                    stmt.setString(3, movement.getType().name());
+                    stmt.setInt(4, movement.getQuantityDelta());
+                    stmt.setString(5, movement.getReference());
+                    stmt.setTimestamp(6, Timestamp.valueOf(movement.getOccurredAt()));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+
+                ResultSet keys = stmt.getGeneratedKeys();
+                for (InventoryMovement movement : movements) {
+                    if (!keys.next()) {
+                        throw new SQLException("Missing generated key for inventory movement");
+                    }
+                    stored.add(movement.withId(keys.getLong(1)));
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error appending inventory movements: " + e.getMessage(), e);
+        }
+
+        return stored;
+    }
+
+    /**
+     * A plain read: connections run at READ COMMITTED, so inside a
+     * transaction it still sees movements committed after the transaction's
+     * first read, without locking the rows or the range after them.
+     */
+    @Override
+    public void forEachAfter(long movementId, Collection<Long> earlierIds, Consumer<InventoryMovement> consumer) {
+        String sql = "SELECT * FROM inventory_movements WHERE movement_id > ?"
+                + (earlierIds.isEmpty() ? ""
+                        : " OR movement_id IN (" + String.join(", ", Collections.nCopies(earlierIds.size(), "?")) + ")")
+                + " ORDER BY movement_id";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setLong(1, movementId);
+            int index = 2;
+            for (long earlierId : earlierIds) {
+                stmt.setLong(index++, earlierId);
+            }
+            stmt.setFetchSize(Integer.MIN_VALUE); // MySQL driver: stream rows instead of buffering
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                consumer.accept(mapResultSetToMovement(rs));
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading inventory movements: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<InventoryMovement> findByProductCode(String productCode) {
+        String sql = "SELECT * FROM inventory_movements WHERE product_code = ? ORDER BY movement_id";
+        List<InventoryMovement> movements = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, productCode);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                movements.add(mapResultSetToMovement(rs));
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding inventory movements: " + e.getMessage(), e);
+        }
+
+        return movements;
+    }
+
+    @Override
+    public void saveSnapshot(InventorySnapshot snapshot) {
+        String deleteSql = "DELETE FROM inventory_snapshots WHERE snapshot_date = ?";
+        String insertSql = "INSERT INTO inventory_snapshots (snapshot_date, product_code, shelf_quantity, " +
+                "store_quantity, online_quantity, last_movement_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement delete = conn.prepareStatement(deleteSql);
+                    PreparedStatement insert = conn.prepareStatement(insertSql)) {
+                delete.setDate(1, Date.valueOf(snapshot.getDate()));
+                delete.executeUpdate();
+
+                for (Inventory inventory : snapshot.getLevels()) {
+                    insert.setDate(1, Date.valueOf(snapshot.getDate()));
+                    insert.setString(2, inventory.getProductCode());
+                    insert.setInt(3, inventory.getShelfQuantity());
+                    insert.setInt(4, inventory.getStoreQuantity());
+                    insert.setInt(5, inventory.getOnlineQuantity());
+                    insert.setLong(6, snapshot.getLastMovementId());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving inventory snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<InventorySnapshot> findLatestSnapshot(LocalDate onOrBefore) {
+        String sql = "SELECT * FROM inventory_snapshots WHERE snapshot_date = " +
+                "(SELECT MAX(snapshot_date) FROM inventory_snapshots WHERE snapshot_date <= ?)";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(onOrBefore));
+            ResultSet rs = stmt.executeQuery();
+
+            LocalDate date = null;
+            long lastMovementId = 0;
+            List<Inventory> levels = new ArrayList<>();
+
+            while (rs.next()) {
+                date = rs.getDate("snapshot_date").toLocalDate();
+                lastMovementId = rs.getLong("last_movement_id");
+                levels.add(mapResultSetToInventory(rs));
+            }
+
+            // An empty snapshot (no products yet) has no rows to carry its date
+            return date == null ? Optional.empty()
+                    : Optional.of(new InventorySnapshot(date, lastMovementId, levels));
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding inventory snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    private InventoryMovement mapResultSetToMovement(ResultSet rs) throws SQLException {
+        return new InventoryMovement(
+                rs.getLong("movement_id"),
+                rs.getString("product_code"),
+                InventoryMovement.Location.valueOf(rs.getString("location")),
+                InventoryMovement.MovementType.valueOf(rs.getString("movement_type")),
+                rs.getInt("quantity_delta"),
+                rs.getString("reference"),
+                rs.getTimestamp("occurred_at").toLocalDateTime());
+    }
+
+    private Inventory mapResultSetToInventory(ResultSet rs) throws SQLException {
+        return new Inventory(dbManager.getStoreId(), rs.getString("product_code"), rs.getInt("shelf_quantity"),
+                rs.getInt("store_quantity"), rs.getInt("online_quantity"));
+    }
+}
@@ -1,10 +1,14 @@
 package com.syos.frameworks.database;
 
 import com.syos.entities.Inventory;
+import com.syos.entities.Store;
 import com.syos.usecases.repositories.InventoryRepository;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,14 +16,16 @@ import java.util.Optional;
  * MySQL implementation of InventoryRepository.
  */
 public class MySQLInventoryRepository implements InventoryRepository {
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
     private final DatabaseManager dbManager;
 
-    public MySQLInventoryRepository() {
-        this.dbManager = DatabaseManager.getInstance();
+    public MySQLInventoryRepository(String storeId) {
+        this.dbManager = DatabaseManager.forStore(storeId);
     }
 
     @Override
     public void save(Inventory inventory) {
+        Store.requireSameStore(dbManager.getStoreId(), inventory.getStoreId());
         String sql = "INSERT INTO inventory (product_code, shelf_quantity, store_quantity, online_quantity) VALUES (?, ?, ?, ?)";
 
         try (Connection conn = dbManager.getConnection();
@@ -37,6 +43,39 @@ public class MySQLInventoryRepository implements InventoryRepository {
         }
     }
 
+    @Override
+    public void saveAll(List<Inventory> inventories) {
+        if (inventories.isEmpty()) {
+            return;
+        }
+
+        String sql = "INSERT INTO inventory (product_code, shelf_quantity, store_quantity, online_quantity) VALUES (?, ?, ?, ?)";
+
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Inventory inventory : inventories) {
+                    Store.requireSameStore(dbManager.getStoreId(), inventory.getStoreId());
+                    stmt.setString(1, inventory.getProductCode());
+                    stmt.setInt(2, inventory.getShelfQuantity());
+                    stmt.setInt(3, inventory.getStoreQuantity());
+                    stmt.setInt(4, inventory.getOnlineQuantity());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving inventories: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public Optional<Inventory> findByProductCode(String productCode) {
         String sql = "SELECT * FROM inventory WHERE product_code = ?";
@@ -57,6 +96,37 @@ public class MySQLInventoryRepository implements InventoryRepository {
         }
     }
 
+    @Override
+    public List<Inventory> findByProductCodes(Collection<String> productCodes) {
+        List<String> distinctCodes = new ArrayList<>(new LinkedHashSet<>(productCodes));
+        List<Inventory> inventories = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection()) {
+            for (int from = 0; from < distinctCodes.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                List<String> chunk = distinctCodes.subList(from,
+                        Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinctCodes.size()));
+                String sql = "SELECT * FROM inventory WHERE product_code IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setString(i + 1, chunk.get(i));
+                    }
+                    ResultSet rs = stmt.executeQuery();
+
+                    while (rs.next()) {
+                        inventories.add(mapResultSetToInventory(rs));
+                    }
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding inventories: " + e.getMessage(), e);
+        }
+
+        return inventories;
+    }
+
     @Override
     public List<Inventory> findAll() {
         String sql = "SELECT * FROM inventory ORDER BY product_code";
@@ -79,6 +149,7 @@ public class MySQLInventoryRepository implements InventoryRepository {
 
     @Override
     public void update(Inventory inventory) {
+        Store.requireSameStore(dbManager.getStoreId(), inventory.getStoreId());
         String sql = "UPDATE inventory SET shelf_quantity = ?, store_quantity = ?, online_quantity = ? WHERE product_code = ?";
 
         try (Connection conn = dbManager.getConnection();
@@ -99,6 +170,46 @@ public class MySQLInventoryRepository implements InventoryRepository {
         }
     }
 
+    @Override
+    public void updateAll(List<Inventory> inventories) {
+        if (inventories.isEmpty()) {
+            return;
+        }
+
+        String sql = "UPDATE inventory SET shelf_quantity = ?, store_quantity = ?, online_quantity = ? WHERE product_code = ?";
+
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Inventory inventory : inventories) {
+                    Store.requireSameStore(dbManager.getStoreId(), inventory.getStoreId());
+                    stmt.setInt(1, inventory.getShelfQuantity());
+                    stmt.setInt(2, inventory.getStoreQuantity());
+                    stmt.setInt(3, inventory.getOnlineQuantity());
+                    stmt.setString(4, inventory.getProductCode());
+                    stmt.addBatch();
+                }
+
+                int[] rowsAffected = stmt.executeBatch();
+                for (int i = 0; i < rowsAffected.length; i++) {
+                    if (rowsAffected[i] == 0) {
+                        throw new IllegalArgumentException(
+                                "Inventory not found: " + inventories.get(i).getProductCode());
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating inventories: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public List<Inventory> findBelowReorderLevel() {
         String sql = "SELECT * FROM inventory WHERE (shelf_quantity + store_quantity + online_quantity) < 50 ORDER BY product_code";
@@ -120,7 +231,7 @@ public class MySQLInventoryRepository implements InventoryRepository {
     }
 
     private Inventory mapResultSetToInventory(ResultSet rs) throws SQLException {
-        Inventory inventory = new Inventory(rs.getString("product_code"));
+        Inventory inventory = new Inventory(dbManager.getStoreId(), rs.getString("product_code"));
 
         int shelfQty = rs.getInt("shelf_quantity");
         int storeQty = rs.getInt("store_quantity");
@@ -0,0 +1,119 @@
+package com.syos.frameworks.database;
+
+import com.syos.entities.ProductBarcode;
+import com.syos.usecases.repositories.ProductBarcodeRepository;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MySQL implementation of ProductBarcodeRepository.
+ */
+public class MySQLProductBarcodeRepository implements ProductBarcodeRepository {
+    private final DatabaseManager dbManager;
+
+    public MySQLProductBarcodeRepository(String storeId) {
+        this.dbManager = DatabaseManager.forStore(storeId);
+    }
+
+    @Override
+    public void save(ProductBarcode barcode) {
+        String sql = "INSERT INTO product_barcodes (barcode, product_code) VALUES (?, ?)";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, barcode.getBarcode());
+            stmt.setString(2, barcode.getProductCode());
+
+            stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            if (e.getErrorCode() == 1062) { // Duplicate entry
+                throw new IllegalArgumentException("Barcode already assigned: " + barcode.getBarcode());
+            }
+            throw new RuntimeException("Error saving barcode: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(long barcode) {
+        String sql = "DELETE FROM product_barcodes WHERE barcode = ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, barcode);
+            stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting barcode: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The foreign key cascades product deletes too; this keeps the delete
+     * explicit inside the caller's transaction.
+     */
+    @Override
+    public void deleteByProductCode(String productCode) {
+        String sql = "DELETE FROM product_barcodes WHERE product_code = ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, productCode);
+            stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting product barcodes: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<ProductBarcode> findByProductCode(String productCode) {
+        String sql = "SELECT * FROM product_barcodes WHERE product_code = ? ORDER BY barcode";
+        List<ProductBarcode> barcodes = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, productCode);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                barcodes.add(mapResultSetToBarcode(rs));
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding barcodes: " + e.getMessage(), e);
+        }
+
+        return barcodes;
+    }
+
+    @Override
+    public List<ProductBarcode> findAll() {
+        String sql = "SELECT * FROM product_barcodes";
+        List<ProductBarcode> barcodes = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                barcodes.add(mapResultSetToBarcode(rs));
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding barcodes: " + e.getMessage(), e);
+        }
+
+        return barcodes;
+    }
+
+    private ProductBarcode mapResultSetToBarcode(ResultSet rs) throws SQLException {
+        return new ProductBarcode(rs.getLong("barcode"), rs.getString("product_code"));
+    }
+}
@@ -5,6 +5,9 @@ import com.syos.usecases.repositories.ProductRepository;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,10 +16,11 @@ import java.util.Optional;
  * Implements Repository Pattern with JDBC.
  */
 public class MySQLProductRepository implements ProductRepository {
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
     private final DatabaseManager dbManager;
 
-    public MySQLProductRepository() {
-        this.dbManager = DatabaseManager.getInstance();
+    public MySQLProductRepository(String storeId) {
+        this.dbManager = DatabaseManager.forStore(storeId);
     }
 
     @Override
@@ -42,6 +46,42 @@ public class MySQLProductRepository implements ProductRepository {
         }
     }
 
+    @Override
+    public void saveAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+
+        String sql = "INSERT INTO products (code, name, unit, price, discount_percentage) VALUES (?, ?, ?, ?, ?)";
+
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Product product : products) {
+                    stmt.setString(1, product.getCode());
+                    stmt.setString(2, product.getName());
+                    stmt.setString(3, product.getUnit());
+                    stmt.setDouble(4, product.getPrice());
+                    stmt.setDouble(5, product.getDiscountPercentage());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            if (e.getErrorCode() == 1062) { // Duplicate entry
+                throw new IllegalArgumentException("Product already exists: " + e.getMessage());
+            }
+            throw new RuntimeException("Error saving products: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public Optional<Product> findByCode(String code) {
         String sql = "SELECT * FROM products WHERE code = ?";
@@ -62,6 +102,37 @@ public class MySQLProductRepository implements ProductRepository {
         }
     }
 
+    @Override
+    public List<Product> findByCodes(Collection<String> codes) {
+        List<String> distinctCodes = new ArrayList<>(new LinkedHashSet<>(codes));
+        List<Product> products = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection()) {
+            for (int from = 0; from < distinctCodes.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                List<String> chunk = distinctCodes.subList(from,
+                        Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinctCodes.size()));
+                String sql = "SELECT * FROM products WHERE code IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setString(i + 1, chunk.get(i));
+                    }
+                    ResultSet rs = stmt.executeQuery();
+
+                    while (rs.next()) {
+                        products.add(mapResultSetToProduct(rs));
+                    }
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding products: " + e.getMessage(), e);
+        }
+
+        return products;
+    }
+
     @Override
     public List<Product> findAll() {
         String sql = "SELECT * FROM products ORDER BY code";
@@ -1,6 +1,7 @@
 package com.syos.frameworks.database;
 
 import com.syos.entities.StockBatch;
+import com.syos.entities.Store;
 import com.syos.usecases.repositories.StockBatchRepository;
 
 import java.sql.*;
@@ -15,12 +16,13 @@ import java.util.Optional;
 public class MySQLStockBatchRepository implements StockBatchRepository {
     private final DatabaseManager dbManager;
 
-    public MySQLStockBatchRepository() {
-        this.dbManager = DatabaseManager.getInstance();
+    public MySQLStockBatchRepository(String storeId) {
+        this.dbManager = DatabaseManager.forStore(storeId);
     }
 
     @Override
     public void save(StockBatch stockBatch) {
+        Store.requireSameStore(dbManager.getStoreId(), stockBatch.getStoreId());
         String sql = "INSERT INTO stock_batches (batch_id, product_code, purchase_date, quantity, expiry_date) VALUES (?, ?, ?, ?, ?)";
 
         try (Connection conn = dbManager.getConnection();
@@ -39,6 +41,40 @@ public class MySQLStockBatchRepository implements StockBatchRepository {
         }
     }
 
+    @Override
+    public void saveAll(List<StockBatch> stockBatches) {
+        if (stockBatches.isEmpty()) {
+            return;
+        }
+
+        String sql = "INSERT INTO stock_batches (batch_id, product_code, purchase_date, quantity, expiry_date) VALUES (?, ?, ?, ?, ?)";
+
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (StockBatch stockBatch : stockBatches) {
+                    Store.requireSameStore(dbManager.getStoreId(), stockBatch.getStoreId());
+                    stmt.setString(1, stockBatch.getBatchId());
+                    stmt.setString(2, stockBatch.getProductCode());
+                    stmt.setDate(3, Date.valueOf(stockBatch.getPurchaseDate()));
+                    stmt.setInt(4, stockBatch.getQuantity());
+                    stmt.setDate(5, Date.valueOf(stockBatch.getExpiryDate()));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving stock batches: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public Optional<StockBatch> findById(String batchId) {
         String sql = "SELECT * FROM stock_batches WHERE batch_id = ?";
@@ -81,6 +117,30 @@ public class MySQLStockBatchRepository implements StockBatchRepository {
         return batches;
     }
 
+    @Override
+    public List<StockBatch> findAvailableByProductCode(String productCode, LocalDate date) {
+        String sql = "SELECT * FROM stock_batches WHERE product_code = ? AND expiry_date >= ? AND quantity > 0 "
+                + "ORDER BY purchase_date";
+        List<StockBatch> batches = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, productCode);
+            stmt.setDate(2, Date.valueOf(date));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                batches.add(mapResultSetToStockBatch(rs));
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding available stock batches: " + e.getMessage(), e);
+        }
+
+        return batches;
+    }
+
     @Override
     public List<StockBatch> findAll() {
         String sql = "SELECT * FROM stock_batches ORDER BY product_code, purchase_date";
@@ -103,6 +163,7 @@ public class MySQLStockBatchRepository implements StockBatchRepository {
 
     @Override
     public void update(StockBatch stockBatch) {
+        Store.requireSameStore(dbManager.getStoreId(), stockBatch.getStoreId());
         String sql = "UPDATE stock_batches SET quantity = ? WHERE batch_id = ?";
 
         try (Connection conn = dbManager.getConnection();
@@ -136,6 +197,63 @@ public class MySQLStockBatchRepository implements StockBatchRepository {
         }
     }
 
+    @Override
+    public int archive(LocalDate expiredBefore) {
+        String copySql = "INSERT INTO stock_batches_archive "
+                + "(batch_id, product_code, purchase_date, quantity, expiry_date, created_at) "
+                + "SELECT batch_id, product_code, purchase_date, quantity, expiry_date, created_at "
+                + "FROM stock_batches WHERE quantity = 0 OR expiry_date < ? "
+                + "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), archived_at = CURRENT_TIMESTAMP";
+        // Only rows that were copied are deleted, whatever changed in between
+        String deleteSql = "DELETE s FROM stock_batches s "
+                + "JOIN stock_batches_archive a ON a.batch_id = s.batch_id "
+                + "WHERE s.quantity = a.quantity AND (s.quantity = 0 OR s.expiry_date < ?)";
+
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement copy = conn.prepareStatement(copySql);
+                    PreparedStatement delete = conn.prepareStatement(deleteSql)) {
+                copy.setDate(1, Date.valueOf(expiredBefore));
+                copy.executeUpdate();
+
+                delete.setDate(1, Date.valueOf(expiredBefore));
+                int archived = delete.executeUpdate();
+
+                conn.commit();
+                return archived;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error archiving stock batches: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<StockBatch> findArchivedByProductCode(String productCode) {
+        String sql = "SELECT * FROM stock_batches_archive WHERE product_code = ? ORDER BY purchase_date";
+        List<StockBatch> batches = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, productCode);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                batches.add(mapResultSetToStockBatch(rs));
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding archived stock batches: " + e.getMessage(), e);
+        }
+
+        return batches;
+    }
+
     private StockBatch mapResultSetToStockBatch(ResultSet rs) throws SQLException {
         String batchId = rs.getString("batch_id");
         String productCode = rs.getString("product_code");
@@ -144,6 +262,6 @@ public class MySQLStockBatchRepository implements StockBatchRepository {
         LocalDate expiryDate = rs.getDate("expiry_date").toLocalDate();
 
         // Use constructor with batch_id to preserve the database ID
-        return new StockBatch(batchId, productCode, purchaseDate, quantity, expiryDate);
+        return new StockBatch(dbManager.getStoreId(), batchId, productCode, purchaseDate, quantity, expiryDate);
     }
 }
@@ -0,0 +1,71 @@
+package com.syos.frameworks.database;
+
+import com.syos.usecases.repositories.TransactionManager;
+import com.syos.usecases.repositories.Workload;
+
+import java.sql.SQLException;
+
+/**
+ * MySQL implementation of TransactionManager.
+ * Binds one pooled connection to the calling thread so every MySQL repository
+ * used inside the work shares the same transaction. Read-only work is
+ * routed to the read replica when one is configured, and each workload uses
+ * its own connection pool.
+ */
+public class MySQLTransactionManager implements TransactionManager {
+    private final DatabaseManager dbManager;
+
+    public MySQLTransactionManager(String storeId) {
+        this.dbManager = DatabaseManager.forStore(storeId);
+    }
+
+    @Override
+    public <T, E extends Exception> T inTransaction(TransactionalWork<T, E> work) throws E {
+        if (dbManager.isInTransaction()) {
+            return work.execute();
+        }
+
+        try {
+            dbManager.beginTransaction();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error starting transaction: " + e.getMessage(), e);
+        }
+
+        T result;
+        boolean completed = false;
+        try {
+            result = work.execute();
+            completed = true;
+        } finally {
+            if (!completed) {
+                dbManager.rollbackTransaction();
+            }
+        }
+
+        try {
+            dbManager.commitTransaction();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error committing transaction: " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    @Override
+    public void afterCompletion(CompletionAction action) {
+        if (dbManager.isInTransaction()) {
+            dbManager.onTransactionEnd(action);
+        } else {
+            action.completed(true);
+        }
+    }
+
+    @Override
+    public <T, E extends Exception> T readOnly(TransactionalWork<T, E> work) throws E {
+        return dbManager.readOnly(work);
+    }
+
+    @Override
+    public <T, E extends Exception> T inWorkload(Workload workload, TransactionalWork<T, E> work) throws E {
+        return dbManager.inWorkload(workload, work);
+    }
+}
@@ -15,8 +15,8 @@ import java.util.Optional;
 public class MySQLUserRepository implements UserRepository {
     private final DatabaseManager dbManager;
 
-    public MySQLUserRepository() {
-        this.dbManager = DatabaseManager.getInstance();
+    public MySQLUserRepository(String storeId) {
+        this.dbManager = DatabaseManager.forStore(storeId);
     }
 
     @Override
@@ -43,6 +43,28 @@ public class MySQLUserRepository implements UserRepository {
         }
     }
 
+    @Override
+    public void update(User user) {
+        String sql = "UPDATE users SET name = ?, email = ?, password_hash = ?, address = ? WHERE user_id = ?";
+
+        try (Connection conn = dbManager.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, user.getName());
+            stmt.setString(2, user.getEmail());
+            stmt.setString(3, user.getPasswordHash());
+            stmt.setString(4, user.getAddress());
+            stmt.setString(5, user.getUserId());
+
+            if (stmt.executeUpdate() == 0) {
+                throw new IllegalArgumentException("User not found: " + user.getUserId());
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating user: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public Optional<User> findById(String userId) {
         String sql = "SELECT * FROM users WHERE user_id = ?";
@@ -105,7 +127,7 @@ public class MySQLUserRepository implements UserRepository {
 
     @Override
     public boolean existsByEmail(String email) {
-        String sql = "SELECT COUNT(*) FROM users WHERE email = ?";
+        String sql = "SELECT 1 FROM users WHERE email = ? LIMIT 1";
 
         try (Connection conn = dbManager.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -113,10 +135,7 @@ public class MySQLUserRepository implements UserRepository {
             stmt.setString(1, email);
             ResultSet rs = stmt.executeQuery();
 
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
-            return false;
+            return rs.next();
 
         } catch (SQLException e) {
             throw new RuntimeException("Error checking user existence: " + e.getMessage(), e);
@@ -0,0 +1,111 @@
+package com.syos.frameworks.database;
+
+import com.syos.usecases.repositories.TransactionManager.WorkloadRejectedException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Admits reports on the primary only while checkout is healthy, and at most
+ * as many at once as the reporting pool has connections.
+ * Sale latency is tracked as a moving average of how long sales wait for a
+ * pooled connection. While that average is above the threshold, or tills
+ * are queued for a connection, new reports wait instead of starting, and
+ * are rejected if checkout stays busy past the admission timeout. Reports
+ * already running are not interrupted.
+ */
+class ReportAdmissionController {
+    private static final double AVERAGE_WEIGHT = 0.2;
+    private static final long SAMPLE_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long RETRY_MILLIS = 25;
+
+    private final Semaphore running;
+    private final IntSupplier salesWaiting;
+    private final long waitThresholdNanos;
+    private final long admissionTimeoutMillis;
+    private final AtomicLong averageWaitBits = new AtomicLong(Double.doubleToLongBits(0));
+    private volatile long lastSampleNanos;
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param maxRunning   Reports allowed to run at once
+     * @param salesWaiting Tills currently queued for a sales connection
+     */
+    ReportAdmissionController(int maxRunning, IntSupplier salesWaiting, long waitThresholdMillis,
+            long admissionTimeoutMillis) {
+        this.running = new Semaphore(maxRunning);
+        this.salesWaiting = salesWaiting;
+        this.waitThresholdNanos = TimeUnit.MILLISECONDS.toNanos(waitThresholdMillis);
+        this.admissionTimeoutMillis = admissionTimeoutMillis;
+    }
+
+    /**
+     * Records how long a sale waited for its connection.
+     */
+    void recordSaleWait(long nanos) {
+        long current;
+        long next;
+        do {
+            current = averageWaitBits.get();
+            double average = Double.longBitsToDouble(current);
+            next = Double.doubleToLongBits(average + AVERAGE_WEIGHT * (nanos - average));
+        } while (!averageWaitBits.compareAndSet(current, next));
+        lastSampleNanos = System.nanoTime();
+    }
+
+    /**
+     * A stale average (no sales recently) does not count as pressure.
+     */
+    boolean isCheckoutBusy() {
+        if (salesWaiting.getAsInt() > 0) {
+            return true;
+        }
+        return System.nanoTime() - lastSampleNanos < SAMPLE_MAX_AGE_NANOS
+                && Double.longBitsToDouble(averageWaitBits.get()) > waitThresholdNanos;
+    }
+
+    /**
+     * Blocks until the report may run; pair with release().
+     */
+    void admit() {
+        long deadline = System.currentTimeMillis() + admissionTimeoutMillis;
+        boolean waited = false;
+        while (true) {
+            boolean busy = isCheckoutBusy();
+            if (!busy && running.tryAcquire()) {
+                if (waited) {
+                    delayed.incrementAndGet();
+                }
+                return;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                rejected.incrementAndGet();
+                throw new WorkloadRejectedException(busy
+                        ? "Reports are paused while checkout is busy; try again shortly"
+                        : "Too many reports are running; try again shortly");
+            }
+            waited = true;
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WorkloadRejectedException("Interrupted while waiting to run a report");
+            }
+        }
+    }
+
+    void release() {
+        running.release();
+    }
+
+    long getDelayedCount() {
+        return delayed.get();
+    }
+
+    long getRejectedCount() {
+        return rejected.get();
+    }
+}
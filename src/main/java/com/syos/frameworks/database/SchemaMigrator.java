@@ -0,0 +1,264 @@
+package com.syos.frameworks.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Versioned schema migration runner.
+ * Startup costs a single query against the schema_version table; DDL is only
+ * executed when the database is behind the latest registered migration.
+ */
+class SchemaMigrator {
+    private static final int ER_NO_SUCH_TABLE = 1146;
+    private static final int ER_DUP_FIELDNAME = 1060;
+    private static final int ER_DUP_KEYNAME = 1061;
+    private static final String LOCK_NAME = "syos_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+
+    private final List<Migration> migrations = new ArrayList<>();
+
+    SchemaMigrator() {
+        register(1, "Create core tables",
+                "CREATE TABLE IF NOT EXISTS products (" +
+                        "code VARCHAR(50) PRIMARY KEY," +
+                        "name VARCHAR(255) NOT NULL," +
+                        "unit VARCHAR(20) NOT NULL DEFAULT 'pcs'," +
+                        "price DECIMAL(10, 2) NOT NULL," +
+                        "discount_percentage DECIMAL(5, 2) DEFAULT 0.0," +
+                        "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                        ")",
+                "CREATE TABLE IF NOT EXISTS inventory (" +
+                        "product_code VARCHAR(50) PRIMARY KEY," +
+                        "shelf_quantity INT DEFAULT 0," +
+                        "store_quantity INT DEFAULT 0," +
+                        "online_quantity INT DEFAULT 0," +
+                        "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
+                        "FOREIGN KEY (product_code) REFERENCES products(code) ON DELETE CASCADE" +
+                        ")",
+                "CREATE TABLE IF NOT EXISTS stock_batches (" +
+                        "batch_id VARCHAR(255) PRIMARY KEY," +
+                        "product_code VARCHAR(50) NOT NULL," +
+                        "purchase_date DATE NOT NULL," +
+                        "quantity INT NOT NULL," +
+                        "expiry_date DATE NOT NULL," +
+                        "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                        "FOREIGN KEY (product_code) REFERENCES products(code) ON DELETE CASCADE" +
+                        ")",
+                "CREATE TABLE IF NOT EXISTS users (" +
+                        "user_id VARCHAR(255) PRIMARY KEY," +
+                        "name VARCHAR(255) NOT NULL," +
+                        "email VARCHAR(255) UNIQUE NOT NULL," +
+                        "password_hash VARCHAR(255) NOT NULL," +
+                        "address TEXT," +
+                        "registration_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                        ")",
+                "CREATE TABLE IF NOT EXISTS bills (" +
+                        "serial_number INT PRIMARY KEY AUTO_INCREMENT," +
+                        "bill_date TIMESTAMP NOT NULL," +
+                        "subtotal DECIMAL(10, 2) NOT NULL," +
+                        "discount DECIMAL(10, 2) NOT NULL," +
+                        "total DECIMAL(10, 2) NOT NULL," +
+                        "cash_tendered DECIMAL(10, 2) NOT NULL," +
+                        "change_amount DECIMAL(10, 2) NOT NULL," +
+                        "transaction_type VARCHAR(20) NOT NULL," +
+                        "customer_id VARCHAR(255)," +
+                        "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                        "FOREIGN KEY (customer_id) REFERENCES users(user_id) ON DELETE SET NULL" +
+                        ")",
+                "CREATE TABLE IF NOT EXISTS bill_items (" +
+                        "id INT PRIMARY KEY AUTO_INCREMENT," +
+                        "bill_serial_number INT NOT NULL," +
+                        "product_code VARCHAR(50) NOT NULL," +
+                        "product_name VARCHAR(255) NOT NULL," +
+                        "unit VARCHAR(20) NOT NULL DEFAULT 'pcs'," +
+                        "quantity INT NOT NULL," +
+                        "price DECIMAL(10, 2) NOT NULL," +
+                        "discount_percentage DECIMAL(5, 2) NOT NULL," +
+                        "FOREIGN KEY (bill_serial_number) REFERENCES bills(serial_number) ON DELETE CASCADE," +
+                        "FOREIGN KEY (product_code) REFERENCES products(code) ON DELETE RESTRICT" +
+                        ")");
+
+        // Databases created before the unit column existed still need it added
+        register(2, "Add unit column to products and bill_items",
+                "ALTER TABLE products ADD COLUMN unit VARCHAR(20) NOT NULL DEFAULT 'pcs'",
+                "ALTER TABLE bill_items ADD COLUMN unit VARCHAR(20) NOT NULL DEFAULT 'pcs'");
+
+        register(3, "Create inventory movement ledger and daily snapshots",
+                "CREATE TABLE IF NOT EXISTS inventory_movements (" +
+                        "movement_id BIGINT PRIMARY KEY AUTO_INCREMENT," +
+                        "product_code VARCHAR(50) NOT NULL," +
+                        "location VARCHAR(10) NOT NULL," +
+                        "movement_type VARCHAR(20) NOT NULL," +
+                        "quantity_delta INT NOT NULL," +
+                        "reference VARCHAR(255)," +
+                        "occurred_at TIMESTAMP(6) NOT NULL," +
+                        "INDEX idx_inventory_movements_product (product_code, movement_id)" +
+                        ")",
+                "CREATE TABLE IF NOT EXISTS inventory_snapshots (" +
+                        "snapshot_date DATE NOT NULL," +
+                        "product_code VARCHAR(50) NOT NULL," +
+                        "shelf_quantity INT NOT NULL," +
+                        "store_quantity INT NOT NULL," +
+                        "online_quantity INT NOT NULL," +
+                        "last_movement_id BIGINT NOT NULL," +
+                        "PRIMARY KEY (snapshot_date, product_code)" +
+                        ")");
+
+        register(4, "Create product barcodes",
+                "CREATE TABLE IF NOT EXISTS product_barcodes (" +
+                        "barcode BIGINT PRIMARY KEY," +
+                        "product_code VARCHAR(50) NOT NULL," +
+                        "INDEX idx_product_barcodes_product (product_code)," +
+                        "FOREIGN KEY (product_code) REFERENCES products(code) ON DELETE CASCADE" +
+                        ")");
+
+        // Archived batches keep no foreign key so audits survive product removal
+        register(5, "Archive depleted stock batches and index available batches",
+                "CREATE TABLE IF NOT EXISTS stock_batches_archive (" +
+                        "batch_id VARCHAR(255) PRIMARY KEY," +
+                        "product_code VARCHAR(50) NOT NULL," +
+                        "purchase_date DATE NOT NULL," +
+                        "quantity INT NOT NULL," +
+                        "expiry_date DATE NOT NULL," +
+                        "created_at TIMESTAMP NULL," +
+                        "archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                        "INDEX idx_stock_batches_archive_product (product_code, purchase_date)" +
+                        ")",
+                "CREATE INDEX idx_stock_batches_available ON stock_batches (product_code, expiry_date, quantity)");
+
+        // Bills saved before this keep a NULL bill_id
+        register(6, "Add creation-ordered bill IDs",
+                "ALTER TABLE bills ADD COLUMN bill_id BIGINT NULL",
+                "CREATE UNIQUE INDEX idx_bills_bill_id ON bills (bill_id)");
+
+        // Keyset pages filtered by type walk this index instead of the whole table
+        register(7, "Index bills by type and serial number",
+                "CREATE INDEX idx_bills_type_serial ON bills (transaction_type, serial_number)");
+    }
+
+    private void register(int version, String description, String... statements) {
+        migrations.add(new Migration(version, description, Arrays.asList(statements)));
+    }
+
+    int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version;
+    }
+
+    /**
+     * Brings the schema up to the latest version.
+     * The connection should be closed afterwards rather than reused, so the
+     * migration lock is gone with its session even if releasing it failed.
+     *
+     * @return number of migrations applied (0 when the schema was already current)
+     */
+    int migrate(Connection conn) throws SQLException {
+        if (readVersion(conn) >= getLatestVersion()) {
+            return 0;
+        }
+
+        // Slow path: serialize concurrent tills starting against a stale schema
+        acquireLock(conn);
+        try {
+            createVersionTable(conn);
+            int version = readVersion(conn);
+            int applied = 0;
+
+            for (Migration migration : migrations) {
+                if (migration.version > version) {
+                    apply(conn, migration);
+                    applied++;
+                }
+            }
+            return applied;
+        } finally {
+            releaseLock(conn);
+        }
+    }
+
+    private int readVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ER_NO_SUCH_TABLE) {
+                return 0;
+            }
+            throw e;
+        }
+    }
+
+    private void createVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT PRIMARY KEY," +
+                    "description VARCHAR(255) NOT NULL," +
+                    "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                    ")");
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : migration.statements) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    // Column or index already exists: the database predates versioning, or a
+                    // migration of several statements failed part way and is being re-run
+                    if (e.getErrorCode() != ER_DUP_FIELDNAME && e.getErrorCode() != ER_DUP_KEYNAME) {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+            stmt.setInt(1, migration.version);
+            stmt.setString(2, migration.description);
+            stmt.executeUpdate();
+        }
+
+        System.out.println("✓ Applied schema migration V" + migration.version + ": " + migration.description);
+    }
+
+    private void acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for schema migration lock");
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            // Still held until the caller closes the connection
+            System.err.println("Failed to release schema migration lock: " + e.getMessage());
+        }
+    }
+
+    private static class Migration {
+        final int version;
+        final String description;
+        final List<String> statements;
+
+        Migration(int version, String description, List<String> statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.syos.frameworks.exports;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Buffered UTF-8 text writer over an NIO channel.
+ * Text is encoded straight into a direct buffer which is drained to the
+ * channel in large writes; optional gzip compression sits between the
+ * buffer and the file.
+ */
+class ChannelTextWriter implements Closeable {
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final Path path;
+    private final FileChannel file;
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private boolean closed;
+    private long bytesOnClose;
+
+    private ChannelTextWriter(Path path, FileChannel file, WritableByteChannel channel) {
+        this.path = path;
+        this.file = file;
+        this.channel = channel;
+    }
+
+    static ChannelTextWriter open(Path path, boolean gzip) throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        WritableByteChannel channel = gzip
+                ? Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(file), BUFFER_SIZE))
+                : file;
+        return new ChannelTextWriter(path, file, channel);
+    }
+
+    void append(CharSequence text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, false);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isError()) {
+                result.throwException();
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Bytes on disk (compressed size when gzip is enabled); exact once closed.
+     */
+    long getBytesWritten() {
+        if (closed) {
+            return bytesOnClose;
+        }
+        try {
+            return file.position();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            drain();
+        } finally {
+            channel.close(); // finishes the gzip stream and closes the file
+            file.close();
+        }
+        bytesOnClose = Files.size(path);
+    }
+}
@@ -0,0 +1,81 @@
+package com.syos.frameworks.exports;
+
+import com.syos.entities.Bill;
+import com.syos.usecases.exports.BillExportSink;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Exports bills as two CSV files: one row per bill header and one row per
+ * bill item, joined on the bill serial number.
+ */
+public class CsvBillExportSink implements BillExportSink {
+    private static final String BILL_HEADER = "serial_number,bill_date,transaction_type,customer_id," +
+            "subtotal,discount,total,cash_tendered,change,store_id\n";
+    private static final String ITEM_HEADER = "bill_serial_number,line_number,product_code,product_name," +
+            "unit,quantity,price,discount_percentage,line_total,discount_amount,final_price\n";
+
+    private final ChannelTextWriter bills;
+    private final ChannelTextWriter items;
+    private final StringBuilder line = new StringBuilder(256);
+
+    /**
+     * Creates baseName_bills.csv and baseName_bill_items.csv (plus .gz when
+     * compressed) in the directory.
+     */
+    public CsvBillExportSink(Path directory, String baseName, boolean gzip) throws IOException {
+        String suffix = gzip ? ".csv.gz" : ".csv";
+        this.bills = ChannelTextWriter.open(directory.resolve(baseName + "_bills" + suffix), gzip);
+        this.items = ChannelTextWriter.open(directory.resolve(baseName + "_bill_items" + suffix), gzip);
+        bills.append(BILL_HEADER);
+        items.append(ITEM_HEADER);
+    }
+
+    @Override
+    public void write(Bill bill) throws IOException {
+        line.setLength(0);
+        line.append(bill.getSerialNumber()).append(',')
+                .append(bill.getBillDate()).append(',')
+                .append(bill.getTransactionType()).append(',');
+        ExportText.appendCsvField(line, bill.getCustomerId()).append(',');
+        ExportText.appendMoney(line, bill.getSubtotal()).append(',');
+        ExportText.appendMoney(line, bill.getDiscount()).append(',');
+        ExportText.appendMoney(line, bill.getTotal()).append(',');
+        ExportText.appendMoney(line, bill.getCashTendered()).append(',');
+        ExportText.appendMoney(line, bill.getChange()).append(',');
+        ExportText.appendCsvField(line, bill.getStoreId()).append('\n');
+        bills.append(line);
+
+        int lineNumber = 0;
+        for (Bill.BillItem item : bill.getItems()) {
+            line.setLength(0);
+            line.append(bill.getSerialNumber()).append(',')
+                    .append(++lineNumber).append(',');
+            ExportText.appendCsvField(line, item.getProductCode()).append(',');
+            ExportText.appendCsvField(line, item.getProductName()).append(',');
+            ExportText.appendCsvField(line, item.getUnit()).append(',');
+            line.append(item.getQuantity()).append(',');
+            ExportText.appendMoney(line, item.getPrice()).append(',');
+            line.append(item.getDiscountPercentage()).append(',');
+            ExportText.appendMoney(line, item.getItemTotal()).append(',');
+            ExportText.appendMoney(line, item.getDiscountAmount()).append(',');
+            ExportText.appendMoney(line, item.getFinalPrice()).append('\n');
+            items.append(line);
+        }
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bills.getBytesWritten() + items.getBytesWritten();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            bills.close();
+        } finally {
+            items.close();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.syos.frameworks.exports;
+
+/**
+ * Allocation-light formatting helpers shared by the export sinks.
+ */
+final class ExportText {
+    private ExportText() {
+    }
+
+    /**
+     * Appends a monetary value with exactly two decimals.
+     */
+    static StringBuilder appendMoney(StringBuilder out, double value) {
+        long cents = Math.round(value * 100);
+        if (cents < 0) {
+            out.append('-');
+            cents = -cents;
+        }
+        out.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+
+    /**
+     * Appends a CSV field, quoting it only when it contains a delimiter,
+     * quote or line break.
+     */
+    static StringBuilder appendCsvField(StringBuilder out, String value) {
+        if (value == null) {
+            return out;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            return out.append(value);
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        return out.append('"');
+    }
+}
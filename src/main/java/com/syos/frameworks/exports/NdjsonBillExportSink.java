@@ -0,0 +1,75 @@
+package com.syos.frameworks.exports;
+
+import com.google.gson.stream.JsonWriter;
+import com.syos.entities.Bill;
+import com.syos.usecases.exports.BillExportSink;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+
+/**
+ * Exports bills as newline-delimited JSON: one object per line with the
+ * bill header fields and a nested items array.
+ */
+public class NdjsonBillExportSink implements BillExportSink {
+    private final ChannelTextWriter out;
+    private final StringWriter line = new StringWriter(512);
+
+    /**
+     * Creates baseName_bills.ndjson (plus .gz when compressed) in the directory.
+     */
+    public NdjsonBillExportSink(Path directory, String baseName, boolean gzip) throws IOException {
+        String suffix = gzip ? ".ndjson.gz" : ".ndjson";
+        this.out = ChannelTextWriter.open(directory.resolve(baseName + "_bills" + suffix), gzip);
+    }
+
+    @Override
+    public void write(Bill bill) throws IOException {
+        line.getBuffer().setLength(0);
+        JsonWriter json = new JsonWriter(line);
+        json.beginObject()
+                .name("serialNumber").value(bill.getSerialNumber())
+                .name("storeId").value(bill.getStoreId())
+                .name("billDate").value(bill.getBillDate().toString())
+                .name("transactionType").value(bill.getTransactionType().name())
+                .name("customerId").value(bill.getCustomerId())
+                .name("subtotal").value(round(bill.getSubtotal()))
+                .name("discount").value(round(bill.getDiscount()))
+                .name("total").value(round(bill.getTotal()))
+                .name("cashTendered").value(round(bill.getCashTendered()))
+                .name("change").value(round(bill.getChange()));
+
+        json.name("items").beginArray();
+        for (Bill.BillItem item : bill.getItems()) {
+            json.beginObject()
+                    .name("productCode").value(item.getProductCode())
+                    .name("productName").value(item.getProductName())
+                    .name("unit").value(item.getUnit())
+                    .name("quantity").value(item.getQuantity())
+                    .name("price").value(round(item.getPrice()))
+                    .name("discountPercentage").value(item.getDiscountPercentage())
+                    .name("finalPrice").value(round(item.getFinalPrice()))
+                    .endObject();
+        }
+        json.endArray().endObject();
+        json.flush();
+
+        line.append('\n');
+        out.append(line.getBuffer());
+    }
+
+    private static double round(double money) {
+        return Math.round(money * 100) / 100.0;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return out.getBytesWritten();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,10 @@
+package com.syos.frameworks.persistence;
+
+/**
+ * Store that takes part in a JSON transaction, e.g. to hold back a
+ * checkpoint while the transaction's changes are uncommitted.
+ * See {@link WriteAheadLog#inBatch}.
+ */
+interface BatchParticipant {
+    void batchEnded(boolean committed);
+}
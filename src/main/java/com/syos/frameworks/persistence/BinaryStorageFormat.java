@@ -0,0 +1,612 @@
+package com.syos.frameworks.persistence;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary encoding of the data files.
+ * Layout: magic "SYB1", a string table holding every distinct string once
+ * (field names, product codes, transaction types, ...), then one
+ * length-prefixed record per list element. Values are tagged; integers are
+ * zig-zag varints, and LocalDate/LocalDateTime fields are stored as epoch
+ * day or epoch second plus nanos instead of text.
+ * Data classes are written and read field by field from their declared
+ * types, without going through a Gson tree. The tree methods are only used
+ * to convert whole directories between formats; dates arriving that way
+ * stay strings until the owning repository saves the file again.
+ */
+class BinaryStorageFormat implements StorageFormat {
+    private static final byte[] MAGIC = { 'S', 'Y', 'B', '1' };
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_FALSE = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_DOUBLE = 4;
+    private static final int TAG_STRING = 5;
+    private static final int TAG_DATE = 6;
+    private static final int TAG_DATETIME = 7;
+    private static final int TAG_ARRAY = 8;
+    private static final int TAG_OBJECT = 9;
+
+    private final Map<Class<?>, ClassLayout> layouts = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    public String getExtension() {
+        return ".bin";
+    }
+
+    @Override
+    public <T> void write(OutputStream out, List<T> data, Gson gson) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+        DataOutputStream bodyOut = new DataOutputStream(body);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+        DataOutputStream recordOut = new DataOutputStream(record);
+
+        for (T element : data) {
+            record.reset();
+            writeObject(recordOut, element, strings);
+            writeVarint(bodyOut, record.size());
+            record.writeTo(bodyOut);
+        }
+
+        writeFile(out, strings, true, data.size(), body);
+    }
+
+    @Override
+    public <T> List<T> read(InputStream in, Type type, Gson gson) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        String[] strings = readHeader(data);
+        boolean isList = data.readUnsignedByte() == TAG_ARRAY;
+        if (!isList) {
+            throw new IOException("Binary data file does not hold a list");
+        }
+
+        Type elementType = typeArgument(type);
+        long count = readVarint(data);
+        List<T> records = new ArrayList<>((int) Math.min(count, 1 << 16));
+        for (long i = 0; i < count; i++) {
+            readVarint(data); // record length, only needed to skip records
+            @SuppressWarnings("unchecked")
+            T record = (T) readTyped(data, strings, elementType);
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Override
+    public void writeTree(OutputStream out, JsonElement tree) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+        DataOutputStream bodyOut = new DataOutputStream(body);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+        DataOutputStream recordOut = new DataOutputStream(record);
+
+        List<JsonElement> records = new ArrayList<>();
+        boolean isList = tree.isJsonArray();
+        if (isList) {
+            tree.getAsJsonArray().forEach(records::add);
+        } else {
+            records.add(tree);
+        }
+
+        for (JsonElement element : records) {
+            record.reset();
+            writeValue(recordOut, element, strings);
+            writeVarint(bodyOut, record.size());
+            record.writeTo(bodyOut);
+        }
+
+        writeFile(out, strings, isList, records.size(), body);
+    }
+
+    @Override
+    public JsonElement readTree(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        String[] strings = readHeader(data);
+        boolean isList = data.readUnsignedByte() == TAG_ARRAY;
+        long count = readVarint(data);
+        JsonArray records = new JsonArray();
+        for (long i = 0; i < count; i++) {
+            readVarint(data); // record length, only needed to skip records
+            records.add(readValue(data, strings));
+        }
+
+        return isList ? records : (records.size() > 0 ? records.get(0) : JsonNull.INSTANCE);
+    }
+
+    private void writeFile(OutputStream out, StringTable strings, boolean isList, int count,
+            ByteArrayOutputStream body) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        writeVarint(data, strings.values.size());
+        for (String value : strings.values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(data, bytes.length);
+            data.write(bytes);
+        }
+        data.writeByte(isList ? TAG_ARRAY : TAG_OBJECT);
+        writeVarint(data, count);
+        body.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Checks the magic and reads the string table.
+     */
+    private String[] readHeader(DataInput data) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        data.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("Not a binary data file");
+            }
+        }
+
+        String[] strings = new String[(int) readVarint(data)];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[(int) readVarint(data)];
+            data.readFully(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private void writeObject(DataOutput out, Object value, StringTable strings) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            writeVarint(out, strings.indexOf((String) value));
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte) {
+            out.writeByte(TAG_INT);
+            writeVarint(out, zigZag(((Number) value).longValue()));
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof LocalDate) {
+            out.writeByte(TAG_DATE);
+            writeVarint(out, zigZag(((LocalDate) value).toEpochDay()));
+        } else if (value instanceof LocalDateTime) {
+            LocalDateTime dateTime = (LocalDateTime) value;
+            out.writeByte(TAG_DATETIME);
+            writeVarint(out, zigZag(dateTime.toEpochSecond(ZoneOffset.UTC)));
+            writeVarint(out, dateTime.getNano());
+        } else if (value instanceof Enum) {
+            out.writeByte(TAG_STRING);
+            writeVarint(out, strings.indexOf(((Enum<?>) value).name()));
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(TAG_ARRAY);
+            writeVarint(out, list.size());
+            for (Object element : list) {
+                writeObject(out, element, strings);
+            }
+        } else {
+            ClassLayout layout = layoutOf(value.getClass());
+            List<Object> values = new ArrayList<>(layout.fields.size());
+            List<Field> present = new ArrayList<>(layout.fields.size());
+            for (Field field : layout.fields.values()) {
+                Object fieldValue = get(field, value);
+                // Like Gson, null fields are left out
+                if (fieldValue != null) {
+                    present.add(field);
+                    values.add(fieldValue);
+                }
+            }
+            out.writeByte(TAG_OBJECT);
+            writeVarint(out, present.size());
+            for (int i = 0; i < present.size(); i++) {
+                writeVarint(out, strings.indexOf(present.get(i).getName()));
+                writeObject(out, values.get(i), strings);
+            }
+        }
+    }
+
+    /**
+     * Reads a value into the declared type. Values written by a tree
+     * conversion (dates as strings, whole numbers for double fields) are
+     * converted to that type as well.
+     */
+    private Object readTyped(DataInput in, String[] strings, Type type) throws IOException {
+        Class<?> raw = rawClass(type);
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_INT:
+                return toNumber(unZigZag(readVarint(in)), raw);
+            case TAG_DOUBLE:
+                return toNumber(in.readDouble(), raw);
+            case TAG_STRING:
+                return toType(strings[(int) readVarint(in)], raw);
+            case TAG_DATE: {
+                LocalDate date = LocalDate.ofEpochDay(unZigZag(readVarint(in)));
+                return raw == String.class ? date.toString() : date;
+            }
+            case TAG_DATETIME: {
+                long seconds = unZigZag(readVarint(in));
+                int nanos = (int) readVarint(in);
+                LocalDateTime dateTime = LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+                return raw == String.class ? dateTime.toString() : dateTime;
+            }
+            case TAG_ARRAY: {
+                Type elementType = typeArgument(type);
+                int size = (int) readVarint(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readTyped(in, strings, elementType));
+                }
+                return list;
+            }
+            case TAG_OBJECT: {
+                ClassLayout layout = layoutOf(raw);
+                Object object = layout.newInstance();
+                int size = (int) readVarint(in);
+                for (int i = 0; i < size; i++) {
+                    Field field = layout.fields.get(strings[(int) readVarint(in)]);
+                    if (field == null) {
+                        skipValue(in);
+                        continue;
+                    }
+                    Object value = readTyped(in, strings, field.getGenericType());
+                    if (value != null) {
+                        set(field, object, value);
+                    }
+                }
+                return object;
+            }
+            default:
+                throw new IOException("Corrupt binary data file: unknown tag " + tag);
+        }
+    }
+
+    /**
+     * Steps over a value the target type has no field for, without
+     * decoding it.
+     */
+    private void skipValue(DataInput in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case TAG_NULL:
+            case TAG_FALSE:
+            case TAG_TRUE:
+                return;
+            case TAG_INT:
+            case TAG_STRING:
+            case TAG_DATE:
+                readVarint(in);
+                return;
+            case TAG_DOUBLE:
+                in.skipBytes(Double.BYTES);
+                return;
+            case TAG_DATETIME:
+                readVarint(in);
+                readVarint(in);
+                return;
+            case TAG_ARRAY: {
+                long size = readVarint(in);
+                for (long i = 0; i < size; i++) {
+                    skipValue(in);
+                }
+                return;
+            }
+            case TAG_OBJECT: {
+                long size = readVarint(in);
+                for (long i = 0; i < size; i++) {
+                    readVarint(in);
+                    skipValue(in);
+                }
+                return;
+            }
+            default:
+                throw new IOException("Corrupt binary data file: unknown tag " + tag);
+        }
+    }
+
+    private static Object toNumber(long value, Class<?> type) throws IOException {
+        if (type == int.class || type == Integer.class) {
+            return (int) value;
+        }
+        if (type == long.class || type == Long.class || type == Object.class) {
+            return value;
+        }
+        if (type == double.class || type == Double.class) {
+            return (double) value;
+        }
+        if (type == float.class || type == Float.class) {
+            return (float) value;
+        }
+        if (type == short.class || type == Short.class) {
+            return (short) value;
+        }
+        throw new IOException("Cannot read a number into " + type.getName());
+    }
+
+    private static Object toNumber(double value, Class<?> type) throws IOException {
+        if (type == double.class || type == Double.class || type == Object.class) {
+            return value;
+        }
+        if (type == float.class || type == Float.class) {
+            return (float) value;
+        }
+        return toNumber((long) value, type);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object toType(String value, Class<?> type) throws IOException {
+        if (type == String.class || type == Object.class) {
+            return value;
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        if (type.isEnum()) {
+            return Enum.valueOf((Class) type, value);
+        }
+        throw new IOException("Cannot read a string into " + type.getName());
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        return Object.class;
+    }
+
+    private static Type typeArgument(Type listType) {
+        return listType instanceof ParameterizedType
+                ? ((ParameterizedType) listType).getActualTypeArguments()[0]
+                : Object.class;
+    }
+
+    private ClassLayout layoutOf(Class<?> type) {
+        return layouts.computeIfAbsent(type, ClassLayout::new);
+    }
+
+    private static Object get(Field field, Object target) throws IOException {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IOException("Cannot read field " + field.getName(), e);
+        }
+    }
+
+    private static void set(Field field, Object target, Object value) throws IOException {
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new IOException("Cannot set field " + field.getName(), e);
+        }
+    }
+
+    private void writeValue(DataOutput out, JsonElement value, StringTable strings) throws IOException {
+        if (value == null || value.isJsonNull()) {
+            out.writeByte(TAG_NULL);
+        } else if (value.isJsonObject()) {
+            JsonObject object = value.getAsJsonObject();
+            out.writeByte(TAG_OBJECT);
+            writeVarint(out, object.size());
+            for (Map.Entry<String, JsonElement> field : object.entrySet()) {
+                writeVarint(out, strings.indexOf(field.getKey()));
+                writeValue(out, field.getValue(), strings);
+            }
+        } else if (value.isJsonArray()) {
+            JsonArray array = value.getAsJsonArray();
+            out.writeByte(TAG_ARRAY);
+            writeVarint(out, array.size());
+            for (JsonElement element : array) {
+                writeValue(out, element, strings);
+            }
+        } else {
+            writePrimitive(out, value.getAsJsonPrimitive(), strings);
+        }
+    }
+
+    private void writePrimitive(DataOutput out, JsonPrimitive primitive, StringTable strings) throws IOException {
+        if (primitive.isBoolean()) {
+            out.writeByte(primitive.getAsBoolean() ? TAG_TRUE : TAG_FALSE);
+        } else if (primitive.isNumber()) {
+            Long integral = parseIntegral(primitive.getAsNumber());
+            if (integral != null) {
+                out.writeByte(TAG_INT);
+                writeVarint(out, zigZag(integral));
+            } else {
+                out.writeByte(TAG_DOUBLE);
+                out.writeDouble(primitive.getAsDouble());
+            }
+        } else {
+            out.writeByte(TAG_STRING);
+            writeVarint(out, strings.indexOf(primitive.getAsString()));
+        }
+    }
+
+    private JsonElement readValue(DataInput in, String[] strings) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case TAG_NULL:
+                return JsonNull.INSTANCE;
+            case TAG_FALSE:
+                return new JsonPrimitive(false);
+            case TAG_TRUE:
+                return new JsonPrimitive(true);
+            case TAG_INT:
+                return new JsonPrimitive(unZigZag(readVarint(in)));
+            case TAG_DOUBLE:
+                return new JsonPrimitive(in.readDouble());
+            case TAG_STRING:
+                return new JsonPrimitive(strings[(int) readVarint(in)]);
+            case TAG_DATE:
+                return new JsonPrimitive(LocalDate.ofEpochDay(unZigZag(readVarint(in))).toString());
+            case TAG_DATETIME: {
+                long seconds = unZigZag(readVarint(in));
+                int nanos = (int) readVarint(in);
+                return new JsonPrimitive(LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC).toString());
+            }
+            case TAG_ARRAY: {
+                int size = (int) readVarint(in);
+                JsonArray array = new JsonArray(size);
+                for (int i = 0; i < size; i++) {
+                    array.add(readValue(in, strings));
+                }
+                return array;
+            }
+            case TAG_OBJECT: {
+                int size = (int) readVarint(in);
+                JsonObject object = new JsonObject();
+                for (int i = 0; i < size; i++) {
+                    String name = strings[(int) readVarint(in)];
+                    object.add(name, readValue(in, strings));
+                }
+                return object;
+            }
+            default:
+                throw new IOException("Corrupt binary data file: unknown tag " + tag);
+        }
+    }
+
+    /**
+     * Keeps the int/double distinction of the source (10 vs 10.0) so a
+     * conversion back to JSON reproduces the same text.
+     */
+    private Long parseIntegral(Number number) {
+        String text = number.toString();
+        if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+            return null;
+        }
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarint(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt binary data file: varint too long");
+    }
+
+    /**
+     * Interns strings in first-seen order.
+     */
+    private static class StringTable {
+        final Map<String, Integer> indexes = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+
+        int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                indexes.put(value, index);
+                values.add(value);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Fields of a data class the way Gson sees them: declared fields of the
+     * class and its superclasses, except static and transient ones.
+     */
+    private static class ClassLayout {
+        final Map<String, Field> fields = new LinkedHashMap<>();
+        final Constructor<?> constructor;
+
+        ClassLayout(Class<?> type) {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    fields.putIfAbsent(field.getName(), field);
+                }
+            }
+            try {
+                constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("Data class needs a no-argument constructor: " + type.getName(), e);
+            }
+        }
+
+        Object newInstance() throws IOException {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IOException("Cannot create " + constructor.getDeclaringClass().getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.syos.frameworks.persistence;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keyed in-memory collection persisted as snapshot plus write-ahead log.
+ * Mutations append a small log record (cost proportional to the change);
+ * every {@code checkpointInterval} records the whole collection is written
+ * as a new snapshot through JsonDataStore and the log is emptied. On open,
+ * the snapshot is loaded and the log tail replayed on top of it.
+ * Inside a JSON transaction a mutation is undone if the transaction fails,
+ * unless the record was changed again since; no checkpoint is taken while
+ * a transaction that changed the collection is still open.
+ *
+ * @param <T> Gson-mapped data class stored by a JSON repository
+ */
+class DurableCollection<T> implements BatchParticipant {
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+    private static final String OP_PUT = "put";
+    private static final String OP_DELETE = "delete";
+
+    private final JsonDataStore dataStore;
+    private final String filename;
+    private final Class<T> type;
+    private final Type listType;
+    private final Function<T, String> keyFunction;
+    private final int checkpointInterval;
+    private final Gson gson;
+    private final WriteAheadLog log;
+    private final Map<String, T> records = new LinkedHashMap<>();
+    private int recordsSinceCheckpoint;
+    private int openBatches;
+
+    DurableCollection(JsonDataStore dataStore, String filename, Class<T> type, Function<T, String> keyFunction) {
+        this(dataStore, filename, type, keyFunction,
+                Integer.getInteger("syos.wal.checkpoint-interval", DEFAULT_CHECKPOINT_INTERVAL));
+    }
+
+    DurableCollection(JsonDataStore dataStore, String filename, Class<T> type,
+            Function<T, String> keyFunction, int checkpointInterval) {
+        this.dataStore = dataStore;
+        this.filename = filename;
+        this.type = type;
+        this.listType = TypeToken.getParameterized(ArrayList.class, type).getType();
+        this.keyFunction = keyFunction;
+        this.checkpointInterval = checkpointInterval;
+        this.gson = JsonDataStore.gsonBuilder().create(); // compact, one line per log record
+        this.log = new WriteAheadLog(dataStore.getDataDirectory().resolve(logFilename(filename)));
+        recover();
+    }
+
+    private static String logFilename(String filename) {
+        return filename.replaceFirst("\\.json$", "") + ".wal";
+    }
+
+    /**
+     * An unreadable snapshot is moved aside by JsonDataStore.load, so the
+     * collection starts from the log alone and no checkpoint can overwrite
+     * the bad file.
+     */
+    private void recover() {
+        List<T> snapshot = dataStore.load(filename, listType);
+        for (T record : snapshot) {
+            records.put(keyFunction.apply(record), record);
+        }
+
+        int replayed = log.replay(payload -> apply(JsonParser.parseString(
+                new String(payload, StandardCharsets.UTF_8)).getAsJsonArray()));
+        if (replayed > 0) {
+            System.out.println("✓ Recovered " + replayed + " logged change(s) for " + filename);
+            tryCheckpoint();
+        }
+    }
+
+    /**
+     * Closes the log; the collection must not be used afterwards.
+     */
+    synchronized void close() {
+        log.close();
+    }
+
+    synchronized T get(String key) {
+        return records.get(key);
+    }
+
+    synchronized boolean containsKey(String key) {
+        return records.containsKey(key);
+    }
+
+    synchronized int size() {
+        return records.size();
+    }
+
+    /**
+     * Snapshot of the current records in insertion order.
+     */
+    synchronized List<T> values() {
+        return new ArrayList<>(records.values());
+    }
+
+    synchronized void put(T record) {
+        putAll(Collections.singletonList(record));
+    }
+
+    /**
+     * Stores all records as one log entry, so they recover together or not at all.
+     */
+    synchronized void putAll(Collection<T> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        JsonArray operations = new JsonArray();
+        List<String> keys = new ArrayList<>(batch.size());
+        for (T record : batch) {
+            JsonObject operation = new JsonObject();
+            operation.addProperty("op", OP_PUT);
+            operation.add("value", gson.toJsonTree(record, type));
+            operations.add(operation);
+            keys.add(keyFunction.apply(record));
+        }
+        write(operations, keys);
+    }
+
+    synchronized void remove(String key) {
+        removeAll(Collections.singletonList(key));
+    }
+
+    /**
+     * Removes all keys as one log entry.
+     */
+    synchronized void removeAll(Collection<String> keys) {
+        JsonArray operations = new JsonArray();
+        List<String> removed = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            if (records.containsKey(key)) {
+                JsonObject operation = new JsonObject();
+                operation.addProperty("op", OP_DELETE);
+                operation.addProperty("key", key);
+                operations.add(operation);
+                removed.add(key);
+            }
+        }
+        if (operations.size() == 0) {
+            return;
+        }
+        write(operations, removed);
+    }
+
+    /**
+     * Writes the full collection as the new snapshot and empties the log.
+     * The log is only truncated once the snapshot and its rename are on
+     * disk; if the save fails it throws and the log keeps every record.
+     * Replaying puts and deletes twice is harmless, so a crash between the
+     * two steps loses nothing.
+     */
+    synchronized void checkpoint() {
+        dataStore.save(filename, new ArrayList<>(records.values()));
+        log.reset();
+        recordsSinceCheckpoint = 0;
+    }
+
+    @Override
+    public synchronized void batchEnded(boolean committed) {
+        openBatches--;
+        if (openBatches == 0 && recordsSinceCheckpoint >= checkpointInterval) {
+            tryCheckpoint();
+        }
+    }
+
+    private void write(JsonArray operations, List<String> keys) {
+        log.append(gson.toJson(operations).getBytes(StandardCharsets.UTF_8));
+        if (!WriteAheadLog.isBatchActive()) {
+            apply(operations);
+        } else {
+            if (WriteAheadLog.joinBatch(this)) {
+                openBatches++;
+            }
+            Map<String, T> before = new LinkedHashMap<>();
+            keys.forEach(key -> before.putIfAbsent(key, records.get(key)));
+            apply(operations);
+            Map<String, T> after = new LinkedHashMap<>();
+            keys.forEach(key -> after.put(key, records.get(key)));
+            WriteAheadLog.onRollback(() -> undo(before, after));
+        }
+
+        recordsSinceCheckpoint++;
+        if (recordsSinceCheckpoint >= checkpointInterval && openBatches == 0) {
+            tryCheckpoint();
+        }
+    }
+
+    /**
+     * Puts back the records a failed transaction replaced or removed. A
+     * record written again since, by another thread, is left alone.
+     */
+    private synchronized void undo(Map<String, T> before, Map<String, T> after) {
+        for (Map.Entry<String, T> entry : before.entrySet()) {
+            String key = entry.getKey();
+            if (records.get(key) != after.get(key)) {
+                continue;
+            }
+            if (entry.getValue() == null) {
+                records.remove(key);
+            } else {
+                records.put(key, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Checkpoints without failing the write that triggered it: the change is
+     * already in the log, and the next write tries the checkpoint again.
+     */
+    private void tryCheckpoint() {
+        try {
+            checkpoint();
+        } catch (UncheckedIOException e) {
+            System.err.println("❌ Checkpoint of " + filename + " failed, keeping the log: " + e.getMessage());
+        }
+    }
+
+    private void apply(JsonArray operations) {
+        for (JsonElement element : operations) {
+            JsonObject operation = element.getAsJsonObject();
+            if (OP_DELETE.equals(operation.get("op").getAsString())) {
+                records.remove(operation.get("key").getAsString());
+            } else {
+                T record = gson.fromJson(operation.get("value"), type);
+                records.put(keyFunction.apply(record), record);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.syos.frameworks.persistence;
+
+import com.google.gson.reflect.TypeToken;
+import com.syos.usecases.repositories.ExpiryCheckLog;
+
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * File-based implementation of ExpiryCheckLog, kept in the store's data
+ * directory (data/expiry_check.json for the default store) whatever the
+ * storage backend: the notices it guards are shown by this process.
+ */
+public class FileExpiryCheckLog implements ExpiryCheckLog {
+    private static final String FILENAME = "expiry_check.json";
+
+    private final JsonDataStore dataStore;
+    private final Type listType = new TypeToken<ArrayList<CheckData>>() {
+    }.getType();
+
+    public FileExpiryCheckLog(String storeId) {
+        this.dataStore = JsonDataStore.forStore(storeId);
+    }
+
+    @Override
+    public Optional<LocalDate> findLastCheckedDay() {
+        List<CheckData> stored = dataStore.load(FILENAME, listType);
+        return stored.isEmpty() ? Optional.empty() : Optional.ofNullable(stored.get(0).lastCheckedDay);
+    }
+
+    @Override
+    public void recordCheckedDay(LocalDate day) {
+        CheckData data = new CheckData();
+        data.lastCheckedDay = day;
+        dataStore.save(FILENAME, List.of(data));
+    }
+
+    private static class CheckData {
+        LocalDate lastCheckedDay;
+    }
+}
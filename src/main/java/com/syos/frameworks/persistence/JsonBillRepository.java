@@ -1,93 +1,559 @@
 package com.syos.frameworks.persistence;
 
+import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.syos.entities.Bill;
+import com.syos.entities.BillSummary;
+import com.syos.entities.Store;
 import com.syos.usecases.repositories.BillRepository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * JSON-based implementation of BillRepository.
+ * Bills are partitioned into one file per day (bills/yyyy-MM-dd.json) with a
+ * small manifest of serial ranges and counts per partition, so date queries
+ * read a single day and serial lookups only the partition that holds them.
+ * Partitions older than the compression age are gzipped on startup.
+ * A new bill is appended to its day's log (bills/yyyy-MM-dd.wal), forced to
+ * disk at once or when the surrounding JSON transaction ends. Every
+ * checkpoint interval, and at startup, a day's log is folded into its
+ * partition file and the manifest is written; the log is deleted only after
+ * both are durable. Startup repairs the manifest from any leftover logs and
+ * from partition files it does not list, so it never falls behind the
+ * bills on disk.
  */
-public class JsonBillRepository implements BillRepository {
-    private static final String FILENAME = "bills.json";
+public class JsonBillRepository implements BillRepository, BatchParticipant {
+    private static final String LEGACY_FILENAME = "bills.json";
+    private static final String PARTITION_DIRECTORY = "bills/";
+    private static final String MANIFEST_FILENAME = PARTITION_DIRECTORY + "manifest.json";
+    private static final String LOG_EXTENSION = ".wal";
+    private static final int DEFAULT_COMPRESS_AFTER_DAYS = 30;
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+
     private final JsonDataStore dataStore;
+    private final Gson gson = JsonDataStore.gsonBuilder().create();
+    private final Path partitionDirectory;
+    private final int checkpointInterval;
     private final Type listType = new TypeToken<ArrayList<BillData>>() {
     }.getType();
+    private final Type headerListType = new TypeToken<ArrayList<BillHeaderData>>() {
+    }.getType();
+    private final Type manifestType = new TypeToken<ArrayList<PartitionData>>() {
+    }.getType();
+    private final TreeMap<LocalDate, PartitionData> partitions = new TreeMap<>();
+    private final Map<LocalDate, WriteAheadLog> logs = new HashMap<>();
+    private final Map<LocalDate, List<BillData>> loggedBills = new HashMap<>();
+    private int openBatches;
 
-    public JsonBillRepository() {
-        this.dataStore = JsonDataStore.getInstance();
+    public JsonBillRepository(String storeId) {
+        this.dataStore = JsonDataStore.forStore(storeId);
+        this.partitionDirectory = dataStore.getDataDirectory().resolve(PARTITION_DIRECTORY);
+        this.checkpointInterval = Integer.getInteger("syos.wal.checkpoint-interval", DEFAULT_CHECKPOINT_INTERVAL);
+        loadManifest();
+        recover();
+        compressPartitionsBefore(LocalDate.now().minusDays(
+                Integer.getInteger("syos.bills.compress-after-days", DEFAULT_COMPRESS_AFTER_DAYS)));
     }
 
+    /**
+     * The serial number counts as used once the bill is in its day's log.
+     * Bills of a day share one log, so a bill is never on disk without the
+     * ones appended before it and a crash cannot lead to a serial on disk
+     * being issued again. Inside a JSON transaction the bill is dropped
+     * again if the transaction fails, and the day is not checkpointed until
+     * it has ended.
+     */
     @Override
-    public void save(Bill bill) {
-        List<BillData> bills = loadAll();
-        bills.add(toData(bill));
-        dataStore.save(FILENAME, bills);
+    public synchronized Bill save(Bill bill) {
+        LocalDate date = bill.getBillDate().toLocalDate();
+        BillData data = toData(bill);
+        logFor(date).append(gson.toJson(data).getBytes(StandardCharsets.UTF_8));
+
+        List<BillData> logged = loggedBills.computeIfAbsent(date, d -> new ArrayList<>());
+        logged.add(data);
+        PartitionData partition = partitions.computeIfAbsent(date, this::newPartition);
+        int previousMin = partition.minSerial;
+        int previousMax = partition.maxSerial;
+        partition.include(bill.getSerialNumber());
+
+        if (WriteAheadLog.isBatchActive()) {
+            if (WriteAheadLog.joinBatch(this)) {
+                openBatches++;
+            }
+            WriteAheadLog.onRollback(() -> unsave(date, data, previousMin, previousMax));
+        } else if (logged.size() >= checkpointInterval && openBatches == 0) {
+            tryCheckpoint(date);
+        }
+        return bill;
     }
 
     @Override
-    public Optional<Bill> findBySerialNumber(int serialNumber) {
-        return loadAll().stream()
-                .filter(b -> b.serialNumber == serialNumber)
+    public synchronized void batchEnded(boolean committed) {
+        openBatches--;
+        if (openBatches == 0) {
+            for (Map.Entry<LocalDate, List<BillData>> entry : new ArrayList<>(loggedBills.entrySet())) {
+                if (entry.getValue().size() >= checkpointInterval) {
+                    tryCheckpoint(entry.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes a bill of a failed transaction back out of memory. Its log
+     * record was never written. The serial range is only narrowed while the
+     * bill is still at its edge.
+     */
+    private synchronized void unsave(LocalDate date, BillData data, int previousMin, int previousMax) {
+        List<BillData> logged = loggedBills.get(date);
+        if (logged == null || !logged.removeIf(bill -> bill == data)) {
+            return;
+        }
+        PartitionData partition = partitions.get(date);
+        partition.count--;
+        if (partition.maxSerial == data.serialNumber) {
+            partition.maxSerial = previousMax;
+        }
+        if (partition.minSerial == data.serialNumber) {
+            partition.minSerial = previousMin;
+        }
+        if (partition.count == 0 && !dataStore.exists(partitionFile(date))) {
+            partitions.remove(date);
+        }
+    }
+
+    @Override
+    public synchronized Optional<Bill> findBySerialNumber(int serialNumber) {
+        for (PartitionData partition : partitions.values()) {
+            if (serialNumber < partition.minSerial || serialNumber > partition.maxSerial) {
+                continue;
+            }
+            Optional<Bill> bill = loadPartition(partition.date).stream()
+                    .filter(b -> b.serialNumber == serialNumber)
+                    .map(this::toEntity)
+                    .findFirst();
+            if (bill.isPresent()) {
+                return bill;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized Optional<Bill> findByBillId(long billId, LocalDate billDate) {
+        return loadPartition(billDate).stream()
+                .filter(b -> b.billId == billId)
                 .map(this::toEntity)
                 .findFirst();
     }
 
+    /**
+     * Returns a read-only view that loads one partition at a time while it is
+     * iterated, instead of materializing every bill up front.
+     */
+    @Override
+    public synchronized List<Bill> findAll() {
+        return new PartitionedBillList(new ArrayList<>(partitions.values()));
+    }
+
     @Override
-    public List<Bill> findAll() {
-        return loadAll().stream()
+    public synchronized List<Bill> findPage(int afterSerial, int limit, Bill.TransactionType type) {
+        return walkPage(afterSerial, limit, type, this::loadPartition).stream()
                 .map(this::toEntity)
                 .toList();
     }
 
+    /**
+     * Reads partitions as headers only: no Bill and no item is built. In
+     * both formats the item bytes are still read and stepped over, so a page
+     * costs a full read of each partition it touches.
+     */
     @Override
-    public List<Bill> findByDate(LocalDate date) {
-        return loadAll().stream()
-                .filter(b -> LocalDateTime.parse(b.billDate).toLocalDate().equals(date))
-                .map(this::toEntity)
+    public synchronized List<BillSummary> findSummaryPage(int afterSerial, int limit, Bill.TransactionType type) {
+        return walkPage(afterSerial, limit, type, this::loadPartitionHeaders).stream()
+                .map(this::toSummary)
+                .toList();
+    }
+
+    /**
+     * Walks the manifest's serial ranges from the highest down, loading only
+     * the partitions that can still hold a bill for the page. Serials rise
+     * with time, so this is usually the newest partition or two.
+     */
+    private <T extends BillHeaderData> List<T> walkPage(int afterSerial, int limit, Bill.TransactionType type,
+            Function<LocalDate, List<T>> loader) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        int below = afterSerial > 0 ? afterSerial : Integer.MAX_VALUE;
+        List<PartitionData> candidates = partitions.values().stream()
+                .filter(p -> p.count > 0 && p.minSerial < below)
+                .sorted(Comparator.comparingInt((PartitionData p) -> p.maxSerial).reversed())
                 .toList();
+
+        // Min-heap of the highest serials found so far; once it is full, a partition whose
+        // range lies wholly below its lowest serial (and every partition after it) is skipped
+        PriorityQueue<T> page = new PriorityQueue<>(Comparator.comparingInt(b -> b.serialNumber));
+        for (PartitionData partition : candidates) {
+            if (page.size() == limit && partition.maxSerial < page.peek().serialNumber) {
+                break;
+            }
+            for (T bill : loader.apply(partition.date)) {
+                if (bill.serialNumber >= below || (type != null && !bill.transactionType.equals(type.name()))) {
+                    continue;
+                }
+                if (page.size() < limit) {
+                    page.add(bill);
+                } else if (bill.serialNumber > page.peek().serialNumber) {
+                    page.poll();
+                    page.add(bill);
+                }
+            }
+        }
+
+        List<T> result = new ArrayList<>(page.size());
+        while (!page.isEmpty()) {
+            result.add(page.poll());
+        }
+        Collections.reverse(result);
+        return result;
     }
 
     @Override
-    public List<Bill> findByTransactionType(Bill.TransactionType type) {
-        return loadAll().stream()
-                .filter(b -> b.transactionType.equals(type.name()))
+    public synchronized List<Bill> findByDate(LocalDate date) {
+        return loadPartition(date).stream()
                 .map(this::toEntity)
                 .toList();
     }
 
     @Override
-    public List<Bill> findByDateAndType(LocalDate date, Bill.TransactionType type) {
-        return loadAll().stream()
-                .filter(b -> LocalDateTime.parse(b.billDate).toLocalDate().equals(date))
+    public synchronized List<Bill> findByTransactionType(Bill.TransactionType type) {
+        List<Bill> result = new ArrayList<>();
+        for (LocalDate date : partitions.keySet()) {
+            loadPartition(date).stream()
+                    .filter(b -> b.transactionType.equals(type.name()))
+                    .map(this::toEntity)
+                    .forEach(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<Bill> findByDateAndType(LocalDate date, Bill.TransactionType type) {
+        return loadPartition(date).stream()
                 .filter(b -> b.transactionType.equals(type.name()))
                 .map(this::toEntity)
                 .toList();
     }
 
     @Override
-    public int getNextSerialNumber() {
-        List<BillData> bills = loadAll();
-        return bills.stream()
-                .mapToInt(b -> b.serialNumber)
+    public synchronized int getNextSerialNumber() {
+        return partitions.values().stream()
+                .mapToInt(p -> p.maxSerial)
                 .max()
                 .orElse(0) + 1;
     }
 
-    private List<BillData> loadAll() {
-        return dataStore.load(FILENAME, listType);
+    /**
+     * Each partition is read under the lock and handed to the consumer
+     * outside it, so a slow consumer such as an export does not hold up
+     * sales.
+     */
+    @Override
+    public void forEachInDateRange(LocalDate from, LocalDate to, Consumer<Bill> consumer) {
+        List<LocalDate> dates;
+        synchronized (this) {
+            dates = new ArrayList<>(partitions.subMap(from, true, to, true).keySet());
+        }
+        // Partitions are visited in date order; serials are assigned in time order
+        for (LocalDate date : dates) {
+            List<BillData> bills;
+            synchronized (this) {
+                bills = loadPartition(date);
+            }
+            bills.stream()
+                    .sorted(Comparator.comparingInt(b -> b.serialNumber))
+                    .map(this::toEntity)
+                    .forEach(consumer);
+        }
+    }
+
+    /**
+     * Gzips every partition dated before the cutoff that is not compressed yet.
+     *
+     * @return number of partitions compressed
+     */
+    public synchronized int compressPartitionsBefore(LocalDate cutoff) {
+        int compressed = 0;
+        for (PartitionData partition : partitions.headMap(cutoff, false).values()) {
+            if (!partition.compressed && !logs.containsKey(partition.date)
+                    && dataStore.compress(partitionFile(partition.date))) {
+                partition.compressed = true;
+                compressed++;
+            }
+        }
+        if (compressed > 0) {
+            saveManifest();
+        }
+        return compressed;
+    }
+
+    private void loadManifest() {
+        if (!dataStore.exists(MANIFEST_FILENAME)) {
+            migrateLegacyFile();
+            return;
+        }
+
+        List<PartitionData> entries = dataStore.load(MANIFEST_FILENAME, manifestType);
+        for (PartitionData entry : entries) {
+            partitions.put(entry.date, entry);
+        }
+    }
+
+    /**
+     * Folds the logs left by the last run into their partitions and adds
+     * partition files the manifest does not list, then writes the manifest
+     * if anything changed.
+     */
+    private void recover() {
+        boolean repaired = false;
+        for (String file : dataStore.list(PARTITION_DIRECTORY)) {
+            LocalDate date = partitionDate(file);
+            if (date != null && !partitions.containsKey(date)) {
+                partitions.put(date, summarize(date, dataStore.load(file, listType)));
+                repaired = true;
+            }
+        }
+
+        int replayed = 0;
+        for (LocalDate date : findLogDates()) {
+            List<BillData> logged = new ArrayList<>();
+            WriteAheadLog log = openLog(date);
+            replayed += log.replay(payload -> logged.add(
+                    gson.fromJson(new String(payload, StandardCharsets.UTF_8), BillData.class)));
+            logs.put(date, log);
+            loggedBills.put(date, logged);
+            repaired = true;
+        }
+        if (replayed > 0) {
+            System.out.println("✓ Recovered " + replayed + " logged bill(s)");
+        }
+
+        for (LocalDate date : new ArrayList<>(logs.keySet())) {
+            tryCheckpoint(date);
+        }
+        if (repaired && logs.isEmpty()) {
+            saveManifest();
+        }
+    }
+
+    private List<LocalDate> findLogDates() {
+        if (!Files.isDirectory(partitionDirectory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(partitionDirectory)) {
+            return files
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(LOG_EXTENSION))
+                    .map(name -> parseDate(name.substring(0, name.length() - LOG_EXTENSION.length())))
+                    .filter(date -> date != null)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list bill logs", e);
+        }
+    }
+
+    /**
+     * Checkpoints without failing the save that triggered it: the bills are
+     * already in the log, and the next checkpoint tries again.
+     */
+    private void tryCheckpoint(LocalDate date) {
+        try {
+            checkpoint(date);
+        } catch (UncheckedIOException e) {
+            System.err.println("❌ Checkpoint of bills for " + date + " failed, keeping the log: "
+                    + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the day's partition file with its logged bills, then the
+     * manifest, and only then deletes the log. A crash in between leaves
+     * the log in place; bills already in the file are not added twice when
+     * it is folded again.
+     */
+    private void checkpoint(LocalDate date) {
+        List<BillData> logged = loggedBills.getOrDefault(date, List.of());
+        Map<Integer, BillData> bills = new LinkedHashMap<>();
+        if (dataStore.exists(partitionFile(date))) {
+            List<BillData> stored = dataStore.load(partitionFile(date), listType);
+            stored.forEach(bill -> bills.put(bill.serialNumber, bill));
+        }
+        for (BillData bill : logged) {
+            bills.putIfAbsent(bill.serialNumber, bill);
+        }
+
+        List<BillData> merged = new ArrayList<>(bills.values());
+        dataStore.save(partitionFile(date), merged);
+        partitions.put(date, summarize(date, merged));
+        saveManifest();
+
+        WriteAheadLog log = logs.remove(date);
+        loggedBills.remove(date);
+        if (log != null) {
+            log.close();
+            try {
+                Files.deleteIfExists(logPath(date));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete bill log for " + date, e);
+            }
+        }
+    }
+
+    private WriteAheadLog logFor(LocalDate date) {
+        WriteAheadLog log = logs.get(date);
+        if (log == null) {
+            log = openLog(date);
+            logs.put(date, log);
+        }
+        return log;
+    }
+
+    private WriteAheadLog openLog(LocalDate date) {
+        try {
+            Files.createDirectories(partitionDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create " + partitionDirectory, e);
+        }
+        return new WriteAheadLog(logPath(date));
+    }
+
+    private Path logPath(LocalDate date) {
+        return partitionDirectory.resolve(date + LOG_EXTENSION);
+    }
+
+    private PartitionData summarize(LocalDate date, List<BillData> bills) {
+        PartitionData partition = newPartition(date);
+        bills.forEach(bill -> partition.include(bill.serialNumber));
+        return partition;
+    }
+
+    private static LocalDate partitionDate(String file) {
+        String name = file.substring(PARTITION_DIRECTORY.length());
+        return parseDate(name.substring(0, name.length() - ".json".length()));
+    }
+
+    private static LocalDate parseDate(String text) {
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Splits a pre-partitioning bills.json into daily partitions.
+     */
+    private void migrateLegacyFile() {
+        if (!dataStore.exists(LEGACY_FILENAME)) {
+            return;
+        }
+
+        List<BillData> legacy = dataStore.load(LEGACY_FILENAME, listType);
+        Map<LocalDate, List<BillData>> byDate = new TreeMap<>();
+        for (BillData bill : legacy) {
+            byDate.computeIfAbsent(bill.billDate.toLocalDate(), d -> new ArrayList<>())
+                    .add(bill);
+        }
+
+        for (Map.Entry<LocalDate, List<BillData>> entry : byDate.entrySet()) {
+            dataStore.save(partitionFile(entry.getKey()), entry.getValue());
+            PartitionData partition = newPartition(entry.getKey());
+            entry.getValue().forEach(bill -> partition.include(bill.serialNumber));
+            partitions.put(entry.getKey(), partition);
+        }
+
+        saveManifest();
+        dataStore.delete(LEGACY_FILENAME);
+        System.out.println("✓ Split " + legacy.size() + " bills into " + byDate.size() + " daily partitions");
+    }
+
+    private void saveManifest() {
+        dataStore.save(MANIFEST_FILENAME, new ArrayList<>(partitions.values()));
+    }
+
+    private PartitionData newPartition(LocalDate date) {
+        PartitionData partition = new PartitionData();
+        partition.date = date;
+        partition.minSerial = Integer.MAX_VALUE;
+        partition.maxSerial = 0;
+        return partition;
+    }
+
+    /**
+     * The partition file's bills followed by the day's logged bills.
+     */
+    private List<BillData> loadPartition(LocalDate date) {
+        PartitionData partition = partitions.get(date);
+        if (partition == null) {
+            return new ArrayList<>();
+        }
+        List<BillData> logged = loggedBills.getOrDefault(date, List.of());
+        List<BillData> bills = partition.count > logged.size()
+                ? dataStore.load(partitionFile(date), listType)
+                : new ArrayList<>();
+        bills.addAll(logged);
+        return bills;
+    }
+
+    private List<BillHeaderData> loadPartitionHeaders(LocalDate date) {
+        PartitionData partition = partitions.get(date);
+        if (partition == null) {
+            return new ArrayList<>();
+        }
+        List<BillData> logged = loggedBills.getOrDefault(date, List.of());
+        List<BillHeaderData> bills = partition.count > logged.size()
+                ? dataStore.loadView(partitionFile(date), headerListType)
+                : new ArrayList<>();
+        bills.addAll(logged);
+        return bills;
+    }
+
+    private static String partitionFile(LocalDate date) {
+        return PARTITION_DIRECTORY + date + ".json";
     }
 
     private BillData toData(Bill bill) {
+        Store.requireSameStore(dataStore.getStoreId(), bill.getStoreId());
         BillData data = new BillData();
         data.serialNumber = bill.getSerialNumber();
-        data.billDate = bill.getBillDate().toString();
+        data.billId = bill.getBillId();
+        data.billDate = bill.getBillDate();
         data.items = bill.getItems().stream().map(this::toItemData).toList();
         data.subtotal = bill.getSubtotal();
         data.discount = bill.getDiscount();
@@ -99,10 +565,18 @@ public class JsonBillRepository implements BillRepository {
         return data;
     }
 
+    private BillSummary toSummary(BillHeaderData data) {
+        return new BillSummary(data.serialNumber, data.billId, data.billDate,
+                Bill.TransactionType.valueOf(data.transactionType), data.subtotal, data.discount, data.total,
+                data.customerId);
+    }
+
     private Bill toEntity(BillData data) {
         Bill.Builder builder = new Bill.Builder()
                 .serialNumber(data.serialNumber)
-                .billDate(LocalDateTime.parse(data.billDate))
+                .billId(data.billId)
+                .storeId(dataStore.getStoreId())
+                .billDate(data.billDate)
                 .cashTendered(data.cashTendered)
                 .transactionType(Bill.TransactionType.valueOf(data.transactionType))
                 .customerId(data.customerId);
@@ -117,7 +591,7 @@ public class JsonBillRepository implements BillRepository {
                     itemData.discountPercentage));
         }
 
-        return builder.build();
+        return builder.buildStored();
     }
 
     private BillItemData toItemData(Bill.BillItem item) {
@@ -131,10 +605,78 @@ public class JsonBillRepository implements BillRepository {
         return data;
     }
 
-    private static class BillData {
+    /**
+     * Lazily loaded list over a snapshot of the partitions. Sequential access
+     * (iteration) loads each partition exactly once.
+     */
+    private class PartitionedBillList extends AbstractList<Bill> {
+        private final List<PartitionData> snapshot;
+        private final int[] offsets;
+        private int loadedPartition = -1;
+        private List<BillData> loadedBills;
+
+        PartitionedBillList(List<PartitionData> snapshot) {
+            this.snapshot = snapshot;
+            this.offsets = new int[snapshot.size() + 1];
+            for (int i = 0; i < snapshot.size(); i++) {
+                offsets[i + 1] = offsets[i] + snapshot.get(i).count;
+            }
+        }
+
+        @Override
+        public Bill get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+
+            int partition = Arrays.binarySearch(offsets, index);
+            // Skip empty partitions that share the same offset
+            partition = partition >= 0 ? lastWithOffset(partition) : -partition - 2;
+
+            synchronized (JsonBillRepository.this) {
+                if (partition != loadedPartition) {
+                    loadedBills = loadPartition(snapshot.get(partition).date);
+                    loadedPartition = partition;
+                }
+                return toEntity(loadedBills.get(index - offsets[partition]));
+            }
+        }
+
+        private int lastWithOffset(int position) {
+            while (position + 1 < snapshot.size() && offsets[position + 1] == offsets[position]) {
+                position++;
+            }
+            return position;
+        }
+
+        @Override
+        public int size() {
+            return offsets[snapshot.size()];
+        }
+    }
+
+    private static class PartitionData {
+        LocalDate date;
+        int minSerial;
+        int maxSerial;
+        int count;
+        boolean compressed;
+
+        void include(int serialNumber) {
+            minSerial = Math.min(minSerial, serialNumber);
+            maxSerial = Math.max(maxSerial, serialNumber);
+            count++;
+        }
+    }
+
+    /**
+     * Bill fields without the items; reading a partition as this type skips
+     * the items.
+     */
+    private static class BillHeaderData {
         int serialNumber;
-        String billDate;
-        List<BillItemData> items;
+        long billId;
+        LocalDateTime billDate;
         double subtotal;
         double discount;
         double total;
@@ -144,6 +686,10 @@ public class JsonBillRepository implements BillRepository {
         String customerId;
     }
 
+    private static class BillData extends BillHeaderData {
+        List<BillItemData> items;
+    }
+
     private static class BillItemData {
         String productCode;
         String productName;
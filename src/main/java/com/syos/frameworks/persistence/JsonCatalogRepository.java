@@ -0,0 +1,45 @@
+package com.syos.frameworks.persistence;
+
+import com.syos.entities.CatalogEntry;
+import com.syos.entities.Inventory;
+import com.syos.entities.Product;
+import com.syos.usecases.repositories.CatalogRepository;
+import com.syos.usecases.repositories.InventoryRepository;
+import com.syos.usecases.repositories.ProductRepository;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * JSON-based implementation of CatalogRepository.
+ * Products are held in memory, so a page costs one filter over the products
+ * and a single batched inventory lookup for the codes on the page.
+ */
+public class JsonCatalogRepository implements CatalogRepository {
+    private final ProductRepository productRepository;
+    private final InventoryRepository inventoryRepository;
+
+    public JsonCatalogRepository(ProductRepository productRepository, InventoryRepository inventoryRepository) {
+        this.productRepository = productRepository;
+        this.inventoryRepository = inventoryRepository;
+    }
+
+    @Override
+    public List<CatalogEntry> findPage(String afterCode, int limit) {
+        List<Product> page = productRepository.findAll().stream()
+                .filter(p -> afterCode == null || p.getCode().compareTo(afterCode) > 0)
+                .sorted(Comparator.comparing(Product::getCode))
+                .limit(limit)
+                .toList();
+
+        Map<String, Integer> available = inventoryRepository
+                .findByProductCodes(page.stream().map(Product::getCode).toList()).stream()
+                .collect(Collectors.toMap(Inventory::getProductCode, Inventory::getOnlineQuantity));
+
+        return page.stream()
+                .map(p -> new CatalogEntry(p, available.getOrDefault(p.getCode(), 0)))
+                .toList();
+    }
+}
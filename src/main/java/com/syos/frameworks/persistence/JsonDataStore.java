@@ -2,43 +2,89 @@ package com.syos.frameworks.persistence;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.syos.entities.Store;
 
 import java.io.*;
 import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Singleton class for managing JSON data storage.
  * Implements Singleton Pattern - ensures single instance for data management.
  * Provides centralized data persistence.
+ * Repositories address files by their logical ".json" name; the configured
+ * StorageFormat (-Dsyos.storage.format=json|binary) decides the encoding and
+ * physical extension on disk.
+ * Each store has its own instance and directory: the default store uses
+ * data/, other stores data/stores/<id>/.
  */
 public class JsonDataStore {
-    private static JsonDataStore instance;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String LOGICAL_EXTENSION = ".json";
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private static final String STORES_DIRECTORY = "stores";
+    private static final Map<String, JsonDataStore> instances = new HashMap<>();
     private final Gson gson;
+    private final String storeId;
     private final String dataDirectory;
+    private final StorageFormat jsonFormat;
+    private final StorageFormat binaryFormat;
+    private final StorageFormat format;
 
-    private JsonDataStore() {
-        this.gson = new GsonBuilder()
+    private JsonDataStore(String storeId) {
+        this.gson = gsonBuilder()
                 .setPrettyPrinting()
                 .setDateFormat("yyyy-MM-dd'T'HH:mm:ss")
                 .create();
-        this.dataDirectory = "data";
+        this.storeId = storeId;
+        this.dataDirectory = Store.isDefault(storeId)
+                ? "data"
+                : Paths.get("data", STORES_DIRECTORY, storeId).toString();
+        this.jsonFormat = new JsonStorageFormat(gson);
+        this.binaryFormat = new BinaryStorageFormat();
+        this.format = formatByName(System.getProperty("syos.storage.format", "json"));
         initializeDataDirectory();
     }
 
     /**
-     * Gets the singleton instance.
+     * Gets the instance for a store.
      * Thread-safe lazy initialization.
      */
-    public static synchronized JsonDataStore getInstance() {
-        if (instance == null) {
-            instance = new JsonDataStore();
-        }
-        return instance;
+    public static synchronized JsonDataStore forStore(String storeId) {
+        return instances.computeIfAbsent(Store.validateId(storeId), JsonDataStore::new);
+    }
+
+    /**
+     * Gson settings for every file and log that holds the data classes.
+     * Their date fields are java.time types, written as ISO text.
+     */
+    static GsonBuilder gsonBuilder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(LocalDate.class, new IsoTextAdapter<>(LocalDate::parse).nullSafe())
+                .registerTypeAdapter(LocalDateTime.class, new IsoTextAdapter<>(LocalDateTime::parse).nullSafe());
     }
 
     private void initializeDataDirectory() {
@@ -49,33 +95,342 @@ public class JsonDataStore {
         }
     }
 
+    private StorageFormat formatByName(String name) {
+        if (jsonFormat.getName().equalsIgnoreCase(name)) {
+            return jsonFormat;
+        }
+        if (binaryFormat.getName().equalsIgnoreCase(name)) {
+            return binaryFormat;
+        }
+        throw new IllegalArgumentException("Unknown storage format: " + name);
+    }
+
+    private Path resolve(String filename, StorageFormat storageFormat) {
+        String baseName = filename.endsWith(LOGICAL_EXTENSION)
+                ? filename.substring(0, filename.length() - LOGICAL_EXTENSION.length())
+                : filename;
+        return Paths.get(dataDirectory, baseName + storageFormat.getExtension());
+    }
+
+    /**
+     * Writes the file durably: when this returns, the new contents and the
+     * rename that put them in place are both on disk.
+     *
+     * @throws UncheckedIOException if the file could not be written
+     */
     public <T> void save(String filename, List<T> data) {
-        String filepath = dataDirectory + File.separator + filename;
-        try (Writer writer = new FileWriter(filepath)) {
-            gson.toJson(data, writer);
+        try {
+            write(resolve(filename, format), format, data);
         } catch (IOException e) {
-            System.err.println("Failed to save data to " + filename + ": " + e.getMessage());
+            throw new UncheckedIOException("Failed to save data to " + filename, e);
         }
     }
 
+    /**
+     * Reads a data file, or returns an empty list if there is none. A file
+     * that cannot be read is moved aside first, so the next save does not
+     * overwrite the only copy of its data.
+     *
+     * @throws UncheckedIOException if an unreadable file could not be moved aside
+     */
     public <T> List<T> load(String filename, Type type) {
-        String filepath = dataDirectory + File.separator + filename;
-        File file = new File(filepath);
+        Path path = existing(resolve(filename, format));
+
+        if (path == null) {
+            Path legacy = existing(resolve(filename, jsonFormat));
+            if (format == jsonFormat || legacy == null) {
+                return new ArrayList<>();
+            }
+            return convertLegacy(filename, legacy, resolve(filename, format), type);
+        }
+
+        try {
+            List<T> data = read(path, format, type);
+            return data != null ? data : new ArrayList<>();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to load data from " + filename + ": " + e.getMessage());
+            moveAside(path);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Renames an unreadable file out of the way, keeping it for recovery.
+     */
+    private static void moveAside(Path path) {
+        Path aside = path.resolveSibling(path.getFileName() + ".corrupt-" + System.currentTimeMillis());
+        try {
+            Files.move(path, aside);
+            System.err.println("❌ Moved unreadable " + path.getFileName() + " to " + aside.getFileName()
+                    + "; its data is not loaded");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to move unreadable " + path + " aside", e);
+        }
+    }
 
-        if (!file.exists()) {
+    /**
+     * Reads a file as a partial view (a type that leaves out some fields).
+     * Fields the view leaves out are skipped without being decoded: Gson
+     * skips their JSON tokens and the binary format steps over their tagged
+     * values. The whole file is still read.
+     * Unlike load, a legacy-format file is read in place rather than
+     * converted, since the view must never be written back.
+     */
+    public <T> List<T> loadView(String filename, Type type) {
+        StorageFormat pathFormat = format;
+        Path path = existing(resolve(filename, format));
+        if (path == null) {
+            pathFormat = jsonFormat;
+            path = existing(resolve(filename, jsonFormat));
+        }
+        if (path == null) {
             return new ArrayList<>();
         }
 
-        try (Reader reader = new FileReader(filepath)) {
-            List<T> data = gson.fromJson(reader, type);
+        try {
+            List<T> data = read(path, pathFormat, type);
             return data != null ? data : new ArrayList<>();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to load data from " + filename + ": " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    public boolean exists(String filename) {
+        return existing(resolve(filename, format)) != null || existing(resolve(filename, jsonFormat)) != null;
+    }
+
+    /**
+     * Logical names (as passed to load) of the data files in a subdirectory,
+     * whatever their format and whether or not they are compressed.
+     */
+    public List<String> list(String directory) {
+        String prefix = directory.endsWith("/") ? directory : directory + "/";
+        Path path = Paths.get(dataDirectory, prefix);
+        if (!Files.isDirectory(path)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> stream = Files.list(path)) {
+            return stream
+                    .map(p -> p.getFileName().toString())
+                    .map(name -> name.endsWith(GZIP_EXTENSION)
+                            ? name.substring(0, name.length() - GZIP_EXTENSION.length())
+                            : name)
+                    .filter(name -> name.endsWith(format.getExtension()) || name.endsWith(jsonFormat.getExtension()))
+                    .map(name -> prefix + name.substring(0, name.lastIndexOf('.')) + LOGICAL_EXTENSION)
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list " + directory, e);
+        }
+    }
+
+    public void delete(String filename) {
+        try {
+            for (StorageFormat storageFormat : List.of(format, jsonFormat)) {
+                Path path = resolve(filename, storageFormat);
+                Files.deleteIfExists(path);
+                Files.deleteIfExists(compressedPath(path));
+            }
         } catch (IOException e) {
+            System.err.println("Failed to delete " + filename + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gzips a file that is no longer expected to change. It stays readable
+     * through load(); the next save() writes it uncompressed again.
+     *
+     * @return true if the file was compressed
+     */
+    public boolean compress(String filename) {
+        Path path = resolve(filename, format);
+        if (!Files.exists(path)) {
+            return false;
+        }
+
+        Path compressed = compressedPath(path);
+        try (OutputStream out = openOutput(compressed, true)) {
+            Files.copy(path, out);
+        } catch (IOException e) {
+            System.err.println("Failed to compress " + filename + ": " + e.getMessage());
+            return false;
+        }
+
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            System.err.println("Failed to remove " + filename + " after compression: " + e.getMessage());
+        }
+        return true;
+    }
+
+    private static Path compressedPath(Path path) {
+        return path.resolveSibling(path.getFileName() + GZIP_EXTENSION);
+    }
+
+    private static Path existing(Path path) {
+        if (Files.exists(path)) {
+            return path;
+        }
+        Path compressed = compressedPath(path);
+        return Files.exists(compressed) ? compressed : null;
+    }
+
+    /**
+     * First load of a JSON file under a different format rewrites it in that
+     * format, so existing data directories migrate without a separate step.
+     */
+    private <T> List<T> convertLegacy(String filename, Path legacy, Path path, Type type) {
+        try {
+            List<T> data = read(legacy, jsonFormat, type);
+            if (data == null) {
+                data = new ArrayList<>();
+            }
+            if (legacy.getFileName().toString().endsWith(GZIP_EXTENSION)) {
+                try (OutputStream out = openOutput(compressedPath(path), true)) {
+                    format.write(out, data, gson);
+                }
+            } else {
+                write(path, format, data);
+            }
+            Files.delete(legacy);
+            System.out.println("✓ Converted " + legacy.getFileName() + " to " + format.getName() + " format");
+            return data;
+        } catch (IOException | RuntimeException e) {
             System.err.println("Failed to load data from " + filename + ": " + e.getMessage());
             return new ArrayList<>();
         }
     }
 
+    /**
+     * Converts every data file in the data directory to the given format.
+     * Works on the generic tree, so no repository types are needed.
+     *
+     * @param targetName "json" or "binary"
+     * @return number of files converted
+     */
+    public int convertAll(String targetName) throws IOException {
+        StorageFormat target = formatByName(targetName);
+        StorageFormat source = target == jsonFormat ? binaryFormat : jsonFormat;
+
+        // Other stores' directories are converted through their own instance
+        Path storesDirectory = Paths.get(dataDirectory, STORES_DIRECTORY);
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(Paths.get(dataDirectory))) {
+            files = stream
+                    .filter(Files::isRegularFile)
+                    .filter(p -> !Store.isDefault(storeId) || !p.startsWith(storesDirectory))
+                    .filter(p -> p.getFileName().toString().endsWith(source.getExtension())
+                            || p.getFileName().toString().endsWith(source.getExtension() + GZIP_EXTENSION))
+                    .collect(Collectors.toList());
+        }
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            boolean compressed = name.endsWith(GZIP_EXTENSION);
+            String baseName = name.substring(0, name.length() - source.getExtension().length()
+                    - (compressed ? GZIP_EXTENSION.length() : 0));
+            Path converted = file.resolveSibling(
+                    baseName + target.getExtension() + (compressed ? GZIP_EXTENSION : ""));
+
+            JsonElement tree;
+            try (InputStream in = openInput(file)) {
+                tree = source.readTree(in);
+            }
+            try (OutputStream out = openOutput(converted, compressed)) {
+                target.writeTree(out, tree);
+            }
+            Files.delete(file);
+        }
+
+        return files.size();
+    }
+
+    private <T> void write(Path path, StorageFormat storageFormat, List<T> data) throws IOException {
+        Path parent = path.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // Write beside the target and rename over it, so a crash mid-write
+        // leaves the previous file intact instead of a truncated one
+        Path temp = path.resolveSibling(path.getFileName() + TEMP_EXTENSION);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            storageFormat.write(out, data, gson);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(path.toAbsolutePath().getParent());
+        Files.deleteIfExists(compressedPath(path));
+    }
+
+    /**
+     * Forces a directory's entries to disk so a rename into it survives a
+     * crash. Platforms that cannot open a directory (Windows) skip this.
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    private <T> List<T> read(Path path, StorageFormat storageFormat, Type type) throws IOException {
+        try (InputStream in = openInput(path)) {
+            return storageFormat.read(in, type, gson);
+        }
+    }
+
+    private static InputStream openInput(Path path) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        return path.getFileName().toString().endsWith(GZIP_EXTENSION) ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+    }
+
+    private static OutputStream openOutput(Path path, boolean compressed) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+        return compressed ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+    }
+
+    public Path getDataDirectory() {
+        return Paths.get(dataDirectory);
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public String getFormatName() {
+        return format.getName();
+    }
+
     public Gson getGson() {
         return gson;
     }
+
+    private static class IsoTextAdapter<T> extends TypeAdapter<T> {
+        private final Function<String, T> parser;
+
+        IsoTextAdapter(Function<String, T> parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            out.value(value.toString());
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            return parser.apply(in.nextString());
+        }
+    }
 }
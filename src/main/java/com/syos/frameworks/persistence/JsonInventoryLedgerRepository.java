@@ -0,0 +1,268 @@
+package com.syos.frameworks.persistence;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.syos.entities.Inventory;
+import com.syos.entities.InventoryMovement;
+import com.syos.entities.InventorySnapshot;
+import com.syos.usecases.repositories.InventoryLedgerRepository;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * JSON-based implementation of InventoryLedgerRepository.
+ * Movements go to an append-only, checksummed log file that is never
+ * rewritten; daily snapshots are stored as inventory_snapshots/yyyy-MM-dd.json.
+ * The log is read once at startup and movements are served from memory
+ * afterwards, indexed by product code. Inside a JSON transaction, movements
+ * are indexed when it commits. The append lock is held until then, so IDs
+ * are handed out, and movements committed, in order.
+ */
+public class JsonInventoryLedgerRepository implements InventoryLedgerRepository, BatchParticipant {
+    private static final String LOG_FILENAME = "inventory_movements.log";
+    private static final String SNAPSHOT_DIRECTORY = "inventory_snapshots";
+
+    private final JsonDataStore dataStore;
+    private final WriteAheadLog log;
+    private final Gson gson = JsonDataStore.gsonBuilder().create();
+    private final Type snapshotListType = new TypeToken<ArrayList<SnapshotData>>() {
+    }.getType();
+    private final List<InventoryMovement> movements = new ArrayList<>();
+    private final Map<String, List<InventoryMovement>> movementsByProduct = new HashMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private long lastMovementId;
+    // Movements of the batch holding the append lock, and the highest ID handed out
+    private final List<InventoryMovement> uncommitted = new ArrayList<>();
+    private long lastIssuedId;
+
+    public JsonInventoryLedgerRepository(String storeId) {
+        this.dataStore = JsonDataStore.forStore(storeId);
+        this.log = new WriteAheadLog(dataStore.getDataDirectory().resolve(LOG_FILENAME));
+        log.replay(payload -> index(toEntity(decode(payload))));
+        lastIssuedId = lastMovementId;
+    }
+
+    /**
+     * The data directory belongs to one process and its log takes one batch
+     * at a time, so every product shares the append lock.
+     */
+    @Override
+    public void lockProducts(Collection<String> productCodes) {
+        holdAppendLock();
+    }
+
+    /**
+     * Appends the movements and forces the log to disk once for all of them,
+     * or once for the surrounding transaction when there is one.
+     */
+    @Override
+    public List<InventoryMovement> append(List<InventoryMovement> movements) {
+        return WriteAheadLog.inBatch(() -> {
+            holdAppendLock();
+            synchronized (this) {
+                WriteAheadLog.joinBatch(this);
+                List<InventoryMovement> stored = new ArrayList<>(movements.size());
+                for (InventoryMovement movement : movements) {
+                    InventoryMovement withId = movement.withId(++lastIssuedId);
+                    log.append(gson.toJson(toData(withId)).getBytes(StandardCharsets.UTF_8));
+                    stored.add(withId);
+                }
+                uncommitted.addAll(stored);
+                return stored;
+            }
+        });
+    }
+
+    /**
+     * Indexes the movements of a committed batch, or hands their IDs out
+     * again after a rollback. Runs before the append lock is released.
+     */
+    @Override
+    public synchronized void batchEnded(boolean committed) {
+        if (committed) {
+            uncommitted.forEach(this::index);
+        } else {
+            lastIssuedId = lastMovementId;
+        }
+        uncommitted.clear();
+    }
+
+    /**
+     * Takes the append lock until the current batch ends.
+     */
+    private void holdAppendLock() {
+        if (!appendLock.isHeldByCurrentThread()) {
+            appendLock.lock();
+            WriteAheadLog.afterBatch(committed -> appendLock.unlock());
+        }
+    }
+
+    /**
+     * Movements are indexed in ID order as batches commit one at a time, so
+     * there are no earlier IDs to fetch.
+     */
+    @Override
+    public void forEachAfter(long movementId, Collection<Long> earlierIds, Consumer<InventoryMovement> consumer) {
+        List<InventoryMovement> after;
+        synchronized (this) {
+            // IDs are assigned in append order, so the list is sorted by ID
+            int low = 0;
+            int high = movements.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (movements.get(middle).getMovementId() <= movementId) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            after = new ArrayList<>(movements.subList(low, movements.size()));
+        }
+        after.forEach(consumer);
+    }
+
+    @Override
+    public synchronized List<InventoryMovement> findByProductCode(String productCode) {
+        return new ArrayList<>(movementsByProduct.getOrDefault(productCode, List.of()));
+    }
+
+    @Override
+    public void saveSnapshot(InventorySnapshot snapshot) {
+        SnapshotData data = new SnapshotData();
+        data.date = snapshot.getDate();
+        data.lastMovementId = snapshot.getLastMovementId();
+        data.levels = snapshot.getLevels().stream().map(this::toLevelData).toList();
+        dataStore.save(snapshotFile(snapshot.getDate()), List.of(data));
+    }
+
+    @Override
+    public Optional<InventorySnapshot> findLatestSnapshot(LocalDate onOrBefore) {
+        Path directory = dataStore.getDataDirectory().resolve(SNAPSHOT_DIRECTORY);
+        if (!Files.isDirectory(directory)) {
+            return Optional.empty();
+        }
+
+        LocalDate latest = null;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                LocalDate date = snapshotDate(file);
+                if (date != null && !date.isAfter(onOrBefore) && (latest == null || date.isAfter(latest))) {
+                    latest = date;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error listing inventory snapshots: " + e.getMessage(), e);
+        }
+
+        if (latest == null) {
+            return Optional.empty();
+        }
+
+        List<SnapshotData> stored = dataStore.load(snapshotFile(latest), snapshotListType);
+        return stored.isEmpty() ? Optional.empty() : Optional.of(toSnapshot(stored.get(0)));
+    }
+
+    private static String snapshotFile(LocalDate date) {
+        return SNAPSHOT_DIRECTORY + "/" + date + ".json";
+    }
+
+    private static LocalDate snapshotDate(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.indexOf('.');
+        try {
+            return LocalDate.parse(dot < 0 ? name : name.substring(0, dot));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private void index(InventoryMovement movement) {
+        movements.add(movement);
+        movementsByProduct.computeIfAbsent(movement.getProductCode(), code -> new ArrayList<>()).add(movement);
+        lastMovementId = Math.max(lastMovementId, movement.getMovementId());
+    }
+
+    private MovementData decode(byte[] payload) {
+        return gson.fromJson(new String(payload, StandardCharsets.UTF_8), MovementData.class);
+    }
+
+    private MovementData toData(InventoryMovement movement) {
+        MovementData data = new MovementData();
+        data.id = movement.getMovementId();
+        data.productCode = movement.getProductCode();
+        data.location = movement.getLocation().name();
+        data.type = movement.getType().name();
+        data.delta = movement.getQuantityDelta();
+        data.reference = movement.getReference();
+        data.occurredAt = movement.getOccurredAt();
+        return data;
+    }
+
+    private InventoryMovement toEntity(MovementData data) {
+        return new InventoryMovement(
+                data.id,
+                data.productCode,
+                InventoryMovement.Location.valueOf(data.location),
+                InventoryMovement.MovementType.valueOf(data.type),
+                data.delta,
+                data.reference,
+                data.occurredAt);
+    }
+
+    private LevelData toLevelData(Inventory inventory) {
+        LevelData data = new LevelData();
+        data.productCode = inventory.getProductCode();
+        data.shelfQuantity = inventory.getShelfQuantity();
+        data.storeQuantity = inventory.getStoreQuantity();
+        data.onlineQuantity = inventory.getOnlineQuantity();
+        return data;
+    }
+
+    private InventorySnapshot toSnapshot(SnapshotData data) {
+        List<Inventory> levels = new ArrayList<>();
+        for (LevelData level : data.levels) {
+            levels.add(new Inventory(dataStore.getStoreId(), level.productCode, level.shelfQuantity,
+                    level.storeQuantity, level.onlineQuantity));
+        }
+        return new InventorySnapshot(data.date, data.lastMovementId, levels);
+    }
+
+    private static class MovementData {
+        long id;
+        String productCode;
+        String location;
+        String type;
+        int delta;
+        String reference;
+        LocalDateTime occurredAt;
+    }
+
+    private static class SnapshotData {
+        LocalDate date;
+        long lastMovementId;
+        List<LevelData> levels;
+    }
+
+    private static class LevelData {
+        String productCode;
+        int shelfQuantity;
+        int storeQuantity;
+        int onlineQuantity;
+    }
+}
@@ -1,77 +1,95 @@
 package com.syos.frameworks.persistence;
 
-import com.google.gson.reflect.TypeToken;
 import com.syos.entities.Inventory;
+import com.syos.entities.Store;
 import com.syos.usecases.repositories.InventoryRepository;
 
-import java.lang.reflect.Type;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
  * JSON-based implementation of InventoryRepository.
  */
-public class JsonInventoryRepository implements InventoryRepository {
+public class JsonInventoryRepository implements InventoryRepository, AutoCloseable {
     private static final String FILENAME = "inventory.json";
-    private final JsonDataStore dataStore;
-    private final Type listType = new TypeToken<ArrayList<InventoryData>>() {
-    }.getType();
+    private final String storeId;
+    private final DurableCollection<InventoryData> inventories;
 
-    public JsonInventoryRepository() {
-        this.dataStore = JsonDataStore.getInstance();
+    public JsonInventoryRepository(String storeId) {
+        this.storeId = storeId;
+        this.inventories = new DurableCollection<>(
+                JsonDataStore.forStore(storeId), FILENAME, InventoryData.class, i -> i.productCode);
     }
 
     @Override
     public void save(Inventory inventory) {
-        List<InventoryData> inventories = loadAll();
-        inventories.add(toData(inventory));
-        dataStore.save(FILENAME, inventories);
+        inventories.put(toData(inventory));
+    }
+
+    @Override
+    public void saveAll(List<Inventory> inventoryList) {
+        inventories.putAll(inventoryList.stream().map(this::toData).toList());
     }
 
     @Override
     public Optional<Inventory> findByProductCode(String productCode) {
-        return loadAll().stream()
-                .filter(i -> i.productCode.equals(productCode))
+        return Optional.ofNullable(inventories.get(productCode)).map(this::toEntity);
+    }
+
+    @Override
+    public List<Inventory> findByProductCodes(Collection<String> productCodes) {
+        return new HashSet<>(productCodes).stream()
+                .map(inventories::get)
+                .filter(Objects::nonNull)
                 .map(this::toEntity)
-                .findFirst();
+                .toList();
     }
 
     @Override
     public List<Inventory> findAll() {
-        return loadAll().stream()
+        return inventories.values().stream()
                 .map(this::toEntity)
                 .toList();
     }
 
     @Override
     public void update(Inventory inventory) {
-        List<InventoryData> inventories = loadAll();
+        updateAll(List.of(inventory));
+    }
 
-        for (int i = 0; i < inventories.size(); i++) {
-            if (inventories.get(i).productCode.equals(inventory.getProductCode())) {
-                inventories.set(i, toData(inventory));
-                dataStore.save(FILENAME, inventories);
-                return;
+    @Override
+    public void updateAll(List<Inventory> inventoryList) {
+        synchronized (inventories) {
+            for (Inventory inventory : inventoryList) {
+                if (!inventories.containsKey(inventory.getProductCode())) {
+                    throw new IllegalArgumentException("Inventory not found: " + inventory.getProductCode());
+                }
             }
+            inventories.putAll(inventoryList.stream().map(this::toData).toList());
         }
-
-        throw new IllegalArgumentException("Inventory not found: " + inventory.getProductCode());
     }
 
     @Override
     public List<Inventory> findBelowReorderLevel() {
-        return loadAll().stream()
+        return inventories.values().stream()
                 .map(this::toEntity)
                 .filter(Inventory::isBelowReorderLevel)
                 .toList();
     }
 
-    private List<InventoryData> loadAll() {
-        return dataStore.load(FILENAME, listType);
+    /**
+     * Closes the write-ahead log, for a repository opened only to read it.
+     */
+    @Override
+    public void close() {
+        inventories.close();
     }
 
     private InventoryData toData(Inventory inventory) {
+        Store.requireSameStore(storeId, inventory.getStoreId());
         InventoryData data = new InventoryData();
         data.productCode = inventory.getProductCode();
         data.shelfQuantity = inventory.getShelfQuantity();
@@ -81,7 +99,7 @@ public class JsonInventoryRepository implements InventoryRepository {
     }
 
     private Inventory toEntity(InventoryData data) {
-        Inventory inventory = new Inventory(data.productCode);
+        Inventory inventory = new Inventory(storeId, data.productCode);
 
         if (data.shelfQuantity > 0) {
             inventory.addToShelf(data.shelfQuantity);
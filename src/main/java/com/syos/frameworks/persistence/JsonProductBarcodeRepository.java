@@ -0,0 +1,75 @@
+package com.syos.frameworks.persistence;
+
+import com.syos.entities.ProductBarcode;
+import com.syos.usecases.repositories.ProductBarcodeRepository;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * JSON-based implementation of ProductBarcodeRepository.
+ */
+public class JsonProductBarcodeRepository implements ProductBarcodeRepository {
+    private static final String FILENAME = "product_barcodes.json";
+    private final DurableCollection<BarcodeData> barcodes;
+
+    public JsonProductBarcodeRepository(String storeId) {
+        this.barcodes = new DurableCollection<>(
+                JsonDataStore.forStore(storeId), FILENAME, BarcodeData.class, b -> Long.toString(b.barcode));
+    }
+
+    @Override
+    public void save(ProductBarcode barcode) {
+        synchronized (barcodes) {
+            if (barcodes.containsKey(Long.toString(barcode.getBarcode()))) {
+                throw new IllegalArgumentException("Barcode already assigned: " + barcode.getBarcode());
+            }
+            barcodes.put(toData(barcode));
+        }
+    }
+
+    @Override
+    public void delete(long barcode) {
+        barcodes.remove(Long.toString(barcode));
+    }
+
+    @Override
+    public void deleteByProductCode(String productCode) {
+        barcodes.removeAll(barcodes.values().stream()
+                .filter(b -> b.productCode.equals(productCode))
+                .map(b -> Long.toString(b.barcode))
+                .toList());
+    }
+
+    @Override
+    public List<ProductBarcode> findByProductCode(String productCode) {
+        return barcodes.values().stream()
+                .filter(b -> b.productCode.equals(productCode))
+                .sorted(Comparator.comparingLong(b -> b.barcode))
+                .map(this::toEntity)
+                .toList();
+    }
+
+    @Override
+    public List<ProductBarcode> findAll() {
+        return barcodes.values().stream()
+                .map(this::toEntity)
+                .toList();
+    }
+
+    private BarcodeData toData(ProductBarcode barcode) {
+        BarcodeData data = new BarcodeData();
+        data.barcode = barcode.getBarcode();
+        data.productCode = barcode.getProductCode();
+        return data;
+    }
+
+    private ProductBarcode toEntity(BarcodeData data) {
+        return new ProductBarcode(data.barcode, data.productCode);
+    }
+
+    private static class BarcodeData {
+        long barcode;
+        String productCode;
+    }
+}
@@ -1,13 +1,15 @@
 package com.syos.frameworks.persistence;
 
-import com.google.gson.reflect.TypeToken;
 import com.syos.entities.Product;
 import com.syos.usecases.repositories.ProductRepository;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * JSON-based implementation of ProductRepository.
@@ -15,81 +17,83 @@ import java.util.Optional;
  */
 public class JsonProductRepository implements ProductRepository {
     private static final String FILENAME = "products.json";
-    private final JsonDataStore dataStore;
-    private final Type listType = new TypeToken<ArrayList<ProductData>>() {
-    }.getType();
+    private final DurableCollection<ProductData> products;
 
-    public JsonProductRepository() {
-        this.dataStore = JsonDataStore.getInstance();
+    public JsonProductRepository(String storeId) {
+        this.products = new DurableCollection<>(
+                JsonDataStore.forStore(storeId), FILENAME, ProductData.class, p -> p.code);
     }
 
     @Override
     public void save(Product product) {
-        List<ProductData> products = loadAll();
+        synchronized (products) {
+            if (products.containsKey(product.getCode())) {
+                throw new IllegalArgumentException("Product with code " + product.getCode() + " already exists");
+            }
+            products.put(toData(product));
+        }
+    }
 
-        // Check if product already exists
-        boolean exists = products.stream()
-                .anyMatch(p -> p.code.equals(product.getCode()));
+    @Override
+    public void saveAll(List<Product> productList) {
+        synchronized (products) {
+            Set<String> codes = new HashSet<>();
+            for (Product product : productList) {
+                if (products.containsKey(product.getCode()) || !codes.add(product.getCode())) {
+                    throw new IllegalArgumentException("Product with code " + product.getCode() + " already exists");
+                }
+            }
 
-        if (exists) {
-            throw new IllegalArgumentException("Product with code " + product.getCode() + " already exists");
+            products.putAll(productList.stream().map(this::toData).toList());
         }
-
-        products.add(toData(product));
-        dataStore.save(FILENAME, products);
     }
 
     @Override
     public Optional<Product> findByCode(String code) {
-        return loadAll().stream()
-                .filter(p -> p.code.equals(code))
+        return Optional.ofNullable(products.get(code)).map(this::toEntity);
+    }
+
+    @Override
+    public List<Product> findByCodes(Collection<String> codes) {
+        return new HashSet<>(codes).stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
                 .map(this::toEntity)
-                .findFirst();
+                .toList();
     }
 
     @Override
     public List<Product> findAll() {
-        return loadAll().stream()
+        return products.values().stream()
                 .map(this::toEntity)
                 .toList();
     }
 
     @Override
     public void update(Product product) {
-        List<ProductData> products = loadAll();
-
-        for (int i = 0; i < products.size(); i++) {
-            if (products.get(i).code.equals(product.getCode())) {
-                products.set(i, toData(product));
-                dataStore.save(FILENAME, products);
-                return;
+        synchronized (products) {
+            if (!products.containsKey(product.getCode())) {
+                throw new IllegalArgumentException("Product not found: " + product.getCode());
             }
+            products.put(toData(product));
         }
-
-        throw new IllegalArgumentException("Product not found: " + product.getCode());
     }
 
     @Override
     public void delete(String code) {
-        List<ProductData> products = loadAll();
-        products.removeIf(p -> p.code.equals(code));
-        dataStore.save(FILENAME, products);
+        products.remove(code);
     }
 
     @Override
     public boolean exists(String code) {
-        return loadAll().stream()
-                .anyMatch(p -> p.code.equals(code));
-    }
-
-    private List<ProductData> loadAll() {
-        return dataStore.load(FILENAME, listType);
+        return products.containsKey(code);
     }
 
     private ProductData toData(Product product) {
         ProductData data = new ProductData();
         data.code = product.getCode();
         data.name = product.getName();
+        data.unit = product.getUnit();
         data.price = product.getPrice();
         data.discountPercentage = product.getDiscountPercentage();
         return data;
@@ -99,6 +103,7 @@ public class JsonProductRepository implements ProductRepository {
         return new Product.Builder()
                 .code(data.code)
                 .name(data.name)
+                .unit(data.unit != null ? data.unit : "pcs")
                 .price(data.price)
                 .discountPercentage(data.discountPercentage)
                 .build();
@@ -107,6 +112,7 @@ public class JsonProductRepository implements ProductRepository {
     private static class ProductData {
         String code;
         String name;
+        String unit;
         double price;
         double discountPercentage;
     }
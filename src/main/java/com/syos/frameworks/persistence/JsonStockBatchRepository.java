@@ -1,114 +1,232 @@
 package com.syos.frameworks.persistence;
 
-import com.google.gson.reflect.TypeToken;
 import com.syos.entities.StockBatch;
+import com.syos.entities.Store;
 import com.syos.usecases.repositories.StockBatchRepository;
 
-import java.lang.reflect.Type;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * JSON-based implementation of StockBatchRepository.
+ * Keeps a product code to batch ID index so per-sale lookups only read the
+ * batches of one product; depleted and expired batches are moved to
+ * stock_batches_archive.json by archive() so the index stays small.
+ * When a JSON transaction rolls back, the index entries of the products it
+ * touched are rebuilt from the restored batches.
  */
 public class JsonStockBatchRepository implements StockBatchRepository {
     private static final String FILENAME = "stock_batches.json";
-    private final JsonDataStore dataStore;
-    private final Type listType = new TypeToken<ArrayList<StockBatchData>>() {
-    }.getType();
-
-    public JsonStockBatchRepository() {
-        this.dataStore = JsonDataStore.getInstance();
+    private static final String ARCHIVE_FILENAME = "stock_batches_archive.json";
+    private final String storeId;
+    private final DurableCollection<StockBatchData> batches;
+    private final DurableCollection<StockBatchData> archivedBatches;
+    private final Map<String, Set<String>> batchIdsByProduct = new HashMap<>();
+
+    public JsonStockBatchRepository(String storeId) {
+        JsonDataStore dataStore = JsonDataStore.forStore(storeId);
+        this.storeId = storeId;
+        this.batches = new DurableCollection<>(dataStore, FILENAME, StockBatchData.class, b -> b.batchId);
+        this.archivedBatches = new DurableCollection<>(dataStore, ARCHIVE_FILENAME, StockBatchData.class,
+                b -> b.batchId);
+        for (StockBatchData data : batches.values()) {
+            index(data);
+        }
     }
 
     @Override
     public void save(StockBatch stockBatch) {
-        List<StockBatchData> batches = loadAll();
-        batches.add(toData(stockBatch));
-        dataStore.save(FILENAME, batches);
+        StockBatchData data = toData(stockBatch);
+        synchronized (batches) {
+            reindexOnRollback(List.of(data));
+            batches.put(data);
+            index(data);
+        }
+    }
+
+    @Override
+    public void saveAll(List<StockBatch> stockBatches) {
+        List<StockBatchData> records = stockBatches.stream().map(this::toData).toList();
+        synchronized (batches) {
+            reindexOnRollback(records);
+            batches.putAll(records);
+            records.forEach(this::index);
+        }
     }
 
     @Override
     public Optional<StockBatch> findById(String batchId) {
-        return loadAll().stream()
-                .filter(b -> b.batchId.equals(batchId))
-                .map(this::toEntity)
-                .findFirst();
+        return Optional.ofNullable(batches.get(batchId)).map(this::toEntity);
     }
 
     @Override
     public List<StockBatch> findByProductCode(String productCode) {
-        return loadAll().stream()
-                .filter(b -> b.productCode.equals(productCode))
-                .map(this::toEntity)
+        synchronized (batches) {
+            Set<String> batchIds = batchIdsByProduct.get(productCode);
+            if (batchIds == null) {
+                return List.of();
+            }
+            List<StockBatch> result = new ArrayList<>(batchIds.size());
+            for (String batchId : batchIds) {
+                result.add(toEntity(batches.get(batchId)));
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public List<StockBatch> findAvailableByProductCode(String productCode, LocalDate date) {
+        return findByProductCode(productCode).stream()
+                .filter(batch -> batch.getQuantity() > 0 && !batch.isExpiredOn(date))
+                .sorted(Comparator.comparing(StockBatch::getPurchaseDate))
                 .toList();
     }
 
     @Override
     public List<StockBatch> findAll() {
-        return loadAll().stream()
+        return batches.values().stream()
                 .map(this::toEntity)
                 .toList();
     }
 
     @Override
     public void update(StockBatch stockBatch) {
-        List<StockBatchData> batches = loadAll();
+        synchronized (batches) {
+            if (!batches.containsKey(stockBatch.getBatchId())) {
+                throw new IllegalArgumentException("Stock batch not found: " + stockBatch.getBatchId());
+            }
+            batches.put(toData(stockBatch));
+        }
+    }
 
-        for (int i = 0; i < batches.size(); i++) {
-            if (batches.get(i).batchId.equals(stockBatch.getBatchId())) {
-                batches.set(i, toData(stockBatch));
-                dataStore.save(FILENAME, batches);
-                return;
+    @Override
+    public void delete(String batchId) {
+        synchronized (batches) {
+            StockBatchData data = batches.get(batchId);
+            if (data != null) {
+                reindexOnRollback(List.of(data));
+                batches.remove(batchId);
+                unindex(data);
             }
         }
+    }
 
-        throw new IllegalArgumentException("Stock batch not found: " + stockBatch.getBatchId());
+    @Override
+    public int archive(LocalDate expiredBefore) {
+        LocalDateTime archivedAt = LocalDateTime.now();
+        synchronized (batches) {
+            List<StockBatchData> toArchive = new ArrayList<>();
+            List<StockBatchData> archived = new ArrayList<>();
+            for (StockBatchData data : batches.values()) {
+                if (data.quantity == 0 || data.expiryDate.isBefore(expiredBefore)) {
+                    toArchive.add(data);
+                    // Live records stay unmarked; only the archive copies carry archivedAt
+                    archived.add(archivedCopy(data, archivedAt));
+                }
+            }
+            if (toArchive.isEmpty()) {
+                return 0;
+            }
+
+            // Written to the archive first so a crash in between only leaves
+            // duplicates, which the next run removes
+            reindexOnRollback(toArchive);
+            archivedBatches.putAll(archived);
+            batches.removeAll(toArchive.stream().map(data -> data.batchId).toList());
+            toArchive.forEach(this::unindex);
+            return toArchive.size();
+        }
     }
 
     @Override
-    public void delete(String batchId) {
-        List<StockBatchData> batches = loadAll();
-        batches.removeIf(b -> b.batchId.equals(batchId));
-        dataStore.save(FILENAME, batches);
+    public List<StockBatch> findArchivedByProductCode(String productCode) {
+        return archivedBatches.values().stream()
+                .filter(b -> b.productCode.equals(productCode))
+                .map(this::toEntity)
+                .sorted(Comparator.comparing(StockBatch::getPurchaseDate))
+                .toList();
     }
 
-    private List<StockBatchData> loadAll() {
-        return dataStore.load(FILENAME, listType);
+    /**
+     * Registered before the change, so it runs after the batches are restored.
+     */
+    private void reindexOnRollback(List<StockBatchData> changed) {
+        Set<String> productCodes = new HashSet<>();
+        changed.forEach(data -> productCodes.add(data.productCode));
+        WriteAheadLog.onRollback(() -> {
+            synchronized (batches) {
+                productCodes.forEach(batchIdsByProduct::remove);
+                for (StockBatchData data : batches.values()) {
+                    if (productCodes.contains(data.productCode)) {
+                        index(data);
+                    }
+                }
+            }
+        });
+    }
+
+    private void index(StockBatchData data) {
+        batchIdsByProduct.computeIfAbsent(data.productCode, code -> new LinkedHashSet<>()).add(data.batchId);
+    }
+
+    private void unindex(StockBatchData data) {
+        Set<String> batchIds = batchIdsByProduct.get(data.productCode);
+        if (batchIds != null) {
+            batchIds.remove(data.batchId);
+            if (batchIds.isEmpty()) {
+                batchIdsByProduct.remove(data.productCode);
+            }
+        }
+    }
+
+    private static StockBatchData archivedCopy(StockBatchData data, LocalDateTime archivedAt) {
+        StockBatchData copy = new StockBatchData();
+        copy.batchId = data.batchId;
+        copy.productCode = data.productCode;
+        copy.purchaseDate = data.purchaseDate;
+        copy.quantity = data.quantity;
+        copy.expiryDate = data.expiryDate;
+        copy.archivedAt = archivedAt;
+        return copy;
     }
 
     private StockBatchData toData(StockBatch batch) {
+        Store.requireSameStore(storeId, batch.getStoreId());
         StockBatchData data = new StockBatchData();
         data.batchId = batch.getBatchId();
         data.productCode = batch.getProductCode();
-        data.purchaseDate = batch.getPurchaseDate().toString();
+        data.purchaseDate = batch.getPurchaseDate();
         data.quantity = batch.getQuantity();
-        data.expiryDate = batch.getExpiryDate().toString();
+        data.expiryDate = batch.getExpiryDate();
         return data;
     }
 
     private StockBatch toEntity(StockBatchData data) {
-        StockBatch batch = new StockBatch(
+        // Use constructor with batch ID to preserve the stored ID
+        return new StockBatch(
+                storeId,
+                data.batchId,
                 data.productCode,
-                LocalDate.parse(data.purchaseDate),
+                data.purchaseDate,
                 data.quantity,
-                LocalDate.parse(data.expiryDate));
-
-        int difference = batch.getQuantity() - data.quantity;
-        if (difference > 0) {
-            batch.reduceQuantity(difference);
-        }
-
-        return batch;
+                data.expiryDate);
     }
 
     private static class StockBatchData {
         String batchId;
         String productCode;
-        String purchaseDate;
+        LocalDate purchaseDate;
         int quantity;
-        String expiryDate;
+        LocalDate expiryDate;
+        LocalDateTime archivedAt; // only set in the archive
     }
 }
@@ -0,0 +1,62 @@
+package com.syos.frameworks.persistence;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Human-readable JSON encoding (the original file format).
+ */
+class JsonStorageFormat implements StorageFormat {
+    private final Gson gson;
+
+    JsonStorageFormat(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public String getName() {
+        return "json";
+    }
+
+    @Override
+    public String getExtension() {
+        return ".json";
+    }
+
+    @Override
+    public void writeTree(OutputStream out, JsonElement tree) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        gson.toJson(tree, writer);
+        writer.flush();
+    }
+
+    @Override
+    public JsonElement readTree(InputStream in) throws IOException {
+        return JsonParser.parseReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public <T> void write(OutputStream out, List<T> data, Gson gson) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        gson.toJson(data, writer);
+        writer.flush();
+    }
+
+    @Override
+    public <T> List<T> read(InputStream in, Type type, Gson gson) throws IOException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        return gson.fromJson(reader, type);
+    }
+}
@@ -0,0 +1,24 @@
+package com.syos.frameworks.persistence;
+
+import com.syos.usecases.repositories.TransactionManager;
+
+/**
+ * JSON-based implementation of TransactionManager.
+ * Repository writes inside a transaction change the in-memory collections
+ * at once but hold their write-ahead log records back; on success the
+ * records are written and each log is forced once, on failure they are
+ * dropped and the in-memory changes undone. Transactions are not isolated:
+ * other threads see a transaction's changes before it commits.
+ */
+public class JsonTransactionManager implements TransactionManager {
+
+    @Override
+    public <T, E extends Exception> T inTransaction(TransactionalWork<T, E> work) throws E {
+        return WriteAheadLog.inBatch(work);
+    }
+
+    @Override
+    public void afterCompletion(CompletionAction action) {
+        WriteAheadLog.afterBatch(action);
+    }
+}
@@ -1,66 +1,84 @@
 package com.syos.frameworks.persistence;
 
-import com.google.gson.reflect.TypeToken;
 import com.syos.entities.User;
 import com.syos.usecases.repositories.UserRepository;
 
-import java.lang.reflect.Type;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JSON-based implementation of UserRepository.
+ * Keeps an email to user ID index so login and registration checks are a
+ * hash lookup instead of a scan over every user.
  */
 public class JsonUserRepository implements UserRepository {
     private static final String FILENAME = "users.json";
-    private final JsonDataStore dataStore;
-    private final Type listType = new TypeToken<ArrayList<UserData>>() {
-    }.getType();
+    private final DurableCollection<UserData> users;
+    private final Map<String, String> userIdsByEmail = new ConcurrentHashMap<>();
 
-    public JsonUserRepository() {
-        this.dataStore = JsonDataStore.getInstance();
+    public JsonUserRepository(String storeId) {
+        this.users = new DurableCollection<>(
+                JsonDataStore.forStore(storeId), FILENAME, UserData.class, u -> u.userId);
+        for (UserData data : users.values()) {
+            userIdsByEmail.put(data.email, data.userId);
+        }
     }
 
     @Override
     public void save(User user) {
-        List<UserData> users = loadAll();
-        users.add(toData(user));
-        dataStore.save(FILENAME, users);
+        synchronized (users) {
+            UserData previous = users.get(user.getUserId());
+            WriteAheadLog.onRollback(() -> {
+                synchronized (users) {
+                    userIdsByEmail.remove(user.getEmail(), user.getUserId());
+                    UserData restored = users.get(user.getUserId());
+                    if (restored != null) {
+                        userIdsByEmail.put(restored.email, restored.userId);
+                    }
+                }
+            });
+            users.put(toData(user));
+            if (previous != null && !previous.email.equals(user.getEmail())) {
+                userIdsByEmail.remove(previous.email, previous.userId);
+            }
+            userIdsByEmail.put(user.getEmail(), user.getUserId());
+        }
+    }
+
+    @Override
+    public void update(User user) {
+        synchronized (users) {
+            if (!users.containsKey(user.getUserId())) {
+                throw new IllegalArgumentException("User not found: " + user.getUserId());
+            }
+            save(user);
+        }
     }
 
     @Override
     public Optional<User> findById(String userId) {
-        return loadAll().stream()
-                .filter(u -> u.userId.equals(userId))
-                .map(this::toEntity)
-                .findFirst();
+        return Optional.ofNullable(users.get(userId)).map(this::toEntity);
     }
 
     @Override
     public Optional<User> findByEmail(String email) {
-        return loadAll().stream()
-                .filter(u -> u.email.equals(email))
-                .map(this::toEntity)
-                .findFirst();
+        String userId = userIdsByEmail.get(email);
+        return userId == null ? Optional.empty() : findById(userId);
     }
 
     @Override
     public List<User> findAll() {
-        return loadAll().stream()
+        return users.values().stream()
                 .map(this::toEntity)
                 .toList();
     }
 
     @Override
     public boolean existsByEmail(String email) {
-        return loadAll().stream()
-                .anyMatch(u -> u.email.equals(email));
-    }
-
-    private List<UserData> loadAll() {
-        return dataStore.load(FILENAME, listType);
+        return userIdsByEmail.containsKey(email);
     }
 
     private UserData toData(User user) {
@@ -70,7 +88,7 @@ public class JsonUserRepository implements UserRepository {
         data.email = user.getEmail();
         data.passwordHash = user.getPasswordHash();
         data.address = user.getAddress();
-        data.registrationDate = user.getRegistrationDate().toString();
+        data.registrationDate = user.getRegistrationDate();
         return data;
     }
 
@@ -81,7 +99,7 @@ public class JsonUserRepository implements UserRepository {
                 data.email,
                 data.passwordHash,
                 data.address,
-                LocalDateTime.parse(data.registrationDate));
+                data.registrationDate);
     }
 
     private static class UserData {
@@ -90,6 +108,6 @@ public class JsonUserRepository implements UserRepository {
         String email;
         String passwordHash;
         String address;
-        String registrationDate;
+        LocalDateTime registrationDate;
     }
 }
@@ -0,0 +1,446 @@
+package com.syos.frameworks.persistence;
+
+import com.syos.entities.Inventory;
+import com.syos.entities.Store;
+import com.syos.usecases.repositories.InventoryRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory-mapped implementation of InventoryRepository for the file backend.
+ * Each product owns a fixed-width slot (code + shelf/store/online ints) in
+ * inventory.dat, located through an in-memory code to slot index, so an
+ * update is one in-place write of the three levels instead of rewriting the
+ * whole file. The inventory ledger writes the levels of every product it
+ * changes here, inside the same JSON transaction; writes are undone in
+ * place if the transaction rolls back.
+ * Written pages belong to the OS page cache and survive a process crash;
+ * the DurabilityPolicy decides when they are forced to disk.
+ */
+public class MappedInventoryRepository implements InventoryRepository {
+    private static final String FILENAME = "inventory.dat";
+    private static final String LEGACY_FILENAME = "inventory.json";
+
+    private static final int MAGIC = 0x53594931; // "SYI1"
+    private static final int HEADER_SIZE = 16;
+    private static final int HEADER_COUNT_OFFSET = 4;
+    private static final int HEADER_CAPACITY_OFFSET = 8;
+
+    private static final int MAX_CODE_BYTES = 50;
+    private static final int SLOT_SIZE = 64;
+    private static final int SLOT_CODE_LENGTH_OFFSET = 0;
+    private static final int SLOT_CODE_OFFSET = 1;
+    private static final int SLOT_SHELF_OFFSET = 52;
+    private static final int SLOT_STORE_OFFSET = 56;
+    private static final int SLOT_ONLINE_OFFSET = 60;
+    private static final int SLOT_QUANTITIES_SIZE = 12;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long DEFAULT_FORCE_INTERVAL_MILLIS = 1000;
+
+    /**
+     * When mapped pages are flushed to the storage device.
+     */
+    public enum DurabilityPolicy {
+        /** Leave flushing to the OS; survives process crashes, not power loss. */
+        NONE,
+        /** Force after every write call. */
+        EVERY_WRITE,
+        /** Force dirty pages on a fixed interval from a background thread. */
+        INTERVAL
+    }
+
+    // Flushed by a single shutdown hook rather than one hook per instance
+    private static final Set<MappedInventoryRepository> openRepositories = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(
+                () -> openRepositories.forEach(MappedInventoryRepository::force), "inventory-flush-on-exit"));
+    }
+
+    private final String storeId;
+    private final FileChannel channel;
+    private final DurabilityPolicy durabilityPolicy;
+    private final Map<String, Integer> slotIndex = new HashMap<>();
+    private final ScheduledExecutorService flusher;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private boolean dirty;
+
+    public MappedInventoryRepository(String storeId) {
+        this(storeId, JsonDataStore.forStore(storeId).getDataDirectory().resolve(FILENAME),
+                DurabilityPolicy.valueOf(System.getProperty("syos.inventory.durability", "interval")
+                        .toUpperCase(Locale.ROOT)),
+                DEFAULT_FORCE_INTERVAL_MILLIS);
+    }
+
+    public MappedInventoryRepository(String storeId, Path file, DurabilityPolicy durabilityPolicy,
+            long forceIntervalMillis) {
+        this.storeId = storeId;
+        this.durabilityPolicy = durabilityPolicy;
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            if (isComplete()) {
+                open();
+            } else {
+                initialize(INITIAL_CAPACITY);
+                importLegacy(file.resolveSibling(LEGACY_FILENAME));
+                complete();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open inventory file " + file, e);
+        }
+
+        if (durabilityPolicy == DurabilityPolicy.INTERVAL) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "inventory-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::force, forceIntervalMillis, forceIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+
+        openRepositories.add(this);
+    }
+
+    /**
+     * Whether the file has been fully created. The magic number is written
+     * last, so a file left by a crash during creation (magic still zero) is
+     * created again, legacy import included.
+     */
+    private boolean isComplete() throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            return false;
+        }
+        int magic = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).getInt(0);
+        if (magic != MAGIC && magic != 0) {
+            throw new IOException("Not an inventory data file");
+        }
+        return magic == MAGIC;
+    }
+
+    private void initialize(int initialCapacity) throws IOException {
+        capacity = initialCapacity;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+        buffer.putInt(HEADER_COUNT_OFFSET, 0);
+        buffer.putInt(HEADER_CAPACITY_OFFSET, capacity);
+    }
+
+    /**
+     * Forces the imported slots, then marks the file as complete.
+     */
+    private void complete() {
+        buffer.force();
+        buffer.putInt(0, MAGIC);
+        buffer.force();
+        dirty = false;
+    }
+
+    private void open() throws IOException {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        capacity = header.getInt(HEADER_CAPACITY_OFFSET);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+
+        int count = buffer.getInt(HEADER_COUNT_OFFSET);
+        for (int slot = 0; slot < count; slot++) {
+            slotIndex.put(readCode(slot), slot);
+        }
+    }
+
+    /**
+     * Carries over the existing JSON (or binary) inventory the first time the
+     * mapped file is created.
+     */
+    private void importLegacy(Path legacyFile) {
+        List<Inventory> existing;
+        try (JsonInventoryRepository legacy = new JsonInventoryRepository(storeId)) {
+            existing = legacy.findAll();
+        }
+        if (!existing.isEmpty()) {
+            saveAll(existing);
+            System.out.println("✓ Imported " + existing.size() + " inventory records from " + legacyFile.getFileName());
+        }
+    }
+
+    @Override
+    public synchronized void save(Inventory inventory) {
+        if (slotIndex.containsKey(inventory.getProductCode())) {
+            throw new IllegalArgumentException("Inventory already exists: " + inventory.getProductCode());
+        }
+        undoAppendOnRollback(List.of(inventory.getProductCode()));
+        append(inventory);
+        afterWrite();
+    }
+
+    @Override
+    public synchronized void saveAll(List<Inventory> inventories) {
+        Set<String> codes = new HashSet<>();
+        for (Inventory inventory : inventories) {
+            if (slotIndex.containsKey(inventory.getProductCode()) || !codes.add(inventory.getProductCode())) {
+                throw new IllegalArgumentException("Inventory already exists: " + inventory.getProductCode());
+            }
+            encodeCode(inventory.getProductCode());
+        }
+
+        undoAppendOnRollback(new ArrayList<>(codes));
+        for (Inventory inventory : inventories) {
+            append(inventory);
+        }
+        afterWrite();
+    }
+
+    @Override
+    public synchronized Optional<Inventory> findByProductCode(String productCode) {
+        Integer slot = slotIndex.get(productCode);
+        return slot == null ? Optional.empty() : Optional.of(readInventory(slot));
+    }
+
+    @Override
+    public synchronized List<Inventory> findByProductCodes(Collection<String> productCodes) {
+        List<Inventory> result = new ArrayList<>();
+        for (String code : new HashSet<>(productCodes)) {
+            Integer slot = slotIndex.get(code);
+            if (slot != null) {
+                result.add(readInventory(slot));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<Inventory> findAll() {
+        List<Inventory> result = new ArrayList<>(slotIndex.size());
+        for (int slot = 0; slot < slotIndex.size(); slot++) {
+            result.add(readInventory(slot));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void update(Inventory inventory) {
+        int slot = requireSlot(inventory.getProductCode());
+        undoWriteOnRollback(slot);
+        writeQuantities(slot, inventory);
+        afterWrite();
+    }
+
+    @Override
+    public synchronized void updateAll(List<Inventory> inventories) {
+        int[] slots = new int[inventories.size()];
+        for (int i = 0; i < inventories.size(); i++) {
+            slots[i] = requireSlot(inventories.get(i).getProductCode());
+        }
+        for (int slot : slots) {
+            undoWriteOnRollback(slot);
+        }
+        for (int i = 0; i < inventories.size(); i++) {
+            writeQuantities(slots[i], inventories.get(i));
+        }
+        afterWrite();
+    }
+
+    @Override
+    public synchronized List<Inventory> findBelowReorderLevel() {
+        List<Inventory> result = new ArrayList<>();
+        for (int slot = 0; slot < slotIndex.size(); slot++) {
+            Inventory inventory = readInventory(slot);
+            if (inventory.isBelowReorderLevel()) {
+                result.add(inventory);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Flushes modified pages to the storage device.
+     */
+    public synchronized void force() {
+        if (dirty) {
+            buffer.force();
+            dirty = false;
+        }
+    }
+
+    /**
+     * Forces outstanding writes and stops the background flusher.
+     */
+    public synchronized void close() throws IOException {
+        openRepositories.remove(this);
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        force();
+        channel.close();
+    }
+
+    /**
+     * Puts the slot's current levels back if the surrounding JSON
+     * transaction rolls back.
+     */
+    private void undoWriteOnRollback(int slot) {
+        Inventory previous = readInventory(slot);
+        WriteAheadLog.onRollback(() -> {
+            synchronized (this) {
+                writeQuantities(slot, previous);
+                afterWrite();
+            }
+        });
+    }
+
+    /**
+     * Drops the slots about to be appended for the given products if the
+     * surrounding JSON transaction rolls back. Slots another thread appended
+     * after them cannot be moved, so in that case they are zeroed instead.
+     */
+    private void undoAppendOnRollback(List<String> productCodes) {
+        int firstSlot = slotIndex.size();
+        WriteAheadLog.onRollback(() -> {
+            synchronized (this) {
+                if (slotIndex.size() == firstSlot + productCodes.size()) {
+                    buffer.putInt(HEADER_COUNT_OFFSET, firstSlot);
+                    productCodes.forEach(slotIndex::remove);
+                } else {
+                    for (String productCode : productCodes) {
+                        writeQuantities(slotIndex.get(productCode), new Inventory(storeId, productCode));
+                    }
+                }
+                dirty = true;
+                afterWrite();
+            }
+        });
+    }
+
+    private int requireSlot(String productCode) {
+        Integer slot = slotIndex.get(productCode);
+        if (slot == null) {
+            throw new IllegalArgumentException("Inventory not found: " + productCode);
+        }
+        return slot;
+    }
+
+    private void append(Inventory inventory) {
+        int slot = slotIndex.size();
+        if (slot == capacity) {
+            grow();
+        }
+
+        byte[] code = encodeCode(inventory.getProductCode());
+        int offset = slotOffset(slot);
+        buffer.put(offset + SLOT_CODE_LENGTH_OFFSET, (byte) code.length);
+        for (int i = 0; i < code.length; i++) {
+            buffer.put(offset + SLOT_CODE_OFFSET + i, code[i]);
+        }
+        writeQuantities(slot, inventory);
+
+        // Publish the slot only after its contents are in place
+        buffer.putInt(HEADER_COUNT_OFFSET, slot + 1);
+        slotIndex.put(inventory.getProductCode(), slot);
+    }
+
+    private void grow() {
+        try {
+            capacity *= 2;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+            buffer.putInt(HEADER_CAPACITY_OFFSET, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to grow inventory file", e);
+        }
+    }
+
+    /**
+     * Writes the three levels as one 12-byte copy. Slots are 64-byte aligned
+     * after a 16-byte header, so the levels never straddle a sector or page
+     * and reach the disk together.
+     */
+    private void writeQuantities(int slot, Inventory inventory) {
+        Store.requireSameStore(storeId, inventory.getStoreId());
+        ByteBuffer quantities = ByteBuffer.allocate(SLOT_QUANTITIES_SIZE)
+                .putInt(inventory.getShelfQuantity())
+                .putInt(inventory.getStoreQuantity())
+                .putInt(inventory.getOnlineQuantity());
+        quantities.flip();
+
+        ByteBuffer target = buffer.duplicate();
+        target.position(slotOffset(slot) + SLOT_SHELF_OFFSET);
+        target.put(quantities);
+        dirty = true;
+    }
+
+    private void afterWrite() {
+        if (durabilityPolicy == DurabilityPolicy.EVERY_WRITE) {
+            force();
+        }
+    }
+
+    private Inventory readInventory(int slot) {
+        int offset = slotOffset(slot);
+        Inventory inventory = new Inventory(storeId, readCode(slot));
+
+        int shelfQuantity = buffer.getInt(offset + SLOT_SHELF_OFFSET);
+        int storeQuantity = buffer.getInt(offset + SLOT_STORE_OFFSET);
+        int onlineQuantity = buffer.getInt(offset + SLOT_ONLINE_OFFSET);
+
+        if (shelfQuantity > 0) {
+            inventory.addToShelf(shelfQuantity);
+        }
+        if (storeQuantity > 0) {
+            inventory.addToStore(storeQuantity);
+        }
+        if (onlineQuantity > 0) {
+            inventory.addToOnline(onlineQuantity);
+        }
+
+        return inventory;
+    }
+
+    private String readCode(int slot) {
+        int offset = slotOffset(slot);
+        byte[] code = new byte[buffer.get(offset + SLOT_CODE_LENGTH_OFFSET)];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = buffer.get(offset + SLOT_CODE_OFFSET + i);
+        }
+        return new String(code, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encodeCode(String productCode) {
+        byte[] code = productCode.getBytes(StandardCharsets.UTF_8);
+        if (code.length > MAX_CODE_BYTES) {
+            throw new IllegalArgumentException("Product code too long: " + productCode);
+        }
+        return code;
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static long fileSize(int slots) {
+        return HEADER_SIZE + (long) slots * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,39 @@
+package com.syos.frameworks.persistence;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * On-disk encoding used by JsonDataStore.
+ * Implements Strategy Pattern - repositories keep working with Gson-mapped
+ * data classes while the file encoding can be swapped underneath them.
+ */
+interface StorageFormat {
+    /**
+     * Name used to select the format (e.g. "json", "binary").
+     */
+    String getName();
+
+    /**
+     * File extension including the dot (e.g. ".json").
+     */
+    String getExtension();
+
+    void writeTree(OutputStream out, JsonElement tree) throws IOException;
+
+    JsonElement readTree(InputStream in) throws IOException;
+
+    default <T> void write(OutputStream out, List<T> data, Gson gson) throws IOException {
+        writeTree(out, gson.toJsonTree(data));
+    }
+
+    default <T> List<T> read(InputStream in, Type type, Gson gson) throws IOException {
+        return gson.fromJson(readTree(in), type);
+    }
+}
@@ -0,0 +1,308 @@
+package com.syos.frameworks.persistence;
+
+import com.syos.usecases.repositories.TransactionManager.CompletionAction;
+import com.syos.usecases.repositories.TransactionManager.TransactionalWork;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of changes made since the last snapshot.
+ * Each record is framed as [length][crc32][payload]; a torn or corrupt
+ * record at the tail (crash mid-append) ends replay and is truncated away.
+ * Appends are forced to disk immediately unless they run inside
+ * {@link #inBatch}. There they are held back until the outermost batch
+ * succeeds, then written and each touched log forced once. If the batch
+ * fails nothing reaches the logs, and the undo actions registered with
+ * {@link #onRollback} put the stores' in-memory state back.
+ */
+class WriteAheadLog {
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final ThreadLocal<Batch> currentBatch = new ThreadLocal<>();
+    private static final AtomicLong nextLockOrder = new AtomicLong();
+
+    private final FileChannel channel;
+    /** Order in which batches lock several logs, so two batches cannot deadlock. */
+    private final long lockOrder = nextLockOrder.getAndIncrement();
+
+    WriteAheadLog(Path file) {
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open write-ahead log " + file, e);
+        }
+    }
+
+    /**
+     * Runs the work as one batch. Nested calls join the outer batch.
+     * When the work returns, the held-back records are written log by log
+     * and then forced; a crash during that step can leave the records of
+     * some logs on disk without the others. When the work (or the write)
+     * fails, the logs written so far are truncated back and the undo
+     * actions run, latest first. The batch's logs stay locked from the
+     * first write until they are forced or truncated back, so no other
+     * append lands in between and is cut off by the truncate. Either way
+     * the participants, then the completion actions, are told how the
+     * batch ended.
+     */
+    static <T, E extends Exception> T inBatch(TransactionalWork<T, E> work) throws E {
+        if (currentBatch.get() != null) {
+            return work.execute();
+        }
+
+        Batch batch = new Batch();
+        currentBatch.set(batch);
+        boolean committed = false;
+        try {
+            T result = work.execute();
+            batch.write();
+            committed = true;
+            return result;
+        } finally {
+            currentBatch.remove();
+            batch.end(committed);
+        }
+    }
+
+    static boolean isBatchActive() {
+        return currentBatch.get() != null;
+    }
+
+    /**
+     * Registers a participant with the current thread's batch; it is told
+     * once how the batch ended.
+     *
+     * @return false if no batch is active or the participant already joined
+     */
+    static boolean joinBatch(BatchParticipant participant) {
+        Batch batch = currentBatch.get();
+        return batch != null && batch.participants.add(participant);
+    }
+
+    /**
+     * Registers an action that reverses an in-memory change if the current
+     * batch fails. Does nothing outside a batch.
+     */
+    static void onRollback(Runnable undo) {
+        Batch batch = currentBatch.get();
+        if (batch != null) {
+            batch.undo.push(undo);
+        }
+    }
+
+    /**
+     * Runs the action when the current batch ends, or straight away as
+     * committed outside a batch.
+     */
+    static void afterBatch(CompletionAction action) {
+        Batch batch = currentBatch.get();
+        if (batch == null) {
+            action.completed(true);
+        } else {
+            batch.completions.add(action);
+        }
+    }
+
+    synchronized void append(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        record.flip();
+
+        Batch batch = currentBatch.get();
+        if (batch != null) {
+            batch.records.computeIfAbsent(this, log -> new ArrayList<>()).add(record);
+            return;
+        }
+        write(List.of(record));
+        sync();
+    }
+
+    /**
+     * Writes framed records at the end of the log.
+     *
+     * @return the log size before the write
+     */
+    private synchronized long write(List<ByteBuffer> records) {
+        try {
+            long start = channel.size();
+            for (ByteBuffer record : records) {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            }
+            return start;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to write-ahead log", e);
+        }
+    }
+
+    private synchronized void truncate(long size) {
+        try {
+            channel.truncate(size);
+            channel.position(size);
+        } catch (IOException e) {
+            System.err.println("❌ Could not roll back write-ahead log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hands every intact record to the consumer in append order.
+     *
+     * @return number of records replayed
+     */
+    synchronized int replay(Consumer<byte[]> consumer) {
+        try {
+            long position = 0;
+            long size = channel.size();
+            int records = 0;
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+            while (position + RECORD_HEADER_SIZE <= size) {
+                header.clear();
+                channel.read(header, position);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+
+                if (length < 0 || position + RECORD_HEADER_SIZE + length > size) {
+                    break;
+                }
+
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                channel.read(payload, position + RECORD_HEADER_SIZE);
+                CRC32 crc = new CRC32();
+                crc.update(payload.array());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                consumer.accept(payload.array());
+                position += RECORD_HEADER_SIZE + length;
+                records++;
+            }
+
+            if (position < size) {
+                System.err.println("Discarding incomplete write-ahead log tail (" + (size - position) + " bytes)");
+                channel.truncate(position);
+            }
+            channel.position(position);
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay write-ahead log", e);
+        }
+    }
+
+    /**
+     * Empties the log once its records are covered by a snapshot.
+     */
+    synchronized void reset() {
+        try {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to reset write-ahead log", e);
+        }
+    }
+
+    synchronized long size() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read write-ahead log size", e);
+        }
+    }
+
+    synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close write-ahead log", e);
+        }
+    }
+
+    synchronized void sync() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync write-ahead log", e);
+        }
+    }
+
+    /**
+     * Records, undo actions and participants of one thread's batch.
+     */
+    private static class Batch {
+        final Map<WriteAheadLog, List<ByteBuffer>> records = new LinkedHashMap<>();
+        final Deque<Runnable> undo = new ArrayDeque<>();
+        final Set<BatchParticipant> participants = new LinkedHashSet<>();
+        final List<CompletionAction> completions = new ArrayList<>();
+
+        void write() {
+            List<WriteAheadLog> logs = new ArrayList<>(records.keySet());
+            logs.sort(Comparator.comparingLong(log -> log.lockOrder));
+            writeLocked(logs, 0);
+        }
+
+        /**
+         * Locks the logs one after another, then writes and forces them
+         * while all are held.
+         */
+        private void writeLocked(List<WriteAheadLog> logs, int locked) {
+            if (locked < logs.size()) {
+                synchronized (logs.get(locked)) {
+                    writeLocked(logs, locked + 1);
+                }
+                return;
+            }
+
+            Map<WriteAheadLog, Long> written = new LinkedHashMap<>();
+            try {
+                for (Map.Entry<WriteAheadLog, List<ByteBuffer>> entry : records.entrySet()) {
+                    written.put(entry.getKey(), entry.getKey().write(entry.getValue()));
+                }
+                for (WriteAheadLog log : records.keySet()) {
+                    log.sync();
+                }
+            } catch (RuntimeException e) {
+                written.forEach(WriteAheadLog::truncate);
+                throw e;
+            }
+        }
+
+        void end(boolean committed) {
+            if (!committed) {
+                undo.forEach(Runnable::run);
+            }
+            for (BatchParticipant participant : participants) {
+                participant.batchEnded(committed);
+            }
+            for (CompletionAction action : completions) {
+                action.completed(committed);
+            }
+        }
+    }
+}
@@ -0,0 +1,622 @@
+package com.syos.frameworks.server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.syos.entities.Bill;
+import com.syos.entities.CatalogEntry;
+import com.syos.entities.Inventory;
+import com.syos.entities.Product;
+import com.syos.entities.StockBatch;
+import com.syos.entities.Store;
+import com.syos.entities.User;
+import com.syos.usecases.AddStockBatchUseCase;
+import com.syos.usecases.AuthenticateUserUseCase;
+import com.syos.usecases.ProcessSaleUseCase;
+import com.syos.usecases.SaleProcessor;
+import com.syos.usecases.TransferStockUseCase;
+import com.syos.usecases.catalog.CatalogView;
+import com.syos.usecases.credentials.CredentialService;
+import com.syos.usecases.reports.BillReport;
+import com.syos.usecases.reports.DailySalesReport;
+import com.syos.usecases.reports.ReorderLevelsReport;
+import com.syos.usecases.reports.ReportTemplate;
+import com.syos.usecases.reports.ReshelveReport;
+import com.syos.usecases.reports.StockReport;
+import com.syos.usecases.repositories.BillRepository;
+import com.syos.usecases.repositories.InventoryRepository;
+import com.syos.usecases.repositories.ProductRepository;
+import com.syos.usecases.repositories.StockBatchRepository;
+import com.syos.usecases.repositories.TransactionManager;
+import com.syos.usecases.repositories.Workload;
+import com.syos.usecases.search.BarcodeIndex;
+import com.syos.usecases.sessions.SessionManager;
+import com.syos.usecases.search.ProductSearchIndex;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * Embedded HTTP front end so one process can serve every till and the online
+ * store. Listens on loopback only and dispatches each request onto a
+ * virtual thread when the JVM supports them (Java 21+), otherwise onto a
+ * bounded worker pool whose overflow runs on the accepting thread, slowing
+ * intake instead of queueing without limit.
+ *
+ * Sales go through the GroupCommitSaleProcessor (optionally behind an
+ * offline journal); transfers and restocks hold its commit lock so they
+ * never interleave with a sale batch.
+ *
+ * Each instance holds the use cases and repositories of one store. Other
+ * stores added with addStore() are served on the same port: a request is
+ * routed by its X-Store-Id header and handled entirely by that store's
+ * instance, against that store's shard. Requests without the header go to
+ * the store of the instance that was started.
+ */
+public class RequestServer {
+    private static final int DEFAULT_WORKER_THREADS = 32;
+    private static final int DEFAULT_QUEUE_CAPACITY = 256;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+
+    private final String storeId;
+    private final SaleProcessor saleProcessor;
+    private final Lock commitLock;
+    private final TransferStockUseCase transferStockUseCase;
+    private final AddStockBatchUseCase addStockBatchUseCase;
+    private final SessionManager sessionManager;
+    private final CredentialService credentialService;
+    private final CatalogView catalogView;
+    private final ProductSearchIndex productSearchIndex;
+    private final BarcodeIndex barcodeIndex;
+    private final ProductRepository productRepository;
+    private final BillRepository billRepository;
+    private final InventoryRepository inventoryRepository;
+    private final StockBatchRepository stockBatchRepository;
+    private final TransactionManager transactionManager;
+    private static final String STORE_HEADER = "X-Store-Id";
+
+    private final Gson gson = new Gson();
+    private final Map<String, Supplier<?>> extraMetrics = new ConcurrentHashMap<>();
+    private final Map<String, RequestServer> stores = new ConcurrentHashMap<>();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param commitLock Lock the sale processor holds while committing a
+     *                   batch (GroupCommitSaleProcessor.getCommitLock())
+     */
+    public RequestServer(String storeId,
+            SaleProcessor saleProcessor,
+            Lock commitLock,
+            TransferStockUseCase transferStockUseCase,
+            AddStockBatchUseCase addStockBatchUseCase,
+            SessionManager sessionManager,
+            CredentialService credentialService,
+            CatalogView catalogView,
+            ProductSearchIndex productSearchIndex,
+            BarcodeIndex barcodeIndex,
+            ProductRepository productRepository,
+            BillRepository billRepository,
+            InventoryRepository inventoryRepository,
+            StockBatchRepository stockBatchRepository,
+            TransactionManager transactionManager) {
+        this.storeId = Store.validateId(storeId);
+        this.saleProcessor = saleProcessor;
+        this.commitLock = commitLock;
+        this.transferStockUseCase = transferStockUseCase;
+        this.addStockBatchUseCase = addStockBatchUseCase;
+        this.sessionManager = sessionManager;
+        this.credentialService = credentialService;
+        this.catalogView = catalogView;
+        this.productSearchIndex = productSearchIndex;
+        this.barcodeIndex = barcodeIndex;
+        this.productRepository = productRepository;
+        this.billRepository = billRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.stockBatchRepository = stockBatchRepository;
+        this.transactionManager = transactionManager;
+        stores.put(storeId, this);
+    }
+
+    /**
+     * Serves another store's requests on this server's port, for requests
+     * that name it in the X-Store-Id header.
+     */
+    public void addStore(RequestServer store) {
+        if (stores.putIfAbsent(store.storeId, store) != null) {
+            throw new IllegalArgumentException("Store already served: " + store.storeId);
+        }
+    }
+
+    /**
+     * Adds a value reported under the given name by /api/metrics.
+     */
+    public void addMetric(String name, Supplier<?> value) {
+        extraMetrics.put(name, value);
+    }
+
+    public synchronized void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = createExecutor();
+        server.setExecutor(executor);
+
+        server.createContext("/api/sales", exchange -> handle(exchange, "POST", RequestServer::sale));
+        server.createContext("/api/transfers", exchange -> handle(exchange, "POST", RequestServer::transfer));
+        server.createContext("/api/stock", exchange -> handle(exchange, "POST", RequestServer::restock));
+        server.createContext("/api/login", exchange -> handle(exchange, "POST", RequestServer::login));
+        server.createContext("/api/logout", exchange -> handle(exchange, "POST", RequestServer::logout));
+        server.createContext("/api/catalog", exchange -> handle(exchange, "GET", RequestServer::catalog));
+        server.createContext("/api/products/search", exchange -> handle(exchange, "GET", RequestServer::search));
+        server.createContext("/api/metrics", exchange -> handle(exchange, "GET", RequestServer::metrics));
+        server.createContext("/api/bills", exchange -> handle(exchange, "GET", RequestServer::bills));
+        server.createContext("/api/reports/", exchange -> handle(exchange, "GET", RequestServer::report));
+
+        server.start();
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Virtual-thread-per-request executor when available, looked up
+     * reflectively so the code still builds for Java 11.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Integer.getInteger("syos.server.threads", DEFAULT_WORKER_THREADS);
+            AtomicInteger counter = new AtomicInteger();
+            return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(DEFAULT_QUEUE_CAPACITY),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "request-worker-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try {
+            if (!method.equals(exchange.getRequestMethod())) {
+                sendJson(exchange, 405, error("Method not allowed"));
+                return;
+            }
+            String requestedStoreId = exchange.getRequestHeaders().getFirst(STORE_HEADER);
+            RequestServer store = requestedStoreId == null ? this : stores.get(requestedStoreId);
+            if (store == null) {
+                sendJson(exchange, 404, error("Unknown store: " + requestedStoreId));
+                return;
+            }
+            Response response = handler.handle(store, exchange);
+            if (response.text != null) {
+                send(exchange, response.status, "text/plain; charset=utf-8", response.text);
+            } else {
+                sendJson(exchange, response.status, response.body);
+            }
+        } catch (ProcessSaleUseCase.SaleException | TransferStockUseCase.TransferException
+                | AddStockBatchUseCase.StockException e) {
+            sendJson(exchange, 422, error(e.getMessage()));
+        } catch (AuthenticateUserUseCase.AuthenticationException e) {
+            sendJson(exchange, e.isServiceBusy() ? 503 : 401, error(e.getMessage()));
+        } catch (TransactionManager.WorkloadRejectedException e) {
+            sendJson(exchange, 503, error(e.getMessage()));
+        } catch (IllegalArgumentException | JsonParseException | IllegalStateException
+                | UnsupportedOperationException | DateTimeParseException e) {
+            // Malformed JSON, a missing field (see required) or a field of the wrong type
+            sendJson(exchange, 400, error("Bad request: " + e.getMessage()));
+        } catch (Exception e) {
+            sendJson(exchange, 500, error("Internal error: " + e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response sale(HttpExchange exchange) throws Exception {
+        JsonObject body = readBody(exchange);
+        List<ProcessSaleUseCase.SaleRequest.SaleItem> items = new ArrayList<>();
+        required(body, "items").getAsJsonArray().forEach(element -> {
+            JsonObject item = element.getAsJsonObject();
+            items.add(new ProcessSaleUseCase.SaleRequest.SaleItem(productCodeOf(item),
+                    required(item, "quantity").getAsInt()));
+        });
+
+        String transactionType = optional(body, "transactionType");
+        Bill.TransactionType type = transactionType != null
+                ? Bill.TransactionType.valueOf(transactionType.toUpperCase(Locale.ROOT))
+                : Bill.TransactionType.COUNTER;
+        // Online orders belong to the logged-in customer
+        String customerId = null;
+        if (type == Bill.TransactionType.ONLINE) {
+            customerId = sessionManager.authenticate(bearerToken(exchange))
+                    .orElseThrow(() -> new AuthenticateUserUseCase.AuthenticationException("Login required"))
+                    .getUserId();
+        }
+
+        Bill bill = saleProcessor.process(new ProcessSaleUseCase.SaleRequest(
+                items, required(body, "cashTendered").getAsDouble(), type, customerId));
+        return Response.json(201, toJson(bill));
+    }
+
+    /**
+     * Sale items name a product by productCode or by a scanned barcode.
+     */
+    private String productCodeOf(JsonObject item) {
+        String productCode = optional(item, "productCode");
+        if (productCode != null) {
+            return productCode;
+        }
+        String barcode = optional(item, "barcode");
+        if (barcode == null) {
+            throw new IllegalArgumentException("Missing field: productCode or barcode");
+        }
+        Product product = barcodeIndex.find(barcode);
+        if (product == null) {
+            throw new IllegalArgumentException("Unknown barcode: " + barcode);
+        }
+        return product.getCode();
+    }
+
+    private Response transfer(HttpExchange exchange) throws Exception {
+        JsonObject body = readBody(exchange);
+        String productCode = required(body, "productCode").getAsString();
+        int quantity = required(body, "quantity").getAsInt();
+        String transferType = optional(body, "type");
+        TransferStockUseCase.TransferType type = transferType != null
+                ? TransferStockUseCase.TransferType.valueOf(transferType.toUpperCase(Locale.ROOT))
+                : TransferStockUseCase.TransferType.STORE_TO_SHELF;
+
+        commitLock.lock();
+        try {
+            transactionManager.inWorkload(Workload.INVENTORY, () -> {
+                transferStockUseCase.execute(productCode, quantity, type);
+                return null;
+            });
+        } finally {
+            commitLock.unlock();
+        }
+        return Response.json(200, toJson(inventoryRepository.findByProductCode(productCode).orElse(null)));
+    }
+
+    private Response restock(HttpExchange exchange) throws Exception {
+        JsonObject body = readBody(exchange);
+        String productCode = required(body, "productCode").getAsString();
+        int quantity = required(body, "quantity").getAsInt();
+        LocalDate expiryDate = LocalDate.parse(required(body, "expiryDate").getAsString());
+        StockBatch batch;
+        commitLock.lock();
+        try {
+            batch = transactionManager.inWorkload(Workload.INVENTORY,
+                    () -> addStockBatchUseCase.execute(productCode, quantity, expiryDate));
+        } finally {
+            commitLock.unlock();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("batchId", batch.getBatchId());
+        result.put("productCode", batch.getProductCode());
+        result.put("quantity", batch.getQuantity());
+        result.put("expiryDate", batch.getExpiryDate().toString());
+        return Response.json(201, result);
+    }
+
+    private Response login(HttpExchange exchange) throws Exception {
+        JsonObject body = readBody(exchange);
+        SessionManager.Session session = sessionManager.login(required(body, "email").getAsString(),
+                required(body, "password").getAsString());
+        User user = session.getUser();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("token", session.getToken());
+        result.put("userId", user.getUserId());
+        result.put("name", user.getName());
+        result.put("email", user.getEmail());
+        return Response.json(200, result);
+    }
+
+    private Response logout(HttpExchange exchange) {
+        sessionManager.logout(bearerToken(exchange));
+        return Response.json(200, new LinkedHashMap<>());
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return authorization.substring(7).trim();
+    }
+
+    private Response catalog(HttpExchange exchange) {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int limit = pageLimit(query, CatalogView.DEFAULT_PAGE_SIZE);
+
+        List<CatalogEntry> page = catalogView.getPage(query.get("after"), limit);
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (CatalogEntry entry : page) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("productCode", entry.getProductCode());
+            json.put("name", entry.getProduct().getName());
+            json.put("unit", entry.getProduct().getUnit());
+            json.put("price", entry.getProduct().getDiscountedPrice());
+            json.put("available", entry.getOnlineQuantity());
+            items.add(json);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("items", items);
+        result.put("next", page.size() == limit ? page.get(page.size() - 1).getProductCode() : null);
+        return Response.json(200, result);
+    }
+
+    /**
+     * Keyset page of bills, newest first; pass the returned next serial
+     * number as after for the following page.
+     */
+    private Response bills(HttpExchange exchange) {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int limit = pageLimit(query, BillReport.DEFAULT_PAGE_SIZE);
+        int after = query.containsKey("after") ? Integer.parseInt(query.get("after")) : 0;
+        Bill.TransactionType type = query.containsKey("type")
+                ? Bill.TransactionType.valueOf(query.get("type").toUpperCase(Locale.ROOT))
+                : null;
+
+        List<Bill> page = transactionManager.readOnly(() -> billRepository.findPage(after, limit, type));
+        List<Map<String, Object>> bills = new ArrayList<>();
+        for (Bill bill : page) {
+            bills.add(toJson(bill));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bills", bills);
+        result.put("next", page.size() == limit ? page.get(page.size() - 1).getSerialNumber() : null);
+        return Response.json(200, result);
+    }
+
+    private int pageLimit(Map<String, String> query, int defaultLimit) {
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : defaultLimit;
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    private Response search(HttpExchange exchange) {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int limit = pageLimit(query, DEFAULT_SEARCH_LIMIT);
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Product product : productSearchIndex.search(query.getOrDefault("q", ""), limit)) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("productCode", product.getCode());
+            json.put("name", product.getName());
+            json.put("unit", product.getUnit());
+            json.put("price", product.getDiscountedPrice());
+            items.add(json);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("items", items);
+        return Response.json(200, result);
+    }
+
+    private Response metrics(HttpExchange exchange) {
+        CredentialService.Metrics hashing = credentialService.getMetrics();
+        Map<String, Object> credentials = new LinkedHashMap<>();
+        credentials.put("completed", hashing.getCompleted());
+        credentials.put("rejected", hashing.getRejected());
+        credentials.put("timedOut", hashing.getTimedOut());
+        credentials.put("queueDepth", hashing.getQueueDepth());
+        credentials.put("activeHashes", hashing.getActiveHashes());
+        credentials.put("hashesPerSecond", hashing.getHashesPerSecond());
+        credentials.put("averageHashMillis", hashing.getAverageHashMillis());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("storeId", storeId);
+        result.put("credentials", credentials);
+        result.put("sessions", sessionManager.size());
+        new TreeMap<>(extraMetrics).forEach((name, value) -> result.put(name, value.get()));
+        return Response.json(200, result);
+    }
+
+    private Response report(HttpExchange exchange) {
+        String name = exchange.getRequestURI().getPath().substring("/api/reports/".length());
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        Bill.TransactionType type = query.containsKey("type")
+                ? Bill.TransactionType.valueOf(query.get("type").toUpperCase(Locale.ROOT))
+                : null;
+
+        ReportTemplate report;
+        switch (name) {
+            case "daily-sales":
+                LocalDate date = query.containsKey("date") ? LocalDate.parse(query.get("date")) : LocalDate.now();
+                report = new DailySalesReport(billRepository, date, type);
+                break;
+            case "reshelve":
+                report = new ReshelveReport(inventoryRepository, productRepository);
+                break;
+            case "reorder":
+                report = new ReorderLevelsReport(inventoryRepository, productRepository);
+                break;
+            case "stock":
+                report = new StockReport(stockBatchRepository, productRepository);
+                break;
+            case "bills":
+                // Always one page, so a request never renders every bill
+                report = new BillReport(billRepository, type, Integer.parseInt(query.getOrDefault("after", "0")),
+                        pageLimit(query, BillReport.DEFAULT_PAGE_SIZE));
+                break;
+            default:
+                return Response.json(404, error("Unknown report: " + name));
+        }
+        // Reports may read from the replica so they do not compete with sales
+        return Response.text(200, transactionManager.readOnly(report::generateReport));
+    }
+
+    private JsonObject readBody(HttpExchange exchange) {
+        JsonElement body = JsonParser.parseReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+        if (!body.isJsonObject()) {
+            throw new IllegalArgumentException("Request body must be a JSON object");
+        }
+        return body.getAsJsonObject();
+    }
+
+    private static JsonElement required(JsonObject object, String field) {
+        JsonElement value = object.get(field);
+        if (value == null || value.isJsonNull()) {
+            throw new IllegalArgumentException("Missing field: " + field);
+        }
+        return value;
+    }
+
+    /**
+     * The field as text, or null when it is absent or JSON null.
+     */
+    private static String optional(JsonObject object, String field) {
+        JsonElement value = object.get(field);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private Map<String, Object> toJson(Bill bill) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Bill.BillItem item : bill.getItems()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("productCode", item.getProductCode());
+            json.put("productName", item.getProductName());
+            json.put("quantity", item.getQuantity());
+            json.put("price", item.getPrice());
+            items.add(json);
+        }
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("serialNumber", bill.getSerialNumber());
+        // Taken offline: the serial number is assigned when the sale is synchronized
+        if (bill.getSerialNumber() == 0) {
+            json.put("pendingSync", true);
+        }
+        // As text: JavaScript numbers cannot hold every 64-bit ID
+        json.put("billId", Long.toString(bill.getBillId()));
+        json.put("storeId", bill.getStoreId());
+        json.put("billDate", bill.getBillDate().toString());
+        json.put("items", items);
+        json.put("subtotal", bill.getSubtotal());
+        json.put("discount", bill.getDiscount());
+        json.put("total", bill.getTotal());
+        json.put("cashTendered", bill.getCashTendered());
+        json.put("change", bill.getChange());
+        json.put("transactionType", bill.getTransactionType().name());
+        return json;
+    }
+
+    private Map<String, Object> toJson(Inventory inventory) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        if (inventory != null) {
+            json.put("productCode", inventory.getProductCode());
+            json.put("shelfQuantity", inventory.getShelfQuantity());
+            json.put("storeQuantity", inventory.getStoreQuantity());
+            json.put("onlineQuantity", inventory.getOnlineQuantity());
+        }
+        return json;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("error", message);
+        return json;
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        send(exchange, status, "application/json; charset=utf-8", gson.toJson(body));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(RequestServer store, HttpExchange exchange) throws Exception;
+    }
+
+    private static class Response {
+        final int status;
+        final Object body;
+        final String text;
+
+        private Response(int status, Object body, String text) {
+            this.status = status;
+            this.body = body;
+            this.text = text;
+        }
+
+        static Response json(int status, Object body) {
+            return new Response(status, body, null);
+        }
+
+        static Response text(int status, String text) {
+            return new Response(status, null, text);
+        }
+    }
+}
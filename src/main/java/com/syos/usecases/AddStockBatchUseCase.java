@@ -1,14 +1,17 @@
 package com.syos.usecases;
 
 import com.syos.entities.Inventory;
+import com.syos.entities.InventoryMovement;
 import com.syos.entities.Product;
 import com.syos.entities.StockBatch;
+import com.syos.usecases.ledger.InventoryLedger;
 import com.syos.usecases.observers.InventorySubject;
-import com.syos.usecases.repositories.InventoryRepository;
 import com.syos.usecases.repositories.ProductRepository;
 import com.syos.usecases.repositories.StockBatchRepository;
+import com.syos.usecases.repositories.TransactionManager;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Use case for adding new stock batches.
@@ -18,19 +21,25 @@ import java.time.LocalDate;
  * date of expiry"
  */
 public class AddStockBatchUseCase {
+    private final String storeId;
     private final ProductRepository productRepository;
     private final StockBatchRepository stockBatchRepository;
-    private final InventoryRepository inventoryRepository;
+    private final InventoryLedger inventoryLedger;
     private final InventorySubject inventorySubject;
+    private final TransactionManager transactionManager;
 
-    public AddStockBatchUseCase(ProductRepository productRepository,
+    public AddStockBatchUseCase(String storeId,
+            ProductRepository productRepository,
             StockBatchRepository stockBatchRepository,
-            InventoryRepository inventoryRepository,
-            InventorySubject inventorySubject) {
+            InventoryLedger inventoryLedger,
+            InventorySubject inventorySubject,
+            TransactionManager transactionManager) {
+        this.storeId = storeId;
         this.productRepository = productRepository;
         this.stockBatchRepository = stockBatchRepository;
-        this.inventoryRepository = inventoryRepository;
+        this.inventoryLedger = inventoryLedger;
         this.inventorySubject = inventorySubject;
+        this.transactionManager = transactionManager;
     }
 
     public StockBatch execute(String productCode, int quantity, LocalDate expiryDate) throws StockException {
@@ -38,24 +47,32 @@ public class AddStockBatchUseCase {
         Product product = productRepository.findByCode(productCode)
                 .orElseThrow(() -> new StockException("Product not found: " + productCode));
 
-        // Create stock batch
-        StockBatch stockBatch = new StockBatch(productCode, LocalDate.now(), quantity, expiryDate);
-        stockBatchRepository.save(stockBatch);
-
-        // Update inventory
-        Inventory inventory = inventoryRepository.findByProductCode(productCode)
-                .orElseGet(() -> new Inventory(productCode));
-
-        inventory.addToStore(quantity);
-
-        if (inventoryRepository.findByProductCode(productCode).isPresent()) {
-            inventoryRepository.update(inventory);
-        } else {
-            inventoryRepository.save(inventory);
-        }
+        return addBatch(new StockBatch(storeId, product.getCode(), LocalDate.now(), quantity, expiryDate));
+    }
 
-        inventorySubject.notifyInventoryChanged(inventory);
+    /**
+     * Saves a batch and receives its quantity into the store, in one
+     * transaction. Observers are notified once it has committed.
+     */
+    public StockBatch addBatch(StockBatch stockBatch) {
+        String productCode = stockBatch.getProductCode();
+        transactionManager.inTransaction(() -> {
+            stockBatchRepository.save(stockBatch);
+            List<InventoryMovement> recorded = inventoryLedger.record(List.of(new InventoryMovement(productCode,
+                    InventoryMovement.Location.STORE, InventoryMovement.MovementType.RECEIPT,
+                    stockBatch.getQuantity(), stockBatch.getBatchId())));
+            Inventory inventory = inventoryLedger.getCurrentLevels(productCode)
+                    .orElseGet(() -> new Inventory(storeId, productCode));
 
+            transactionManager.afterCompletion(committed -> {
+                if (committed) {
+                    inventorySubject.notifyBatchesReceived(List.of(stockBatch));
+                    inventorySubject.notifyMovements(recorded);
+                    inventorySubject.notifyInventoryChanged(inventory);
+                }
+            });
+            return null;
+        });
         return stockBatch;
     }
 
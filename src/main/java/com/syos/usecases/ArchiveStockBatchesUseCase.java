@@ -0,0 +1,50 @@
+package com.syos.usecases;
+
+import com.syos.entities.StockBatch;
+import com.syos.usecases.repositories.StockBatchRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Use case for compacting stock batches.
+ * Depleted batches, and batches expired for longer than the grace period,
+ * are moved to the batch archive so sales and transfers only read live
+ * stock. Archived batches remain available for audits.
+ */
+public class ArchiveStockBatchesUseCase {
+    public static final int DEFAULT_EXPIRED_GRACE_DAYS = 30;
+
+    private final StockBatchRepository stockBatchRepository;
+    private final int expiredGraceDays;
+
+    public ArchiveStockBatchesUseCase(StockBatchRepository stockBatchRepository) {
+        this(stockBatchRepository,
+                Integer.getInteger("syos.batches.archive-expired-after-days", DEFAULT_EXPIRED_GRACE_DAYS));
+    }
+
+    public ArchiveStockBatchesUseCase(StockBatchRepository stockBatchRepository, int expiredGraceDays) {
+        if (expiredGraceDays < 0) {
+            throw new IllegalArgumentException("Grace period cannot be negative");
+        }
+        this.stockBatchRepository = stockBatchRepository;
+        this.expiredGraceDays = expiredGraceDays;
+    }
+
+    /**
+     * Archives what is due as of today and returns the number of batches moved.
+     */
+    public int execute() {
+        return execute(LocalDate.now());
+    }
+
+    public int execute(LocalDate today) {
+        // Expired batches stay live through the grace period so they are still
+        // listed in stock reports while being removed from the shelves
+        return stockBatchRepository.archive(today.minusDays(expiredGraceDays));
+    }
+
+    public List<StockBatch> getArchivedBatches(String productCode) {
+        return stockBatchRepository.findArchivedByProductCode(productCode);
+    }
+}
@@ -1,38 +1,68 @@
 package com.syos.usecases;
 
 import com.syos.entities.User;
+import com.syos.usecases.credentials.CredentialService;
 import com.syos.usecases.repositories.UserRepository;
 
+import java.util.Optional;
+
 /**
  * Use case for user authentication.
+ * Passwords stored with older hash parameters are rehashed with the current
+ * ones after a successful login.
  */
 public class AuthenticateUserUseCase {
     private final UserRepository userRepository;
+    private final CredentialService credentialService;
 
-    public AuthenticateUserUseCase(UserRepository userRepository) {
+    public AuthenticateUserUseCase(UserRepository userRepository, CredentialService credentialService) {
         this.userRepository = userRepository;
+        this.credentialService = credentialService;
     }
 
+    /**
+     * An unknown email is hashed against a dummy hash, so it cannot be told
+     * apart from a wrong password by how long the answer takes.
+     */
     public User execute(String email, String password) throws AuthenticationException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new AuthenticationException("Invalid email or password"));
+        Optional<User> found = userRepository.findByEmail(email);
 
-        String passwordHash = hashPassword(password);
-        if (!user.getPasswordHash().equals(passwordHash)) {
-            throw new AuthenticationException("Invalid email or password");
+        User user;
+        try {
+            if (found.isEmpty()) {
+                credentialService.verifyDummy(password);
+                throw new AuthenticationException("Invalid email or password");
+            }
+            user = found.get();
+            if (!credentialService.verify(password, user.getPasswordHash())) {
+                throw new AuthenticationException("Invalid email or password");
+            }
+            if (credentialService.needsUpgrade(user.getPasswordHash())) {
+                user = user.withPasswordHash(credentialService.hash(password));
+                userRepository.update(user);
+            }
+        } catch (CredentialService.CredentialException e) {
+            throw new AuthenticationException(e.getMessage(), e);
         }
 
         return user;
     }
 
-    private String hashPassword(String password) {
-        // Simple hash for demonstration - matches RegisterUserUseCase
-        return Integer.toString(password.hashCode());
-    }
-
     public static class AuthenticationException extends Exception {
         public AuthenticationException(String message) {
             super(message);
         }
+
+        public AuthenticationException(String message, Throwable cause) {
+            super(message, cause);
+        }
+
+        /**
+         * True when the credentials could not be checked because hashing is
+         * overloaded, rather than because they were wrong.
+         */
+        public boolean isServiceBusy() {
+            return getCause() instanceof CredentialService.CredentialException;
+        }
     }
 }
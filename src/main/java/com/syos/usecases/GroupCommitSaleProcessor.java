@@ -0,0 +1,410 @@
+package com.syos.usecases;
+
+import com.syos.entities.Bill;
+import com.syos.entities.IdGenerator;
+import com.syos.entities.Inventory;
+import com.syos.entities.Product;
+import com.syos.entities.SnowflakeIdGenerator;
+import com.syos.entities.StockBatch;
+import com.syos.usecases.ProcessSaleUseCase.SaleException;
+import com.syos.usecases.ProcessSaleUseCase.SaleRequest;
+import com.syos.usecases.repositories.InventoryRepository;
+import com.syos.usecases.repositories.ProductRepository;
+import com.syos.usecases.repositories.StockBatchRepository;
+import com.syos.usecases.repositories.TransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group-commit front end for ProcessSaleUseCase.
+ * Sales submitted by concurrent tills are queued and a single committer
+ * thread persists them in micro-batches: one transaction (and one log sync)
+ * per batch instead of per sale. Each caller blocks on a future until the
+ * batch holding its sale has committed.
+ * Requests are checked against the batch's in-memory view of inventory,
+ * stock batches and prices first, so a sale that would fail is rejected
+ * without touching the batch.
+ * Each accepted sale is given its bill ID before the batch runs. If the
+ * batch still fails it is rolled back as a whole and its sales are retried
+ * one per transaction, so one bad sale does not fail the others.
+ */
+public class GroupCommitSaleProcessor implements SaleProcessor, AutoCloseable {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 2;
+
+    private final ProcessSaleUseCase processSaleUseCase;
+    private final ProductRepository productRepository;
+    private final InventoryRepository inventoryRepository;
+    private final StockBatchRepository stockBatchRepository;
+    private final TransactionManager transactionManager;
+    private final IdGenerator billIdGenerator;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingSale> queue = new LinkedBlockingQueue<>();
+    // A ReentrantLock rather than a monitor, so virtual threads waiting on it are not pinned
+    private final ReentrantLock commitLock = new ReentrantLock();
+    // Makes the running check and the enqueue in submit() atomic with shutdown
+    private final ReentrantLock submitLock = new ReentrantLock();
+    private final Thread committer;
+    private volatile boolean running = true;
+
+    public GroupCommitSaleProcessor(ProcessSaleUseCase processSaleUseCase,
+            ProductRepository productRepository,
+            InventoryRepository inventoryRepository,
+            StockBatchRepository stockBatchRepository,
+            TransactionManager transactionManager) {
+        this(processSaleUseCase, productRepository, inventoryRepository, stockBatchRepository, transactionManager,
+                DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_WAIT_MILLIS);
+    }
+
+    /**
+     * @param maxBatchSize  Most sales committed in one transaction
+     * @param maxWaitMillis How long the committer waits for more sales after
+     *                      the first one arrives; 0 batches only what is
+     *                      already queued
+     */
+    public GroupCommitSaleProcessor(ProcessSaleUseCase processSaleUseCase,
+            ProductRepository productRepository,
+            InventoryRepository inventoryRepository,
+            StockBatchRepository stockBatchRepository,
+            TransactionManager transactionManager,
+            int maxBatchSize,
+            long maxWaitMillis) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.processSaleUseCase = processSaleUseCase;
+        this.productRepository = productRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.stockBatchRepository = stockBatchRepository;
+        this.transactionManager = transactionManager;
+        this.billIdGenerator = SnowflakeIdGenerator.getInstance();
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+
+        this.committer = new Thread(this::run, "sale-group-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Processes a sale and waits until it is committed.
+     * Same contract as {@link ProcessSaleUseCase#execute}.
+     */
+    @Override
+    public Bill process(SaleRequest request) throws SaleException {
+        try {
+            return submit(request).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SaleException("Interrupted while waiting for the sale to commit");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SaleException) {
+                throw (SaleException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SaleException("Sale failed: " + cause.getMessage());
+        }
+    }
+
+    /**
+     * Queues a sale; the future completes once its batch has committed.
+     */
+    public CompletableFuture<Bill> submit(SaleRequest request) {
+        PendingSale pending = new PendingSale(request);
+        submitLock.lock();
+        try {
+            if (running) {
+                queue.add(pending);
+                return pending.future;
+            }
+        } finally {
+            submitLock.unlock();
+        }
+        pending.future.completeExceptionally(new SaleException("Sale processor is shut down"));
+        return pending.future;
+    }
+
+    /**
+     * Lock held while a batch is validated and committed. Other code that
+     * changes the same inventory concurrently (transfers, restocks) should
+     * hold it too, so the batch's inventory view stays accurate.
+     */
+    public ReentrantLock getCommitLock() {
+        return commitLock;
+    }
+
+    /**
+     * Stops accepting sales and waits for queued ones to commit.
+     */
+    @Override
+    public void close() {
+        stopAccepting();
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failQueued();
+    }
+
+    private void stopAccepting() {
+        submitLock.lock();
+        try {
+            running = false;
+        } finally {
+            submitLock.unlock();
+        }
+    }
+
+    /**
+     * Fails sales still queued once nothing will commit them.
+     */
+    private void failQueued() {
+        List<PendingSale> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(pending -> pending.future.completeExceptionally(
+                new SaleException("Sale processor is shut down")));
+    }
+
+    private void run() {
+        List<PendingSale> batch = new ArrayList<>(maxBatchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingSale first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+                commitLock.lock();
+                try {
+                    commit(batch);
+                } finally {
+                    commitLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                stopAccepting();
+                batch.forEach(pending -> pending.future.completeExceptionally(
+                        new SaleException("Sale processor is shut down")));
+            } catch (RuntimeException e) {
+                batch.forEach(pending -> pending.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        failQueued();
+    }
+
+    private void fillBatch(List<PendingSale> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingSale next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void commit(List<PendingSale> batch) {
+        List<PendingSale> accepted = validate(batch);
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<Bill> applied = new ArrayList<>(accepted.size());
+        try {
+            transactionManager.inTransaction(() -> {
+                for (PendingSale pending : accepted) {
+                    applied.add(processSaleUseCase.execute(pending.request));
+                }
+                return null;
+            });
+        } catch (SaleException | RuntimeException e) {
+            commitIndividually(accepted);
+            return;
+        }
+
+        for (int i = 0; i < accepted.size(); i++) {
+            accepted.get(i).future.complete(applied.get(i));
+        }
+    }
+
+    /**
+     * Commits the sales of a rolled-back batch one by one.
+     */
+    private void commitIndividually(List<PendingSale> sales) {
+        for (PendingSale pending : sales) {
+            try {
+                pending.future.complete(transactionManager.inTransaction(
+                        () -> processSaleUseCase.execute(pending.request)));
+            } catch (SaleException | RuntimeException e) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Checks every request against one inventory read for the whole batch,
+     * reserving quantities (shelf or online, and for counter sales the stock
+     * batches they draw on) as it goes so two sales cannot both take the last
+     * units. Rejected sales are completed here; accepted ones are given their
+     * bill ID.
+     */
+    private List<PendingSale> validate(List<PendingSale> batch) {
+        Set<String> productCodes = new HashSet<>();
+        for (PendingSale pending : batch) {
+            if (pending.request != null && pending.request.getItems() != null) {
+                pending.request.getItems().forEach(item -> productCodes.add(item.getProductCode()));
+            }
+        }
+
+        Map<String, Product> products = new HashMap<>();
+        for (Product product : productRepository.findByCodes(productCodes)) {
+            products.put(product.getCode(), product);
+        }
+        Map<String, Inventory> available = new HashMap<>();
+        for (Inventory inventory : inventoryRepository.findByProductCodes(productCodes)) {
+            available.put(inventory.getProductCode(), inventory);
+        }
+
+        Map<String, Integer> batchStock = new HashMap<>();
+        LocalDate today = LocalDate.now();
+
+        List<PendingSale> accepted = new ArrayList<>(batch.size());
+        for (PendingSale pending : batch) {
+            try {
+                reserve(pending.request, products, available, batchStock, today);
+                SaleRequest request = pending.request;
+                if (request.getBillId() == 0) {
+                    request = request.withBill(billIdGenerator.nextId(), LocalDateTime.now());
+                }
+                accepted.add(new PendingSale(request, pending.future));
+            } catch (SaleException e) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+        return accepted;
+    }
+
+    private void reserve(SaleRequest request, Map<String, Product> products, Map<String, Inventory> available,
+            Map<String, Integer> batchStock, LocalDate today) throws SaleException {
+        if (request == null) {
+            throw new SaleException("Sale request cannot be null");
+        }
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new SaleException("Sale must have at least one item");
+        }
+        if (request.getCashTendered() < 0) {
+            throw new SaleException("Cash tendered cannot be negative");
+        }
+
+        Map<String, Integer> requested = new HashMap<>();
+        double subtotal = 0;
+        double discount = 0;
+        for (SaleRequest.SaleItem item : request.getItems()) {
+            if (item.getQuantity() <= 0) {
+                throw new SaleException("Quantity must be positive for product: " + item.getProductCode());
+            }
+            Product product = products.get(item.getProductCode());
+            if (product == null) {
+                throw new SaleException("Product not found: " + item.getProductCode());
+            }
+            requested.merge(item.getProductCode(), item.getQuantity(), Integer::sum);
+
+            // Same arithmetic as Bill.Builder, so a sale accepted here passes its check
+            Bill.BillItem billItem = item.toBillItem(product);
+            subtotal += billItem.getPrice() * billItem.getQuantity();
+            discount += billItem.getDiscountAmount();
+        }
+        if (request.getCashTendered() < subtotal - discount) {
+            throw new SaleException("Cash tendered must be greater than or equal to total");
+        }
+
+        boolean counter = request.getTransactionType() == Bill.TransactionType.COUNTER;
+        for (Map.Entry<String, Integer> entry : requested.entrySet()) {
+            String code = entry.getKey();
+            Inventory inventory = available.get(code);
+            if (inventory == null) {
+                throw new SaleException("Inventory not found for product: " + code);
+            }
+            int availableQuantity = counter ? inventory.getShelfQuantity() : inventory.getOnlineQuantity();
+            if (availableQuantity < entry.getValue()) {
+                throw new SaleException("Insufficient stock for product: " + code +
+                        ". Available: " + availableQuantity +
+                        ", Requested: " + entry.getValue());
+            }
+            // Counter sales also draw down stock batches
+            if (counter && batchStock(code, batchStock, today) < entry.getValue()) {
+                throw new SaleException("No suitable stock batch available for product: " + code);
+            }
+        }
+
+        // Only reserve once the whole request is known to fit
+        for (Map.Entry<String, Integer> entry : requested.entrySet()) {
+            Inventory inventory = available.get(entry.getKey());
+            if (counter) {
+                inventory.reduceFromShelf(entry.getValue());
+                batchStock.merge(entry.getKey(), -entry.getValue(), Integer::sum);
+            } else {
+                inventory.reduceFromOnline(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Units in the product's unexpired stock batches, read once per batch.
+     */
+    private int batchStock(String productCode, Map<String, Integer> batchStock, LocalDate today) {
+        Integer stock = batchStock.get(productCode);
+        if (stock == null) {
+            stock = 0;
+            for (StockBatch stockBatch : stockBatchRepository.findAvailableByProductCode(productCode, today)) {
+                if (stockBatch.getQuantity() > 0 && !stockBatch.isExpiredOn(today)) {
+                    stock += stockBatch.getQuantity();
+                }
+            }
+            batchStock.put(productCode, stock);
+        }
+        return stock;
+    }
+
+    private static class PendingSale {
+        final SaleRequest request;
+        final CompletableFuture<Bill> future;
+
+        PendingSale(SaleRequest request) {
+            this(request, new CompletableFuture<>());
+        }
+
+        PendingSale(SaleRequest request, CompletableFuture<Bill> future) {
+            this.request = request;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.syos.usecases;
+
+import com.syos.entities.Product;
+import com.syos.entities.ProductBarcode;
+import com.syos.usecases.repositories.ProductBarcodeRepository;
+import com.syos.usecases.repositories.ProductRepository;
+import com.syos.usecases.search.BarcodeIndex;
+
+/**
+ * Use case for assigning barcodes to products and removing them.
+ * Keeps the stored barcodes and the till's BarcodeIndex in step.
+ */
+public class ManageBarcodesUseCase {
+    private final ProductRepository productRepository;
+    private final ProductBarcodeRepository barcodeRepository;
+    private final BarcodeIndex barcodeIndex;
+
+    public ManageBarcodesUseCase(ProductRepository productRepository, ProductBarcodeRepository barcodeRepository,
+            BarcodeIndex barcodeIndex) {
+        this.productRepository = productRepository;
+        this.barcodeRepository = barcodeRepository;
+        this.barcodeIndex = barcodeIndex;
+    }
+
+    public ProductBarcode assign(String productCode, String barcodeText) throws BarcodeException {
+        Product product = productRepository.findByCode(productCode)
+                .orElseThrow(() -> new BarcodeException("Product not found: " + productCode));
+
+        long barcode;
+        try {
+            barcode = ProductBarcode.parse(barcodeText);
+        } catch (IllegalArgumentException e) {
+            throw new BarcodeException(e.getMessage());
+        }
+
+        Product current = barcodeIndex.find(barcode);
+        if (current != null) {
+            throw new BarcodeException("Barcode already assigned to " + current.getCode());
+        }
+
+        ProductBarcode assigned = new ProductBarcode(barcode, productCode);
+        try {
+            barcodeRepository.save(assigned);
+        } catch (IllegalArgumentException e) {
+            throw new BarcodeException(e.getMessage());
+        }
+        barcodeIndex.put(barcode, product);
+        return assigned;
+    }
+
+    public void remove(String barcodeText) throws BarcodeException {
+        long barcode;
+        try {
+            barcode = ProductBarcode.parse(barcodeText);
+        } catch (IllegalArgumentException e) {
+            throw new BarcodeException(e.getMessage());
+        }
+        if (barcodeIndex.find(barcode) == null) {
+            throw new BarcodeException("Barcode not assigned: " + barcodeText);
+        }
+
+        barcodeRepository.delete(barcode);
+        barcodeIndex.remove(barcode);
+    }
+
+    public static class BarcodeException extends Exception {
+        public BarcodeException(String message) {
+            super(message);
+        }
+    }
+}
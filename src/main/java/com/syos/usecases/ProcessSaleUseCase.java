@@ -1,20 +1,30 @@
 package com.syos.usecases;
 
 import com.syos.entities.Bill;
+import com.syos.entities.IdGenerator;
 import com.syos.entities.Inventory;
+import com.syos.entities.InventoryMovement;
 import com.syos.entities.Product;
+import com.syos.entities.SnowflakeIdGenerator;
 import com.syos.entities.StockBatch;
+import com.syos.usecases.ledger.InventoryLedger;
 import com.syos.usecases.observers.InventorySubject;
 import com.syos.usecases.repositories.BillRepository;
-import com.syos.usecases.repositories.InventoryRepository;
 import com.syos.usecases.repositories.ProductRepository;
 import com.syos.usecases.repositories.StockBatchRepository;
+import com.syos.usecases.repositories.TransactionManager;
 import com.syos.usecases.strategies.StockSelectionStrategy;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Use case for processing sales transactions.
@@ -22,29 +32,53 @@ import java.util.Map;
  * Implements Command Pattern through execute method.
  */
 public class ProcessSaleUseCase {
+    private final String storeId;
     private final ProductRepository productRepository;
     private final BillRepository billRepository;
-    private final InventoryRepository inventoryRepository;
+    private final InventoryLedger inventoryLedger;
     private final StockBatchRepository stockBatchRepository;
     private final StockSelectionStrategy stockSelectionStrategy;
     private final InventorySubject inventorySubject;
+    private final TransactionManager transactionManager;
+    private final IdGenerator billIdGenerator;
 
-    public ProcessSaleUseCase(ProductRepository productRepository,
+    public ProcessSaleUseCase(String storeId,
+            ProductRepository productRepository,
             BillRepository billRepository,
-            InventoryRepository inventoryRepository,
+            InventoryLedger inventoryLedger,
             StockBatchRepository stockBatchRepository,
             StockSelectionStrategy stockSelectionStrategy,
-            InventorySubject inventorySubject) {
+            InventorySubject inventorySubject,
+            TransactionManager transactionManager) {
+        this(storeId, productRepository, billRepository, inventoryLedger, stockBatchRepository, stockSelectionStrategy,
+                inventorySubject, transactionManager, SnowflakeIdGenerator.getInstance());
+    }
+
+    public ProcessSaleUseCase(String storeId,
+            ProductRepository productRepository,
+            BillRepository billRepository,
+            InventoryLedger inventoryLedger,
+            StockBatchRepository stockBatchRepository,
+            StockSelectionStrategy stockSelectionStrategy,
+            InventorySubject inventorySubject,
+            TransactionManager transactionManager,
+            IdGenerator billIdGenerator) {
+        this.storeId = storeId;
         this.productRepository = productRepository;
         this.billRepository = billRepository;
-        this.inventoryRepository = inventoryRepository;
+        this.inventoryLedger = inventoryLedger;
         this.stockBatchRepository = stockBatchRepository;
         this.stockSelectionStrategy = stockSelectionStrategy;
         this.inventorySubject = inventorySubject;
+        this.transactionManager = transactionManager;
+        this.billIdGenerator = billIdGenerator;
     }
 
     /**
-     * Processes a sale transaction.
+     * Processes a sale transaction. The stock batch changes, the inventory
+     * movements and then the bill are written in one transaction, joining
+     * the caller's when there is one. Observers are notified once it
+     * commits.
      * 
      * @param request Sale request containing items and payment details
      * @return Generated bill
@@ -52,43 +86,65 @@ public class ProcessSaleUseCase {
      */
     public Bill execute(SaleRequest request) throws SaleException {
         validateRequest(request);
+        return transactionManager.inTransaction(() -> processSale(request));
+    }
+
+    private Bill processSale(SaleRequest request) throws SaleException {
+        // Stock is checked against current levels and no other sale of these
+        // products can change them until this one commits
+        Set<String> productCodes = new TreeSet<>();
+        request.getItems().forEach(item -> productCodes.add(item.getProductCode()));
+        inventoryLedger.lockForUpdate(productCodes);
+
+        // A replayed sale that was already recorded is returned as it is
+        if (request.isReplay()) {
+            Optional<Bill> recorded = billRepository.findByBillId(request.getBillId(),
+                    request.getBillDate().toLocalDate());
+            if (recorded.isPresent()) {
+                return recorded.get();
+            }
+        }
 
         // Build bill items
         List<Bill.BillItem> billItems = new ArrayList<>();
-        Map<String, Integer> itemQuantities = new HashMap<>();
+        Map<String, Integer> itemQuantities = new LinkedHashMap<>();
+        Map<String, Product> products = new HashMap<>();
 
         for (SaleRequest.SaleItem saleItem : request.getItems()) {
             Product product = productRepository.findByCode(saleItem.getProductCode())
                     .orElseThrow(() -> new SaleException("Product not found: " + saleItem.getProductCode()));
+            products.put(product.getCode(), product);
+
+            // Create bill item
+            billItems.add(saleItem.toBillItem(product));
+            itemQuantities.merge(product.getCode(), saleItem.getQuantity(), Integer::sum);
+        }
 
-            // Check inventory availability
-            Inventory inventory = inventoryRepository.findByProductCode(product.getCode())
-                    .orElseThrow(() -> new SaleException("Inventory not found for product: " + product.getCode()));
+        // Check inventory availability for each product's total, so lines
+        // repeating a product cannot together take more than is in stock
+        for (Map.Entry<String, Integer> entry : itemQuantities.entrySet()) {
+            Inventory inventory = inventoryLedger.getCurrentLevels(entry.getKey())
+                    .orElseGet(() -> new Inventory(storeId, entry.getKey()));
 
             int availableQuantity = request.getTransactionType() == Bill.TransactionType.COUNTER
                     ? inventory.getShelfQuantity()
                     : inventory.getOnlineQuantity();
 
-            if (availableQuantity < saleItem.getQuantity()) {
-                throw new SaleException("Insufficient stock for product: " + product.getName() +
+            if (availableQuantity < entry.getValue()) {
+                throw new SaleException("Insufficient stock for product: " + products.get(entry.getKey()).getName() +
                         ". Available: " + availableQuantity +
-                        ", Requested: " + saleItem.getQuantity());
+                        ", Requested: " + entry.getValue());
             }
-
-            // Create bill item
-            Bill.BillItem billItem = new Bill.BillItem(
-                    product.getCode(),
-                    product.getName(),
-                    product.getUnit(),
-                    saleItem.getQuantity(),
-                    product.getPrice(),
-                    product.getDiscountPercentage());
-            billItems.add(billItem);
-            itemQuantities.put(product.getCode(), saleItem.getQuantity());
         }
 
         // Create bill
-        Bill bill = new Bill.Builder()
+        Bill.Builder builder = new Bill.Builder().storeId(storeId);
+        if (request.getBillId() != 0) {
+            builder.billId(request.getBillId()).billDate(request.getBillDate());
+        } else {
+            builder.billId(billIdGenerator.nextId());
+        }
+        Bill bill = builder
                 .serialNumber(billRepository.getNextSerialNumber())
                 .items(billItems)
                 .cashTendered(request.getCashTendered())
@@ -96,15 +152,18 @@ public class ProcessSaleUseCase {
                 .customerId(request.getCustomerId())
                 .build();
 
-        // Save bill
-        billRepository.save(bill);
-
         // Update inventory
+        List<InventoryMovement> movements = new ArrayList<>();
+        List<Inventory> changed = new ArrayList<>();
+        InventoryMovement.Location location = request.getTransactionType() == Bill.TransactionType.COUNTER
+                ? InventoryMovement.Location.SHELF
+                : InventoryMovement.Location.ONLINE;
+
         for (Map.Entry<String, Integer> entry : itemQuantities.entrySet()) {
             String productCode = entry.getKey();
             int quantity = entry.getValue();
 
-            Inventory inventory = inventoryRepository.findByProductCode(productCode).get();
+            Inventory inventory = inventoryLedger.getCurrentLevels(productCode).get();
 
             if (request.getTransactionType() == Bill.TransactionType.COUNTER) {
                 inventory.reduceFromShelf(quantity);
@@ -113,15 +172,27 @@ public class ProcessSaleUseCase {
                 inventory.reduceFromOnline(quantity);
             }
 
-            inventoryRepository.update(inventory);
-            inventorySubject.notifyInventoryChanged(inventory);
+            changed.add(inventory);
+            movements.add(new InventoryMovement(productCode, location, InventoryMovement.MovementType.SALE,
+                    -quantity, "bill:" + bill.getBillId()));
         }
+        List<InventoryMovement> recorded = inventoryLedger.record(movements);
+
+        // Save the bill last: a sale whose bill is stored has had its stock taken. Its
+        // serial number is final only once saved, so movements refer to the bill ID.
+        bill = billRepository.save(bill);
 
+        transactionManager.afterCompletion(committed -> {
+            if (committed) {
+                changed.forEach(inventorySubject::notifyInventoryChanged);
+                inventorySubject.notifyMovements(recorded);
+            }
+        });
         return bill;
     }
 
     private void reduceStockBatches(String productCode, int quantityNeeded) throws SaleException {
-        List<StockBatch> batches = stockBatchRepository.findByProductCode(productCode);
+        List<StockBatch> batches = stockBatchRepository.findAvailableByProductCode(productCode, LocalDate.now());
         int remainingQuantity = quantityNeeded;
 
         while (remainingQuantity > 0) {
@@ -159,13 +230,68 @@ public class ProcessSaleUseCase {
         private final double cashTendered;
         private final Bill.TransactionType transactionType;
         private final String customerId;
+        private final long billId;
+        private final LocalDateTime billDate;
+        private final boolean replay;
 
         public SaleRequest(List<SaleItem> items, double cashTendered,
                 Bill.TransactionType transactionType, String customerId) {
+            this(items, cashTendered, transactionType, customerId, 0, null);
+        }
+
+        /**
+         * Request for a sale whose bill ID and date were assigned up front,
+         * e.g. one taken while offline; executing it again as a
+         * {@link #asReplay() replay} is a no-op.
+         */
+        public SaleRequest(List<SaleItem> items, double cashTendered,
+                Bill.TransactionType transactionType, String customerId, long billId, LocalDateTime billDate) {
+            this(items, cashTendered, transactionType, customerId, billId, billDate, false);
+        }
+
+        private SaleRequest(List<SaleItem> items, double cashTendered, Bill.TransactionType transactionType,
+                String customerId, long billId, LocalDateTime billDate, boolean replay) {
+            if (billId != 0 && billDate == null) {
+                throw new IllegalArgumentException("A pre-assigned bill ID needs a bill date");
+            }
             this.items = items;
             this.cashTendered = cashTendered;
             this.transactionType = transactionType;
             this.customerId = customerId;
+            this.billId = billId;
+            this.billDate = billDate;
+            this.replay = replay;
+        }
+
+        public SaleRequest withBill(long billId, LocalDateTime billDate) {
+            return new SaleRequest(items, cashTendered, transactionType, customerId, billId, billDate, replay);
+        }
+
+        public SaleRequest withItems(List<SaleItem> items) {
+            return new SaleRequest(items, cashTendered, transactionType, customerId, billId, billDate, replay);
+        }
+
+        /**
+         * The same sale, marked as a retry of one that may already have been
+         * recorded under its bill ID; only such requests look the bill up first.
+         */
+        public SaleRequest asReplay() {
+            if (billId == 0) {
+                throw new IllegalStateException("Only a sale with a pre-assigned bill ID can be replayed");
+            }
+            return new SaleRequest(items, cashTendered, transactionType, customerId, billId, billDate, true);
+        }
+
+        public boolean isReplay() {
+            return replay;
+        }
+
+        public long getBillId() {
+            return billId;
+        }
+
+        public LocalDateTime getBillDate() {
+            return billDate;
         }
 
         public List<SaleItem> getItems() {
@@ -187,10 +313,38 @@ public class ProcessSaleUseCase {
         public static class SaleItem {
             private final String productCode;
             private final int quantity;
+            private final boolean priced;
+            private final double price;
+            private final double discountPercentage;
 
             public SaleItem(String productCode, int quantity) {
                 this.productCode = productCode;
                 this.quantity = quantity;
+                this.priced = false;
+                this.price = 0;
+                this.discountPercentage = 0;
+            }
+
+            /**
+             * Item sold at the given price and discount rather than the
+             * catalog's current ones, e.g. as printed on an offline receipt.
+             */
+            public SaleItem(String productCode, int quantity, double price, double discountPercentage) {
+                this.productCode = productCode;
+                this.quantity = quantity;
+                this.priced = true;
+                this.price = price;
+                this.discountPercentage = discountPercentage;
+            }
+
+            /**
+             * Bill line for this item, at its own price if it has one and
+             * otherwise at the product's current price.
+             */
+            public Bill.BillItem toBillItem(Product product) {
+                return new Bill.BillItem(product.getCode(), product.getName(), product.getUnit(), quantity,
+                        priced ? price : product.getPrice(),
+                        priced ? discountPercentage : product.getDiscountPercentage());
             }
 
             public String getProductCode() {
@@ -200,6 +354,18 @@ public class ProcessSaleUseCase {
             public int getQuantity() {
                 return quantity;
             }
+
+            public boolean isPriced() {
+                return priced;
+            }
+
+            public double getPrice() {
+                return price;
+            }
+
+            public double getDiscountPercentage() {
+                return discountPercentage;
+            }
         }
     }
 
@@ -0,0 +1,173 @@
+package com.syos.usecases;
+
+import com.syos.entities.Inventory;
+import com.syos.entities.InventoryMovement;
+import com.syos.entities.Product;
+import com.syos.entities.StockBatch;
+import com.syos.usecases.ledger.InventoryLedger;
+import com.syos.usecases.observers.InventorySubject;
+import com.syos.usecases.repositories.ProductRepository;
+import com.syos.usecases.repositories.StockBatchRepository;
+import com.syos.usecases.repositories.TransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Use case for receiving a whole delivery manifest at once.
+ * Bulk counterpart of AddStockBatchUseCase: every line becomes a stock batch,
+ * its quantity is received into the store on the inventory ledger, and
+ * everything is written with batched repository calls inside a single
+ * transaction. Observers hear about the delivery only once it has committed.
+ */
+public class ReceiveStockDeliveryUseCase {
+    private static final int MAX_REPORTED_MISSING_CODES = 10;
+
+    private final String storeId;
+    private final ProductRepository productRepository;
+    private final StockBatchRepository stockBatchRepository;
+    private final InventoryLedger inventoryLedger;
+    private final TransactionManager transactionManager;
+    private final InventorySubject inventorySubject;
+
+    public ReceiveStockDeliveryUseCase(String storeId,
+            ProductRepository productRepository,
+            StockBatchRepository stockBatchRepository,
+            InventoryLedger inventoryLedger,
+            TransactionManager transactionManager,
+            InventorySubject inventorySubject) {
+        this.storeId = storeId;
+        this.productRepository = productRepository;
+        this.stockBatchRepository = stockBatchRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.transactionManager = transactionManager;
+        this.inventorySubject = inventorySubject;
+    }
+
+    /**
+     * Receives all lines of a delivery.
+     *
+     * @param lines Delivery manifest lines
+     * @return Created stock batches, in manifest order
+     * @throws DeliveryException if any line is invalid; nothing is saved
+     */
+    public List<StockBatch> execute(List<DeliveryLine> lines) throws DeliveryException {
+        if (lines == null || lines.isEmpty()) {
+            throw new DeliveryException("Delivery must have at least one line");
+        }
+
+        List<StockBatch> batches = createBatches(lines);
+        Set<String> productCodes = new LinkedHashSet<>();
+        for (StockBatch batch : batches) {
+            productCodes.add(batch.getProductCode());
+        }
+
+        validateProductsExist(productCodes);
+
+        List<InventoryMovement> receipts = batches.stream()
+                .map(batch -> new InventoryMovement(batch.getProductCode(), InventoryMovement.Location.STORE,
+                        InventoryMovement.MovementType.RECEIPT, batch.getQuantity(), batch.getBatchId()))
+                .toList();
+
+        transactionManager.inTransaction(() -> {
+            stockBatchRepository.saveAll(batches);
+            List<InventoryMovement> recorded = inventoryLedger.record(receipts);
+            List<Inventory> changed = inventoryLedger.getCurrentLevels(productCodes);
+
+            transactionManager.afterCompletion(committed -> {
+                if (committed) {
+                    inventorySubject.notifyBatchesReceived(batches);
+                    inventorySubject.notifyMovements(recorded);
+                    changed.forEach(inventorySubject::notifyInventoryChanged);
+                }
+            });
+            return null;
+        });
+
+        return batches;
+    }
+
+    private List<StockBatch> createBatches(List<DeliveryLine> lines) throws DeliveryException {
+        List<StockBatch> batches = new ArrayList<>(lines.size());
+        LocalDate today = LocalDate.now();
+
+        for (int i = 0; i < lines.size(); i++) {
+            DeliveryLine line = lines.get(i);
+            LocalDate purchaseDate = line.getPurchaseDate() != null ? line.getPurchaseDate() : today;
+            try {
+                batches.add(new StockBatch(storeId, line.getProductCode(), purchaseDate, line.getQuantity(),
+                        line.getExpiryDate()));
+            } catch (IllegalArgumentException e) {
+                throw new DeliveryException("Line " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+
+        return batches;
+    }
+
+    private void validateProductsExist(Set<String> productCodes) throws DeliveryException {
+        Set<String> found = productRepository.findByCodes(productCodes).stream()
+                .map(Product::getCode)
+                .collect(Collectors.toSet());
+
+        List<String> missing = productCodes.stream()
+                .filter(code -> !found.contains(code))
+                .toList();
+
+        if (!missing.isEmpty()) {
+            String shown = missing.stream()
+                    .limit(MAX_REPORTED_MISSING_CODES)
+                    .collect(Collectors.joining(", "));
+            throw new DeliveryException("Product not found: " + shown
+                    + (missing.size() > MAX_REPORTED_MISSING_CODES ? " (and " + (missing.size()
+                            - MAX_REPORTED_MISSING_CODES) + " more)" : ""));
+        }
+    }
+
+    /**
+     * One line of a delivery manifest.
+     */
+    public static class DeliveryLine {
+        private final String productCode;
+        private final int quantity;
+        private final LocalDate expiryDate;
+        private final LocalDate purchaseDate;
+
+        public DeliveryLine(String productCode, int quantity, LocalDate expiryDate) {
+            this(productCode, quantity, expiryDate, null);
+        }
+
+        public DeliveryLine(String productCode, int quantity, LocalDate expiryDate, LocalDate purchaseDate) {
+            this.productCode = productCode;
+            this.quantity = quantity;
+            this.expiryDate = expiryDate;
+            this.purchaseDate = purchaseDate;
+        }
+
+        public String getProductCode() {
+            return productCode;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public LocalDate getExpiryDate() {
+            return expiryDate;
+        }
+
+        public LocalDate getPurchaseDate() {
+            return purchaseDate;
+        }
+    }
+
+    public static class DeliveryException extends Exception {
+        public DeliveryException(String message) {
+            super(message);
+        }
+    }
+}
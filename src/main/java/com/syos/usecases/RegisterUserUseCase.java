@@ -1,6 +1,7 @@
 package com.syos.usecases;
 
 import com.syos.entities.User;
+import com.syos.usecases.credentials.CredentialService;
 import com.syos.usecases.repositories.UserRepository;
 
 import java.time.LocalDateTime;
@@ -13,9 +14,11 @@ import java.util.UUID;
  */
 public class RegisterUserUseCase {
     private final UserRepository userRepository;
+    private final CredentialService credentialService;
 
-    public RegisterUserUseCase(UserRepository userRepository) {
+    public RegisterUserUseCase(UserRepository userRepository, CredentialService credentialService) {
         this.userRepository = userRepository;
+        this.credentialService = credentialService;
     }
 
     public User execute(String name, String email, String password, String address) throws RegistrationException {
@@ -37,7 +40,12 @@ public class RegisterUserUseCase {
 
         // Create user
         String userId = UUID.randomUUID().toString();
-        String passwordHash = hashPassword(password);
+        String passwordHash;
+        try {
+            passwordHash = credentialService.hash(password);
+        } catch (CredentialService.CredentialException e) {
+            throw new RegistrationException(e.getMessage());
+        }
         User user = new User(userId, name, email, passwordHash, address, LocalDateTime.now());
 
         // Save user
@@ -46,11 +54,6 @@ public class RegisterUserUseCase {
         return user;
     }
 
-    private String hashPassword(String password) {
-        // Simple hash for demonstration - in production, use BCrypt or similar
-        return Integer.toString(password.hashCode());
-    }
-
     public static class RegistrationException extends Exception {
         public RegistrationException(String message) {
             super(message);
@@ -0,0 +1,15 @@
+package com.syos.usecases;
+
+import com.syos.entities.Bill;
+import com.syos.usecases.ProcessSaleUseCase.SaleException;
+import com.syos.usecases.ProcessSaleUseCase.SaleRequest;
+
+/**
+ * Entry point through which tills submit sales.
+ * Implemented by the processors layered over ProcessSaleUseCase (group
+ * commit, offline journaling), so callers do not depend on which is in use.
+ */
+@FunctionalInterface
+public interface SaleProcessor {
+    Bill process(SaleRequest request) throws SaleException;
+}
@@ -1,12 +1,15 @@
 package com.syos.usecases;
 
 import com.syos.entities.Inventory;
+import com.syos.entities.InventoryMovement;
 import com.syos.entities.StockBatch;
+import com.syos.usecases.ledger.InventoryLedger;
 import com.syos.usecases.observers.InventorySubject;
-import com.syos.usecases.repositories.InventoryRepository;
 import com.syos.usecases.repositories.StockBatchRepository;
+import com.syos.usecases.repositories.TransactionManager;
 import com.syos.usecases.strategies.StockSelectionStrategy;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -14,23 +17,38 @@ import java.util.List;
  * Implements the requirement: "Items are moved to the shelf from the store"
  */
 public class TransferStockUseCase {
-    private final InventoryRepository inventoryRepository;
+    private final InventoryLedger inventoryLedger;
     private final StockBatchRepository stockBatchRepository;
     private final StockSelectionStrategy stockSelectionStrategy;
     private final InventorySubject inventorySubject;
+    private final TransactionManager transactionManager;
 
-    public TransferStockUseCase(InventoryRepository inventoryRepository,
+    public TransferStockUseCase(InventoryLedger inventoryLedger,
             StockBatchRepository stockBatchRepository,
             StockSelectionStrategy stockSelectionStrategy,
-            InventorySubject inventorySubject) {
-        this.inventoryRepository = inventoryRepository;
+            InventorySubject inventorySubject,
+            TransactionManager transactionManager) {
+        this.inventoryLedger = inventoryLedger;
         this.stockBatchRepository = stockBatchRepository;
         this.stockSelectionStrategy = stockSelectionStrategy;
         this.inventorySubject = inventorySubject;
+        this.transactionManager = transactionManager;
     }
 
+    /**
+     * Moves stock out of the store. The batch changes and the transfer
+     * movements are written in one transaction.
+     */
     public void execute(String productCode, int quantity, TransferType transferType) throws TransferException {
-        Inventory inventory = inventoryRepository.findByProductCode(productCode)
+        transactionManager.inTransaction(() -> {
+            transfer(productCode, quantity, transferType);
+            return null;
+        });
+    }
+
+    private void transfer(String productCode, int quantity, TransferType transferType) throws TransferException {
+        inventoryLedger.lockForUpdate(List.of(productCode));
+        Inventory inventory = inventoryLedger.getCurrentLevels(productCode)
                 .orElseThrow(() -> new TransferException("Inventory not found for product: " + productCode));
 
         if (inventory.getStoreQuantity() < quantity) {
@@ -40,7 +58,7 @@ public class TransferStockUseCase {
 
         // Get batches for this product and reduce from selected batches using expiry
         // priority
-        List<StockBatch> batches = stockBatchRepository.findByProductCode(productCode);
+        List<StockBatch> batches = stockBatchRepository.findAvailableByProductCode(productCode, LocalDate.now());
         int remainingQuantity = quantity;
 
         while (remainingQuantity > 0) {
@@ -59,19 +77,26 @@ public class TransferStockUseCase {
         }
 
         // Transfer based on type
+        InventoryMovement.Location destination;
         switch (transferType) {
             case STORE_TO_SHELF:
                 inventory.transferFromStoreToShelf(quantity);
+                destination = InventoryMovement.Location.SHELF;
                 break;
             case STORE_TO_ONLINE:
                 inventory.transferFromStoreToOnline(quantity);
+                destination = InventoryMovement.Location.ONLINE;
                 break;
             default:
                 throw new TransferException("Unknown transfer type: " + transferType);
         }
 
-        inventoryRepository.update(inventory);
         inventorySubject.notifyInventoryChanged(inventory);
+        inventorySubject.notifyMovements(inventoryLedger.record(List.of(
+                new InventoryMovement(productCode, InventoryMovement.Location.STORE,
+                        InventoryMovement.MovementType.TRANSFER, -quantity, transferType.name()),
+                new InventoryMovement(productCode, destination,
+                        InventoryMovement.MovementType.TRANSFER, quantity, transferType.name()))));
     }
 
     public enum TransferType {
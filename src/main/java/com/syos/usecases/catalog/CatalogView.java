@@ -0,0 +1,152 @@
+package com.syos.usecases.catalog;
+
+import com.syos.entities.CatalogEntry;
+import com.syos.entities.Inventory;
+import com.syos.usecases.observers.InventoryObserver;
+import com.syos.usecases.repositories.CatalogRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cached, materialized online catalog served to shoppers.
+ * Implements Observer Pattern - inventory changes update the cached online
+ * quantity in place, so browsing never queries the repositories. The whole
+ * view is reloaded page by page when invalidated (new products) or older
+ * than the maximum age (changes made by other processes).
+ */
+public class CatalogView implements InventoryObserver {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private final CatalogRepository catalogRepository;
+    private final long maxAgeNanos;
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final Object updateLock = new Object();
+
+    private volatile ConcurrentSkipListMap<String, CatalogEntry> entries;
+    private volatile long loadedAt;
+    private volatile boolean stale = true;
+    // Online quantities changed while a reload is running, guarded by updateLock
+    private Map<String, Integer> changedDuringLoad;
+
+    public CatalogView(CatalogRepository catalogRepository) {
+        this(catalogRepository, Long.getLong("syos.catalog.max-age-seconds", 60));
+    }
+
+    public CatalogView(CatalogRepository catalogRepository, long maxAgeSeconds) {
+        this.catalogRepository = catalogRepository;
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+    }
+
+    /**
+     * Returns up to limit entries ordered by product code, starting after
+     * afterCode (null for the first page).
+     */
+    public List<CatalogEntry> getPage(String afterCode, int limit) {
+        ConcurrentSkipListMap<String, CatalogEntry> current = current();
+        Map<String, CatalogEntry> tail = afterCode == null ? current : current.tailMap(afterCode, false);
+
+        List<CatalogEntry> page = new ArrayList<>(Math.min(limit, tail.size()));
+        for (CatalogEntry entry : tail.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(entry);
+        }
+        return page;
+    }
+
+    public int size() {
+        return current().size();
+    }
+
+    /**
+     * Forces a reload on the next read, e.g. after products were added.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    @Override
+    public void onInventoryChanged(Inventory inventory) {
+        synchronized (updateLock) {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.put(inventory.getProductCode(), inventory.getOnlineQuantity());
+            }
+            ConcurrentSkipListMap<String, CatalogEntry> current = entries;
+            if (current != null && current.computeIfPresent(inventory.getProductCode(),
+                    (code, entry) -> entry.withOnlineQuantity(inventory.getOnlineQuantity())) == null) {
+                stale = true; // Product added since the last load
+            }
+        }
+    }
+
+    @Override
+    public void onLowStock(Inventory inventory) {
+        // Availability is already updated by onInventoryChanged
+    }
+
+    private ConcurrentSkipListMap<String, CatalogEntry> current() {
+        ConcurrentSkipListMap<String, CatalogEntry> current = entries;
+        if (current != null && !stale && System.nanoTime() - loadedAt < maxAgeNanos) {
+            return current;
+        }
+
+        if (current == null) {
+            loadLock.lock(); // Nothing to serve yet, wait for the first load
+        } else if (!loadLock.tryLock()) {
+            return current; // Another thread is reloading, serve the old view meanwhile
+        }
+        try {
+            if (entries != current) {
+                return entries; // Reloaded while waiting for the lock
+            }
+            return load();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private ConcurrentSkipListMap<String, CatalogEntry> load() {
+        synchronized (updateLock) {
+            changedDuringLoad = new HashMap<>();
+        }
+        stale = false;
+
+        ConcurrentSkipListMap<String, CatalogEntry> loaded = new ConcurrentSkipListMap<>();
+        try {
+            String afterCode = null;
+            List<CatalogEntry> page;
+            do {
+                page = catalogRepository.findPage(afterCode, LOAD_PAGE_SIZE);
+                for (CatalogEntry entry : page) {
+                    loaded.put(entry.getProductCode(), entry);
+                }
+                if (!page.isEmpty()) {
+                    afterCode = page.get(page.size() - 1).getProductCode();
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+        } catch (RuntimeException e) {
+            stale = true;
+            synchronized (updateLock) {
+                changedDuringLoad = null;
+            }
+            throw e;
+        }
+
+        synchronized (updateLock) {
+            changedDuringLoad.forEach((code, quantity) -> loaded.computeIfPresent(code,
+                    (key, entry) -> entry.withOnlineQuantity(quantity)));
+            changedDuringLoad = null;
+            entries = loaded;
+            loadedAt = System.nanoTime();
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,258 @@
+package com.syos.usecases.credentials;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Password hashing with PBKDF2-HMAC-SHA256.
+ * Hashing is deliberately slow, so it runs on a small dedicated pool of
+ * low-priority threads with a bounded queue: a login storm is turned away
+ * with CredentialException instead of taking CPU from the sale path.
+ * Stored hashes record their own parameters
+ * ("pbkdf2-sha256$iterations$salt$hash"), so hashes made with older
+ * parameters, or by the original String.hashCode scheme, still verify and
+ * can be upgraded on the next successful login.
+ */
+public class CredentialService implements AutoCloseable {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+
+    private final int iterations;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final SecureRandom random = new SecureRandom();
+    private final String dummyHash;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalHashNanos = new AtomicLong();
+    private final long startedAt = System.nanoTime();
+
+    public CredentialService() {
+        this(Integer.getInteger("syos.credentials.iterations", 310_000),
+                Integer.getInteger("syos.credentials.threads",
+                        Math.max(1, Runtime.getRuntime().availableProcessors() / 4)),
+                Integer.getInteger("syos.credentials.queue", 64),
+                Long.getLong("syos.credentials.timeout-ms", 5000));
+    }
+
+    public CredentialService(int iterations, int threads, int queueCapacity, long timeoutMillis) {
+        if (iterations <= 0 || threads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Iterations, threads and queue capacity must be positive");
+        }
+        this.iterations = iterations;
+        this.timeoutMillis = timeoutMillis;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "credential-hasher-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        byte[] salt = new byte[SALT_BYTES];
+        byte[] hash = new byte[KEY_BITS / 8];
+        random.nextBytes(salt);
+        random.nextBytes(hash);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        this.dummyHash = PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Hashes a new password with the current parameters.
+     */
+    public String hash(String password) throws CredentialException {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = run(() -> derive(password, salt, iterations, KEY_BITS));
+
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against a stored hash in any supported format. A
+     * malformed stored hash never matches.
+     */
+    public boolean verify(String password, String storedHash) throws CredentialException {
+        String[] parts = storedHash.split("\\$");
+        if (parts.length == 4 && parts[0].equals(PREFIX)) {
+            int storedIterations;
+            byte[] salt;
+            byte[] expected;
+            try {
+                storedIterations = Integer.parseInt(parts[1]);
+                Base64.Decoder decoder = Base64.getDecoder();
+                salt = decoder.decode(parts[2]);
+                expected = decoder.decode(parts[3]);
+            } catch (IllegalArgumentException e) { // includes NumberFormatException
+                return false;
+            }
+            if (storedIterations <= 0 || salt.length == 0 || expected.length == 0) {
+                return false;
+            }
+            byte[] actual = run(() -> derive(password, salt, storedIterations, expected.length * 8));
+            return MessageDigest.isEqual(expected, actual);
+        }
+        // Original scheme, kept only so existing accounts can log in and be upgraded
+        return storedHash.equals(Integer.toString(password.hashCode()));
+    }
+
+    /**
+     * Hashes the password against a stored hash that matches nothing, at the
+     * current parameters and through the same pool as a real check. Used for
+     * an unknown account, so it takes as long as a wrong password.
+     */
+    public void verifyDummy(String password) throws CredentialException {
+        verify(password, dummyHash);
+    }
+
+    /**
+     * True when the stored hash was made with weaker parameters than the
+     * current ones.
+     */
+    public boolean needsUpgrade(String storedHash) {
+        String[] parts = storedHash.split("\\$");
+        return parts.length != 4 || !parts[0].equals(PREFIX) || Integer.parseInt(parts[1]) < iterations;
+    }
+
+    public Metrics getMetrics() {
+        double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+        long done = completed.get();
+        return new Metrics(done, rejected.get(), timedOut.get(), executor.getQueue().size(),
+                executor.getActiveCount(), done / Math.max(elapsedSeconds, 1e-9),
+                done == 0 ? 0 : totalHashNanos.get() / 1e6 / done);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private byte[] run(Callable<byte[]> work) throws CredentialException {
+        Future<byte[]> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                byte[] result = work.call();
+                totalHashNanos.addAndGet(System.nanoTime() - start);
+                completed.incrementAndGet();
+                return result;
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new CredentialException("Too many logins in progress, please try again");
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.incrementAndGet();
+            throw new CredentialException("Timed out checking credentials, please try again");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CredentialException("Interrupted while checking credentials");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations, int keyBits)
+            throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, keyBits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Point-in-time counters of the hashing pool.
+     */
+    public static class Metrics {
+        private final long completed;
+        private final long rejected;
+        private final long timedOut;
+        private final int queueDepth;
+        private final int activeHashes;
+        private final double hashesPerSecond;
+        private final double averageHashMillis;
+
+        Metrics(long completed, long rejected, long timedOut, int queueDepth, int activeHashes,
+                double hashesPerSecond, double averageHashMillis) {
+            this.completed = completed;
+            this.rejected = rejected;
+            this.timedOut = timedOut;
+            this.queueDepth = queueDepth;
+            this.activeHashes = activeHashes;
+            this.hashesPerSecond = hashesPerSecond;
+            this.averageHashMillis = averageHashMillis;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getTimedOut() {
+            return timedOut;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getActiveHashes() {
+            return activeHashes;
+        }
+
+        public double getHashesPerSecond() {
+            return hashesPerSecond;
+        }
+
+        public double getAverageHashMillis() {
+            return averageHashMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Hashes: %d completed, %d rejected, %d timed out | queue %d, active %d | "
+                    + "%.1f/sec, avg %.1f ms", completed, rejected, timedOut, queueDepth, activeHashes,
+                    hashesPerSecond, averageHashMillis);
+        }
+    }
+
+    public static class CredentialException extends Exception {
+        public CredentialException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.syos.usecases.expiry;
+
+import com.syos.entities.Inventory;
+import com.syos.entities.StockBatch;
+import com.syos.usecases.observers.InventoryObserver;
+import com.syos.usecases.observers.InventorySubject;
+import com.syos.usecases.repositories.ExpiryCheckLog;
+import com.syos.usecases.repositories.StockBatchRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes "expiring soon" and "expired" events for stock batches at day
+ * boundaries.
+ * Every batch is scheduled in a timing wheel for the day its warning is due
+ * and the day after it expires; each day only the batches due that day are
+ * re-read and published through InventorySubject. New batches are scheduled
+ * from the batches-received notification, without reading them back.
+ * The last day checked is recorded; after a restart, events due on or
+ * before it are not published again, and days missed while the process
+ * was down are caught up.
+ */
+public class ExpiryScheduler implements InventoryObserver {
+    public static final int DEFAULT_WARNING_DAYS = 7;
+
+    private final StockBatchRepository stockBatchRepository;
+    private final InventorySubject inventorySubject;
+    private final ExpiryCheckLog checkLog;
+    private final int warningDays;
+    private final Clock clock;
+    private final TimingWheel<Event> wheel;
+    // Events due on or before this day were published by an earlier run
+    private final long publishedThrough;
+    private ScheduledExecutorService timer;
+
+    public ExpiryScheduler(StockBatchRepository stockBatchRepository, InventorySubject inventorySubject,
+            ExpiryCheckLog checkLog) {
+        this(stockBatchRepository, inventorySubject, checkLog,
+                Integer.getInteger("syos.expiry.warning-days", DEFAULT_WARNING_DAYS), Clock.systemDefaultZone());
+    }
+
+    public ExpiryScheduler(StockBatchRepository stockBatchRepository, InventorySubject inventorySubject,
+            ExpiryCheckLog checkLog, int warningDays, Clock clock) {
+        this.stockBatchRepository = stockBatchRepository;
+        this.inventorySubject = inventorySubject;
+        this.checkLog = checkLog;
+        this.warningDays = warningDays;
+        this.clock = clock;
+        long today = LocalDate.now(clock).toEpochDay();
+        this.publishedThrough = checkLog.findLastCheckedDay()
+                .map(day -> Math.min(day.toEpochDay(), today))
+                .orElse(Long.MIN_VALUE);
+        // Without an earlier run, start yesterday so batches already due are published by the first advance
+        this.wheel = new TimingWheel<>(Math.max(publishedThrough, today - 1));
+    }
+
+    /**
+     * Schedules every existing batch, publishes what is already due and
+     * starts the daily timer.
+     */
+    public void start() {
+        synchronized (this) {
+            for (StockBatch batch : stockBatchRepository.findAll()) {
+                schedule(batch, publishedThrough);
+            }
+        }
+        advanceTo(LocalDate.now(clock));
+
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expiry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleNextDay();
+    }
+
+    public void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * Publishes the events due up to and including the given day.
+     */
+    public void advanceTo(LocalDate date) {
+        List<Event> due;
+        boolean advanced;
+        synchronized (this) {
+            advanced = wheel.getCurrentDay() < date.toEpochDay();
+            due = wheel.advanceTo(date.toEpochDay());
+        }
+        if (due.isEmpty()) {
+            if (advanced) {
+                checkLog.recordCheckedDay(date);
+            }
+            return;
+        }
+
+        List<StockBatch> expiringSoon = new ArrayList<>();
+        List<StockBatch> expired = new ArrayList<>();
+        for (Event event : due) {
+            // Re-read so sold-out, removed or re-dated batches are skipped
+            Optional<StockBatch> current = stockBatchRepository.findById(event.batchId);
+            if (current.isEmpty() || current.get().getQuantity() == 0
+                    || !current.get().getExpiryDate().equals(event.expiryDate)) {
+                continue;
+            }
+            if (event.expired) {
+                expired.add(current.get());
+            } else if (!current.get().isExpiredOn(date)) {
+                expiringSoon.add(current.get());
+            }
+        }
+
+        inventorySubject.notifyBatchesExpiringSoon(expiringSoon);
+        inventorySubject.notifyBatchesExpired(expired);
+        checkLog.recordCheckedDay(date);
+    }
+
+    public synchronized int getScheduledCount() {
+        return wheel.size();
+    }
+
+    @Override
+    public void onInventoryChanged(Inventory inventory) {
+        // Expiry depends on batches, not levels
+    }
+
+    @Override
+    public void onLowStock(Inventory inventory) {
+        // Expiry depends on batches, not levels
+    }
+
+    @Override
+    public synchronized void onBatchesReceived(List<StockBatch> batches) {
+        for (StockBatch batch : batches) {
+            schedule(batch, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Schedules the batch's warning and expiry events, skipping those due on
+     * or before publishedThrough.
+     */
+    private void schedule(StockBatch batch, long publishedThrough) {
+        long expiryDay = batch.getExpiryDate().toEpochDay();
+        if (expiryDay > wheel.getCurrentDay() && expiryDay - warningDays > publishedThrough) {
+            wheel.schedule(expiryDay - warningDays, new Event(batch, false));
+        }
+        // A batch is expired the day after its expiry date
+        if (expiryDay + 1 > publishedThrough) {
+            wheel.schedule(expiryDay + 1, new Event(batch, true));
+        }
+    }
+
+    private void scheduleNextDay() {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        ZonedDateTime nextMidnight = now.toLocalDate().plusDays(1).atStartOfDay(now.getZone());
+        timer.schedule(() -> {
+            try {
+                advanceTo(LocalDate.now(clock));
+            } catch (RuntimeException e) {
+                System.out.println("❌ Expiry check failed: " + e.getMessage());
+            } finally {
+                scheduleNextDay();
+            }
+        }, Duration.between(now, nextMidnight).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static class Event {
+        final String batchId;
+        final LocalDate expiryDate;
+        final boolean expired;
+
+        Event(StockBatch batch, boolean expired) {
+            this.batchId = batch.getBatchId();
+            this.expiryDate = batch.getExpiryDate();
+            this.expired = expired;
+        }
+    }
+}
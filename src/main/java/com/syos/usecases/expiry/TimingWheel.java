@@ -0,0 +1,113 @@
+package com.syos.usecases.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel with one-day ticks.
+ * Level 0 has a slot per day for the next 64 days, level 1 a slot per 64
+ * days, and so on; when the lower level wraps, the next slot of the level
+ * above is cascaded down. Scheduling is O(1) and advancing a day only
+ * touches the entries due that day (plus the occasional cascade), however
+ * many entries are scheduled further out.
+ * Not thread-safe; callers synchronize.
+ */
+class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4; // 64^4 days, far beyond any shelf life
+
+    private final List<List<List<Entry<T>>>> levels = new ArrayList<>();
+    private long currentDay;
+    private int size;
+
+    TimingWheel(long currentDay) {
+        this.currentDay = currentDay;
+        for (int level = 0; level < LEVELS; level++) {
+            List<List<Entry<T>>> slots = new ArrayList<>(SLOTS);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                slots.add(new ArrayList<>());
+            }
+            levels.add(slots);
+        }
+    }
+
+    long getCurrentDay() {
+        return currentDay;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules the item for the given epoch day. Items for the current day
+     * or earlier are returned by the next advance.
+     */
+    void schedule(long day, T item) {
+        insert(new Entry<>(Math.max(day, currentDay + 1), item));
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to the given day and returns every item due on
+     * or before it, in day order.
+     */
+    List<T> advanceTo(long day) {
+        List<T> due = new ArrayList<>();
+        while (currentDay < day) {
+            currentDay++;
+            cascade();
+            List<Entry<T>> slot = levels.get(0).get(slotIndex(currentDay, 0));
+            for (Entry<T> entry : slot) {
+                due.add(entry.item);
+            }
+            size -= slot.size();
+            slot.clear();
+        }
+        return due;
+    }
+
+    /**
+     * When lower levels wrap, moves the entries of the current slot of each
+     * wrapping level into finer slots, highest level first so entries
+     * cascaded from above are not left behind in a slot already emptied.
+     */
+    private void cascade() {
+        int top = 0;
+        while (top < LEVELS - 1 && (currentDay & ((1L << (SLOT_BITS * (top + 1))) - 1)) == 0) {
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            List<Entry<T>> slot = levels.get(level).get(slotIndex(currentDay, level));
+            List<Entry<T>> entries = new ArrayList<>(slot);
+            slot.clear();
+            for (Entry<T> entry : entries) {
+                insert(entry);
+            }
+        }
+    }
+
+    private void insert(Entry<T> entry) {
+        long delay = entry.day - currentDay;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        levels.get(level).get(slotIndex(entry.day, level)).add(entry);
+    }
+
+    private static int slotIndex(long day, int level) {
+        return (int) ((day >>> (SLOT_BITS * level)) & (SLOTS - 1));
+    }
+
+    private static class Entry<T> {
+        final long day;
+        final T item;
+
+        Entry(long day, T item) {
+            this.day = day;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.syos.usecases.exports;
+
+import com.syos.entities.Bill;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination for exported bills (file format, compression, etc.).
+ * Bills arrive one at a time in serial number order.
+ */
+public interface BillExportSink extends Closeable {
+    void write(Bill bill) throws IOException;
+
+    /**
+     * Total bytes written so far (after compression, if any).
+     */
+    long getBytesWritten();
+}
@@ -0,0 +1,100 @@
+package com.syos.usecases.exports;
+
+import com.syos.entities.Bill;
+import com.syos.usecases.repositories.BillRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+
+/**
+ * Use case for exporting bills and their items for a date range, e.g. to hand
+ * daily sales to the accounting system.
+ * Bills are streamed from the repository cursor straight into the sink, so a
+ * month of transactions is never held in memory at once.
+ */
+public class ExportBillsUseCase {
+    private final BillRepository billRepository;
+
+    public ExportBillsUseCase(BillRepository billRepository) {
+        this.billRepository = billRepository;
+    }
+
+    /**
+     * Exports bills dated from/to (inclusive) into the sink and closes it.
+     */
+    public ExportResult execute(LocalDate from, LocalDate to, BillExportSink sink) throws ExportException {
+        if (from == null || to == null) {
+            throw new ExportException("Export date range is required");
+        }
+        if (to.isBefore(from)) {
+            throw new ExportException("End date cannot be before start date");
+        }
+
+        long started = System.nanoTime();
+        long[] counts = new long[2]; // bills, items
+
+        try (sink) {
+            billRepository.forEachInDateRange(from, to, bill -> {
+                try {
+                    sink.write(bill);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                counts[0]++;
+                counts[1] += bill.getItems().size();
+            });
+        } catch (IOException e) {
+            throw new ExportException("Failed to write export: " + e.getMessage());
+        } catch (UncheckedIOException e) {
+            throw new ExportException("Failed to write export: " + e.getCause().getMessage());
+        }
+        // Read after close, once compressed output is complete
+        return new ExportResult(counts[0], counts[1], sink.getBytesWritten(), System.nanoTime() - started);
+    }
+
+    /**
+     * Export statistics.
+     */
+    public static class ExportResult {
+        private final long billCount;
+        private final long itemCount;
+        private final long bytesWritten;
+        private final long elapsedNanos;
+
+        public ExportResult(long billCount, long itemCount, long bytesWritten, long elapsedNanos) {
+            this.billCount = billCount;
+            this.itemCount = itemCount;
+            this.bytesWritten = bytesWritten;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getBillCount() {
+            return billCount;
+        }
+
+        public long getItemCount() {
+            return itemCount;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Exported %d bills (%d items), %d bytes in %d ms",
+                    billCount, itemCount, bytesWritten, getElapsedMillis());
+        }
+    }
+
+    public static class ExportException extends Exception {
+        public ExportException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.syos.usecases.imports;
+
+import com.syos.entities.Inventory;
+import com.syos.entities.Product;
+import com.syos.entities.StockBatch;
+import com.syos.usecases.ReceiveStockDeliveryUseCase;
+import com.syos.usecases.ledger.InventoryLedger;
+import com.syos.usecases.observers.InventorySubject;
+import com.syos.usecases.repositories.ProductRepository;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Use case for streaming bulk imports of products, stock deliveries and
+ * opening inventory.
+ * Records are pulled from a RecordSource one at a time and written in chunks,
+ * so memory use depends on the chunk size rather than on the input size.
+ * Every row is validated through the same entity rules as manual entry;
+ * invalid rows are rejected individually without aborting the import.
+ */
+public class BulkImportUseCase {
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final String storeId;
+    private final ProductRepository productRepository;
+    private final InventoryLedger inventoryLedger;
+    private final ReceiveStockDeliveryUseCase receiveStockDeliveryUseCase;
+    private final InventorySubject inventorySubject;
+
+    public BulkImportUseCase(String storeId,
+            ProductRepository productRepository,
+            InventoryLedger inventoryLedger,
+            ReceiveStockDeliveryUseCase receiveStockDeliveryUseCase,
+            InventorySubject inventorySubject) {
+        this.storeId = storeId;
+        this.productRepository = productRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.receiveStockDeliveryUseCase = receiveStockDeliveryUseCase;
+        this.inventorySubject = inventorySubject;
+    }
+
+    /**
+     * Imports all records from the source.
+     * The first record must be a header naming the columns.
+     *
+     * @param source    Delimited record source, closed by the caller
+     * @param type      Kind of data being imported
+     * @param chunkSize Number of rows written per batch
+     * @param listener  Notified after each chunk; may be null
+     * @return Import statistics including rows/sec
+     * @throws ImportException if the header is invalid or the source can't be read
+     */
+    public ImportResult execute(RecordSource source, ImportType type, int chunkSize, ProgressListener listener)
+            throws ImportException {
+        if (chunkSize <= 0) {
+            throw new ImportException("Chunk size must be positive");
+        }
+
+        ImportResult result = new ImportResult(type);
+        long started = System.nanoTime();
+
+        try {
+            Map<String, Integer> columns = readHeader(source, type);
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            String[] fields;
+
+            while ((fields = source.next()) != null) {
+                if (isBlank(fields)) {
+                    continue;
+                }
+                result.recordRead();
+                chunk.add(new Row(source.getLineNumber(), fields, columns));
+
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(type, chunk, result);
+                    chunk.clear();
+                    result.setElapsedNanos(System.nanoTime() - started);
+                    if (listener != null) {
+                        listener.onProgress(result);
+                    }
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                writeChunk(type, chunk, result);
+            }
+        } catch (IOException e) {
+            throw new ImportException("Failed to read import data: " + e.getMessage());
+        }
+
+        result.setElapsedNanos(System.nanoTime() - started);
+        if (listener != null) {
+            listener.onProgress(result);
+        }
+        return result;
+    }
+
+    private Map<String, Integer> readHeader(RecordSource source, ImportType type)
+            throws IOException, ImportException {
+        String[] header = source.next();
+        if (header == null) {
+            throw new ImportException("Import data is empty");
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            columns.put(normalizeColumn(header[i]), i);
+        }
+
+        List<String> missing = type.getRequiredColumns().stream()
+                .filter(column -> !columns.containsKey(column))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new ImportException("Missing required column(s) for " + type + ": " + String.join(", ", missing));
+        }
+
+        return columns;
+    }
+
+    private String normalizeColumn(String name) {
+        return name.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+    }
+
+    private boolean isBlank(String[] fields) {
+        for (String field : fields) {
+            if (!field.trim().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeChunk(ImportType type, List<Row> chunk, ImportResult result) {
+        switch (type) {
+            case PRODUCTS:
+                writeProducts(chunk, result);
+                break;
+            case STOCK_BATCHES:
+                writeStockBatches(chunk, result);
+                break;
+            case OPENING_INVENTORY:
+                writeOpeningInventory(chunk, result);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported import type: " + type);
+        }
+    }
+
+    private void writeProducts(List<Row> chunk, ImportResult result) {
+        Set<String> existingCodes = existingProductCodes(chunk, "code");
+        Set<String> seen = new HashSet<>();
+        List<Product> products = new ArrayList<>();
+
+        for (Row row : chunk) {
+            try {
+                Product.Builder builder = new Product.Builder()
+                        .code(row.get("code"))
+                        .name(row.get("name"))
+                        .price(parseDouble(row.get("price"), "price"));
+                if (row.get("unit") != null) {
+                    builder.unit(row.get("unit"));
+                }
+                if (row.get("discount_percentage") != null) {
+                    builder.discountPercentage(parseDouble(row.get("discount_percentage"), "discount_percentage"));
+                }
+                Product product = builder.build();
+
+                if (existingCodes.contains(product.getCode()) || !seen.add(product.getCode())) {
+                    result.recordRejected(row.lineNumber, "Product with code " + product.getCode()
+                            + " already exists");
+                    continue;
+                }
+                products.add(product);
+            } catch (IllegalArgumentException e) {
+                result.recordRejected(row.lineNumber, e.getMessage());
+            }
+        }
+
+        if (products.isEmpty()) {
+            return;
+        }
+
+        // New products start with no stock, which the inventory ledger needs no movement for
+        productRepository.saveAll(products);
+        result.recordImported(products.size());
+    }
+
+    private void writeStockBatches(List<Row> chunk, ImportResult result) {
+        Set<String> existingCodes = existingProductCodes(chunk, "product_code");
+        List<ReceiveStockDeliveryUseCase.DeliveryLine> lines = new ArrayList<>();
+        List<Row> accepted = new ArrayList<>();
+
+        for (Row row : chunk) {
+            try {
+                String productCode = row.get("product_code");
+                int quantity = parseInt(row.get("quantity"), "quantity");
+                LocalDate expiryDate = parseDate(row.get("expiry_date"), "expiry_date");
+                LocalDate purchaseDate = row.get("purchase_date") != null
+                        ? parseDate(row.get("purchase_date"), "purchase_date")
+                        : LocalDate.now();
+
+                // Apply the StockBatch rules before the chunk is handed over
+                new StockBatch(storeId, productCode, purchaseDate, quantity, expiryDate);
+
+                if (!existingCodes.contains(productCode)) {
+                    result.recordRejected(row.lineNumber, "Product not found: " + productCode);
+                    continue;
+                }
+                lines.add(new ReceiveStockDeliveryUseCase.DeliveryLine(productCode, quantity, expiryDate,
+                        purchaseDate));
+                accepted.add(row);
+            } catch (IllegalArgumentException e) {
+                result.recordRejected(row.lineNumber, e.getMessage());
+            }
+        }
+
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        try {
+            receiveStockDeliveryUseCase.execute(lines);
+            result.recordImported(lines.size());
+        } catch (ReceiveStockDeliveryUseCase.DeliveryException e) {
+            for (Row row : accepted) {
+                result.recordRejected(row.lineNumber, e.getMessage());
+            }
+        }
+    }
+
+    private void writeOpeningInventory(List<Row> chunk, ImportResult result) {
+        Set<String> existingCodes = existingProductCodes(chunk, "product_code");
+        Map<String, Inventory> inventories = new HashMap<>();
+
+        for (Row row : chunk) {
+            try {
+                String productCode = row.get("product_code");
+                Inventory inventory = new Inventory(storeId, productCode);
+                int shelf = parseQuantity(row.get("shelf_quantity"), "shelf_quantity");
+                int store = parseQuantity(row.get("store_quantity"), "store_quantity");
+                int online = parseQuantity(row.get("online_quantity"), "online_quantity");
+                if (shelf > 0)
+                    inventory.addToShelf(shelf);
+                if (store > 0)
+                    inventory.addToStore(store);
+                if (online > 0)
+                    inventory.addToOnline(online);
+
+                if (!existingCodes.contains(productCode)) {
+                    result.recordRejected(row.lineNumber, "Product not found: " + productCode);
+                    continue;
+                }
+                if (inventories.putIfAbsent(productCode, inventory) != null) {
+                    result.recordRejected(row.lineNumber, "Duplicate inventory row for product: " + productCode);
+                }
+            } catch (IllegalArgumentException e) {
+                result.recordRejected(row.lineNumber, e.getMessage());
+            }
+        }
+
+        if (inventories.isEmpty()) {
+            return;
+        }
+
+        // The differences are taken with the products locked
+        inventorySubject.notifyMovements(inventoryLedger.adjustTo(
+                new ArrayList<>(inventories.values()), "opening-inventory-import"));
+        result.recordImported(inventories.size());
+
+        for (Inventory inventory : inventories.values()) {
+            inventorySubject.notifyInventoryChanged(inventory);
+        }
+    }
+
+    private Set<String> existingProductCodes(List<Row> chunk, String column) {
+        Set<String> codes = new HashSet<>();
+        for (Row row : chunk) {
+            if (row.get(column) != null) {
+                codes.add(row.get(column));
+            }
+        }
+        return productRepository.findByCodes(codes).stream()
+                .map(Product::getCode)
+                .collect(Collectors.toSet());
+    }
+
+    private double parseDouble(String value, String column) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing value for " + column);
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + column + ": " + value);
+        }
+    }
+
+    private int parseInt(String value, String column) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing value for " + column);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid integer for " + column + ": " + value);
+        }
+    }
+
+    private int parseQuantity(String value, String column) {
+        if (value == null) {
+            return 0;
+        }
+        int quantity = parseInt(value, column);
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative for " + column);
+        }
+        return quantity;
+    }
+
+    private LocalDate parseDate(String value, String column) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing value for " + column);
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date for " + column + " (expected yyyy-MM-dd): " + value);
+        }
+    }
+
+    /**
+     * One data record with its source line, addressed by column name.
+     */
+    private static class Row {
+        final long lineNumber;
+        final String[] fields;
+        final Map<String, Integer> columns;
+
+        Row(long lineNumber, String[] fields, Map<String, Integer> columns) {
+            this.lineNumber = lineNumber;
+            this.fields = fields;
+            this.columns = columns;
+        }
+
+        String get(String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= fields.length) {
+                return null;
+            }
+            String value = fields[index].trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    /**
+     * Callback for reporting import progress after each chunk.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(ImportResult progress);
+    }
+
+    public static class ImportException extends Exception {
+        public ImportException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.syos.usecases.imports;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome and throughput of a bulk import run.
+ */
+public class ImportResult {
+    private static final int MAX_RECORDED_ERRORS = 100;
+
+    private final ImportType type;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private long elapsedNanos;
+    private final List<String> errors = new ArrayList<>();
+
+    ImportResult(ImportType type) {
+        this.type = type;
+    }
+
+    void recordRead() {
+        rowsRead++;
+    }
+
+    void recordImported(int count) {
+        rowsImported += count;
+    }
+
+    void recordRejected(long lineNumber, String reason) {
+        rowsRejected++;
+        if (errors.size() < MAX_RECORDED_ERRORS) {
+            errors.add("Line " + lineNumber + ": " + reason);
+        }
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public ImportType getType() {
+        return type;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : rowsRead / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    /**
+     * First rejection messages (capped so a bad file can't exhaust memory).
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s import: %d read, %d imported, %d rejected in %d ms (%.0f rows/sec)",
+                type, rowsRead, rowsImported, rowsRejected, getElapsedMillis(), getRowsPerSecond());
+    }
+}
@@ -0,0 +1,33 @@
+package com.syos.usecases.imports;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Kinds of data supported by the bulk importer, with their expected columns.
+ */
+public enum ImportType {
+    PRODUCTS(Arrays.asList("code", "name", "price"),
+            Arrays.asList("unit", "discount_percentage")),
+    STOCK_BATCHES(Arrays.asList("product_code", "quantity", "expiry_date"),
+            Collections.singletonList("purchase_date")),
+    OPENING_INVENTORY(Collections.singletonList("product_code"),
+            Arrays.asList("shelf_quantity", "store_quantity", "online_quantity"));
+
+    private final List<String> requiredColumns;
+    private final List<String> optionalColumns;
+
+    ImportType(List<String> requiredColumns, List<String> optionalColumns) {
+        this.requiredColumns = requiredColumns;
+        this.optionalColumns = optionalColumns;
+    }
+
+    public List<String> getRequiredColumns() {
+        return requiredColumns;
+    }
+
+    public List<String> getOptionalColumns() {
+        return optionalColumns;
+    }
+}
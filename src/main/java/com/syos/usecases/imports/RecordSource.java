@@ -0,0 +1,23 @@
+package com.syos.usecases.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Forward-only source of delimited records for bulk imports.
+ * Implementations must read incrementally so memory stays constant
+ * regardless of input size.
+ */
+public interface RecordSource extends Closeable {
+    /**
+     * Reads the next record.
+     *
+     * @return Field values, or null at end of input
+     */
+    String[] next() throws IOException;
+
+    /**
+     * Line number of the most recently returned record (1-based).
+     */
+    long getLineNumber();
+}
@@ -0,0 +1,395 @@
+package com.syos.usecases.ledger;
+
+import com.syos.entities.Inventory;
+import com.syos.entities.InventoryMovement;
+import com.syos.entities.InventorySnapshot;
+import com.syos.usecases.repositories.InventoryLedgerRepository;
+import com.syos.usecases.repositories.InventoryRepository;
+import com.syos.usecases.repositories.TransactionManager;
+import com.syos.usecases.repositories.Workload;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only inventory movement ledger and the source of truth for
+ * inventory levels.
+ * Use cases record the movements behind every inventory change inside their
+ * own transaction; current levels are read from an in-memory projection of
+ * the committed movements. Levels for any past day can be rebuilt from the
+ * latest earlier snapshot plus the movements after it.
+ *
+ * Several processes may share one ledger (MySQL). Movements are appended
+ * without a ledger-wide lock; the storage's movement IDs order them. Each
+ * process keeps its own projection, so before a check that a write depends
+ * on, a use case calls lockForUpdate() with the products involved: it locks
+ * them for the rest of the transaction and applies the movements committed
+ * since. record() does the same for the products it is given. Plain reads
+ * catch up without locking.
+ *
+ * The inventory rows are not written on this path. Products whose levels
+ * changed are written to them in the background (-Dsyos.ledger.row-sync-ms,
+ * default 1000), and rows left behind are repaired at startup.
+ */
+public class InventoryLedger {
+    private static final String OPENING_BALANCE_REFERENCE = "opening-balance";
+    private static final long DEFAULT_ROW_SYNC_MILLIS = 1000;
+    // Longer than a sale transaction is expected to take between appending and committing
+    private static final long DEFAULT_GAP_GRACE_MILLIS = 60000;
+
+    private final String storeId;
+    private final InventoryLedgerRepository ledgerRepository;
+    private final InventoryRepository inventoryRows;
+    private final TransactionManager transactionManager;
+    private final long gapGraceMillis = Long.getLong("syos.ledger.gap-grace-ms", DEFAULT_GAP_GRACE_MILLIS);
+    private final ThreadLocal<List<InventoryMovement>> uncommitted = new ThreadLocal<>();
+    // Products the calling thread's transaction has locked
+    private final ThreadLocal<Set<String>> lockedProducts = new ThreadLocal<>();
+    // IDs appended by this process's open transactions; their gaps are never forgotten
+    private final Set<Long> openMovementIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> staleRows = ConcurrentHashMap.newKeySet();
+    private volatile InventoryProjection projection;
+    private ScheduledExecutorService rowSync;
+
+    /**
+     * @param inventoryRows inventory rows kept before the ledger existed;
+     *                      they seed an empty ledger and are brought in
+     *                      step with it in the background
+     */
+    public InventoryLedger(String storeId, InventoryLedgerRepository ledgerRepository,
+            InventoryRepository inventoryRows, TransactionManager transactionManager) {
+        this.storeId = storeId;
+        this.projection = new InventoryProjection(storeId);
+        this.ledgerRepository = ledgerRepository;
+        this.inventoryRows = inventoryRows;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Loads the projection from the latest snapshot and the movements after
+     * it, seeds opening balances into an empty ledger, brings inventory rows
+     * that differ from the projection up to date, writes the snapshot for
+     * yesterday if it is missing, and starts the background row sync.
+     */
+    public synchronized void initialize() {
+        LocalDate today = LocalDate.now();
+        Optional<InventorySnapshot> latest = ledgerRepository.findLatestSnapshot(today);
+
+        InventoryProjection loaded = latest.map(snapshot -> InventoryProjection.fromSnapshot(storeId, snapshot))
+                .orElseGet(() -> new InventoryProjection(storeId));
+        ledgerRepository.forEachAfter(loaded.getLastMovementId(), loaded::apply);
+        loaded.forgetGapsSeenBefore(System.currentTimeMillis() - gapGraceMillis, Set.of());
+        projection = loaded;
+
+        if (projection.getLastMovementId() == 0) {
+            seedOpeningBalances();
+        } else {
+            syncInventoryRows();
+        }
+
+        LocalDate yesterday = today.minusDays(1);
+        if (latest.isEmpty() || latest.get().getDate().isBefore(yesterday)) {
+            rebuildSnapshot(yesterday);
+        }
+
+        if (rowSync == null) {
+            long interval = Long.getLong("syos.ledger.row-sync-ms", DEFAULT_ROW_SYNC_MILLIS);
+            rowSync = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "inventory-row-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            rowSync.scheduleWithFixedDelay(this::syncChangedRows, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Locks the products for the rest of the caller's transaction and
+     * catches up with movements committed elsewhere, so their levels read
+     * next stay current until the transaction ends. Call it inside the
+     * transaction, before checking levels a write depends on. Products the
+     * transaction has already locked are not locked again.
+     */
+    public void lockForUpdate(Collection<String> productCodes) {
+        Set<String> locked = lockedProducts.get();
+        if (locked == null) {
+            Set<String> transactionLocks = new HashSet<>();
+            lockedProducts.set(transactionLocks);
+            transactionManager.afterCompletion(committed -> lockedProducts.remove());
+            locked = transactionLocks;
+        }
+        List<String> toLock = new ArrayList<>();
+        for (String productCode : productCodes) {
+            if (!locked.contains(productCode)) {
+                toLock.add(productCode);
+            }
+        }
+        if (!toLock.isEmpty()) {
+            ledgerRepository.lockProducts(toLock);
+            locked.addAll(toLock);
+            refresh();
+        }
+    }
+
+    /**
+     * Applies movements committed since the projection was last brought up
+     * to date, by other processes or by threads whose commit is still being
+     * applied, including any that fill gaps left by transactions that
+     * committed late. The calling thread's own uncommitted movements are
+     * left out; they are applied when its transaction commits.
+     */
+    public void refresh() {
+        InventoryProjection current = projection;
+        List<InventoryMovement> pending = uncommitted.get();
+        Set<Long> own = new HashSet<>();
+        if (pending != null) {
+            pending.forEach(movement -> own.add(movement.getMovementId()));
+        }
+        ledgerRepository.forEachAfter(current.getLastMovementId(), current.getGaps(), movement -> {
+            if (!own.contains(movement.getMovementId())) {
+                current.apply(movement);
+            }
+        });
+        current.forgetGapsSeenBefore(System.currentTimeMillis() - gapGraceMillis, openMovementIds);
+    }
+
+    /**
+     * Appends movements as part of the caller's transaction, or in one of
+     * their own, with their products locked. The calling thread sees them in
+     * its reads straight away; other threads see them once the transaction
+     * commits, and they are dropped if it rolls back. The products' inventory
+     * rows are updated in the background after the commit.
+     *
+     * @return the movements with their assigned IDs
+     */
+    public List<InventoryMovement> record(List<InventoryMovement> movements) {
+        if (movements.isEmpty()) {
+            return movements;
+        }
+        Set<String> productCodes = new LinkedHashSet<>();
+        movements.forEach(movement -> productCodes.add(movement.getProductCode()));
+        return transactionManager.inTransaction(() -> {
+            lockForUpdate(productCodes);
+            List<InventoryMovement> stored = ledgerRepository.append(movements);
+            stored.forEach(movement -> openMovementIds.add(movement.getMovementId()));
+            List<InventoryMovement> pending = uncommitted.get();
+            if (pending != null) {
+                pending.addAll(stored);
+            } else {
+                List<InventoryMovement> transactionMovements = new ArrayList<>(stored);
+                uncommitted.set(transactionMovements);
+                transactionManager.afterCompletion(committed -> {
+                    uncommitted.remove();
+                    List<Long> ids = new ArrayList<>(transactionMovements.size());
+                    for (InventoryMovement movement : transactionMovements) {
+                        ids.add(movement.getMovementId());
+                        if (committed) {
+                            projection.apply(movement);
+                            staleRows.add(movement.getProductCode());
+                        }
+                    }
+                    if (!committed) {
+                        projection.forget(ids);
+                    }
+                    openMovementIds.removeAll(ids);
+                });
+            }
+            return stored;
+        });
+    }
+
+    /**
+     * Sets levels outright by recording ADJUSTMENT movements for the
+     * difference from the current levels, read with the products locked.
+     */
+    public List<InventoryMovement> adjustTo(List<Inventory> levels, String reference) {
+        List<String> productCodes = levels.stream().map(Inventory::getProductCode).toList();
+        return transactionManager.inTransaction(() -> {
+            lockForUpdate(productCodes);
+            List<InventoryMovement> movements = new ArrayList<>();
+            for (Inventory target : levels) {
+                Inventory current = getCurrentLevels(target.getProductCode())
+                        .orElseGet(() -> new Inventory(storeId, target.getProductCode()));
+                addMovement(movements, target.getProductCode(), InventoryMovement.Location.SHELF,
+                        target.getShelfQuantity() - current.getShelfQuantity(), reference);
+                addMovement(movements, target.getProductCode(), InventoryMovement.Location.STORE,
+                        target.getStoreQuantity() - current.getStoreQuantity(), reference);
+                addMovement(movements, target.getProductCode(), InventoryMovement.Location.ONLINE,
+                        target.getOnlineQuantity() - current.getOnlineQuantity(), reference);
+            }
+            return record(movements);
+        });
+    }
+
+    /**
+     * Current levels of a product, or empty if it has never had a movement.
+     */
+    public Optional<Inventory> getCurrentLevels(String productCode) {
+        List<InventoryMovement> pending = uncommitted.get();
+        return pending == null ? projection.get(productCode) : projection.get(productCode, pending);
+    }
+
+    public List<Inventory> getCurrentLevels(Collection<String> productCodes) {
+        List<Inventory> levels = new ArrayList<>(productCodes.size());
+        for (String productCode : productCodes) {
+            getCurrentLevels(productCode).ifPresent(levels::add);
+        }
+        return levels;
+    }
+
+    public List<Inventory> getAllCurrentLevels() {
+        List<InventoryMovement> pending = uncommitted.get();
+        if (pending == null) {
+            return projection.getAll();
+        }
+        Set<String> productCodes = projection.getProductCodes();
+        pending.forEach(movement -> productCodes.add(movement.getProductCode()));
+        return getCurrentLevels(productCodes);
+    }
+
+    public List<InventoryMovement> getHistory(String productCode) {
+        return ledgerRepository.findByProductCode(productCode);
+    }
+
+    /**
+     * Levels at the end of the given day.
+     */
+    public List<Inventory> getLevelsAt(LocalDate date) {
+        return replayUntil(date).getAll();
+    }
+
+    /**
+     * Recomputes and stores the end-of-day snapshot for a date. The snapshot
+     * holds the ledger up to its first movement after that day, so every
+     * movement up to its last movement ID is counted.
+     */
+    public InventorySnapshot rebuildSnapshot(LocalDate date) {
+        InventorySnapshot snapshot = replayUntil(date).toSnapshot(date);
+        ledgerRepository.saveSnapshot(snapshot);
+        return snapshot;
+    }
+
+    private InventoryProjection replayUntil(LocalDate date) {
+        InventoryProjection replay = ledgerRepository.findLatestSnapshot(date.minusDays(1))
+                .map(snapshot -> InventoryProjection.fromSnapshot(storeId, snapshot))
+                .orElseGet(() -> new InventoryProjection(storeId));
+
+        boolean[] ended = new boolean[1];
+        ledgerRepository.forEachAfter(replay.getLastMovementId(), movement -> {
+            if (movement.getOccurredAt().toLocalDate().isAfter(date)) {
+                ended[0] = true;
+            } else if (!ended[0]) {
+                replay.apply(movement);
+            }
+        });
+        return replay;
+    }
+
+    private void seedOpeningBalances() {
+        List<InventoryMovement> openings = new ArrayList<>();
+        for (Inventory inventory : inventoryRows.findAll()) {
+            addMovement(openings, inventory.getProductCode(), InventoryMovement.Location.SHELF,
+                    inventory.getShelfQuantity(), OPENING_BALANCE_REFERENCE);
+            addMovement(openings, inventory.getProductCode(), InventoryMovement.Location.STORE,
+                    inventory.getStoreQuantity(), OPENING_BALANCE_REFERENCE);
+            addMovement(openings, inventory.getProductCode(), InventoryMovement.Location.ONLINE,
+                    inventory.getOnlineQuantity(), OPENING_BALANCE_REFERENCE);
+        }
+
+        if (!openings.isEmpty()) {
+            record(openings);
+            System.out.println("✓ Seeded inventory ledger with " + openings.size() + " opening balances");
+        }
+    }
+
+    /**
+     * Rewrites the inventory rows a crash, an older version or a pending
+     * background sync left behind the projection.
+     */
+    private void syncInventoryRows() {
+        Map<String, Inventory> rows = new HashMap<>();
+        for (Inventory row : inventoryRows.findAll()) {
+            rows.put(row.getProductCode(), row);
+        }
+        List<Inventory> stale = new ArrayList<>();
+        for (Inventory level : projection.getAll()) {
+            Inventory row = rows.get(level.getProductCode());
+            if (row == null || row.getShelfQuantity() != level.getShelfQuantity()
+                    || row.getStoreQuantity() != level.getStoreQuantity()
+                    || row.getOnlineQuantity() != level.getOnlineQuantity()) {
+                stale.add(level);
+            }
+        }
+        if (!stale.isEmpty()) {
+            transactionManager.inTransaction(() -> {
+                writeInventoryRows(stale);
+                return null;
+            });
+            System.out.println("✓ Updated " + stale.size() + " inventory row(s) from the ledger");
+        }
+    }
+
+    /**
+     * Writes the rows of products whose levels changed since the last run,
+     * using inventory connections so it never holds up sales. Failed rows
+     * are retried on the next run.
+     */
+    private void syncChangedRows() {
+        if (staleRows.isEmpty()) {
+            return;
+        }
+        List<String> productCodes = new ArrayList<>(staleRows);
+        staleRows.removeAll(productCodes);
+        try {
+            List<Inventory> levels = new ArrayList<>(productCodes.size());
+            for (String productCode : productCodes) {
+                projection.get(productCode).ifPresent(levels::add);
+            }
+            transactionManager.inWorkload(Workload.INVENTORY, () -> transactionManager.inTransaction(() -> {
+                writeInventoryRows(levels);
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            staleRows.addAll(productCodes);
+            System.err.println("Failed to update inventory rows: " + e.getMessage());
+        }
+    }
+
+    private void writeInventoryRows(List<Inventory> levels) {
+        Set<String> existing = new HashSet<>();
+        List<String> productCodes = levels.stream().map(Inventory::getProductCode).toList();
+        inventoryRows.findByProductCodes(productCodes).forEach(row -> existing.add(row.getProductCode()));
+
+        List<Inventory> updated = new ArrayList<>();
+        List<Inventory> added = new ArrayList<>();
+        for (Inventory level : levels) {
+            (existing.contains(level.getProductCode()) ? updated : added).add(level);
+        }
+        if (!updated.isEmpty()) {
+            inventoryRows.updateAll(updated);
+        }
+        if (!added.isEmpty()) {
+            inventoryRows.saveAll(added);
+        }
+    }
+
+    private static void addMovement(List<InventoryMovement> movements, String productCode,
+            InventoryMovement.Location location, int delta, String reference) {
+        if (delta != 0) {
+            movements.add(new InventoryMovement(productCode, location, InventoryMovement.MovementType.ADJUSTMENT,
+                    delta, reference));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.syos.usecases.ledger;
+
+import com.syos.entities.Inventory;
+import com.syos.entities.InventoryMovement;
+import com.syos.entities.InventorySnapshot;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory current inventory levels folded from ledger movements.
+ * Movement IDs order the ledger, but concurrent transactions commit them
+ * out of order. IDs skipped over are kept as gaps and counted if their
+ * movements turn up later; a gap that stays open past a grace period
+ * belongs to a rolled-back transaction and is forgotten. A movement can
+ * reach the projection both from a catch-up read and from its own
+ * transaction's commit, and is counted once.
+ */
+public class InventoryProjection {
+    private static final int SHELF = 0;
+    private static final int STORE = 1;
+    private static final int ONLINE = 2;
+
+    private final String storeId;
+    private final Map<String, int[]> levels = new HashMap<>();
+    private long lastMovementId;
+    // Unapplied IDs below lastMovementId, with when the gap was first seen (epoch millis)
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+    public InventoryProjection(String storeId) {
+        this.storeId = storeId;
+    }
+
+    public static InventoryProjection fromSnapshot(String storeId, InventorySnapshot snapshot) {
+        InventoryProjection projection = new InventoryProjection(storeId);
+        for (Inventory inventory : snapshot.getLevels()) {
+            projection.levels.put(inventory.getProductCode(), new int[] {
+                    inventory.getShelfQuantity(),
+                    inventory.getStoreQuantity(),
+                    inventory.getOnlineQuantity() });
+        }
+        projection.lastMovementId = snapshot.getLastMovementId();
+        return projection;
+    }
+
+    public synchronized void apply(InventoryMovement movement) {
+        long movementId = movement.getMovementId();
+        if (movementId > lastMovementId) {
+            // Dated by the movement that reveals the gap, so old gaps found on a replay expire at once
+            long seen = Math.min(System.currentTimeMillis(), epochMillis(movement.getOccurredAt()));
+            for (long missing = lastMovementId + 1; missing < movementId; missing++) {
+                gaps.put(missing, seen);
+            }
+            lastMovementId = movementId;
+        } else if (gaps.remove(movementId) == null) {
+            return;
+        }
+        int[] quantities = levels.computeIfAbsent(movement.getProductCode(), code -> new int[3]);
+        quantities[index(movement.getLocation())] += movement.getQuantityDelta();
+    }
+
+    /**
+     * IDs below the last applied one whose movements have not been seen.
+     */
+    public synchronized List<Long> getGaps() {
+        return new ArrayList<>(gaps.keySet());
+    }
+
+    /**
+     * Forgets gaps first seen before the given time, except the given IDs
+     * (movements of transactions still open in this process).
+     */
+    public synchronized void forgetGapsSeenBefore(long epochMillis, Set<Long> keep) {
+        gaps.entrySet().removeIf(gap -> gap.getValue() < epochMillis && !keep.contains(gap.getKey()));
+    }
+
+    /**
+     * Forgets the IDs of movements that were rolled back.
+     */
+    public synchronized void forget(Collection<Long> movementIds) {
+        movementIds.forEach(gaps::remove);
+    }
+
+    public synchronized Optional<Inventory> get(String productCode) {
+        int[] quantities = levels.get(productCode);
+        return quantities == null ? Optional.empty() : Optional.of(toInventory(productCode, quantities));
+    }
+
+    /**
+     * Current levels with movements that are not yet applied added on top.
+     */
+    public synchronized Optional<Inventory> get(String productCode, List<InventoryMovement> unapplied) {
+        int[] quantities = levels.get(productCode);
+        quantities = quantities == null ? null : quantities.clone();
+        for (InventoryMovement movement : unapplied) {
+            if (movement.getProductCode().equals(productCode)) {
+                if (quantities == null) {
+                    quantities = new int[3];
+                }
+                quantities[index(movement.getLocation())] += movement.getQuantityDelta();
+            }
+        }
+        return quantities == null ? Optional.empty() : Optional.of(toInventory(productCode, quantities));
+    }
+
+    public synchronized Set<String> getProductCodes() {
+        return new HashSet<>(levels.keySet());
+    }
+
+    public synchronized List<Inventory> getAll() {
+        List<Inventory> result = new ArrayList<>(levels.size());
+        levels.forEach((code, quantities) -> result.add(toInventory(code, quantities)));
+        return result;
+    }
+
+    public synchronized long getLastMovementId() {
+        return lastMovementId;
+    }
+
+    public synchronized InventorySnapshot toSnapshot(LocalDate date) {
+        return new InventorySnapshot(date, lastMovementId, getAll());
+    }
+
+    private static int index(InventoryMovement.Location location) {
+        switch (location) {
+            case SHELF:
+                return SHELF;
+            case STORE:
+                return STORE;
+            default:
+                return ONLINE;
+        }
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private Inventory toInventory(String productCode, int[] quantities) {
+        return new Inventory(storeId, productCode, quantities[SHELF], quantities[STORE], quantities[ONLINE]);
+    }
+}
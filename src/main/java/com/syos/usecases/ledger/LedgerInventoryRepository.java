@@ -0,0 +1,76 @@
+package com.syos.usecases.ledger;
+
+import com.syos.entities.Inventory;
+import com.syos.usecases.repositories.InventoryRepository;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * InventoryRepository backed by the movement ledger.
+ * Reads come from the ledger's projection, first brought up to date with
+ * movements other processes committed. Writes set levels directly, so they
+ * are recorded as ADJUSTMENT movements for the difference from the levels
+ * read with the products locked; use cases that know why levels changed record
+ * typed movements on the ledger instead. A check made through these reads
+ * and acted on later (without the products locked) may be stale by then; the
+ * write that depends on it must check again after lockForUpdate().
+ */
+public class LedgerInventoryRepository implements InventoryRepository {
+    private static final String ADJUSTMENT_REFERENCE = "manual-adjustment";
+
+    private final InventoryLedger ledger;
+
+    public LedgerInventoryRepository(InventoryLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    @Override
+    public void save(Inventory inventory) {
+        update(inventory);
+    }
+
+    @Override
+    public void saveAll(List<Inventory> inventories) {
+        updateAll(inventories);
+    }
+
+    @Override
+    public Optional<Inventory> findByProductCode(String productCode) {
+        ledger.refresh();
+        return ledger.getCurrentLevels(productCode);
+    }
+
+    @Override
+    public List<Inventory> findByProductCodes(Collection<String> productCodes) {
+        ledger.refresh();
+        return ledger.getCurrentLevels(productCodes);
+    }
+
+    @Override
+    public List<Inventory> findAll() {
+        ledger.refresh();
+        return ledger.getAllCurrentLevels().stream()
+                .sorted(Comparator.comparing(Inventory::getProductCode))
+                .toList();
+    }
+
+    @Override
+    public void update(Inventory inventory) {
+        updateAll(List.of(inventory));
+    }
+
+    @Override
+    public void updateAll(List<Inventory> inventories) {
+        ledger.adjustTo(inventories, ADJUSTMENT_REFERENCE);
+    }
+
+    @Override
+    public List<Inventory> findBelowReorderLevel() {
+        return findAll().stream()
+                .filter(Inventory::isBelowReorderLevel)
+                .toList();
+    }
+}
@@ -1,6 +1,10 @@
 package com.syos.usecases.observers;
 
 import com.syos.entities.Inventory;
+import com.syos.entities.InventoryMovement;
+import com.syos.entities.StockBatch;
+
+import java.util.List;
 
 /**
  * Observer interface for inventory changes.
@@ -11,4 +15,28 @@ public interface InventoryObserver {
     void onInventoryChanged(Inventory inventory);
 
     void onLowStock(Inventory inventory);
+
+    /**
+     * Called with the movements behind a change, in the order they happened.
+     */
+    default void onMovements(List<InventoryMovement> movements) {
+    }
+
+    /**
+     * Called once new stock batches have been saved.
+     */
+    default void onBatchesReceived(List<StockBatch> batches) {
+    }
+
+    /**
+     * Called once a day with the batches entering their expiry warning period.
+     */
+    default void onBatchesExpiringSoon(List<StockBatch> batches) {
+    }
+
+    /**
+     * Called once a day with the batches that expired the day before.
+     */
+    default void onBatchesExpired(List<StockBatch> batches) {
+    }
 }
@@ -1,19 +1,23 @@
 package com.syos.usecases.observers;
 
 import com.syos.entities.Inventory;
-import java.util.ArrayList;
+import com.syos.entities.InventoryMovement;
+import com.syos.entities.StockBatch;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Subject for inventory observations.
  * Part of Observer Pattern implementation.
+ * Observers are held in a copy-on-write list so notifications from
+ * concurrent requests never see a list being modified.
  */
 public class InventorySubject {
-    private final List<InventoryObserver> observers = new ArrayList<>();
+    private final CopyOnWriteArrayList<InventoryObserver> observers = new CopyOnWriteArrayList<>();
 
     public void attach(InventoryObserver observer) {
-        if (observer != null && !observers.contains(observer)) {
-            observers.add(observer);
+        if (observer != null) {
+            observers.addIfAbsent(observer);
         }
     }
 
@@ -32,6 +36,42 @@ public class InventorySubject {
         }
     }
 
+    public void notifyMovements(List<InventoryMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        for (InventoryObserver observer : observers) {
+            observer.onMovements(movements);
+        }
+    }
+
+    public void notifyBatchesReceived(List<StockBatch> batches) {
+        if (batches.isEmpty()) {
+            return;
+        }
+        for (InventoryObserver observer : observers) {
+            observer.onBatchesReceived(batches);
+        }
+    }
+
+    public void notifyBatchesExpiringSoon(List<StockBatch> batches) {
+        if (batches.isEmpty()) {
+            return;
+        }
+        for (InventoryObserver observer : observers) {
+            observer.onBatchesExpiringSoon(batches);
+        }
+    }
+
+    public void notifyBatchesExpired(List<StockBatch> batches) {
+        if (batches.isEmpty()) {
+            return;
+        }
+        for (InventoryObserver observer : observers) {
+            observer.onBatchesExpired(batches);
+        }
+    }
+
     private void notifyLowStock(Inventory inventory) {
         for (InventoryObserver observer : observers) {
             observer.onLowStock(inventory);
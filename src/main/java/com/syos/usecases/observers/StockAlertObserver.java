@@ -1,6 +1,9 @@
 package com.syos.usecases.observers;
 
 import com.syos.entities.Inventory;
+import com.syos.entities.StockBatch;
+
+import java.util.List;
 
 /**
  * Concrete observer that logs inventory changes.
@@ -11,13 +14,37 @@ public class StockAlertObserver implements InventoryObserver {
     @Override
     public void onInventoryChanged(Inventory inventory) {
         System.out.println("[INFO] Inventory updated for product: " + inventory.getProductCode() +
-                " | Total: " + inventory.getTotalQuantity());
+                " | Total: " + inventory.getTotalQuantity() +
+                " | Store: " + inventory.getStoreId());
     }
 
     @Override
     public void onLowStock(Inventory inventory) {
         System.out.println("[ALERT] Low stock for product: " + inventory.getProductCode() +
                 " | Current: " + inventory.getTotalQuantity() +
+                " | Store: " + inventory.getStoreId() +
                 " | Reorder required!");
     }
+
+    @Override
+    public void onBatchesExpiringSoon(List<StockBatch> batches) {
+        for (StockBatch batch : batches) {
+            System.out.println("[ALERT] Batch expiring soon: " + batch.getBatchId() +
+                    " | Product: " + batch.getProductCode() +
+                    " | Quantity: " + batch.getQuantity() +
+                    " | Expires: " + batch.getExpiryDate() +
+                    " | Store: " + batch.getStoreId());
+        }
+    }
+
+    @Override
+    public void onBatchesExpired(List<StockBatch> batches) {
+        for (StockBatch batch : batches) {
+            System.out.println("[ALERT] Batch expired: " + batch.getBatchId() +
+                    " | Product: " + batch.getProductCode() +
+                    " | Quantity: " + batch.getQuantity() +
+                    " | Store: " + batch.getStoreId() +
+                    " | Remove from sale!");
+        }
+    }
 }
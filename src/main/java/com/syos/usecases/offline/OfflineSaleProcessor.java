@@ -0,0 +1,350 @@
+package com.syos.usecases.offline;
+
+import com.syos.entities.Bill;
+import com.syos.entities.IdGenerator;
+import com.syos.entities.Product;
+import com.syos.usecases.ProcessSaleUseCase.SaleException;
+import com.syos.usecases.ProcessSaleUseCase.SaleRequest;
+import com.syos.usecases.SaleProcessor;
+import com.syos.usecases.repositories.ProductRepository;
+import com.syos.usecases.repositories.SaleJournal;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Keeps a till selling while the central store is slow or unreachable.
+ * Each sale gets its bill ID and date up front and is sent to the central
+ * processor with a timeout. If that fails or times out, the sale is written
+ * to the local SaleJournal and a provisional bill (serial number 0) is
+ * priced from a cached copy of the catalog. The journaled sale keeps those
+ * prices, so the bill recorded on replay matches the printed receipt even
+ * if the catalog has changed in between. A background synchronizer
+ * replays journaled sales in order once the central store answers again;
+ * because the bill ID travels with the sale, a sale that reached the
+ * central store before its attempt timed out is not recorded twice.
+ * While anything is still pending, new sales go to the journal as well so
+ * they are replayed in the order they were made.
+ * A replayed sale the central store rejects is moved to the journal's
+ * conflict log. So is one that keeps failing with an error while the sale
+ * after it goes through, so a single bad record cannot keep the till
+ * offline.
+ * Only outages that begin after start-up are covered: the catalog is
+ * first loaded from the central store, and the rest of the till (login,
+ * product indexes, inventory ledger) needs it to start as well.
+ */
+public class OfflineSaleProcessor implements SaleProcessor, AutoCloseable {
+    public static final long DEFAULT_SALE_TIMEOUT_MILLIS = 2000;
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 1000;
+    public static final int DEFAULT_MAX_SYNC_ATTEMPTS = 5;
+    public static final int DEFAULT_MAX_CENTRAL_ATTEMPTS = 16;
+    private static final int SYNC_BATCH_SIZE = 50;
+    private static final long CATALOG_REFRESH_MILLIS = 60_000;
+
+    private final String storeId;
+    private final SaleProcessor central;
+    private final SaleJournal journal;
+    private final ProductRepository productRepository;
+    private final IdGenerator billIdGenerator;
+    private final long saleTimeoutMillis;
+    private final ExecutorService attempts;
+    private final ScheduledExecutorService synchronizer;
+    private final Map<Long, Future<Bill>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> syncFailures = new ConcurrentHashMap<>();
+    private final int maxSyncAttempts = Integer.getInteger("syos.offline.max-sync-attempts",
+            DEFAULT_MAX_SYNC_ATTEMPTS);
+    private volatile Map<String, Product> catalog = new HashMap<>();
+    private volatile long catalogLoadedAt;
+
+    public OfflineSaleProcessor(String storeId, SaleProcessor central, SaleJournal journal,
+            ProductRepository productRepository, IdGenerator billIdGenerator) {
+        this(storeId, central, journal, productRepository, billIdGenerator,
+                Long.getLong("syos.offline.sale-timeout-ms", DEFAULT_SALE_TIMEOUT_MILLIS),
+                DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param saleTimeoutMillis  How long a till waits for the central store
+     *                           before the sale is taken offline
+     * @param syncIntervalMillis Pause between synchronization passes
+     */
+    public OfflineSaleProcessor(String storeId, SaleProcessor central, SaleJournal journal,
+            ProductRepository productRepository, IdGenerator billIdGenerator, long saleTimeoutMillis,
+            long syncIntervalMillis) {
+        this.storeId = storeId;
+        this.central = central;
+        this.journal = journal;
+        this.productRepository = productRepository;
+        this.billIdGenerator = billIdGenerator;
+        this.saleTimeoutMillis = saleTimeoutMillis;
+        // Bounded: when every thread is stuck waiting on the central store, new sales go offline at once
+        this.attempts = new ThreadPoolExecutor(0,
+                Integer.getInteger("syos.offline.max-central-attempts", DEFAULT_MAX_CENTRAL_ATTEMPTS),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "central-sale");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.synchronizer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "offline-sale-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        refreshCatalog();
+        synchronizer.scheduleWithFixedDelay(this::synchronizeSafely, syncIntervalMillis, syncIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Bill process(SaleRequest request) throws SaleException {
+        SaleRequest sale = request.getBillId() != 0
+                ? request
+                : request.withBill(billIdGenerator.nextId(), LocalDateTime.now());
+
+        if (journal.countPending() > 0) {
+            return takeOffline(sale, null);
+        }
+
+        Future<Bill> attempt;
+        try {
+            attempt = attempts.submit(() -> central.process(sale));
+        } catch (RejectedExecutionException e) {
+            return takeOffline(sale, null);
+        }
+        try {
+            return attempt.get(saleTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SaleException) {
+                throw (SaleException) cause;
+            }
+            if (cause instanceof IllegalArgumentException) {
+                throw new SaleException(cause.getMessage());
+            }
+            if (cause instanceof RuntimeException) {
+                return takeOffline(sale, null);
+            }
+            throw new IllegalStateException("Sale failed", cause);
+        } catch (TimeoutException e) {
+            return takeOffline(sale, attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return takeOffline(sale, attempt);
+        }
+    }
+
+    public int getPendingCount() {
+        return journal.countPending();
+    }
+
+    /**
+     * Replays pending sales against the central store, oldest first, until
+     * the journal is empty or the central store fails again.
+     * A sale that has failed maxSyncAttempts times is skipped over once: if
+     * the next sale goes through, the central store is up and the failing
+     * sale is moved to the conflict log; otherwise the pass stops and it
+     * stays first in line.
+     *
+     * @return Number of sales taken off the journal
+     */
+    public int synchronize() {
+        int synchronizedCount = 0;
+        int rejectedCount = 0;
+        List<SaleRequest> batch;
+        while (!(batch = journal.findPending(SYNC_BATCH_SIZE)).isEmpty()) {
+            List<Long> done = new ArrayList<>(batch.size());
+            SaleRequest stuck = null;
+            String stuckError = null;
+            boolean failed = false;
+            try {
+                for (SaleRequest sale : batch) {
+                    if (!awaitInFlight(sale.getBillId())) {
+                        failed = true;
+                        break;
+                    }
+                    try {
+                        central.process(sale.asReplay());
+                    } catch (SaleException | IllegalArgumentException e) {
+                        reject(sale, e.getMessage());
+                        rejectedCount++;
+                        continue;
+                    } catch (RuntimeException e) {
+                        int failures = syncFailures.merge(sale.getBillId(), 1, Integer::sum);
+                        if (stuck != null || failures < maxSyncAttempts) {
+                            failed = true;
+                            break;
+                        }
+                        stuck = sale;
+                        stuckError = e.getMessage();
+                        continue;
+                    }
+                    syncFailures.remove(sale.getBillId());
+                    done.add(sale.getBillId());
+                    if (stuck != null) {
+                        reject(stuck, "Failed " + syncFailures.remove(stuck.getBillId()) + " sync attempts: "
+                                + stuckError);
+                        rejectedCount++;
+                        stuck = null;
+                    }
+                }
+            } finally {
+                journal.acknowledge(done);
+            }
+            synchronizedCount += done.size();
+            if (failed || stuck != null) {
+                break;
+            }
+        }
+
+        if (synchronizedCount > 0 || rejectedCount > 0) {
+            System.out.println("✓ Synchronized " + synchronizedCount + " offline sale(s)"
+                    + (rejectedCount > 0 ? ", " + rejectedCount + " set aside for review" : ""));
+        }
+        return synchronizedCount + rejectedCount;
+    }
+
+    @Override
+    public void close() {
+        synchronizer.shutdownNow();
+        attempts.shutdownNow();
+    }
+
+    private void reject(SaleRequest sale, String reason) {
+        journal.reject(sale, reason);
+        System.out.println("❌ Offline sale " + sale.getBillId() + " rejected on sync and set aside for review: "
+                + reason);
+    }
+
+    private Bill takeOffline(SaleRequest sale, Future<Bill> attempt) throws SaleException {
+        SaleRequest priced = priceFromCatalog(sale);
+        Bill provisional = provisionalBill(priced);
+        if (attempt != null) {
+            inFlight.put(sale.getBillId(), attempt);
+        }
+        journal.append(priced);
+        return provisional;
+    }
+
+    /**
+     * Fixes each item's price and discount at the cached catalog's, so the
+     * replay bills what the provisional receipt showed.
+     */
+    private SaleRequest priceFromCatalog(SaleRequest sale) throws SaleException {
+        Map<String, Product> products = catalog;
+        List<SaleRequest.SaleItem> items = new ArrayList<>();
+        for (SaleRequest.SaleItem item : sale.getItems()) {
+            if (item.isPriced()) {
+                items.add(item);
+                continue;
+            }
+            Product product = products.get(item.getProductCode());
+            if (product == null) {
+                throw new SaleException("Product not found: " + item.getProductCode());
+            }
+            items.add(new SaleRequest.SaleItem(item.getProductCode(), item.getQuantity(), product.getPrice(),
+                    product.getDiscountPercentage()));
+        }
+        return sale.withItems(items);
+    }
+
+    /**
+     * Bill for the priced sale from the cached catalog. Stock is not checked;
+     * a sale the central store rejects on replay is reported by the
+     * synchronizer.
+     */
+    private Bill provisionalBill(SaleRequest sale) throws SaleException {
+        Map<String, Product> products = catalog;
+        List<Bill.BillItem> items = new ArrayList<>();
+        for (SaleRequest.SaleItem item : sale.getItems()) {
+            Product product = products.get(item.getProductCode());
+            if (product == null) {
+                throw new SaleException("Product not found: " + item.getProductCode());
+            }
+            items.add(item.toBillItem(product));
+        }
+
+        try {
+            return new Bill.Builder()
+                    .billId(sale.getBillId())
+                    .storeId(storeId)
+                    .billDate(sale.getBillDate())
+                    .serialNumber(0)
+                    .items(items)
+                    .cashTendered(sale.getCashTendered())
+                    .transactionType(sale.getTransactionType())
+                    .customerId(sale.getCustomerId())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw new SaleException(e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for a timed-out attempt at the same sale to finish before it is
+     * replayed, so the replay sees its outcome.
+     *
+     * @return false if the attempt is still running
+     */
+    private boolean awaitInFlight(long billId) {
+        Future<Bill> attempt = inFlight.get(billId);
+        if (attempt == null) {
+            return true;
+        }
+        try {
+            attempt.get(saleTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            // The replay decides the outcome
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        inFlight.remove(billId);
+        return true;
+    }
+
+    private void synchronizeSafely() {
+        try {
+            if (journal.countPending() > 0) {
+                synchronize();
+            } else if (System.currentTimeMillis() - catalogLoadedAt >= CATALOG_REFRESH_MILLIS) {
+                refreshCatalog();
+            }
+        } catch (RuntimeException e) {
+            // Central store still unavailable; try again on the next pass
+        }
+    }
+
+    private void refreshCatalog() {
+        try {
+            Map<String, Product> products = new HashMap<>();
+            for (Product product : productRepository.findAll()) {
+                products.put(product.getCode(), product);
+            }
+            catalog = products;
+        } catch (RuntimeException e) {
+            if (!catalog.isEmpty()) {
+                catalogLoadedAt = System.currentTimeMillis();
+                return;
+            }
+            System.out.println("❌ Could not load the product catalog for offline sales: " + e.getMessage());
+        }
+        catalogLoadedAt = System.currentTimeMillis();
+    }
+}
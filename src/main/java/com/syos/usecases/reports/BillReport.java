@@ -1,6 +1,7 @@
 package com.syos.usecases.reports;
 
 import com.syos.entities.Bill;
+import com.syos.entities.BillSummary;
 import com.syos.usecases.repositories.BillRepository;
 
 import java.time.format.DateTimeFormatter;
@@ -11,14 +12,42 @@ import java.util.List;
  * Requirement: "Bill report. This would contain all the customer transactions
  * that have
  * taken place in the SYOS system."
+ * Bills are read newest first in keyset pages, so a page costs the same
+ * however many bills exist; the report shows one page or all of them.
+ * Only bill headers are read, never the line items.
  */
 public class BillReport extends ReportTemplate {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int READ_PAGE_SIZE = 500;
+
     private final BillRepository billRepository;
     private final Bill.TransactionType transactionType;
+    private final int afterSerial;
+    private final int pageSize;
+    private int nextAfterSerial;
 
     public BillReport(BillRepository billRepository, Bill.TransactionType transactionType) {
+        this(billRepository, transactionType, 0, 0);
+    }
+
+    /**
+     * @param afterSerial Show bills older than this serial number (0 for the newest)
+     * @param pageSize    Bills on the page, or 0 for every bill
+     */
+    public BillReport(BillRepository billRepository, Bill.TransactionType transactionType, int afterSerial,
+            int pageSize) {
         this.billRepository = billRepository;
         this.transactionType = transactionType;
+        this.afterSerial = afterSerial;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Serial number to pass as afterSerial for the next page once the report
+     * has been generated; 0 when this page was the last.
+     */
+    public int getNextAfterSerial() {
+        return nextAfterSerial;
     }
 
     @Override
@@ -29,11 +58,44 @@ public class BillReport extends ReportTemplate {
 
     @Override
     protected String getReportBody() {
-        List<Bill> bills = transactionType == null
-                ? billRepository.findAll()
-                : billRepository.findByTransactionType(transactionType);
+        StringBuilder rows = new StringBuilder();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+        int billCount = 0;
+        double totalSales = 0.0;
+        int cursor = afterSerial;
+        nextAfterSerial = 0;
+
+        while (true) {
+            int limit = pageSize > 0 ? pageSize : READ_PAGE_SIZE;
+            List<BillSummary> bills = billRepository.findSummaryPage(cursor, limit, transactionType);
+            for (BillSummary bill : bills) {
+                rows.append(String.format("%-10d %-20s %-15s %-12.2f %-12.2f %-12.2f %-15s\n",
+                        bill.getSerialNumber(),
+                        bill.getBillDate().format(formatter),
+                        bill.getTransactionType(),
+                        bill.getSubtotal(),
+                        bill.getDiscount(),
+                        bill.getTotal(),
+                        bill.getCustomerId() != null ? bill.getCustomerId() : "N/A"));
 
-        if (bills.isEmpty()) {
+                billCount++;
+                totalSales += bill.getTotal();
+            }
+
+            boolean more = bills.size() == limit;
+            if (more) {
+                cursor = bills.get(bills.size() - 1).getSerialNumber();
+            }
+            if (pageSize > 0) {
+                nextAfterSerial = more ? cursor : 0;
+                break;
+            }
+            if (!more) {
+                break;
+            }
+        }
+
+        if (billCount == 0) {
             return "No bills found.";
         }
 
@@ -41,26 +103,18 @@ public class BillReport extends ReportTemplate {
         body.append(String.format("%-10s %-20s %-15s %-12s %-12s %-12s %-15s\n",
                 "Bill No.", "Date & Time", "Type", "Subtotal", "Discount", "Total", "Customer ID"));
         body.append("-".repeat(110)).append("\n");
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
-        double totalSales = 0.0;
-
-        for (Bill bill : bills) {
-            body.append(String.format("%-10d %-20s %-15s %-12.2f %-12.2f %-12.2f %-15s\n",
-                    bill.getSerialNumber(),
-                    bill.getBillDate().format(formatter),
-                    bill.getTransactionType(),
-                    bill.getSubtotal(),
-                    bill.getDiscount(),
-                    bill.getTotal(),
-                    bill.getCustomerId() != null ? bill.getCustomerId() : "N/A"));
-
-            totalSales += bill.getTotal();
-        }
-
+        body.append(rows);
         body.append("-".repeat(110)).append("\n");
-        body.append(String.format("Total Bills: %d\n", bills.size()));
-        body.append(String.format("Total Sales: Rs. %.2f\n", totalSales));
+        if (pageSize > 0) {
+            body.append(String.format("Bills on Page: %d\n", billCount));
+            body.append(String.format("Page Sales: Rs. %.2f\n", totalSales));
+            if (nextAfterSerial != 0) {
+                body.append(String.format("More bills after bill %d\n", nextAfterSerial));
+            }
+        } else {
+            body.append(String.format("Total Bills: %d\n", billCount));
+            body.append(String.format("Total Sales: Rs. %.2f\n", totalSales));
+        }
 
         return body.toString();
     }
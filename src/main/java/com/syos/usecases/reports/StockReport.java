@@ -5,6 +5,7 @@ import com.syos.entities.StockBatch;
 import com.syos.usecases.repositories.ProductRepository;
 import com.syos.usecases.repositories.StockBatchRepository;
 
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
@@ -44,12 +45,13 @@ public class StockReport extends ReportTemplate {
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
 
+        LocalDate today = LocalDate.now();
         for (StockBatch batch : batches) {
             String productName = productRepository.findByCode(batch.getProductCode())
                     .map(Product::getName)
                     .orElse("Unknown");
 
-            String status = batch.isExpired() ? "EXPIRED" : (batch.getDaysUntilExpiry() < 30 ? "EXPIRING SOON" : "OK");
+            String status = batch.isExpiredOn(today) ? "EXPIRED" : (batch.getDaysUntilExpiry(today) < 30 ? "EXPIRING SOON" : "OK");
 
             body.append(String.format("%-12s %-25s %-15s %-10d %-15s %-10s\n",
                     batch.getProductCode(),
@@ -1,26 +1,63 @@
 package com.syos.usecases.repositories;
 
 import com.syos.entities.Bill;
+import com.syos.entities.BillSummary;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repository interface for Bill data access.
  * Follows Dependency Inversion and Interface Segregation Principles.
  */
 public interface BillRepository {
-    void save(Bill bill);
+    /**
+     * @return the bill as stored; storage that assigns serial numbers itself
+     *         returns it with the serial number it was given
+     */
+    Bill save(Bill bill);
 
     Optional<Bill> findBySerialNumber(int serialNumber);
 
+    /**
+     * Finds a bill by its generated ID; the bill date lets storage that is
+     * partitioned by day look in one partition only.
+     */
+    Optional<Bill> findByBillId(long billId, LocalDate billDate);
+
     List<Bill> findAll();
 
+    /**
+     * Keyset page of bills, newest first: up to limit bills with a serial
+     * number below afterSerial (0 starts at the newest bill). Pass the last
+     * serial number of a page to get the next one.
+     *
+     * @param type Transaction type to list, or null for all
+     */
+    List<Bill> findPage(int afterSerial, int limit, Bill.TransactionType type);
+
+    /**
+     * Same page as findPage, as headers only: line items are not read.
+     */
+    List<BillSummary> findSummaryPage(int afterSerial, int limit, Bill.TransactionType type);
+
     List<Bill> findByDate(LocalDate date);
 
     List<Bill> findByTransactionType(Bill.TransactionType type);
 
     List<Bill> findByDateAndType(LocalDate date, Bill.TransactionType type);
 
+    /**
+     * Serial number the next bill is expected to get. Storage shared by
+     * concurrent writers may assign another one on save.
+     */
     int getNextSerialNumber();
+
+    /**
+     * Streams bills dated within the range (inclusive) in serial number order.
+     * Forward-only cursor: bills are handed to the consumer as they are read
+     * rather than collected, so large ranges run in bounded memory.
+     */
+    void forEachInDateRange(LocalDate from, LocalDate to, Consumer<Bill> consumer);
 }
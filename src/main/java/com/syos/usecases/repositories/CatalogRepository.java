@@ -0,0 +1,16 @@
+package com.syos.usecases.repositories;
+
+import com.syos.entities.CatalogEntry;
+import java.util.List;
+
+/**
+ * Read-only repository for the online catalog: products joined with their
+ * online availability.
+ */
+public interface CatalogRepository {
+    /**
+     * Returns up to limit entries ordered by product code, starting after
+     * afterCode (null for the first page).
+     */
+    List<CatalogEntry> findPage(String afterCode, int limit);
+}
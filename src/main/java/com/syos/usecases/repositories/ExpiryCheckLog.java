@@ -0,0 +1,17 @@
+package com.syos.usecases.repositories;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Remembers the last day the expiry check published its events, so a
+ * restart does not announce the same expiring and expired batches again.
+ */
+public interface ExpiryCheckLog {
+    Optional<LocalDate> findLastCheckedDay();
+
+    /**
+     * Stores the day; it is durable when this returns.
+     */
+    void recordCheckedDay(LocalDate day);
+}
@@ -0,0 +1,54 @@
+package com.syos.usecases.repositories;
+
+import com.syos.entities.InventoryMovement;
+import com.syos.entities.InventorySnapshot;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Repository interface for the append-only inventory movement ledger and
+ * its daily snapshots.
+ */
+public interface InventoryLedgerRepository {
+    /**
+     * Locks the given products until the caller's transaction ends, so a
+     * stock check and the movements that depend on it are not interleaved
+     * with another writer's for the same products. Outside a transaction it
+     * is released straight away.
+     */
+    void lockProducts(Collection<String> productCodes);
+
+    /**
+     * Appends movements in order. IDs increase in append order, but
+     * concurrent transactions may commit them out of that order.
+     *
+     * @return the movements with their assigned, increasing IDs
+     */
+    List<InventoryMovement> append(List<InventoryMovement> movements);
+
+    /**
+     * Streams movements with an ID greater than the given one, in ID order.
+     */
+    default void forEachAfter(long movementId, Consumer<InventoryMovement> consumer) {
+        forEachAfter(movementId, List.of(), consumer);
+    }
+
+    /**
+     * Streams the committed movements with an ID greater than the given one
+     * or among the given earlier IDs, in ID order.
+     */
+    void forEachAfter(long movementId, Collection<Long> earlierIds, Consumer<InventoryMovement> consumer);
+
+    List<InventoryMovement> findByProductCode(String productCode);
+
+    void saveSnapshot(InventorySnapshot snapshot);
+
+    /**
+     * Latest snapshot dated on or before the given date.
+     */
+    Optional<InventorySnapshot> findLatestSnapshot(LocalDate onOrBefore);
+}
@@ -1,6 +1,7 @@
 package com.syos.usecases.repositories;
 
 import com.syos.entities.Inventory;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,11 +11,17 @@ import java.util.Optional;
 public interface InventoryRepository {
     void save(Inventory inventory);
 
+    void saveAll(List<Inventory> inventories);
+
     Optional<Inventory> findByProductCode(String productCode);
 
+    List<Inventory> findByProductCodes(Collection<String> productCodes);
+
     List<Inventory> findAll();
 
     void update(Inventory inventory);
 
+    void updateAll(List<Inventory> inventories);
+
     List<Inventory> findBelowReorderLevel();
 }
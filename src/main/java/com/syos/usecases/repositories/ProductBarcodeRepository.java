@@ -0,0 +1,25 @@
+package com.syos.usecases.repositories;
+
+import com.syos.entities.ProductBarcode;
+import java.util.List;
+
+/**
+ * Repository interface for the barcodes assigned to products.
+ */
+public interface ProductBarcodeRepository {
+    /**
+     * Fails if the barcode is already assigned to a product.
+     */
+    void save(ProductBarcode barcode);
+
+    void delete(long barcode);
+
+    /**
+     * Removes every barcode of the product, when the product is deleted.
+     */
+    void deleteByProductCode(String productCode);
+
+    List<ProductBarcode> findByProductCode(String productCode);
+
+    List<ProductBarcode> findAll();
+}
@@ -1,6 +1,7 @@
 package com.syos.usecases.repositories;
 
 import com.syos.entities.Product;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,8 +15,16 @@ import java.util.Optional;
 public interface ProductRepository {
     void save(Product product);
 
+    /**
+     * Saves several products in one batched write.
+     * Fails without saving anything if any product code already exists.
+     */
+    void saveAll(List<Product> products);
+
     Optional<Product> findByCode(String code);
 
+    List<Product> findByCodes(Collection<String> codes);
+
     List<Product> findAll();
 
     void update(Product product);
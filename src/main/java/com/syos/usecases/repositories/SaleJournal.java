@@ -0,0 +1,34 @@
+package com.syos.usecases.repositories;
+
+import com.syos.usecases.ProcessSaleUseCase.SaleRequest;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Till-local durable queue of sales waiting to be recorded centrally.
+ * Every journaled sale carries its pre-assigned bill ID, which is also the
+ * key used to acknowledge it.
+ */
+public interface SaleJournal {
+    /**
+     * Stores the sale; it is durable when this returns.
+     */
+    void append(SaleRequest sale);
+
+    /**
+     * Oldest pending sales first.
+     */
+    List<SaleRequest> findPending(int limit);
+
+    void acknowledge(Collection<Long> billIds);
+
+    /**
+     * Takes a sale the central store will not record off the pending queue
+     * and keeps it, with the reason, where an operator can review it. It is
+     * durable when this returns.
+     */
+    void reject(SaleRequest sale, String reason);
+
+    int countPending();
+}
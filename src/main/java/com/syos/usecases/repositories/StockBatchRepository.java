@@ -1,6 +1,7 @@
 package com.syos.usecases.repositories;
 
 import com.syos.entities.StockBatch;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,13 +11,30 @@ import java.util.Optional;
 public interface StockBatchRepository {
     void save(StockBatch stockBatch);
 
+    void saveAll(List<StockBatch> stockBatches);
+
     Optional<StockBatch> findById(String batchId);
 
     List<StockBatch> findByProductCode(String productCode);
 
+    /**
+     * Batches of the product that still have stock and have not expired on
+     * the given date, oldest purchase first.
+     */
+    List<StockBatch> findAvailableByProductCode(String productCode, LocalDate date);
+
     List<StockBatch> findAll();
 
     void update(StockBatch stockBatch);
 
     void delete(String batchId);
+
+    /**
+     * Moves depleted batches, and batches that expired before the given date,
+     * out of the live store into the archive.
+     * Returns the number of batches archived.
+     */
+    int archive(LocalDate expiredBefore);
+
+    List<StockBatch> findArchivedByProductCode(String productCode);
 }
@@ -0,0 +1,79 @@
+package com.syos.usecases.repositories;
+
+/**
+ * Abstraction over the persistence layer's transaction boundary.
+ * Lets use cases group several repository calls into one atomic unit of work
+ * without depending on the concrete storage technology.
+ */
+public interface TransactionManager {
+    /**
+     * Runs the given work in a single transaction.
+     * Nested calls join the surrounding transaction. Storage that does not
+     * isolate transactions (the JSON backend) lets other threads see the
+     * work's writes before it commits; callers that must not act on them
+     * serialize their transactions themselves.
+     *
+     * @param work Repository calls to execute atomically
+     * @return Result of the work
+     * @throws E if the work fails; the transaction is rolled back
+     */
+    <T, E extends Exception> T inTransaction(TransactionalWork<T, E> work) throws E;
+
+    /**
+     * Runs read-only work such as a report. The storage may serve it from a
+     * read replica that lags the primary by a bounded amount.
+     *
+     * @param work Repository reads to execute
+     * @return Result of the work
+     * @throws WorkloadRejectedException if reporting is being throttled
+     */
+    default <T, E extends Exception> T readOnly(TransactionalWork<T, E> work) throws E {
+        return work.execute();
+    }
+
+    /**
+     * Runs work as part of the given workload; storage that keeps separate
+     * connection pools per workload serves it from that workload's pool.
+     * Nested calls and calls inside a transaction keep the surrounding
+     * workload.
+     *
+     * @throws WorkloadRejectedException if the workload is being throttled
+     */
+    default <T, E extends Exception> T inWorkload(Workload workload, TransactionalWork<T, E> work) throws E {
+        return workload == Workload.REPORTING ? readOnly(work) : work.execute();
+    }
+
+    /**
+     * Runs the action when the calling thread's transaction ends, telling it
+     * whether the transaction committed. Outside a transaction it runs
+     * straight away as committed.
+     */
+    default void afterCompletion(CompletionAction action) {
+        action.completed(true);
+    }
+
+    /**
+     * Unit of work executed inside a transaction.
+     */
+    @FunctionalInterface
+    interface TransactionalWork<T, E extends Exception> {
+        T execute() throws E;
+    }
+
+    /**
+     * Callback for the end of a transaction.
+     */
+    @FunctionalInterface
+    interface CompletionAction {
+        void completed(boolean committed);
+    }
+
+    /**
+     * Thrown when lower-priority work is turned away to protect checkout.
+     */
+    class WorkloadRejectedException extends RuntimeException {
+        public WorkloadRejectedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -10,6 +10,8 @@ import java.util.Optional;
 public interface UserRepository {
     void save(User user);
 
+    void update(User user);
+
     Optional<User> findById(String userId);
 
     Optional<User> findByEmail(String email);
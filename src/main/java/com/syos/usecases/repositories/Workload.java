@@ -0,0 +1,14 @@
+package com.syos.usecases.repositories;
+
+/**
+ * Class of database work, used by the storage layer to keep back-office
+ * work from competing with checkout for connections.
+ */
+public enum Workload {
+    /** Sales and anything not assigned to another workload */
+    SALES,
+    /** Stock receipts, transfers, imports and catalog maintenance */
+    INVENTORY,
+    /** Reports and other read-only back-office queries */
+    REPORTING
+}
@@ -0,0 +1,220 @@
+package com.syos.usecases.search;
+
+import com.syos.entities.Product;
+import com.syos.entities.ProductBarcode;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Barcode to product lookup for the till.
+ * Barcodes are primitive long keys in an open-addressing table (linear
+ * probing, at most half full counting removed slots), so a scan is a few
+ * array reads with no boxing, hashing of strings or Optional. Writers change
+ * single slots in place, storing a slot's product before publishing its key,
+ * and only rebuild the table when it fills up; readers never lock.
+ */
+public class BarcodeIndex {
+    private static final int MIN_CAPACITY = 16;
+
+    // Authoritative copy used by writers, guarded by this
+    private final Map<Long, Product> entries = new HashMap<>();
+    private volatile Table table = new Table(MIN_CAPACITY);
+
+    /**
+     * Returns the product with the barcode, or null.
+     */
+    public Product find(long barcode) {
+        return table.get(barcode);
+    }
+
+    /**
+     * Looks up scanned text without allocating; returns null when the text is
+     * not a known barcode.
+     */
+    public Product find(CharSequence scanned) {
+        int length = scanned.length();
+        if (length == 0 || length > 18) {
+            return null;
+        }
+        long barcode = 0;
+        for (int i = 0; i < length; i++) {
+            char c = scanned.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            barcode = barcode * 10 + (c - '0');
+        }
+        return table.get(barcode);
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    /**
+     * Replaces the whole index, skipping barcodes of unknown products.
+     */
+    public synchronized void load(Collection<ProductBarcode> barcodes, Map<String, Product> productsByCode) {
+        entries.clear();
+        for (ProductBarcode barcode : barcodes) {
+            Product product = productsByCode.get(barcode.getProductCode());
+            if (product != null) {
+                entries.put(barcode.getBarcode(), product);
+            }
+        }
+        rebuild();
+    }
+
+    public synchronized void put(long barcode, Product product) {
+        entries.put(barcode, product);
+        if (!table.replace(barcode, product)) {
+            if (table.isFull()) {
+                rebuild();
+            } else {
+                table.insert(barcode, product);
+            }
+        }
+    }
+
+    public synchronized void remove(long barcode) {
+        if (entries.remove(barcode) != null) {
+            table.remove(barcode);
+        }
+    }
+
+    /**
+     * Points every barcode of the product at its new details.
+     */
+    public synchronized void replaceProduct(Product product) {
+        for (Map.Entry<Long, Product> entry : entries.entrySet()) {
+            if (entry.getValue().getCode().equals(product.getCode())) {
+                entry.setValue(product);
+                table.replace(entry.getKey(), product);
+            }
+        }
+    }
+
+    public synchronized void removeProduct(String productCode) {
+        for (Long barcode : barcodesOf(productCode)) {
+            entries.remove(barcode);
+            table.remove(barcode);
+        }
+    }
+
+    public synchronized List<Long> barcodesOf(String productCode) {
+        List<Long> barcodes = new ArrayList<>();
+        entries.forEach((barcode, product) -> {
+            if (product.getCode().equals(productCode)) {
+                barcodes.add(barcode);
+            }
+        });
+        barcodes.sort(null);
+        return barcodes;
+    }
+
+    private void rebuild() {
+        Table rebuilt = new Table(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, entries.size())) * 4));
+        entries.forEach(rebuilt::insert);
+        table = rebuilt;
+    }
+
+    private static final class Table {
+        private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+        private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Product[].class);
+        private static final long EMPTY = 0; // barcodes are positive
+        private static final long REMOVED = -1;
+
+        final long[] keys;
+        final Product[] values;
+        final int mask;
+        final int shift;
+        volatile int size;
+        int used; // occupied and removed slots
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Product[capacity];
+            mask = capacity - 1;
+            shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        }
+
+        Product get(long key) {
+            for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+                long current = (long) KEYS.getAcquire(keys, slot);
+                if (current == key) {
+                    return (Product) VALUES.getAcquire(values, slot);
+                }
+                if (current == EMPTY) {
+                    return null;
+                }
+            }
+        }
+
+        boolean isFull() {
+            return (used + 1) * 2 > keys.length;
+        }
+
+        /**
+         * Adds a key that is not in the table; the caller checks isFull first.
+         */
+        void insert(long key, Product value) {
+            int slot = slotOf(key);
+            while (keys[slot] != EMPTY && keys[slot] != REMOVED) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                used++;
+            }
+            VALUES.setRelease(values, slot, value);
+            KEYS.setRelease(keys, slot, key);
+            size++;
+        }
+
+        /**
+         * Points an existing key at a new value.
+         *
+         * @return false if the key is not in the table
+         */
+        boolean replace(long key, Product value) {
+            int slot = find(key);
+            if (slot < 0) {
+                return false;
+            }
+            VALUES.setRelease(values, slot, value);
+            return true;
+        }
+
+        /**
+         * Marks the key's slot as removed, so probes for keys stored past it
+         * still reach them.
+         */
+        void remove(long key) {
+            int slot = find(key);
+            if (slot >= 0) {
+                KEYS.setRelease(keys, slot, REMOVED);
+                VALUES.setRelease(values, slot, null);
+                size--;
+            }
+        }
+
+        private int find(long key) {
+            for (int slot = slotOf(key); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        // Fibonacci hashing spreads sequential barcodes across the table
+        private int slotOf(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.syos.usecases.search;
+
+import com.syos.entities.Product;
+import com.syos.usecases.repositories.ProductBarcodeRepository;
+import com.syos.usecases.repositories.ProductRepository;
+import com.syos.usecases.repositories.TransactionManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ProductRepository that keeps a ProductSearchIndex and a BarcodeIndex in
+ * step with every write.
+ * Implements Decorator Pattern - wraps any ProductRepository, so both storage
+ * backends get search without changes. Deleting a product also deletes
+ * its barcodes, in one transaction.
+ */
+public class IndexedProductRepository implements ProductRepository {
+    private final ProductRepository delegate;
+    private final ProductBarcodeRepository barcodeRepository;
+    private final TransactionManager transactionManager;
+    private final ProductSearchIndex searchIndex;
+    private final BarcodeIndex barcodeIndex = new BarcodeIndex();
+
+    public IndexedProductRepository(ProductRepository delegate, ProductBarcodeRepository barcodeRepository,
+            TransactionManager transactionManager) {
+        this.delegate = delegate;
+        this.barcodeRepository = barcodeRepository;
+        this.transactionManager = transactionManager;
+        List<Product> products = delegate.findAll();
+        this.searchIndex = new ProductSearchIndex(products);
+        Map<String, Product> productsByCode = products.stream()
+                .collect(Collectors.toMap(Product::getCode, Function.identity()));
+        barcodeIndex.load(barcodeRepository.findAll(), productsByCode);
+    }
+
+    public ProductSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public BarcodeIndex getBarcodeIndex() {
+        return barcodeIndex;
+    }
+
+    @Override
+    public void save(Product product) {
+        delegate.save(product);
+        searchIndex.add(product);
+    }
+
+    @Override
+    public void saveAll(List<Product> products) {
+        delegate.saveAll(products);
+        searchIndex.addAll(products);
+    }
+
+    @Override
+    public Optional<Product> findByCode(String code) {
+        return delegate.findByCode(code);
+    }
+
+    @Override
+    public List<Product> findByCodes(Collection<String> codes) {
+        return delegate.findByCodes(codes);
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void update(Product product) {
+        delegate.update(product);
+        searchIndex.add(product);
+        barcodeIndex.replaceProduct(product);
+    }
+
+    @Override
+    public void delete(String code) {
+        transactionManager.inTransaction(() -> {
+            barcodeRepository.deleteByProductCode(code);
+            delegate.delete(code);
+            return null;
+        });
+        searchIndex.remove(code);
+        barcodeIndex.removeProduct(code);
+    }
+
+    @Override
+    public boolean exists(String code) {
+        return delegate.exists(code);
+    }
+}
@@ -0,0 +1,426 @@
+package com.syos.usecases.search;
+
+import com.syos.entities.Product;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory search over product codes and names.
+ * Words are kept in a sorted vocabulary for prefix matches and in a trigram
+ * index for substring and typo-tolerant matches. Each query word is matched
+ * against the vocabulary once, and the best score per product is summed over
+ * the query words to pick the top results.
+ */
+public class ProductSearchIndex {
+    private static final int EXACT_CODE_SCORE = 1000;
+    private static final int EXACT_WORD_SCORE = 100;
+    private static final int PREFIX_SCORE = 60;
+    private static final int SUBSTRING_SCORE = 40;
+    private static final int FUZZY_SCORE = 30;
+    private static final int PENALTY_PER_EDIT = 10;
+    private static final int MAX_PREFIX_WORDS = 1000;
+
+    // Per-thread score buffers, all zero between searches
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> idsByCode = new HashMap<>();
+    // Indexed products by id, null for removed ones
+    private final List<Document> documents = new ArrayList<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    // Word -> ids of the products containing it
+    private final NavigableMap<String, Postings> words = new TreeMap<>();
+    // Trigram of "^word$" -> words containing it
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+    public ProductSearchIndex() {
+    }
+
+    public ProductSearchIndex(Collection<Product> products) {
+        addAll(products);
+    }
+
+    public void add(Product product) {
+        addAll(List.of(product));
+    }
+
+    /**
+     * Adds or replaces the given products.
+     */
+    public void addAll(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                removeDocument(product.getCode());
+
+                Document document = new Document(product);
+                int id = freeIds.isEmpty() ? documents.size() : freeIds.pop();
+                if (id == documents.size()) {
+                    documents.add(document);
+                } else {
+                    documents.set(id, document);
+                }
+                idsByCode.put(product.getCode(), id);
+
+                for (String word : document.words) {
+                    Postings postings = words.get(word);
+                    if (postings == null) {
+                        postings = new Postings();
+                        words.put(word, postings);
+                        for (String gram : trigramsOf(word)) {
+                            trigrams.computeIfAbsent(gram, g -> new LinkedHashSet<>()).add(word);
+                        }
+                    }
+                    postings.add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String productCode) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productCode);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return idsByCode.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to limit products matching the query, best match first.
+     * Every word of the query is matched against product codes and name
+     * words exactly, as a prefix, as a substring (3+ characters) or, when
+     * none of those match, with up to one typo (two for 8+ characters).
+     */
+    public List<Product> search(String query, int limit) {
+        List<String> queryWords = tokenize(query);
+        if (queryWords.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Scratch scratch = SCRATCH.get().ensureCapacity(documents.size());
+            int[] scores = scratch.scores;
+            int[] best = scratch.best;
+            int[] touched = scratch.touched;
+            int[] matched = scratch.matched;
+            int touchedCount = 0;
+
+            for (String queryWord : queryWords) {
+                int matchedCount = 0;
+                for (Map.Entry<String, Integer> match : matchWord(queryWord).entrySet()) {
+                    Postings postings = words.get(match.getKey());
+                    int score = match.getValue();
+                    for (int i = 0; i < postings.size; i++) {
+                        int id = postings.ids[i];
+                        if (best[id] == 0) {
+                            matched[matchedCount++] = id;
+                        }
+                        best[id] = Math.max(best[id], score);
+                    }
+                }
+                for (int i = 0; i < matchedCount; i++) {
+                    int id = matched[i];
+                    if (scores[id] == 0) {
+                        touched[touchedCount++] = id;
+                    }
+                    scores[id] += best[id];
+                    best[id] = 0;
+                }
+            }
+
+            Integer codeId = idsByCode.get(query.trim());
+            if (codeId != null) {
+                if (scores[codeId] == 0) {
+                    touched[touchedCount++] = codeId;
+                }
+                scores[codeId] += EXACT_CODE_SCORE;
+            }
+
+            List<Product> results = topResults(scores, touched, touchedCount, limit);
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0;
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scores every vocabulary word matching the query word.
+     */
+    private Map<String, Integer> matchWord(String queryWord) {
+        Map<String, Integer> matches = new HashMap<>();
+
+        int scanned = 0;
+        for (String word : words.subMap(queryWord, true, queryWord + Character.MAX_VALUE, false).keySet()) {
+            matches.put(word, word.equals(queryWord) ? EXACT_WORD_SCORE : PREFIX_SCORE);
+            if (++scanned == MAX_PREFIX_WORDS) {
+                break;
+            }
+        }
+
+        if (queryWord.length() < 3) {
+            return matches;
+        }
+
+        for (String word : substringCandidates(queryWord)) {
+            if (!matches.containsKey(word) && word.contains(queryWord)) {
+                matches.put(word, SUBSTRING_SCORE);
+            }
+        }
+
+        if (matches.isEmpty()) {
+            addFuzzyMatches(queryWord, matches);
+        }
+        return matches;
+    }
+
+    /**
+     * Words containing every inner trigram of the query word.
+     */
+    private Set<String> substringCandidates(String queryWord) {
+        Set<String> smallest = null;
+        for (int i = 0; i + 3 <= queryWord.length(); i++) {
+            Set<String> gramWords = trigrams.get(queryWord.substring(i, i + 3));
+            if (gramWords == null) {
+                return Set.of();
+            }
+            if (smallest == null || gramWords.size() < smallest.size()) {
+                smallest = gramWords;
+            }
+        }
+        return smallest;
+    }
+
+    private void addFuzzyMatches(String queryWord, Map<String, Integer> matches) {
+        Set<String> grams = trigramsOf(queryWord);
+        Map<String, Integer> sharedGrams = new HashMap<>();
+        for (String gram : grams) {
+            for (String word : trigrams.getOrDefault(gram, Set.of())) {
+                sharedGrams.merge(word, 1, Integer::sum);
+            }
+        }
+
+        int maxEdits = queryWord.length() >= 8 ? 2 : 1;
+        // A substitution, insertion or deletion changes at most three trigrams, a transposition four
+        int minShared = Math.max(1, grams.size() - 4 * maxEdits);
+        for (Map.Entry<String, Integer> candidate : sharedGrams.entrySet()) {
+            String word = candidate.getKey();
+            if (candidate.getValue() < minShared || matches.containsKey(word)) {
+                continue;
+            }
+            int edits = editDistance(queryWord, word, maxEdits);
+            if (edits <= maxEdits) {
+                matches.put(word, FUZZY_SCORE - PENALTY_PER_EDIT * edits);
+            }
+        }
+    }
+
+    private List<Product> topResults(int[] scores, int[] touched, int touchedCount, int limit) {
+        // Worst result at the head: lowest score, then longest name, then latest indexed
+        PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, (a, b) -> {
+            if (scores[a] != scores[b]) {
+                return Integer.compare(scores[a], scores[b]);
+            }
+            int firstLength = documents.get(a).nameLength;
+            int secondLength = documents.get(b).nameLength;
+            if (firstLength != secondLength) {
+                return Integer.compare(secondLength, firstLength);
+            }
+            return Integer.compare(b, a);
+        });
+
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            if (top.size() == limit && scores[id] < scores[top.peek()]) {
+                continue;
+            }
+            top.add(id);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        Product[] results = new Product[top.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            results[i] = documents.get(top.poll()).product;
+        }
+        return Arrays.asList(results);
+    }
+
+    private void removeDocument(String productCode) {
+        Integer id = idsByCode.remove(productCode);
+        if (id == null) {
+            return;
+        }
+        Document document = documents.set(id, null);
+        freeIds.push(id);
+
+        for (String word : document.words) {
+            Postings postings = words.get(word);
+            postings.remove(id);
+            if (postings.size == 0) {
+                words.remove(word);
+                for (String gram : trigramsOf(word)) {
+                    Set<String> gramWords = trigrams.get(gram);
+                    gramWords.remove(word);
+                    if (gramWords.isEmpty()) {
+                        trigrams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Lower-cased runs of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> trigramsOf(String word) {
+        String padded = "^" + word + "$";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Optimal string alignment distance (insertions, deletions, substitutions
+     * and adjacent transpositions), or max + 1 once it exceeds max.
+     */
+    private static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static class Document {
+        final Product product;
+        final Set<String> words;
+        final int nameLength;
+
+        Document(Product product) {
+            this.product = product;
+            this.nameLength = product.getName().length();
+            this.words = new LinkedHashSet<>(tokenize(product.getCode()));
+            this.words.addAll(tokenize(product.getName()));
+        }
+    }
+
+    private static class Scratch {
+        int[] scores = new int[0];
+        int[] best = new int[0];
+        int[] touched = new int[0];
+        int[] matched = new int[0];
+
+        Scratch ensureCapacity(int capacity) {
+            if (scores.length < capacity) {
+                int length = Math.max(capacity, scores.length * 2);
+                scores = new int[length];
+                best = new int[length];
+                touched = new int[length];
+                matched = new int[length];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Growable list of product ids.
+     */
+    private static class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        void remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.syos.usecases.sessions;
+
+import com.syos.entities.User;
+import com.syos.usecases.AuthenticateUserUseCase;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Authenticated sessions for the online store.
+ * A login checks credentials once and issues a random token; later requests
+ * resolve the token from memory without touching the user store. Sessions
+ * expire after a period of inactivity, and the least recently used session
+ * is dropped when the cache is full.
+ */
+public class SessionManager {
+    private static final int TOKEN_BYTES = 32;
+
+    private final AuthenticateUserUseCase authenticateUserUseCase;
+    private final Duration timeToLive;
+    private final int maxSessions;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+    // Access-ordered, so the eldest entry is the least recently used; guarded by this
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+    public SessionManager(AuthenticateUserUseCase authenticateUserUseCase) {
+        this(authenticateUserUseCase,
+                Duration.ofMinutes(Long.getLong("syos.sessions.ttl-minutes", 30)),
+                Integer.getInteger("syos.sessions.max", 100_000),
+                Clock.systemUTC());
+    }
+
+    public SessionManager(AuthenticateUserUseCase authenticateUserUseCase, Duration timeToLive, int maxSessions,
+            Clock clock) {
+        if (maxSessions <= 0) {
+            throw new IllegalArgumentException("Maximum sessions must be positive");
+        }
+        this.authenticateUserUseCase = authenticateUserUseCase;
+        this.timeToLive = timeToLive;
+        this.maxSessions = maxSessions;
+        this.clock = clock;
+    }
+
+    /**
+     * Verifies the credentials and opens a new session.
+     */
+    public Session login(String email, String password) throws AuthenticateUserUseCase.AuthenticationException {
+        User user = authenticateUserUseCase.execute(email, password);
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        Session session = new Session(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), user,
+                clock.instant().plus(timeToLive));
+
+        synchronized (this) {
+            if (sessions.size() >= maxSessions) {
+                removeExpired(clock.instant());
+            }
+            if (sessions.size() >= maxSessions) {
+                Iterator<Session> eldest = sessions.values().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+            sessions.put(session.getToken(), session);
+        }
+        return session;
+    }
+
+    /**
+     * Returns the user of a live session and extends it.
+     */
+    public Optional<User> authenticate(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        Instant now = clock.instant();
+        synchronized (this) {
+            Session session = sessions.get(token);
+            if (session == null) {
+                return Optional.empty();
+            }
+            if (!now.isBefore(session.expiresAt)) {
+                sessions.remove(token);
+                return Optional.empty();
+            }
+            session.expiresAt = now.plus(timeToLive);
+            return Optional.of(session.getUser());
+        }
+    }
+
+    public synchronized void logout(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Every access moves a session to the end and sets its expiry to the
+     * same time-to-live from then, so sessions expire in iteration order and
+     * the scan stops at the first live one.
+     */
+    private void removeExpired(Instant now) {
+        for (Iterator<Map.Entry<String, Session>> it = sessions.entrySet().iterator(); it.hasNext();) {
+            if (now.isBefore(it.next().getValue().expiresAt)) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    public static class Session {
+        private final String token;
+        private final User user;
+        private Instant expiresAt; // guarded by the SessionManager
+
+        private Session(String token, User user, Instant expiresAt) {
+            this.token = token;
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public User getUser() {
+            return user;
+        }
+    }
+}
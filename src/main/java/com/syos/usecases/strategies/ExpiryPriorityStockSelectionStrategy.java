@@ -1,6 +1,7 @@
 package com.syos.usecases.strategies;
 
 import com.syos.entities.StockBatch;
+import java.time.LocalDate;
 import java.util.Comparator;
 import java.util.List;
 
@@ -28,9 +29,10 @@ public class ExpiryPriorityStockSelectionStrategy implements StockSelectionStrat
         }
 
         // Filter out expired and empty batches
+        LocalDate today = LocalDate.now();
         List<StockBatch> availableBatches = batches.stream()
                 .filter(batch -> batch.getQuantity() > 0)
-                .filter(batch -> !batch.isExpired())
+                .filter(batch -> !batch.isExpiredOn(today))
                 .toList();
 
         if (availableBatches.isEmpty()) {
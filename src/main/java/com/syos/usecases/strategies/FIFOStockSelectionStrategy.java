@@ -1,6 +1,7 @@
 package com.syos.usecases.strategies;
 
 import com.syos.entities.StockBatch;
+import java.time.LocalDate;
 import java.util.Comparator;
 import java.util.List;
 
@@ -16,9 +17,10 @@ public class FIFOStockSelectionStrategy implements StockSelectionStrategy {
             return null;
         }
 
+        LocalDate today = LocalDate.now();
         return batches.stream()
                 .filter(batch -> batch.getQuantity() > 0)
-                .filter(batch -> !batch.isExpired())
+                .filter(batch -> !batch.isExpiredOn(today))
                 .min(Comparator.comparing(StockBatch::getPurchaseDate))
                 .orElse(null);
     }
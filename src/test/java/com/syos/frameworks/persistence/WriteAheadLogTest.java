@@ -0,0 +1,99 @@
+package com.syos.frameworks.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void failedBatchKeepsRecordsAppendedConcurrently() throws Exception {
+        WriteAheadLog shared = new WriteAheadLog(dir.resolve("shared.log"));
+        CountDownLatch syncing = new CountDownLatch(1);
+        CountDownLatch failSync = new CountDownLatch(1);
+        WriteAheadLog failing = new WriteAheadLog(dir.resolve("failing.log")) {
+            @Override
+            synchronized void sync() {
+                syncing.countDown();
+                try {
+                    failSync.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new UncheckedIOException("Failed to sync write-ahead log", new IOException("disk full"));
+            }
+        };
+
+        AtomicReference<Throwable> batchFailure = new AtomicReference<>();
+        Thread batch = new Thread(() -> {
+            try {
+                WriteAheadLog.inBatch(() -> {
+                    shared.append(bytes("batch"));
+                    failing.append(bytes("batch"));
+                    return null;
+                });
+            } catch (Throwable e) {
+                batchFailure.set(e);
+            }
+        });
+        batch.start();
+        syncing.await();
+
+        Thread appender = new Thread(() -> shared.append(bytes("other")));
+        appender.start();
+        while (appender.getState() != Thread.State.BLOCKED && appender.isAlive()) {
+            Thread.sleep(1);
+        }
+        failSync.countDown();
+        batch.join();
+        appender.join();
+
+        assertTrue(batchFailure.get() instanceof UncheckedIOException);
+        assertEquals(List.of("other"), records(shared));
+        assertEquals(List.of(), records(failing));
+    }
+
+    @Test
+    void failedSyncRollsBackTheBatch() {
+        WriteAheadLog log = new WriteAheadLog(dir.resolve("log"));
+        log.append(bytes("before"));
+        WriteAheadLog failing = new WriteAheadLog(dir.resolve("failing.log")) {
+            @Override
+            synchronized void sync() {
+                throw new UncheckedIOException("Failed to sync write-ahead log", new IOException("disk full"));
+            }
+        };
+
+        assertThrows(UncheckedIOException.class, () -> WriteAheadLog.inBatch(() -> {
+            log.append(bytes("batch"));
+            failing.append(bytes("batch"));
+            return null;
+        }));
+
+        assertEquals(List.of("before"), records(log));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> records(WriteAheadLog log) {
+        List<String> records = new ArrayList<>();
+        log.replay(payload -> records.add(new String(payload, StandardCharsets.UTF_8)));
+        return records;
+    }
+}
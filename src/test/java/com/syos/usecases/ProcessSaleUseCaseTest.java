@@ -0,0 +1,118 @@
+package com.syos.usecases;
+
+import com.syos.entities.Bill;
+import com.syos.entities.Inventory;
+import com.syos.entities.Product;
+import com.syos.entities.StockBatch;
+import com.syos.entities.Store;
+import com.syos.usecases.ledger.InventoryLedger;
+import com.syos.usecases.observers.InventorySubject;
+import com.syos.usecases.repositories.BillRepository;
+import com.syos.usecases.repositories.ProductRepository;
+import com.syos.usecases.repositories.StockBatchRepository;
+import com.syos.usecases.repositories.TransactionManager;
+import com.syos.usecases.strategies.StockSelectionStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProcessSaleUseCaseTest {
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final BillRepository billRepository = mock(BillRepository.class);
+    private final InventoryLedger inventoryLedger = mock(InventoryLedger.class);
+    private final StockBatchRepository stockBatchRepository = mock(StockBatchRepository.class);
+    private final StockSelectionStrategy stockSelectionStrategy = mock(StockSelectionStrategy.class);
+    private final TransactionManager transactionManager = new TransactionManager() {
+        @Override
+        public <T, E extends Exception> T inTransaction(TransactionalWork<T, E> work) throws E {
+            return work.execute();
+        }
+    };
+    private ProcessSaleUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        useCase = new ProcessSaleUseCase(Store.DEFAULT_ID, productRepository, billRepository, inventoryLedger,
+                stockBatchRepository, stockSelectionStrategy, new InventorySubject(),
+                transactionManager, () -> 1L);
+        when(productRepository.findByCode("P1")).thenReturn(Optional.of(new Product.Builder()
+                .code("P1").name("Milk").unit("pcs").price(100).build()));
+        when(inventoryLedger.getCurrentLevels("P1"))
+                .thenReturn(Optional.of(new Inventory(Store.DEFAULT_ID, "P1", 5, 0, 0)));
+        when(stockSelectionStrategy.selectBatch(any())).thenReturn(new StockBatch(Store.DEFAULT_ID, "P1",
+                LocalDate.now(), 5, LocalDate.now().plusDays(30)));
+        when(inventoryLedger.record(any())).thenReturn(List.of());
+    }
+
+    @Test
+    void rejectsRepeatedLinesThatTogetherExceedStock() {
+        ProcessSaleUseCase.SaleRequest request = new ProcessSaleUseCase.SaleRequest(List.of(
+                new ProcessSaleUseCase.SaleRequest.SaleItem("P1", 3),
+                new ProcessSaleUseCase.SaleRequest.SaleItem("P1", 3)),
+                1000, Bill.TransactionType.COUNTER, null);
+
+        ProcessSaleUseCase.SaleException e = assertThrows(ProcessSaleUseCase.SaleException.class,
+                () -> useCase.execute(request));
+
+        assertEquals("Insufficient stock for product: Milk. Available: 5, Requested: 6", e.getMessage());
+        verify(inventoryLedger, never()).record(any());
+        verify(billRepository, never()).save(any());
+    }
+
+    @Test
+    void recordsAPreassignedSaleWithoutLookingItUp() throws Exception {
+        ProcessSaleUseCase.SaleRequest request = sale(2).withBill(42, LocalDateTime.now());
+
+        useCase.execute(request);
+
+        verify(billRepository, never()).findByBillId(anyLong(), any());
+        verify(billRepository).save(any());
+    }
+
+    @Test
+    void returnsTheRecordedBillForAReplayedSale() throws Exception {
+        LocalDateTime billDate = LocalDateTime.now();
+        Bill recorded = mock(Bill.class);
+        when(billRepository.findByBillId(42, billDate.toLocalDate())).thenReturn(Optional.of(recorded));
+
+        Bill bill = useCase.execute(sale(2).withBill(42, billDate).asReplay());
+
+        assertSame(recorded, bill);
+        verify(inventoryLedger, never()).record(any());
+        verify(billRepository, never()).save(any());
+    }
+
+    @Test
+    void billsPricedItemsAtTheirOwnPrice() throws Exception {
+        ProcessSaleUseCase.SaleRequest request = new ProcessSaleUseCase.SaleRequest(
+                List.of(new ProcessSaleUseCase.SaleRequest.SaleItem("P1", 2, 80, 10)),
+                1000, Bill.TransactionType.COUNTER, null).withBill(42, LocalDateTime.now()).asReplay();
+        when(billRepository.findByBillId(anyLong(), any())).thenReturn(Optional.empty());
+        when(billRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Bill bill = useCase.execute(request);
+
+        assertEquals(80.0, bill.getItems().get(0).getPrice());
+        assertEquals(10.0, bill.getItems().get(0).getDiscountPercentage());
+        assertEquals(144.0, bill.getTotal());
+    }
+
+    private static ProcessSaleUseCase.SaleRequest sale(int quantity) {
+        return new ProcessSaleUseCase.SaleRequest(List.of(new ProcessSaleUseCase.SaleRequest.SaleItem("P1", quantity)),
+                1000, Bill.TransactionType.COUNTER, null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.syos.usecases.offline;
+
+import com.syos.entities.Bill;
+import com.syos.entities.Product;
+import com.syos.entities.Store;
+import com.syos.usecases.ProcessSaleUseCase.SaleRequest;
+import com.syos.usecases.repositories.ProductRepository;
+import com.syos.usecases.repositories.SaleJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OfflineSaleProcessorTest {
+    private final InMemorySaleJournal journal = new InMemorySaleJournal();
+    private final List<SaleRequest> centralSales = new ArrayList<>();
+    private volatile boolean centralDown = true;
+    private OfflineSaleProcessor processor;
+
+    @AfterEach
+    void tearDown() {
+        processor.close();
+    }
+
+    @Test
+    void replaysAnOfflineSaleAtItsProvisionalPrices() throws Exception {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findAll()).thenReturn(List.of(product(100)));
+        AtomicLong billIds = new AtomicLong();
+        processor = new OfflineSaleProcessor(Store.DEFAULT_ID, sale -> {
+            if (centralDown) {
+                throw new IllegalStateException("Central store unavailable");
+            }
+            centralSales.add(sale);
+            return null;
+        }, journal, productRepository, billIds::incrementAndGet, 1000, 60_000);
+
+        Bill provisional = processor.process(new SaleRequest(List.of(new SaleRequest.SaleItem("P1", 2)),
+                200, Bill.TransactionType.COUNTER, null));
+        when(productRepository.findAll()).thenReturn(List.of(product(150)));
+        centralDown = false;
+        processor.synchronize();
+
+        assertEquals(200.0, provisional.getTotal());
+        assertEquals(1, centralSales.size());
+        SaleRequest.SaleItem replayed = centralSales.get(0).getItems().get(0);
+        assertTrue(replayed.isPriced());
+        assertEquals(100.0, replayed.getPrice());
+        assertTrue(centralSales.get(0).isReplay());
+    }
+
+    private static Product product(double price) {
+        return new Product.Builder().code("P1").name("Milk").unit("pcs").price(price).build();
+    }
+
+    private static class InMemorySaleJournal implements SaleJournal {
+        private final Map<Long, SaleRequest> pending = new LinkedHashMap<>();
+
+        @Override
+        public synchronized void append(SaleRequest sale) {
+            pending.put(sale.getBillId(), sale);
+        }
+
+        @Override
+        public synchronized List<SaleRequest> findPending(int limit) {
+            return new ArrayList<>(pending.values()).subList(0, Math.min(limit, pending.size()));
+        }
+
+        @Override
+        public synchronized void acknowledge(Collection<Long> billIds) {
+            billIds.forEach(pending::remove);
+        }
+
+        @Override
+        public synchronized void reject(SaleRequest sale, String reason) {
+            pending.remove(sale.getBillId());
+        }
+
+        @Override
+        public synchronized int countPending() {
+            return pending.size();
+        }
+    }
+}